@@ -7,11 +7,56 @@ const useGameSocket = (roomId, username) => {
   const [isConnected, setIsConnected] = useState(false);
   const [startText, setStartText] = useState(null);
   const [winner, setWinner] = useState(null);
+  const [roomSummary, setRoomSummary] = useState(null);
   
   const clientRef = useRef(null);
+  // Last room epoch and version applied; sent on (re)join so the server can reply with a delta.
+  // A room id that was retired and reused gets a new, larger epoch and starts its versions over.
+  const epochRef = useRef(null);
+  const versionRef = useRef(null);
 
   useEffect(() => {
     if (!roomId || !username) return;
+    epochRef.current = null;
+    versionRef.current = null;
+
+    // Updates older than what we already applied are dropped; a newer room epoch always wins
+    const isFresh = (data) => data.version === undefined || versionRef.current === null
+      || data.epoch > epochRef.current
+      || (data.epoch === epochRef.current && data.version > versionRef.current);
+
+    const applyCursor = (data) => {
+      epochRef.current = data.epoch;
+      versionRef.current = data.version;
+    };
+
+    const applyUpdate = (data) => {
+      if (!Array.isArray(data.players) || !isFresh(data)) return;
+      setPlayers(data.players);
+      if (data.version !== undefined) applyCursor(data);
+    };
+
+    // Late join / reconnect: the whole room, or only what changed since our version
+    const applySync = (data) => {
+      if (data.type === 'ROOM_SNAPSHOT') {
+        setPlayers(data.players);
+        if (data.started) setStartText(data.text);
+        setWinner(data.winner ?? null);
+        applyCursor(data);
+      } else if (data.type === 'ROOM_DELTA' && isFresh(data)) {
+        const removed = new Set(data.removed);
+        setPlayers(prev => {
+          const changed = new Map(data.players.map(p => [p.username, p]));
+          const kept = prev
+            .filter(p => !removed.has(p.username))
+            .map(p => changed.get(p.username) ?? p);
+          const known = new Set(kept.map(p => p.username));
+          return kept.concat(data.players.filter(p => !known.has(p.username)));
+        });
+        if (data.winner) setWinner(data.winner);
+        applyCursor(data);
+      }
+    };
 
     // 1. Initialize Client
     const client = createStompClient(
@@ -37,10 +82,13 @@ const useGameSocket = (roomId, username) => {
         }
 
         if (data.type === 'PLAYER_UPDATE') {
-          // Backend sends: { type: 'PLAYER_UPDATE', players: [...] }
-          if (Array.isArray(data.players)) {
-            setPlayers(data.players);
-          }
+          // Backend sends: { type: 'PLAYER_UPDATE', players: [...], epoch, version }
+          applyUpdate(data);
+        }
+
+        if (data.type === 'ROOM_SUMMARY') {
+          // Big rooms: low-rate { totalPlayers, histogram: [10 buckets], leaders: [...] }
+          setRoomSummary(data);
         }
 
         if (data.type === 'FINISH') {
@@ -48,16 +96,30 @@ const useGameSocket = (roomId, username) => {
         }
       });
 
+      // Sent to this session only: big-room views (leaders + nearest rivals)
+      // and the snapshot/delta that catches a late or returning player up
+      client.subscribe(`/user/queue/game/${roomId}`, (message) => {
+        const data = JSON.parse(message.body);
+        if (data.type === 'PLAYER_UPDATE') {
+          applyUpdate(data);
+        } else {
+          applySync(data);
+        }
+      });
+
       // Listen for Chat
       client.subscribe(`/topic/chat/${roomId}`, (message) => {
         const data = JSON.parse(message.body);
         setMessages(prev => [...prev, data]);
       });
 
-      // Notify server I have joined
+      // Notify server I have joined (again, after a reconnect)
+      const join = versionRef.current === null
+        ? { username }
+        : { username, epoch: epochRef.current, version: versionRef.current };
       client.publish({
         destination: `/app/join/${roomId}`,
-        body: JSON.stringify({ username })
+        body: JSON.stringify(join)
       });
     };
 
@@ -95,7 +157,7 @@ const useGameSocket = (roomId, username) => {
     }
   };
 
-  return { isConnected, players, messages, startText, winner, sendProgress, sendFinish, sendChat };
+  return { isConnected, players, roomSummary, messages, startText, winner, sendProgress, sendFinish, sendChat };
 };
 
 export default useGameSocket;
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.typinggame.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.typinggame.io.HistoryExporter;
+import com.typinggame.io.ScoreManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for downloading a player's logged game history.
+ *
+ * The export is streamed straight from the score log to the response, so
+ * memory stays constant however long the history is. Downloads can be
+ * resumed: the ETag is the number of games the export covers, and a Range
+ * request whose If-Range names that ETag gets exactly the same bytes, even
+ * if more games have been logged since.
+ */
+@RestController
+@RequestMapping("/api/history")
+public class HistoryExportController {
+
+    private final ScoreManager scoreManager;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    public HistoryExportController(ScoreManager scoreManager) {
+        this.scoreManager = scoreManager;
+    }
+
+    /**
+     * GET /api/history/{username}/export?format=csv|jsonl|text&mode=&from=yyyy-MM-dd&to=yyyy-MM-dd
+     * Dates are inclusive, in the server's time zone. Supports a single byte Range.
+     */
+    @GetMapping("/{username}/export")
+    public ResponseEntity<StreamingResponseBody> exportHistory(@PathVariable String username,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String mode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader HttpHeaders requestHeaders) {
+        HistoryExporter.Format exportFormat;
+        try {
+            exportFormat = HistoryExporter.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, "Format must be csv, jsonl or text");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return error(HttpStatus.BAD_REQUEST, "'from' must not be after 'to'");
+        }
+
+        try {
+            long logged = scoreManager.getScoreLog().count(username);
+            if (logged == 0) {
+                return error(HttpStatus.NOT_FOUND, "No games recorded for " + username);
+            }
+
+            ZoneId zone = ZoneId.systemDefault();
+            HistoryExporter.Filter filter = new HistoryExporter.Filter(
+                    mode == null || mode.isBlank() ? null : mode,
+                    from == null ? null : from.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    to == null ? null : to.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+
+            // Resuming: serve the same games as the download being resumed, or everything again
+            long records = logged;
+            List<HttpRange> ranges = parseRanges(requestHeaders);
+            String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+            if (ranges.size() == 1 && ifRange != null) {
+                Long tagged = recordsFromETag(ifRange);
+                if (tagged != null && tagged <= logged) {
+                    records = tagged;
+                } else {
+                    ranges = List.of();
+                }
+            }
+
+            HistoryExporter exporter = scoreManager.getHistoryExporter();
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"));
+            headers.setETag("\"" + records + "\"");
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+            headers.setContentDisposition(ContentDisposition.attachment()
+                    .filename(username + "-history." + exportFormat.getExtension()).build());
+
+            long pinned = records;
+            if (ranges.size() != 1) {
+                return ResponseEntity.ok().headers(headers)
+                        .body(out -> exporter.export(username, exportFormat, filter, pinned, out));
+            }
+
+            long length = exporter.contentLength(username, exportFormat, filter, pinned);
+            long first;
+            long last;
+            try {
+                first = ranges.get(0).getRangeStart(length);
+                last = ranges.get(0).getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+            }
+
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + length);
+            headers.setContentLength(last - first + 1);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers)
+                    .body(out -> exporter.exportRange(username, exportFormat, filter, pinned, first, last, out));
+
+        } catch (Exception e) {
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error exporting history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A malformed Range header is ignored, as if it were absent.
+     */
+    private static List<HttpRange> parseRanges(HttpHeaders headers) {
+        try {
+            return headers.getRange();
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Game count from an ETag this endpoint issued ("123"); null for anything else,
+     * including HTTP dates, which If-Range may also carry.
+     */
+    static Long recordsFromETag(String etag) {
+        String value = etag.trim();
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> error(HttpStatus status, String message) {
+        Map<String, Object> errorResponse = Map.of("success", false, "message", message);
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(out -> mapper.writeValue(out, errorResponse));
+    }
+}
@@ -0,0 +1,112 @@
+package com.typinggame.api;
+
+import com.typinggame.leaderboard.Leaderboard;
+import com.typinggame.leaderboard.LeaderboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * REST Controller for leaderboards.
+ * Ranks users by best WPM per game mode, all-time, this week or today.
+ */
+@RestController
+@RequestMapping("/api/leaderboard")
+public class LeaderboardController {
+
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_NEIGHBORS = 25;
+
+    private final LeaderboardService leaderboardService;
+
+    @Autowired
+    public LeaderboardController(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    /**
+     * GET /api/leaderboard/{mode}?window=all-time|weekly|daily&limit=10 - Top users
+     */
+    @GetMapping("/{mode}")
+    public ResponseEntity<Map<String, Object>> getTop(@PathVariable String mode,
+            @RequestParam(defaultValue = "all-time") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return error(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_LIMIT);
+        }
+        LeaderboardService.Window boardWindow;
+        try {
+            boardWindow = LeaderboardService.Window.parse(window);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, "Window must be all-time, weekly or daily");
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("mode", mode.toUpperCase());
+        response.put("window", boardWindow.name());
+        response.put("totalPlayers", leaderboardService.size(mode, boardWindow));
+        response.put("entries", toMaps(leaderboardService.top(mode, boardWindow, limit)));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /api/leaderboard/{mode}/users/{userId}?window=all-time&neighbors=2 - A user's rank and the users around them
+     */
+    @GetMapping("/{mode}/users/{userId}")
+    public ResponseEntity<Map<String, Object>> getStanding(@PathVariable String mode, @PathVariable String userId,
+            @RequestParam(defaultValue = "all-time") String window,
+            @RequestParam(defaultValue = "2") int neighbors) {
+        if (neighbors < 0 || neighbors > MAX_NEIGHBORS) {
+            return error(HttpStatus.BAD_REQUEST, "Neighbors must be between 0 and " + MAX_NEIGHBORS);
+        }
+        LeaderboardService.Window boardWindow;
+        try {
+            boardWindow = LeaderboardService.Window.parse(window);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, "Window must be all-time, weekly or daily");
+        }
+
+        Optional<Leaderboard.Standing> standing = leaderboardService.standing(mode, boardWindow, userId);
+        if (standing.isEmpty()) {
+            return error(HttpStatus.NOT_FOUND, "User has no ranked game in this leaderboard");
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("mode", mode.toUpperCase());
+        response.put("window", boardWindow.name());
+        response.put("totalPlayers", leaderboardService.size(mode, boardWindow));
+        response.put("standing", toMap(standing.get()));
+        response.put("neighbors", toMaps(leaderboardService.around(mode, boardWindow, userId, neighbors)));
+        return ResponseEntity.ok(response);
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Leaderboard.Standing> standings) {
+        return standings.stream().map(LeaderboardController::toMap).toList();
+    }
+
+    private static Map<String, Object> toMap(Leaderboard.Standing standing) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("rank", standing.rank());
+        entry.put("userId", standing.entry().userId());
+        entry.put("username", standing.entry().username());
+        entry.put("wpm", standing.entry().wpm());
+        entry.put("timestamp", standing.entry().timestamp());
+        return entry;
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", message);
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+}
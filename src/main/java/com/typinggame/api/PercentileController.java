@@ -0,0 +1,63 @@
+package com.typinggame.api;
+
+import com.typinggame.leaderboard.PercentileService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * REST Controller for result percentiles ("faster than X% of results").
+ */
+@RestController
+@RequestMapping("/api/percentiles")
+public class PercentileController {
+
+    private final PercentileService percentileService;
+
+    @Autowired
+    public PercentileController(PercentileService percentileService) {
+        this.percentileService = percentileService;
+    }
+
+    /**
+     * GET /api/percentiles/{mode}?wpm=72.5&words=25 - Percentile of a result
+     */
+    @GetMapping("/{mode}")
+    public ResponseEntity<Map<String, Object>> getPercentile(@PathVariable String mode,
+            @RequestParam double wpm,
+            @RequestParam(defaultValue = "25") int words) {
+        OptionalDouble percentile = percentileService.percentile(mode, words, wpm);
+        if (percentile.isEmpty()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "No results recorded for this mode yet");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("mode", mode.toUpperCase());
+        response.put("wpm", wpm);
+        response.put("percentile", percentile.getAsDouble());
+        response.put("samples", percentileService.getSampleCount(mode, words));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /api/percentiles/snapshot - This node's histograms, for other nodes to merge
+     */
+    @GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getSnapshot() {
+        try {
+            return ResponseEntity.ok(percentileService.snapshot());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
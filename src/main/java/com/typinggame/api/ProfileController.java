@@ -1,7 +1,7 @@
 package com.typinggame.api;
 
-import com.typinggame.domain.GameRecord;
 import com.typinggame.domain.User;
+import com.typinggame.repository.GameRecordHistory;
 import com.typinggame.repository.GameRecordRepository;
 import com.typinggame.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,7 +10,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,6 +20,8 @@ import java.util.Map;
 @RequestMapping("/api/profile")
 public class ProfileController {
 
+    private static final int MAX_HISTORY_PAGE = 100;
+
     private final AuthService authService;
     private final GameRecordRepository gameRecordRepository;
 
@@ -67,11 +68,33 @@ public class ProfileController {
     }
 
     /**
-     * GET /api/profile/{username}/history - Get user's game history
+     * GET /api/profile/{username}/history?limit=20&cursor= - Get a page of the user's game history, newest first.
+     * Pass the returned nextCursor to get the next page; it is null on the last one.
      */
     @GetMapping("/{username}/history")
-    public ResponseEntity<Map<String, Object>> getGameHistory(@PathVariable String username) {
+    public ResponseEntity<Map<String, Object>> getGameHistory(@PathVariable String username,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor) {
         try {
+            if (limit < 1 || limit > MAX_HISTORY_PAGE) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("message", "Limit must be between 1 and " + MAX_HISTORY_PAGE);
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+
+            GameRecordHistory.Cursor after = null;
+            if (cursor != null && !cursor.isEmpty()) {
+                try {
+                    after = GameRecordHistory.Cursor.decode(cursor);
+                } catch (IllegalArgumentException e) {
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("success", false);
+                    errorResponse.put("message", "Invalid cursor");
+                    return ResponseEntity.badRequest().body(errorResponse);
+                }
+            }
+
             User user = authService.getUserProfile(username);
 
             if (user == null) {
@@ -81,13 +104,15 @@ public class ProfileController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
             }
 
-            List<GameRecord> gameRecords = gameRecordRepository.findTop20ByUserIdOrderByTimestampDesc(user.getId());
+            GameRecordHistory.Page page = gameRecordRepository.findHistoryPage(user.getId(), after, limit);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("username", username);
-            response.put("totalRecords", gameRecords.size());
-            response.put("games", gameRecords);
+            response.put("totalRecords", page.games().size());
+            response.put("games", page.games());
+            response.put("hasMore", page.next() != null);
+            response.put("nextCursor", page.next() == null ? null : page.next().encode());
 
             return ResponseEntity.ok(response);
 
@@ -0,0 +1,42 @@
+package com.typinggame.api;
+
+import com.typinggame.multiplayer.RoomAffinity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * REST Controller for multiplayer room routing.
+ * Lets clients (or a load balancer) find the node that hosts a room
+ * before opening the WebSocket.
+ */
+@RestController
+@RequestMapping("/api/rooms")
+public class RoomController {
+
+    private final RoomAffinity roomAffinity;
+
+    @Autowired
+    public RoomController(RoomAffinity roomAffinity) {
+        this.roomAffinity = roomAffinity;
+    }
+
+    /**
+     * GET /api/rooms/{roomId}/owner - Node that hosts the room
+     */
+    @GetMapping("/{roomId}/owner")
+    public ResponseEntity<Map<String, Object>> getRoomOwner(@PathVariable String roomId) {
+        String owner = roomAffinity.ownerOf(roomId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("roomId", roomId);
+        response.put("node", owner);
+        response.put("url", roomAffinity.urlOf(owner));
+        response.put("local", roomAffinity.isLocal(roomId));
+        return ResponseEntity.ok(response);
+    }
+}
@@ -6,19 +6,23 @@ import com.typinggame.domain.Word;
 import com.typinggame.engine.PerformanceTracker;
 import com.typinggame.engine.TypingEngine;
 import com.typinggame.io.CodeSnippetLoader;
+import com.typinggame.leaderboard.LeaderboardService;
+import com.typinggame.leaderboard.PercentileService;
 import com.typinggame.io.ScoreManager;
 import com.typinggame.io.UserStats;
-import com.typinggame.repository.GameRecordRepository;
 import com.typinggame.repository.UserRepository;
+import com.typinggame.service.GameRecordIngestor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalDouble;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -36,18 +40,23 @@ public class TypingController {
     private final CodeSnippetLoader snippetLoader;
     private final ScoreManager scoreManager;
     private final UserRepository userRepository;
-    private final GameRecordRepository gameRecordRepository;
+    private final GameRecordIngestor gameRecordIngestor;
+    private final LeaderboardService leaderboardService;
+    private final PercentileService percentileService;
 
     @Autowired
     public TypingController(TypingEngine typingEngine, PerformanceTracker performanceTracker,
             CodeSnippetLoader snippetLoader, ScoreManager scoreManager,
-            UserRepository userRepository, GameRecordRepository gameRecordRepository) {
+            UserRepository userRepository, GameRecordIngestor gameRecordIngestor,
+            LeaderboardService leaderboardService, PercentileService percentileService) {
         this.typingEngine = typingEngine;
         this.performanceTracker = performanceTracker;
         this.snippetLoader = snippetLoader;
         this.scoreManager = scoreManager;
         this.userRepository = userRepository;
-        this.gameRecordRepository = gameRecordRepository;
+        this.gameRecordIngestor = gameRecordIngestor;
+        this.leaderboardService = leaderboardService;
+        this.percentileService = percentileService;
     }
 
     /**
@@ -264,44 +273,62 @@ public class TypingController {
             Long duration = ((Number) scoreData.getOrDefault("duration", 0L)).longValue();
             Boolean isWin = (Boolean) scoreData.getOrDefault("isWin", false);
 
+            // Where this result ranks among recorded ones, before it is counted itself
+            OptionalDouble percentile = percentileService.percentile(mode, wordsTyped, wpm);
+
             // Guest mode - don't save to MongoDB
             if (username == null || username.equals("Guest") || userId == null) {
                 System.out.println("[TypingController] Guest score not saved to MongoDB");
-                return ResponseEntity.ok(Map.of(
-                        "success", true,
-                        "message", "Guest score not saved",
-                        "isGuest", true));
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("message", "Guest score not saved");
+                response.put("isGuest", true);
+                percentile.ifPresent(p -> response.put("percentile", p));
+                return ResponseEntity.ok(response);
             }
 
-            // Save to MongoDB for authenticated users
-            Optional<User> userOpt = userRepository.findById(userId);
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-
-                // Update user statistics
-                user.updateStats(wpm, isWin);
-                userRepository.save(user);
-
-                // Create and save game record
-                GameRecord gameRecord = new GameRecord(userId, username, wpm, accuracy,
-                        wordsTyped, mode, duration);
-                gameRecordRepository.save(gameRecord);
-
-                System.out.println("[TypingController] Saved score to MongoDB for " + username +
-                        ": " + wpm + " WPM, " + accuracy + "% accuracy");
+            // Unknown users get nothing queued: an orphan record would reach history and leaderboards
+            if (!userRepository.existsById(userId)) {
+                return userNotFound();
+            }
 
-                return ResponseEntity.ok(Map.of(
-                        "success", true,
-                        "message", "Score saved successfully",
-                        "bestWPM", user.getBestWPM(),
-                        "averageWPM", user.getAvgWPM()));
-            } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+            // Queue the game record before touching stats, so a refused submit leaves them untouched
+            GameRecord gameRecord = new GameRecord(userId, username, wpm, accuracy,
+                    wordsTyped, mode, duration);
+            if (!gameRecordIngestor.submit(gameRecord)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                         .body(Map.of(
                                 "success", false,
-                                "message", "User not found"));
+                                "message", "Score service is busy, please retry"));
+            }
+
+            // One atomic update of the user's stats; empty only if the user was deleted just now
+            Optional<User> userOpt = userRepository.recordGame(userId, wpm, isWin);
+            if (userOpt.isEmpty()) {
+                return userNotFound();
             }
 
+            User user = userOpt.get();
+            leaderboardService.record(gameRecord);
+            percentileService.record(mode, wordsTyped, wpm);
+
+            System.out.println("[TypingController] Saved score to MongoDB for " + username +
+                    ": " + wpm + " WPM, " + accuracy + "% accuracy");
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Score saved successfully");
+            response.put("bestWPM", user.getBestWPM());
+            response.put("averageWPM", user.getAvgWPM());
+            percentile.ifPresent(p -> response.put("percentile", p));
+            return ResponseEntity.ok(response);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of(
+                            "success", false,
+                            "message", "Interrupted while saving score"));
         } catch (Exception e) {
             System.err.println("[TypingController] Error saving score: " + e.getMessage());
             e.printStackTrace();
@@ -312,6 +339,13 @@ public class TypingController {
         }
     }
 
+    private static ResponseEntity<Map<String, Object>> userNotFound() {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of(
+                        "success", false,
+                        "message", "User not found"));
+    }
+
     /**
      * Helper method to create error responses.
      */
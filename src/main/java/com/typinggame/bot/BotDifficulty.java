@@ -43,6 +43,27 @@ public enum BotDifficulty {
         }
     }
 
+    /**
+     * Pick the difficulty whose target WPM is closest to a player's average WPM.
+     * Players without any history get MEDIUM.
+     */
+    public static BotDifficulty forAverageWPM(double averageWPM) {
+        if (averageWPM <= 0) {
+            return MEDIUM;
+        }
+
+        BotDifficulty best = MEDIUM;
+        double bestDistance = Double.MAX_VALUE;
+        for (BotDifficulty difficulty : values()) {
+            double distance = Math.abs(difficulty.targetWPM - averageWPM);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = difficulty;
+            }
+        }
+        return best;
+    }
+
     /**
      * Get comparator for sorting difficulties by WPM.
      */
@@ -18,6 +18,15 @@ public class BotPlayer implements Runnable {
     private final Random random;
 
     private volatile boolean running = true;
+    private volatile ProgressListener progressListener;
+
+    /**
+     * Callback invoked after every word the bot completes.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(int wordsCompleted, double currentWPM, String lastWord, long elapsedMillis);
+    }
 
     /**
      * Create a bot player.
@@ -78,6 +87,11 @@ public class BotPlayer implements Runnable {
 
             gameStatus.updateBotProgress(wordsCompleted, currentWPM);
 
+            ProgressListener listener = progressListener;
+            if (listener != null) {
+                listener.onProgress(wordsCompleted, currentWPM, word.getText(), elapsed);
+            }
+
             System.out.println("[BotPlayer] " + botName + " typed: \"" + word.getText() +
                     "\" (" + wordsCompleted + "/" + wordList.size() +
                     ", WPM: " + String.format("%.1f", currentWPM) + ")");
@@ -116,6 +130,13 @@ public class BotPlayer implements Runnable {
         running = false;
     }
 
+    /**
+     * Register a listener for per-word progress (used when the bot sits in a GameSession).
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
     public String getBotName() {
         return botName;
     }
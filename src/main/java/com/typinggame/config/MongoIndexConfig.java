@@ -0,0 +1,44 @@
+package com.typinggame.config;
+
+import com.typinggame.domain.GameRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+/**
+ * Creates the indexes declared on query-heavy collections at startup.
+ *
+ * Spring Boot no longer creates annotated indexes by default, so the
+ * GameRecord indexes that history pagination relies on are ensured here
+ * from the annotations. Creating an index that already exists is a no-op.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public MongoIndexConfig(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        IndexOperations indexOps = mongoTemplate.indexOps(GameRecord.class);
+        try {
+            for (IndexDefinition index : resolver.resolveIndexFor(GameRecord.class)) {
+                String name = indexOps.ensureIndex(index);
+                System.out.println("[MongoIndexConfig] Ensured index " + name + " on game_records");
+            }
+        } catch (Exception e) {
+            System.err.println("[MongoIndexConfig] Could not ensure game_records indexes: " + e.getMessage());
+        }
+    }
+}
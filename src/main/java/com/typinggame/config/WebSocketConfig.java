@@ -1,27 +1,135 @@
 package com.typinggame.config;
 
+import com.typinggame.multiplayer.ClusterDestinationGuard;
+import com.typinggame.websocket.StompChannelMetrics;
+import com.typinggame.websocket.StompChannelMetrics.Channel;
+import com.typinggame.websocket.StompEncodingNegotiator;
+import com.typinggame.websocket.StompPayloadConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.List;
 
 /**
  * WebSocket configuration for STOMP protocol.
  * Enables browser-compatible WebSocket communication while maintaining
  * the existing raw Socket programming for AOOP requirements.
+ *
+ * Channel pools and transport limits come from typinggame.stomp.* and are
+ * instrumented by StompChannelMetrics. typinggame.stomp.broker.mode=relay
+ * swaps the in-JVM simple broker for an external STOMP broker so several
+ * nodes can serve the same rooms.
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompEncodingNegotiator encodingNegotiator;
+    private final StompChannelMetrics channelMetrics;
+    private final ClusterDestinationGuard clusterGuard;
+
+    private final int inboundPoolSize;
+    private final int inboundQueueCapacity;
+    private final int outboundPoolSize;
+    private final int outboundQueueCapacity;
+    private final int brokerPoolSize;
+    private final int brokerQueueCapacity;
+    private final int sendTimeLimitMs;
+    private final int sendBufferSizeLimit;
+    private final int messageSizeLimit;
+    private final String brokerMode;
+    private final String relayHost;
+    private final int relayPort;
+    private final String relayLogin;
+    private final String relayPasscode;
+
+    @Autowired
+    public WebSocketConfig(StompEncodingNegotiator encodingNegotiator,
+            StompChannelMetrics channelMetrics,
+            ClusterDestinationGuard clusterGuard,
+            @Value("${typinggame.stomp.inbound.pool-size:8}") int inboundPoolSize,
+            @Value("${typinggame.stomp.inbound.queue-capacity:10000}") int inboundQueueCapacity,
+            @Value("${typinggame.stomp.outbound.pool-size:8}") int outboundPoolSize,
+            @Value("${typinggame.stomp.outbound.queue-capacity:10000}") int outboundQueueCapacity,
+            @Value("${typinggame.stomp.broker.pool-size:0}") int brokerPoolSize,
+            @Value("${typinggame.stomp.broker.queue-capacity:10000}") int brokerQueueCapacity,
+            @Value("${typinggame.stomp.send-time-limit-ms:5000}") int sendTimeLimitMs,
+            @Value("${typinggame.stomp.send-buffer-size-limit:262144}") int sendBufferSizeLimit,
+            @Value("${typinggame.stomp.message-size-limit:16384}") int messageSizeLimit,
+            @Value("${typinggame.stomp.broker.mode:simple}") String brokerMode,
+            @Value("${typinggame.stomp.relay.host:localhost}") String relayHost,
+            @Value("${typinggame.stomp.relay.port:61613}") int relayPort,
+            @Value("${typinggame.stomp.relay.login:guest}") String relayLogin,
+            @Value("${typinggame.stomp.relay.passcode:guest}") String relayPasscode) {
+        this.encodingNegotiator = encodingNegotiator;
+        this.channelMetrics = channelMetrics;
+        this.clusterGuard = clusterGuard;
+        this.inboundPoolSize = inboundPoolSize;
+        this.inboundQueueCapacity = inboundQueueCapacity;
+        this.outboundPoolSize = outboundPoolSize;
+        this.outboundQueueCapacity = outboundQueueCapacity;
+        this.brokerPoolSize = brokerPoolSize;
+        this.brokerQueueCapacity = brokerQueueCapacity;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.messageSizeLimit = messageSizeLimit;
+        this.brokerMode = brokerMode;
+        this.relayHost = relayHost;
+        this.relayPort = relayPort;
+        this.relayLogin = relayLogin;
+        this.relayPasscode = relayPasscode;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable simple broker for broadcasting to subscribed clients
-        config.enableSimpleBroker("/topic");
+        // /queue carries per-player updates (/user/queue/...) in big rooms.
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // External STOMP broker shared by every app node, so a room's owner
+            // reaches subscribers connected to any node (see RoomAffinity)
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/user-registry");
+            System.out.println("[WebSocketConfig] Relaying /topic and /queue to " + relayHost + ":" + relayPort);
+        } else {
+            // Enable simple broker for broadcasting to subscribed clients (single node)
+            config.enableSimpleBroker("/topic", "/queue");
+        }
+        config.setUserDestinationPrefix("/user");
 
         // Set application destination prefix for client messages
         config.setApplicationDestinationPrefixes("/app");
+
+        // Keep each session's frames in publish order (START before the first tick)
+        config.setPreservePublishOrder(true);
+
+        // The broker runs on the sender's thread unless a pool is configured
+        if (brokerPoolSize > 0) {
+            config.configureBrokerChannel().taskExecutor(
+                    channelMetrics.newExecutor(Channel.BROKER, brokerPoolSize, brokerPoolSize, brokerQueueCapacity));
+        }
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A client that can't drain its frames within these limits is disconnected
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(channelMetrics.dropCounter());
     }
 
     @Override
@@ -33,6 +141,31 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // SockJS endpoint (fallback transport). Kept for compatibility.
         registry.addEndpoint("/fastfingers-ws")
                 .setAllowedOrigins("http://localhost:5173", "http://localhost:3000")
+                .addInterceptors(encodingNegotiator.sockJsMarker())
                 .withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Clients may not send to or read the node-to-node destinations (see ClusterLink).
+        // "content-type: application/cbor" on CONNECT opts a client into CBOR frames
+        registration.interceptors(clusterGuard.inboundInterceptor(), encodingNegotiator.inboundInterceptor());
+        registration.taskExecutor(channelMetrics.newExecutor(Channel.INBOUND,
+                inboundPoolSize, inboundPoolSize, inboundQueueCapacity));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(encodingNegotiator.outboundInterceptor());
+        registration.taskExecutor(channelMetrics.newExecutor(Channel.OUTBOUND,
+                outboundPoolSize, outboundPoolSize, outboundQueueCapacity));
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Game payloads use pre-built readers/writers; keep the defaults for anything else
+        messageConverters.add(new StompPayloadConverter());
+        messageConverters.add(StompPayloadConverter.cbor());
+        return true;
+    }
 }
@@ -1,6 +1,7 @@
 package com.typinggame.domain;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
@@ -8,8 +9,10 @@ import java.util.Date;
 /**
  * GameRecord entity stored in MongoDB.
  * Represents a single game session result.
+ * History pages are read newest first per user from the compound index.
  */
 @Document(collection = "game_records")
+@CompoundIndex(name = "userId_timestamp_id", def = "{'userId': 1, 'timestamp': -1, '_id': -1}")
 public class GameRecord {
 
     @Id
@@ -121,7 +121,8 @@ public class User {
     }
 
     /**
-     * Update user statistics after a game.
+     * Update user statistics after a game, in memory. Stored users are
+     * updated atomically in Mongo by UserRepository.recordGame instead.
      */
     public void updateStats(double wpm, boolean isWin) {
         this.totalGames++;
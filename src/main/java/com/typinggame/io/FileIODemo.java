@@ -6,7 +6,7 @@ import java.io.IOException;
 
 /**
  * Demo application to test File I/O operations.
- * Demonstrates ObjectOutputStream/ObjectInputStream and FileWriter/FileReader.
+ * Demonstrates the binary stats file (UserStatsCodec) and FileWriter/FileReader.
  */
 public class FileIODemo {
 
@@ -18,7 +18,7 @@ public class FileIODemo {
         ScoreManager scoreManager = new ScoreManager();
 
         // Test 1: Create and save user stats
-        System.out.println("--- Test 1: ObjectOutputStream (Serialization) ---");
+        System.out.println("--- Test 1: Binary stats file (encode) ---");
         UserStats stats = new UserStats("Alice");
 
         // Add some game records
@@ -39,7 +39,7 @@ public class FileIODemo {
         System.out.println();
 
         // Test 2: Load user stats
-        System.out.println("--- Test 2: ObjectInputStream (Deserialization) ---");
+        System.out.println("--- Test 2: Binary stats file (decode) ---");
         try {
             UserStats loadedStats = scoreManager.loadStats();
             if (loadedStats != null) {
@@ -0,0 +1,327 @@
+package com.typinggame.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Streams a user's game history out of their ScoreLog as plain text (the
+ * match_history.txt layout), CSV or JSON Lines.
+ *
+ * Games are read from the log in batches and written through one buffered
+ * writer, so memory stays constant however long the history is. The text
+ * format's header needs totals before the first game, so it takes one extra
+ * pass over the log into a summary-only UserStats.
+ *
+ * An export is pinned to the first recordLimit games. The log only grows, so
+ * the same limit always gives the same bytes. That is what makes ranged and
+ * resumed downloads possible: contentLength() counts the bytes without
+ * keeping them, and exportRange() writes only the requested slice.
+ */
+public class HistoryExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter TEXT_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    static final String CSV_HEADER = "timestamp,date,mode,wpm,accuracy,words,duration_ms";
+
+    public enum Format {
+        TEXT("text/plain", "txt"),
+        CSV("text/csv", "csv"),
+        JSONL("application/x-ndjson", "jsonl");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Format by name ("text", "csv", "jsonl"/"ndjson"), case-insensitive.
+         */
+        public static Format parse(String name) {
+            String value = name.trim().toUpperCase(Locale.ROOT);
+            return "NDJSON".equals(value) ? JSONL : Format.valueOf(value);
+        }
+    }
+
+    /**
+     * Which games to export: a game mode (case-insensitive) and a
+     * [fromTimestamp, toTimestamp) window; null means no restriction.
+     */
+    public record Filter(String gameMode, Long fromTimestamp, Long toTimestamp) {
+
+        public static final Filter ALL = new Filter(null, null, null);
+
+        public boolean matches(UserStats.GameRecord record) {
+            return (gameMode == null || gameMode.equalsIgnoreCase(record.getGameMode()))
+                    && (fromTimestamp == null || record.getTimestamp() >= fromTimestamp)
+                    && (toTimestamp == null || record.getTimestamp() < toTimestamp);
+        }
+    }
+
+    private final ScoreLog scoreLog;
+    private final ZoneId zone;
+
+    public HistoryExporter(ScoreLog scoreLog) {
+        this(scoreLog, ZoneId.systemDefault());
+    }
+
+    HistoryExporter(ScoreLog scoreLog, ZoneId zone) {
+        this.scoreLog = scoreLog;
+        this.zone = zone;
+    }
+
+    /**
+     * Write the user's first recordLimit games that pass the filter.
+     * The stream is flushed but not closed.
+     * @return the number of games written.
+     */
+    public long export(String username, Format format, Filter filter, long recordLimit, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        StringBuilder line = new StringBuilder(160);
+        long[] written = {0};
+
+        switch (format) {
+            case TEXT -> {
+                UserStats summary = UserStats.summaryOnly(username);
+                scoreLog.forEach(username, recordLimit, record -> {
+                    if (filter.matches(record)) summary.addGameRecord(record);
+                });
+                writeTextHeader(writer, summary);
+            }
+            case CSV -> writer.write(CSV_HEADER + "\n");
+            case JSONL -> { }
+        }
+
+        scoreLog.forEach(username, recordLimit, record -> {
+            if (!filter.matches(record)) return;
+            line.setLength(0);
+            switch (format) {
+                case TEXT -> appendText(line, written[0] + 1, record);
+                case CSV -> appendCsv(line, record);
+                case JSONL -> appendJson(line, record);
+            }
+            writer.append(line);
+            written[0]++;
+        });
+        writer.flush();
+        return written[0];
+    }
+
+    /**
+     * Size in bytes of export() with the same arguments, without keeping the output.
+     */
+    public long contentLength(String username, Format format, Filter filter, long recordLimit) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        export(username, format, filter, recordLimit, counter);
+        return counter.count;
+    }
+
+    /**
+     * Write bytes first..last (inclusive) of export() with the same arguments.
+     * Stops reading the log once the slice is complete.
+     */
+    public void exportRange(String username, Format format, Filter filter, long recordLimit,
+            long first, long last, OutputStream out) throws IOException {
+        SliceOutputStream slice = new SliceOutputStream(out, first, last);
+        try {
+            export(username, format, filter, recordLimit, slice);
+        } catch (SliceOutputStream.SliceComplete done) {
+            // Everything requested has been written
+        }
+        out.flush();
+    }
+
+    // ---- formats ----
+
+    /**
+     * The box header of match_history.txt, from the exported games' totals.
+     */
+    static void writeTextHeader(Writer writer, UserStats stats) throws IOException {
+        writer.write("╔" + "═".repeat(58) + "╗\n");
+        writer.write("║" + centerText("TYPING GAME MATCH HISTORY", 58) + "║\n");
+        writer.write("╠" + "═".repeat(58) + "╣\n");
+        writer.write("║ Player: " + String.format("%-47s", stats.getUsername()) + "║\n");
+        writer.write("║ Total Games: " + String.format("%-43d", stats.getTotalGamesPlayed()) + "║\n");
+        writer.write("║ Best WPM: " + String.format("%-46.2f", stats.getBestWPM()) + "║\n");
+        writer.write("║ Average WPM: " + String.format("%-43.2f", stats.getAverageWPM()) + "║\n");
+        writer.write("║ Best Accuracy: " + String.format("%-40.2f%%", stats.getBestAccuracy()) + "║\n");
+        writer.write("║ Average Accuracy: " + String.format("%-37.2f%%", stats.getAverageAccuracy()) + "║\n");
+        writer.write("╚" + "═".repeat(58) + "╝\n\n");
+    }
+
+    private static String centerText(String text, int width) {
+        int padding = (width - text.length()) / 2;
+        return " ".repeat(padding) + text + " ".repeat(width - text.length() - padding);
+    }
+
+    /**
+     * One game in the match_history.txt layout, without String.format.
+     */
+    void appendText(StringBuilder line, long number, UserStats.GameRecord game) {
+        line.append("Game #").append(number).append(" - ")
+                .append(TEXT_DATE.format(Instant.ofEpochMilli(game.getTimestamp()).atZone(zone))).append('\n')
+                .append("-".repeat(60)).append('\n')
+                .append("  Mode: ").append(game.getGameMode()).append('\n')
+                .append("  WPM: ");
+        appendFixed2(line, game.getWpm());
+        line.append(" | Accuracy: ");
+        appendFixed2(line, game.getAccuracy());
+        line.append("% | Words: ").append(game.getWordsTyped()).append(" | Time: ");
+        appendFixed2(line, game.getDuration() / 1000.0);
+        line.append("s\n\n");
+    }
+
+    static void appendCsv(StringBuilder line, UserStats.GameRecord game) {
+        line.append(game.getTimestamp()).append(',')
+                .append(Instant.ofEpochMilli(game.getTimestamp())).append(',');
+        appendCsvField(line, game.getGameMode());
+        line.append(',').append(game.getWpm())
+                .append(',').append(game.getAccuracy())
+                .append(',').append(game.getWordsTyped())
+                .append(',').append(game.getDuration())
+                .append('\n');
+    }
+
+    static void appendJson(StringBuilder line, UserStats.GameRecord game) {
+        line.append("{\"timestamp\":").append(game.getTimestamp())
+                .append(",\"date\":\"").append(Instant.ofEpochMilli(game.getTimestamp())).append('"')
+                .append(",\"mode\":");
+        if (game.getGameMode() == null) {
+            line.append("null");
+        } else {
+            appendJsonString(line, game.getGameMode());
+        }
+        line.append(",\"wpm\":").append(game.getWpm())
+                .append(",\"accuracy\":").append(game.getAccuracy())
+                .append(",\"words\":").append(game.getWordsTyped())
+                .append(",\"durationMs\":").append(game.getDuration())
+                .append("}\n");
+    }
+
+    /**
+     * Same digits as String.format("%.2f"), which rounds the shortest decimal form half-up.
+     */
+    private static void appendFixed2(StringBuilder line, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            line.append(value);
+            return;
+        }
+        line.append(BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).toPlainString());
+    }
+
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value == null) return;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    // ---- streams ----
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    /**
+     * Passes through only bytes first..last of what is written to it.
+     */
+    private static final class SliceOutputStream extends OutputStream {
+
+        /**
+         * Thrown once the last byte of the slice is written, to stop the export early.
+         */
+        static final class SliceComplete extends IOException {
+            private static final long serialVersionUID = 1L;
+
+            SliceComplete() {
+                super("slice complete", null);
+            }
+        }
+
+        private final OutputStream out;
+        private final long first;
+        private final long last;
+        private long position;
+
+        SliceOutputStream(OutputStream out, long first, long last) {
+            this.out = out;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = position;
+            long end = position + len; // exclusive
+            position = end;
+            long from = Math.max(start, first);
+            long to = Math.min(end, last + 1);
+            if (from < to) {
+                out.write(b, off + (int) (from - start), (int) (to - from));
+            }
+            if (end > last) {
+                throw new SliceComplete();
+            }
+        }
+    }
+}
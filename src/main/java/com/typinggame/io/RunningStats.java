@@ -0,0 +1,101 @@
+package com.typinggame.io;
+
+import java.io.Serializable;
+
+/**
+ * Count, mean, variance, min and max of a stream of values, updated in O(1)
+ * per value with Welford's method, so they stay accurate without keeping
+ * the values or summing large totals.
+ */
+public final class RunningStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long count;
+    private double mean;
+    private double m2; // sum of squared differences from the mean
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public RunningStats() {
+    }
+
+    /**
+     * Restored as stored, used by UserStatsCodec.
+     */
+    RunningStats(long count, double mean, double m2, double min, double max) {
+        this.count = count;
+        this.mean = mean;
+        this.m2 = m2;
+        this.min = min;
+        this.max = max;
+    }
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Fold in another stream's stats (Chan et al.), as if its values had been added here.
+     */
+    public void merge(RunningStats other) {
+        if (other.count == 0) return;
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Sample variance; 0 with fewer than two values.
+     */
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : 0.0;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+        return count > 0 ? min : 0.0;
+    }
+
+    public double getMax() {
+        return count > 0 ? max : 0.0;
+    }
+
+    double getM2() {
+        return m2;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RunningStats{n=%d, mean=%.2f, sd=%.2f, min=%.2f, max=%.2f}",
+                count, getMean(), getStdDev(), getMin(), getMax());
+    }
+}
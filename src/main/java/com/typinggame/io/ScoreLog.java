@@ -0,0 +1,864 @@
+package com.typinggame.io;
+
+import com.typinggame.io.UserStats.GameRecord;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only score store with one log per user.
+ *
+ * A user's log is a directory of numbered segment files. Each segment is a
+ * HEADER_SIZE header (magic, format version, ordinal of its first record)
+ * followed by fixed-size records, so record i of a segment sits at
+ * HEADER_SIZE + i * RECORD_SIZE. The in-memory index is only each segment's
+ * first ordinal and record count. Saving a game is one positioned write at
+ * the end of the active segment. fsync is batched on a background thread
+ * every fsyncIntervalMs (or forced with flush()). Reading the last N games
+ * is one positioned read per segment it touches, normally just one.
+ *
+ * A full segment is sealed and a new one started. Compaction is size-tiered:
+ * a segment's tier grows by one each time its size reaches compactThreshold
+ * times the previous tier's, and a background pass merges the newest run of
+ * compactThreshold or more sealed segments of one tier into a single segment
+ * of the next. Each game is therefore rewritten about log(history) times in
+ * total, not once per pass.
+ * Every record carries a CRC32. A torn tail left by a crash, and segments
+ * left over from an interrupted compaction, are cleaned up when the user's
+ * log is next opened.
+ */
+public class ScoreLog implements Closeable {
+
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 64;
+    static final int MAGIC = 0x54475343; // "TGSC"
+    static final byte FORMAT_VERSION = 1;
+
+    private static final int MODE_BYTES = 20;
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // Users whose segment files stay open; the least recently used is closed beyond this
+    private static final int MAX_OPEN_USERS = 256;
+    private static final int SCAN_BATCH_RECORDS = 256;
+    private static final long COMPACT_INTERVAL_MS = 60000;
+    // Longest name (UTF-8 bytes) whose directory is plain hex; 2 * this stays under the 255-byte name limit
+    private static final int MAX_PLAIN_KEY_BYTES = 120;
+    private static final int HASHED_KEY_PREFIX_BYTES = 48;
+
+    private final Path directory;
+    private final long fsyncIntervalMs;
+    private final int segmentRecords;
+    private final int compactThreshold;
+
+    // Access-ordered, guarded by this. Entries start unrecovered and are
+    // recovered under their own lock, so one user's recovery never blocks the others
+    private final LinkedHashMap<String, UserLog> openLogs = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<UserLog> dirty = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService background;
+    private boolean closed;
+
+    private final AtomicLong appends = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong compactedRecords = new AtomicLong();
+    private final AtomicLong truncatedRecords = new AtomicLong();
+
+    /**
+     * One user's segments, oldest first; the last one takes appends.
+     */
+    private static final class UserLog {
+        final Path dir;
+        final List<Segment> segments = new ArrayList<>();
+        long totalRecords;
+        boolean recovered;
+        boolean closed;
+
+        UserLog(Path dir) {
+            this.dir = dir;
+        }
+
+        Segment active() {
+            return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        }
+    }
+
+    private static final class Segment {
+        final long number;
+        final Path path;
+        final long firstOrdinal;
+        FileChannel channel;
+        long records;
+
+        Segment(long number, Path path, long firstOrdinal, FileChannel channel, long records) {
+            this.number = number;
+            this.path = path;
+            this.firstOrdinal = firstOrdinal;
+            this.channel = channel;
+            this.records = records;
+        }
+    }
+
+    @FunctionalInterface
+    private interface LogOperation<T> {
+        T apply(UserLog log) throws IOException;
+    }
+
+    public ScoreLog(Path directory, long fsyncIntervalMs, int segmentRecords, int compactThreshold) {
+        if (segmentRecords < 1 || compactThreshold < 2) {
+            throw new IllegalArgumentException("segmentRecords must be >= 1 and compactThreshold >= 2");
+        }
+        this.directory = directory;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.segmentRecords = segmentRecords;
+        this.compactThreshold = compactThreshold;
+    }
+
+    /**
+     * Append one game to the user's log. Durable after the next batched fsync or flush().
+     */
+    public void append(String username, GameRecord record) throws IOException {
+        appendAll(username, List.of(record));
+    }
+
+    /**
+     * Append several games for one user, oldest first: one write per segment they land in.
+     */
+    public void appendAll(String username, List<GameRecord> records) throws IOException {
+        if (records.isEmpty()) return;
+        ByteBuffer encoded = ByteBuffer.allocate(records.size() * RECORD_SIZE);
+        for (GameRecord record : records) {
+            encoded.put(encode(record));
+        }
+
+        withLog(username, log -> {
+            int written = 0;
+            while (written < records.size()) {
+                Segment active = log.active();
+                if (active == null || active.records >= segmentRecords) {
+                    active = roll(log);
+                }
+                int batch = (int) Math.min(records.size() - written, segmentRecords - active.records);
+                writeFully(active.channel, encoded.slice(written * RECORD_SIZE, batch * RECORD_SIZE),
+                        HEADER_SIZE + active.records * RECORD_SIZE);
+                active.records += batch;
+                log.totalRecords += batch;
+                written += batch;
+            }
+            dirty.add(log);
+            return null;
+        });
+        appends.addAndGet(records.size());
+    }
+
+    /**
+     * The user's last count games, oldest first.
+     */
+    public List<GameRecord> readLast(String username, int count) throws IOException {
+        return withLog(username, log -> {
+            long remaining = Math.min(count, log.totalRecords);
+            List<List<GameRecord>> chunks = new ArrayList<>();
+            for (int i = log.segments.size() - 1; i >= 0 && remaining > 0; i--) {
+                Segment segment = log.segments.get(i);
+                long take = Math.min(remaining, segment.records);
+                chunks.add(readRange(segment, segment.records - take, (int) take));
+                remaining -= take;
+            }
+
+            List<GameRecord> games = new ArrayList<>();
+            for (int i = chunks.size() - 1; i >= 0; i--) {
+                games.addAll(chunks.get(i));
+            }
+            return games;
+        });
+    }
+
+    /**
+     * The user's last count games, oldest first, read without opening the log
+     * for writing: no recovery, compaction or background thread, and nothing
+     * on disk is changed. Meant for another process reading a directory whose
+     * log is owned elsewhere; a record still being written, or a segment
+     * merged away mid-read, is simply skipped.
+     */
+    public static List<GameRecord> readLastSnapshot(Path directory, String username, int count) throws IOException {
+        Path dir = directory.resolve(userKey(username));
+        if (count <= 0 || !Files.isDirectory(dir)) {
+            return List.of();
+        }
+
+        List<Segment> found = new ArrayList<>();
+        try {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    Segment segment = openSnapshotSegment(file);
+                    if (segment != null) {
+                        found.add(segment);
+                    }
+                }
+            }
+            found.sort(Comparator.comparingLong((Segment s) -> s.firstOrdinal).thenComparingLong(s -> -s.records));
+
+            List<Segment> live = new ArrayList<>();
+            long covered = 0;
+            for (Segment segment : found) {
+                if (segment.records > 0 && segment.firstOrdinal + segment.records <= covered) {
+                    continue; // Already merged into an earlier segment
+                }
+                live.add(segment);
+                covered = Math.max(covered, segment.firstOrdinal + segment.records);
+            }
+
+            long remaining = count;
+            List<List<GameRecord>> chunks = new ArrayList<>();
+            for (int i = live.size() - 1; i >= 0 && remaining > 0; i--) {
+                Segment segment = live.get(i);
+                long take = Math.min(remaining, segment.records);
+                chunks.add(readRange(segment, segment.records - take, (int) take));
+                remaining -= take;
+            }
+
+            List<GameRecord> games = new ArrayList<>();
+            for (int i = chunks.size() - 1; i >= 0; i--) {
+                games.addAll(chunks.get(i));
+            }
+            return games;
+        } finally {
+            for (Segment segment : found) {
+                segment.channel.close();
+            }
+        }
+    }
+
+    /**
+     * Open a segment read-only, counting only whole records; null if it is
+     * not (or no longer) a complete segment.
+     */
+    private static Segment openSnapshotSegment(Path file) throws IOException {
+        long number = segmentNumber(file);
+        if (number < 0) {
+            return null;
+        }
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null; // Deleted by a compaction since the listing
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long size = channel.size();
+        if (size < HEADER_SIZE || channel.read(header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC
+                || header.get(4) != FORMAT_VERSION || header.getShort(6) != RECORD_SIZE) {
+            channel.close();
+            return null;
+        }
+        return new Segment(number, file, header.getLong(8), channel, (size - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    /**
+     * Every game in the user's log, oldest first, read sequentially in batches.
+     */
+    public void forEach(String username, RecordConsumer consumer) throws IOException {
+        forEach(username, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * The user's first limit games, oldest first. The log is only locked while
+     * each batch is read, so a slow consumer never holds up appends.
+     */
+    public void forEach(String username, long limit, RecordConsumer consumer) throws IOException {
+        long next = 0;
+        while (true) {
+            long from = next;
+            Batch batch = withLog(username, log -> readBatch(log, from, limit));
+            if (batch == null) return;
+            for (GameRecord record : batch.records()) {
+                consumer.accept(record);
+            }
+            next = batch.next();
+        }
+    }
+
+    /**
+     * Receives games from forEach; may throw, e.g. when writing them out.
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(GameRecord record) throws IOException;
+    }
+
+    private record Batch(List<GameRecord> records, long next) { }
+
+    private Batch readBatch(UserLog log, long from, long limit) throws IOException {
+        long end = Math.min(limit, log.totalRecords);
+        if (from >= end) return null;
+        for (Segment segment : log.segments) {
+            if (from < segment.firstOrdinal + segment.records) {
+                long start = Math.max(0, from - segment.firstOrdinal);
+                int count = (int) Math.min(SCAN_BATCH_RECORDS,
+                        Math.min(segment.records - start, end - segment.firstOrdinal - start));
+                if (count <= 0) return null;
+                return new Batch(readRange(segment, start, count), segment.firstOrdinal + start + count);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Number of games stored for a user.
+     */
+    public long count(String username) throws IOException {
+        return withLog(username, log -> log.totalRecords);
+    }
+
+    /**
+     * fsync every log appended to since the last flush.
+     */
+    public void flush() throws IOException {
+        IOException failure = null;
+        Iterator<UserLog> it = dirty.iterator();
+        while (it.hasNext()) {
+            UserLog log = it.next();
+            it.remove();
+            try {
+                synchronized (log) {
+                    if (!log.closed && log.active() != null) {
+                        log.active().channel.force(false);
+                    }
+                }
+                fsyncs.incrementAndGet();
+            } catch (IOException e) {
+                dirty.add(log);
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Merge the user's newest run of same-tier sealed segments, repeatedly,
+     * while one has at least compactThreshold segments.
+     * @return true if segments were merged.
+     */
+    public boolean compact(String username) throws IOException {
+        return withLog(username, this::compact);
+    }
+
+    /**
+     * One background pass: compact every open log that needs it.
+     */
+    void compactOpenLogs() {
+        List<UserLog> logs;
+        synchronized (this) {
+            logs = new ArrayList<>(openLogs.values());
+        }
+        for (UserLog log : logs) {
+            synchronized (log) {
+                if (log.closed || !log.recovered) continue;
+                try {
+                    compact(log);
+                } catch (IOException e) {
+                    System.err.println("[ScoreLog] Compaction of " + log.dir + " failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<UserLog> logs;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            if (background != null) {
+                background.shutdownNow();
+            }
+            logs = new ArrayList<>(openLogs.values());
+            openLogs.clear();
+        }
+        flush();
+        for (UserLog log : logs) {
+            closeLog(log);
+        }
+    }
+
+    // ---- log lifecycle ----
+
+    private <T> T withLog(String username, LogOperation<T> operation) throws IOException {
+        while (true) {
+            UserLog log = open(username);
+            synchronized (log) {
+                // Evicted between lookup and lock; open it again
+                if (log.closed) continue;
+                if (!log.recovered) {
+                    recover(log);
+                }
+                return operation.apply(log);
+            }
+        }
+    }
+
+    private UserLog open(String username) throws IOException {
+        UserLog evicted = null;
+        UserLog log;
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Score log is closed");
+            }
+            startBackground();
+            log = openLogs.get(username);
+            if (log == null) {
+                // Placeholder; the caller recovers it holding only this log's lock
+                log = new UserLog(directory.resolve(userKey(username)));
+                openLogs.put(username, log);
+                if (openLogs.size() > MAX_OPEN_USERS) {
+                    Iterator<UserLog> eldest = openLogs.values().iterator();
+                    evicted = eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        if (evicted != null) {
+            closeLog(evicted);
+        }
+        return log;
+    }
+
+    private void startBackground() {
+        if (background != null) return;
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ScoreLog-Background");
+            t.setDaemon(true);
+            return t;
+        });
+        if (fsyncIntervalMs > 0) {
+            background.scheduleWithFixedDelay(() -> {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    System.err.println("[ScoreLog] Batched fsync failed: " + e.getMessage());
+                }
+            }, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        background.scheduleWithFixedDelay(this::compactOpenLogs,
+                COMPACT_INTERVAL_MS, COMPACT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeLog(UserLog log) {
+        synchronized (log) {
+            if (log.closed) return;
+            log.closed = true;
+            dirty.remove(log);
+            for (Segment segment : log.segments) {
+                try {
+                    segment.channel.force(false);
+                    segment.channel.close();
+                } catch (IOException e) {
+                    System.err.println("[ScoreLog] Failed to close " + segment.path + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Open a user's segments, cutting off a torn tail and dropping leftovers
+     * of an interrupted compaction. Called holding only the log's own lock;
+     * a failure leaves it unrecovered for the next caller to retry.
+     */
+    private void recover(UserLog log) throws IOException {
+        if (!Files.isDirectory(log.dir)) {
+            log.recovered = true;
+            return;
+        }
+
+        List<Segment> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(log.dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    long number = segmentNumber(file);
+                    if (number < 0) {
+                        System.err.println("[ScoreLog] Skipping stray file " + file);
+                        continue;
+                    }
+                    Segment segment = openSegment(file, number);
+                    if (segment != null) {
+                        found.add(segment);
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong((Segment s) -> s.firstOrdinal).thenComparingLong(s -> -s.records));
+
+        List<Segment> segments = new ArrayList<>();
+        long covered = 0;
+        for (Segment segment : found) {
+            if (segment.records > 0 && segment.firstOrdinal + segment.records <= covered) {
+                // Already merged into an earlier segment
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+                continue;
+            }
+            segments.add(segment);
+            covered = Math.max(covered, segment.firstOrdinal + segment.records);
+        }
+        segments.sort(Comparator.comparingLong(s -> s.number));
+
+        if (!segments.isEmpty()) {
+            trimTornTail(segments.get(segments.size() - 1));
+        }
+        log.segments.addAll(segments);
+        for (Segment segment : segments) {
+            log.totalRecords += segment.records;
+        }
+        log.recovered = true;
+    }
+
+    /**
+     * Number in a segment file name like "12.seg", or -1 if it isn't one of ours.
+     */
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Segment openSegment(Path file, long number) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() < HEADER_SIZE || channel.read(header, 0) < HEADER_SIZE
+                || header.getInt(0) != MAGIC) {
+            // Crashed while being created
+            channel.close();
+            Files.deleteIfExists(file);
+            return null;
+        }
+        if (header.get(4) != FORMAT_VERSION || header.getShort(6) != RECORD_SIZE) {
+            channel.close();
+            throw new IOException("Unsupported score segment format in " + file);
+        }
+
+        long body = channel.size() - HEADER_SIZE;
+        if (body % RECORD_SIZE != 0) {
+            channel.truncate(HEADER_SIZE + body / RECORD_SIZE * RECORD_SIZE);
+            truncatedRecords.incrementAndGet();
+        }
+        return new Segment(number, file, header.getLong(8), channel, body / RECORD_SIZE);
+    }
+
+    /**
+     * A record may be full length but only partly written; drop trailing ones that fail their CRC.
+     */
+    private void trimTornTail(Segment segment) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        while (segment.records > 0) {
+            record.clear();
+            readFully(segment.channel, record, HEADER_SIZE + (segment.records - 1) * RECORD_SIZE);
+            if (checksum(record) == record.getInt(CRC_OFFSET)) {
+                return;
+            }
+            segment.records--;
+            segment.channel.truncate(HEADER_SIZE + segment.records * RECORD_SIZE);
+            truncatedRecords.incrementAndGet();
+        }
+    }
+
+    /**
+     * Seal the active segment and start the next one.
+     */
+    private Segment roll(UserLog log) throws IOException {
+        Files.createDirectories(log.dir);
+        Segment previous = log.active();
+        if (previous != null) {
+            previous.channel.force(false);
+        }
+
+        long number = previous != null ? previous.number + 1 : 0;
+        Path path = log.dir.resolve(number + SEGMENT_SUFFIX);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        writeFully(channel, header(log.totalRecords), 0);
+        channel.force(true);
+
+        Segment segment = new Segment(number, path, log.totalRecords, channel, 0);
+        log.segments.add(segment);
+        return segment;
+    }
+
+    private boolean compact(UserLog log) throws IOException {
+        boolean merged = false;
+        while (compactNewestRun(log)) {
+            merged = true;
+        }
+        return merged;
+    }
+
+    /**
+     * Size tier of a segment: 0 for a plain sealed one, k once it holds
+     * compactThreshold^k of them.
+     */
+    private int tierOf(Segment segment) {
+        int tier = 0;
+        long size = segmentRecords;
+        while (segment.records >= size * compactThreshold) {
+            size *= compactThreshold;
+            tier++;
+        }
+        return tier;
+    }
+
+    private boolean compactNewestRun(UserLog log) throws IOException {
+        int end = log.segments.size() - 1; // the active segment is never merged
+        if (end < compactThreshold) {
+            return false;
+        }
+        // Tiers only shrink from oldest to newest, so the newest run is the only candidate
+        int tier = tierOf(log.segments.get(end - 1));
+        int start = end - 1;
+        while (start > 0 && tierOf(log.segments.get(start - 1)) == tier) {
+            start--;
+        }
+        if (end - start < compactThreshold) {
+            return false;
+        }
+        List<Segment> run = new ArrayList<>(log.segments.subList(start, end));
+        Segment first = run.get(0);
+
+        Path temp = log.dir.resolve(first.number + SEGMENT_SUFFIX + TEMP_SUFFIX);
+        long records = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, header(first.firstOrdinal), 0);
+            out.position(HEADER_SIZE);
+            for (Segment segment : run) {
+                long position = HEADER_SIZE;
+                long segmentEnd = HEADER_SIZE + segment.records * RECORD_SIZE;
+                while (position < segmentEnd) {
+                    position += segment.channel.transferTo(position, segmentEnd - position, out);
+                }
+                records += segment.records;
+            }
+            out.force(true);
+        }
+
+        for (Segment segment : run) {
+            segment.channel.close();
+        }
+        // The merged file replaces the run's first segment; until the rest are deleted, recovery
+        // sees their records as covered by it and drops them
+        Files.move(temp, first.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (Segment segment : run.subList(1, run.size())) {
+            Files.deleteIfExists(segment.path);
+        }
+
+        FileChannel merged = FileChannel.open(first.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log.segments.subList(start, end).clear();
+        log.segments.add(start, new Segment(first.number, first.path, first.firstOrdinal, merged, records));
+        compactions.incrementAndGet();
+        compactedRecords.addAndGet(records);
+        System.out.println("[ScoreLog] Compacted " + run.size() + " tier-" + tier + " segments of "
+                + log.dir.getFileName() + " into one (" + records + " games)");
+        return true;
+    }
+
+    // ---- encoding ----
+
+    private static ByteBuffer header(long firstOrdinal) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(0, MAGIC);
+        header.put(4, FORMAT_VERSION);
+        header.putShort(6, (short) RECORD_SIZE);
+        header.putLong(8, firstOrdinal);
+        return header;
+    }
+
+    /**
+     * timestamp, wpm, accuracy, duration, wordsTyped, mode (length + up to
+     * MODE_BYTES of UTF-8), CRC32 of everything before it.
+     */
+    static ByteBuffer encode(GameRecord record) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.putLong(0, record.getTimestamp());
+        buffer.putDouble(8, record.getWpm());
+        buffer.putDouble(16, record.getAccuracy());
+        buffer.putLong(24, record.getDuration());
+        buffer.putInt(32, record.getWordsTyped());
+
+        byte[] mode = modeBytes(record.getGameMode());
+        buffer.put(36, (byte) mode.length);
+        buffer.put(37, mode);
+        buffer.putInt(CRC_OFFSET, checksum(buffer));
+        return buffer;
+    }
+
+    static GameRecord decode(ByteBuffer buffer, int offset) {
+        byte[] mode = new byte[buffer.get(offset + 36)];
+        buffer.get(offset + 37, mode);
+        return new GameRecord(
+                buffer.getDouble(offset + 8),
+                buffer.getDouble(offset + 16),
+                buffer.getInt(offset + 32),
+                buffer.getLong(offset + 24),
+                new String(mode, StandardCharsets.UTF_8),
+                buffer.getLong(offset));
+    }
+
+    private static byte[] modeBytes(String gameMode) {
+        String mode = gameMode != null ? gameMode : "";
+        byte[] bytes = mode.getBytes(StandardCharsets.UTF_8);
+        // Cut whole characters, never half of one
+        while (bytes.length > MODE_BYTES) {
+            mode = mode.substring(0, mode.length() - 1);
+            bytes = mode.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    private static int checksum(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.slice(0, CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    private static List<GameRecord> readRange(Segment segment, long start, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count * RECORD_SIZE);
+        readFully(segment.channel, buffer, HEADER_SIZE + start * RECORD_SIZE);
+
+        List<GameRecord> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ByteBuffer record = buffer.slice(i * RECORD_SIZE, RECORD_SIZE);
+            if (checksum(record) != record.getInt(CRC_OFFSET)) {
+                System.err.println("[ScoreLog] Skipping corrupt record " + (segment.firstOrdinal + start + i)
+                        + " in " + segment.path);
+                continue;
+            }
+            games.add(decode(record, 0));
+        }
+        return games;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Score segment ended early");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.rewind();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * The user's log directory, for files kept alongside the segments.
+     * Only *.seg and *.tmp names belong to the log itself.
+     */
+    Path userDirectory(String username) {
+        return directory.resolve(userKey(username));
+    }
+
+    /**
+     * Directory name for a user: hex of the UTF-8 name, safe on any file system.
+     * Names too long for that get hex of a prefix plus "-" and the SHA-256 of
+     * the whole name, which plain hex can never collide with.
+     */
+    static String userKey(String username) {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        if (name.length <= MAX_PLAIN_KEY_BYTES) {
+            return hex(name, name.length);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(name);
+            return hex(name, HASHED_KEY_PREFIX_BYTES) + "-" + hex(digest, digest.length);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes, int length) {
+        StringBuilder hex = new StringBuilder(length * 2);
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[i];
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    // ---- gauges ----
+
+    public long getAppends() {
+        return appends.get();
+    }
+
+    public long getFsyncs() {
+        return fsyncs.get();
+    }
+
+    public long getCompactions() {
+        return compactions.get();
+    }
+
+    /**
+     * Games copied by compaction, counting each time one is rewritten.
+     */
+    public long getCompactedRecords() {
+        return compactedRecords.get();
+    }
+
+    /**
+     * Partial or corrupt tail records cut off during recovery.
+     */
+    public long getTruncatedRecords() {
+        return truncatedRecords.get();
+    }
+
+    public synchronized int getOpenUsers() {
+        return openLogs.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ScoreLog{dir=%s, appends=%d, fsyncs=%d, compactions=%d, openUsers=%d}",
+                directory, getAppends(), getFsyncs(), getCompactions(), getOpenUsers());
+    }
+}
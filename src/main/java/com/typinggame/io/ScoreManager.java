@@ -1,16 +1,34 @@
 package com.typinggame.io;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
 /**
  * Manages saving and loading user statistics and match history.
- * Uses ObjectOutputStream/ObjectInputStream for binary serialization
- * and FileWriter/FileReader for human-readable text files.
+ * Game results go to a per-user append-only ScoreLog, so saving a game
+ * is one small write instead of rewriting every user's history.
+ * Next to each log is a summary file (the user's aggregates, encoded with
+ * UserStatsCodec, plus how many games it covers) that is updated on every
+ * append, so reading a user's summary doesn't replay their games.
+ * The single-user scores.dat snapshot is written with UserStatsCodec
+ * (old ObjectOutputStream files are migrated when read), and
+ * FileWriter/FileReader handle the human-readable text files.
  */
 @Component
 public class ScoreManager {
@@ -18,20 +36,174 @@ public class ScoreManager {
     private static final String STATS_FILE = "scores.dat";
     private static final String MATCH_HISTORY_FILE = "match_history.txt";
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    // First two bytes of an ObjectOutputStream file (STREAM_MAGIC)
+    private static final int JAVA_SERIALIZATION_MAGIC = 0xACED;
+
+    public static final String DEFAULT_SCORES_DIR = "scores";
+    public static final long DEFAULT_FSYNC_INTERVAL_MS = 200;
+    // Records per segment file (64 bytes each) and sealed segments per user before they are merged
+    private static final int SEGMENT_RECORDS = 4096;
+    private static final int COMPACT_THRESHOLD = 4;
+    // Not .tmp: ScoreLog recovery deletes those in the user directory
+    private static final String SUMMARY_FILE = "summary.uss";
+    private static final String SUMMARY_TEMP_FILE = "summary.uss.part";
+    private static final int SUMMARY_LOCK_STRIPES = 64;
+
+    private final ScoreLog scoreLog;
+    private final HistoryExporter historyExporter;
+    // Keeps a user's append and summary update together
+    private final Object[] summaryLocks = new Object[SUMMARY_LOCK_STRIPES];
+
+    public ScoreManager() {
+        this(DEFAULT_SCORES_DIR, DEFAULT_FSYNC_INTERVAL_MS);
+    }
+
+    @Autowired
+    public ScoreManager(@Value("${typinggame.scores.dir:" + DEFAULT_SCORES_DIR + "}") String scoresDir,
+            @Value("${typinggame.scores.fsync-interval-ms:" + DEFAULT_FSYNC_INTERVAL_MS + "}") long fsyncIntervalMs) {
+        this.scoreLog = new ScoreLog(Path.of(scoresDir), fsyncIntervalMs, SEGMENT_RECORDS, COMPACT_THRESHOLD);
+        this.historyExporter = new HistoryExporter(scoreLog);
+        for (int i = 0; i < summaryLocks.length; i++) {
+            summaryLocks[i] = new Object();
+        }
+    }
 
     /**
-     * Save UserStats to binary file using ObjectOutputStream.
+     * Append one finished game to the user's score log.
      */
-    public void saveStats(UserStats stats) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(STATS_FILE))) {
-            oos.writeObject(stats);
-            System.out.println("[ScoreManager] Stats saved to " + STATS_FILE);
+    public void recordGame(String username, UserStats.GameRecord record) throws IOException {
+        recordGames(username, List.of(record));
+    }
+
+    /**
+     * Append several finished games for one user in a single write, and fold
+     * them into the user's summary file.
+     */
+    public void recordGames(String username, List<UserStats.GameRecord> records) throws IOException {
+        synchronized (summaryLock(username)) {
+            long before = scoreLog.count(username);
+            scoreLog.appendAll(username, records);
+
+            UserStats summary = readSummary(username, before);
+            if (summary == null) {
+                summary = rebuildSummary(username);
+            } else {
+                records.forEach(summary::addGameRecord);
+            }
+            writeSummary(username, summary, before + records.size());
         }
     }
 
     /**
-     * Load UserStats from binary file using ObjectInputStream.
+     * Rebuild a user's stats from their score log; null if they have no games.
+     */
+    public UserStats loadStats(String username) throws IOException {
+        if (scoreLog.count(username) == 0) {
+            return null;
+        }
+        UserStats stats = new UserStats(username);
+        scoreLog.forEach(username, stats::addGameRecord);
+        return stats;
+    }
+
+    /**
+     * A user's aggregates without their game history; null if they have no games.
+     * Read from the summary file; the log is only replayed if that is missing
+     * or doesn't cover exactly the games in the log (e.g. after a crash).
+     */
+    public UserStats loadSummary(String username) throws IOException {
+        synchronized (summaryLock(username)) {
+            long count = scoreLog.count(username);
+            if (count == 0) {
+                return null;
+            }
+            UserStats summary = readSummary(username, count);
+            if (summary == null) {
+                summary = rebuildSummary(username);
+                writeSummary(username, summary, count);
+            }
+            return summary;
+        }
+    }
+
+    private Object summaryLock(String username) {
+        return summaryLocks[Math.floorMod(username.hashCode(), summaryLocks.length)];
+    }
+
+    /**
+     * The summary file's stats if it covers exactly games records, else null.
+     */
+    private UserStats readSummary(String username, long games) {
+        Path file = scoreLog.userDirectory(username).resolve(SUMMARY_FILE);
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            if (bytes.length < Long.BYTES || ByteBuffer.wrap(bytes).getLong() != games) {
+                return null;
+            }
+            return UserStatsCodec.decode(Arrays.copyOfRange(bytes, Long.BYTES, bytes.length));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[ScoreManager] Rebuilding unreadable summary " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private UserStats rebuildSummary(String username) throws IOException {
+        UserStats summary = UserStats.summaryOnly(username);
+        scoreLog.forEach(username, summary::addGameRecord);
+        return summary;
+    }
+
+    /**
+     * Not fsynced: the log is the source of truth, and a summary whose count
+     * doesn't match it is rebuilt.
+     */
+    private void writeSummary(String username, UserStats summary, long games) throws IOException {
+        Path dir = scoreLog.userDirectory(username);
+        byte[] encoded = UserStatsCodec.encode(summary);
+        ByteBuffer bytes = ByteBuffer.allocate(Long.BYTES + encoded.length);
+        bytes.putLong(games).put(encoded);
+
+        Path temp = dir.resolve(SUMMARY_TEMP_FILE);
+        Files.write(temp, bytes.array());
+        Files.move(temp, dir.resolve(SUMMARY_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The user's last count games, oldest first, without reading the rest of the log.
+     */
+    public List<UserStats.GameRecord> recentGames(String username, int count) throws IOException {
+        return scoreLog.readLast(username, count);
+    }
+
+    /**
+     * fsync pending score log writes now rather than at the next batch.
+     */
+    public void flush() throws IOException {
+        scoreLog.flush();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        scoreLog.close();
+    }
+
+    public ScoreLog getScoreLog() {
+        return scoreLog;
+    }
+
+    /**
+     * Save UserStats to the binary stats file using UserStatsCodec.
+     */
+    public void saveStats(UserStats stats) throws IOException {
+        saveStats(stats, Path.of(STATS_FILE));
+        System.out.println("[ScoreManager] Stats saved to " + STATS_FILE);
+    }
+
+    /**
+     * Load UserStats from the binary stats file, migrating an old ObjectOutputStream file.
      */
     public UserStats loadStats() throws IOException, ClassNotFoundException {
         File file = new File(STATS_FILE);
@@ -40,10 +212,30 @@ public class ScoreManager {
             return null;
         }
 
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new FileInputStream(STATS_FILE))) {
+        UserStats stats = loadStats(file.toPath());
+        System.out.println("[ScoreManager] Stats loaded from " + STATS_FILE);
+        return stats;
+    }
+
+    /**
+     * Write to a temp file and move it into place, so a crash never leaves half a file.
+     */
+    void saveStats(UserStats stats, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, UserStatsCodec.encode(stats));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    UserStats loadStats(Path file) throws IOException, ClassNotFoundException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < 2 || ((bytes[0] & 0xFF) << 8 | (bytes[1] & 0xFF)) != JAVA_SERIALIZATION_MAGIC) {
+            return UserStatsCodec.decode(bytes);
+        }
+
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
             UserStats stats = (UserStats) ois.readObject();
-            System.out.println("[ScoreManager] Stats loaded from " + STATS_FILE);
+            saveStats(stats, file);
+            System.out.println("[ScoreManager] Migrated " + file + " from Java serialization");
             return stats;
         }
     }
@@ -85,36 +277,61 @@ public class ScoreManager {
             return;
         }
 
-        try (FileWriter writer = new FileWriter(MATCH_HISTORY_FILE, false)) {
-            // Overwrite mode for full history
-            writer.write("╔" + "═".repeat(58) + "╗\n");
-            writer.write("║" + centerText("TYPING GAME MATCH HISTORY", 58) + "║\n");
-            writer.write("╠" + "═".repeat(58) + "╣\n");
-            writer.write("║ Player: " + String.format("%-47s", stats.getUsername()) + "║\n");
-            writer.write("║ Total Games: " + String.format("%-43d", stats.getTotalGamesPlayed()) + "║\n");
-            writer.write("║ Best WPM: " + String.format("%-46.2f", stats.getBestWPM()) + "║\n");
-            writer.write("║ Average WPM: " + String.format("%-43.2f", stats.getAverageWPM()) + "║\n");
-            writer.write("║ Best Accuracy: " + String.format("%-40.2f%%", stats.getBestAccuracy()) + "║\n");
-            writer.write("║ Average Accuracy: " + String.format("%-37.2f%%", stats.getAverageAccuracy()) + "║\n");
-            writer.write("╚" + "═".repeat(58) + "╝\n\n");
-
-            List<UserStats.GameRecord> history = stats.getGameHistory();
-            for (int i = 0; i < history.size(); i++) {
-                UserStats.GameRecord game = history.get(i);
-                writer.write(String.format("Game #%d - %s\n", i + 1,
-                        DATE_FORMAT.format(new Date(game.getTimestamp()))));
-                writer.write("-".repeat(60) + "\n");
-                writer.write(String.format("  Mode: %s\n", game.getGameMode()));
-                writer.write(String.format("  WPM: %.2f | Accuracy: %.2f%% | Words: %d | Time: %.2fs\n",
-                        game.getWpm(), game.getAccuracy(), game.getWordsTyped(),
-                        game.getDuration() / 1000.0));
-                writer.write("\n");
+        // Overwrite mode for full history
+        try (Writer writer = new BufferedWriter(new FileWriter(MATCH_HISTORY_FILE, false))) {
+            HistoryExporter.writeTextHeader(writer, stats);
+
+            StringBuilder line = new StringBuilder(160);
+            long number = 0;
+            for (UserStats.GameRecord game : stats.getGameHistory()) {
+                line.setLength(0);
+                historyExporter.appendText(line, ++number, game);
+                writer.append(line);
             }
 
             System.out.println("[ScoreManager] Full history exported to " + MATCH_HISTORY_FILE);
         }
     }
 
+    /**
+     * Stream a user's logged games, filtered, to out in the given format; see HistoryExporter.
+     * @return the number of games written.
+     */
+    public long exportHistory(String username, HistoryExporter.Format format, HistoryExporter.Filter filter,
+            OutputStream out) throws IOException {
+        return historyExporter.export(username, format, filter, scoreLog.count(username), out);
+    }
+
+    /**
+     * Stream a user's logged games to a file, replacing it.
+     */
+    public long exportHistory(String username, HistoryExporter.Format format, HistoryExporter.Filter filter,
+            Path file) throws IOException {
+        try (OutputStream out = Channels.newOutputStream(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            long games = exportHistory(username, format, filter, out);
+            System.out.println("[ScoreManager] Exported " + games + " games of " + username + " to " + file);
+            return games;
+        }
+    }
+
+    public HistoryExporter getHistoryExporter() {
+        return historyExporter;
+    }
+
+    /**
+     * Copy the match history file to out without loading it into memory.
+     * @return false if there is no match history.
+     */
+    public boolean copyMatchHistory(OutputStream out) throws IOException {
+        Path file = Path.of(MATCH_HISTORY_FILE);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        Files.copy(file, out);
+        return true;
+    }
+
     /**
      * Read match history from text file using FileReader.
      */
@@ -137,14 +354,6 @@ public class ScoreManager {
         return content.toString();
     }
 
-    /**
-     * Helper method to center text.
-     */
-    private String centerText(String text, int width) {
-        int padding = (width - text.length()) / 2;
-        return " ".repeat(padding) + text + " ".repeat(width - text.length() - padding);
-    }
-
     /**
      * Delete stats file.
      */
@@ -0,0 +1,328 @@
+package com.typinggame.io;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue for game results.
+ *
+ * Callers on STOMP and room threads hand a result over and return without
+ * touching disk. A dedicated worker writes the queue out once batchSize
+ * results are pending or flushIntervalMs has passed since the oldest one.
+ * Pending results are grouped per user, so a user with several results in
+ * a batch gets one ScoreLog write. The batch is fsynced once, then the next
+ * one starts. If a write fails, the users not yet written go back in front
+ * of newer results and are retried. Shutdown drains whatever is still queued.
+ *
+ * The queue holds at most capacity results. When the disk falls that far
+ * behind, submit() waits for room (backpressure) rather than dropping a
+ * result; it is for request threads only. Room actors and other shared
+ * threads use offer(), which never waits and drops (and counts) the result
+ * instead, so a slow disk cannot stall every room.
+ */
+@Component
+public class ScoreWriteBehind {
+
+    private static final long RETRY_DELAY_MS = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10000;
+
+    private final ScoreManager scoreManager;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int capacity;
+
+    // username -> results not yet written, oldest first; guarded by this
+    private LinkedHashMap<String, List<UserStats.GameRecord>> pending = new LinkedHashMap<>();
+    private int pendingCount;
+    private long oldestPendingAt;
+    private boolean writing;
+    private boolean flushRequested;
+    private boolean stopping;
+    private Thread worker;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong userWrites = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong blockedSubmits = new AtomicLong();
+    private final AtomicLong droppedOffers = new AtomicLong();
+
+    @Autowired
+    public ScoreWriteBehind(ScoreManager scoreManager,
+            @Value("${typinggame.scores.write-behind.batch-size:256}") int batchSize,
+            @Value("${typinggame.scores.write-behind.flush-interval-ms:500}") long flushIntervalMs,
+            @Value("${typinggame.scores.write-behind.capacity:50000}") int capacity) {
+        if (batchSize < 1 || capacity < batchSize) {
+            throw new IllegalArgumentException("batchSize must be >= 1 and capacity >= batchSize");
+        }
+        this.scoreManager = scoreManager;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.capacity = capacity;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (worker != null) return;
+        worker = new Thread(this::run, "ScoreWriteBehind");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queue a result for the user, waiting for room if the queue is full.
+     * Blocks on the disk when it falls behind, so only for request threads.
+     */
+    public void submit(String username, UserStats.GameRecord record) throws InterruptedException {
+        synchronized (this) {
+            if (stopping) {
+                throw new IllegalStateException("Score write-behind is shut down");
+            }
+            if (pendingCount >= capacity) {
+                blockedSubmits.incrementAndGet();
+                while (pendingCount >= capacity && !stopping) {
+                    wait();
+                }
+                if (stopping) {
+                    throw new IllegalStateException("Score write-behind is shut down");
+                }
+            }
+            enqueue(username, record);
+        }
+        submitted.incrementAndGet();
+    }
+
+    /**
+     * Queue a result for the user without ever waiting.
+     * @return false if the queue was full and the result was dropped.
+     */
+    public boolean offer(String username, UserStats.GameRecord record) {
+        synchronized (this) {
+            if (stopping) {
+                throw new IllegalStateException("Score write-behind is shut down");
+            }
+            if (pendingCount >= capacity) {
+                droppedOffers.incrementAndGet();
+                return false;
+            }
+            enqueue(username, record);
+        }
+        submitted.incrementAndGet();
+        return true;
+    }
+
+    // Caller holds this
+    private void enqueue(String username, UserStats.GameRecord record) {
+        if (pendingCount == 0) {
+            oldestPendingAt = System.currentTimeMillis();
+        }
+        pending.computeIfAbsent(username, u -> new ArrayList<>()).add(record);
+        pendingCount++;
+        // The first result starts the flush timer; a full batch goes out now
+        if (pendingCount == 1 || pendingCount >= batchSize) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Write everything queued so far and wait until it is on disk.
+     */
+    public void flush() throws InterruptedException {
+        synchronized (this) {
+            long target = submitted.get();
+            flushRequested = true;
+            notifyAll();
+            while ((pendingCount > 0 || writing) && written.get() < target && worker != null && worker.isAlive()) {
+                wait(100);
+            }
+        }
+    }
+
+    /**
+     * Stop taking results and drain the queue.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread current;
+        synchronized (this) {
+            stopping = true;
+            notifyAll();
+            current = worker;
+        }
+        if (current != null) {
+            current.join(SHUTDOWN_TIMEOUT_MS);
+        }
+        synchronized (this) {
+            if (pendingCount > 0) {
+                System.err.println("[ScoreWriteBehind] " + pendingCount + " result(s) not written at shutdown");
+            }
+        }
+    }
+
+    private void run() {
+        while (true) {
+            Map<String, List<UserStats.GameRecord>> batch;
+            int count;
+            synchronized (this) {
+                try {
+                    while (!stopping && !due()) {
+                        long wait = pendingCount == 0 ? 0
+                                : Math.max(1, oldestPendingAt + flushIntervalMs - System.currentTimeMillis());
+                        wait(wait);
+                    }
+                } catch (InterruptedException e) {
+                    stopping = true;
+                }
+                if (pendingCount == 0) {
+                    if (stopping) return;
+                    continue;
+                }
+                batch = pending;
+                count = pendingCount;
+                pending = new LinkedHashMap<>();
+                pendingCount = 0;
+                flushRequested = false;
+                writing = true;
+                // Room for blocked submitters while this batch is written
+                notifyAll();
+            }
+
+            int failed = write(batch, count);
+
+            synchronized (this) {
+                writing = false;
+                if (failed > 0) {
+                    requeue(batch, failed);
+                }
+                notifyAll();
+            }
+            if (failed > 0) {
+                if (stopping) return;
+                sleepBeforeRetry();
+            }
+        }
+    }
+
+    private boolean due() {
+        return pendingCount >= batchSize
+                || (pendingCount > 0 && (flushRequested
+                        || System.currentTimeMillis() - oldestPendingAt >= flushIntervalMs));
+    }
+
+    /**
+     * Write the batch, removing each user from it once their results are in the log.
+     * @return how many results are left in the batch because a write failed.
+     */
+    private int write(Map<String, List<UserStats.GameRecord>> batch, int count) {
+        int remaining = count;
+        Iterator<Map.Entry<String, List<UserStats.GameRecord>>> it = batch.entrySet().iterator();
+        try {
+            while (it.hasNext()) {
+                Map.Entry<String, List<UserStats.GameRecord>> entry = it.next();
+                List<UserStats.GameRecord> records = entry.getValue();
+                scoreManager.recordGames(entry.getKey(), records);
+                it.remove();
+                remaining -= records.size();
+                written.addAndGet(records.size());
+                userWrites.incrementAndGet();
+            }
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            System.err.println("[ScoreWriteBehind] Failed to write " + remaining + " result(s): " + e.getMessage());
+            return remaining;
+        }
+
+        try {
+            scoreManager.flush();
+        } catch (Exception e) {
+            // Already appended; writing them again would duplicate them
+            failures.incrementAndGet();
+            System.err.println("[ScoreWriteBehind] fsync after batch failed: " + e.getMessage());
+        }
+        batches.incrementAndGet();
+        return 0;
+    }
+
+    /**
+     * Put the unwritten part of a batch back ahead of anything queued since, keeping each user's order.
+     */
+    private void requeue(Map<String, List<UserStats.GameRecord>> batch, int count) {
+        LinkedHashMap<String, List<UserStats.GameRecord>> merged = new LinkedHashMap<>(batch);
+        pending.forEach((user, records) -> merged.computeIfAbsent(user, u -> new ArrayList<>()).addAll(records));
+        if (pendingCount == 0) {
+            oldestPendingAt = System.currentTimeMillis();
+        }
+        pending = merged;
+        pendingCount += count;
+    }
+
+    private void sleepBeforeRetry() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MS);
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                stopping = true;
+            }
+        }
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * ScoreLog writes, one per user per batch; below getWritten() when results were coalesced.
+     */
+    public long getUserWrites() {
+        return userWrites.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Submits that had to wait because the queue was full.
+     */
+    public long getBlockedSubmits() {
+        return blockedSubmits.get();
+    }
+
+    /**
+     * Results offer() dropped because the queue was full.
+     */
+    public long getDroppedOffers() {
+        return droppedOffers.get();
+    }
+
+    public synchronized int getPending() {
+        return pendingCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ScoreWriteBehind{submitted=%d, written=%d, batches=%d, userWrites=%d, pending=%d, failures=%d, droppedOffers=%d}",
+                getSubmitted(), getWritten(), getBatches(), getUserWrites(), getPending(), getFailures(),
+                getDroppedOffers());
+    }
+}
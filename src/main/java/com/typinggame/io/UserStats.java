@@ -1,12 +1,22 @@
 package com.typinggame.io;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Serializable class to store user statistics.
- * Can be saved/loaded using ObjectOutputStream/ObjectInputStream.
+ * Class to store user statistics.
+ * Saved with UserStatsCodec; stays Serializable so old scores.dat files can be migrated.
+ *
+ * Every aggregate (totals, Welford mean/variance, the WPM quantile sketch and
+ * the per-mode breakdown) is updated in O(1) per game, so reading them never
+ * walks the history. Stats built with summaryOnly() keep no history at all,
+ * which keeps users with very many games cheap to load.
  */
 public class UserStats implements Serializable {
 
@@ -22,6 +32,14 @@ public class UserStats implements Serializable {
     private long totalTimeSpent; // in milliseconds
     private List<GameRecord> gameHistory;
 
+    // Not in the first serialized form; rebuilt from gameHistory when such a file is read
+    private RunningStats wpmStats;
+    private RunningStats accuracyStats;
+    private WpmHistogram wpmHistogram;
+    private Map<String, ModeStats> modeStats;
+    private GameRecord lastGame;
+    private boolean summaryOnly;
+
     public UserStats(String username) {
         this.username = username;
         this.totalGamesPlayed = 0;
@@ -32,6 +50,132 @@ public class UserStats implements Serializable {
         this.averageAccuracy = 0.0;
         this.totalTimeSpent = 0;
         this.gameHistory = new ArrayList<>();
+        this.wpmStats = new RunningStats();
+        this.accuracyStats = new RunningStats();
+        this.wpmHistogram = new WpmHistogram();
+        this.modeStats = new LinkedHashMap<>();
+    }
+
+    /**
+     * Stats that keep only aggregates and the last game, not the game history.
+     */
+    public static UserStats summaryOnly(String username) {
+        UserStats stats = new UserStats(username);
+        stats.summaryOnly = true;
+        return stats;
+    }
+
+    /**
+     * Stats restored as stored, used by UserStatsCodec. Null aggregates
+     * (a file written before they existed) are rebuilt from the history.
+     */
+    UserStats(String username, int totalGamesPlayed, int totalWordsTyped, long totalTimeSpent,
+            double bestWPM, double averageWPM, double bestAccuracy, double averageAccuracy,
+            List<GameRecord> gameHistory, GameRecord lastGame, boolean summaryOnly,
+            RunningStats wpmStats, RunningStats accuracyStats, WpmHistogram wpmHistogram,
+            Map<String, ModeStats> modeStats) {
+        this.username = username;
+        this.totalGamesPlayed = totalGamesPlayed;
+        this.totalWordsTyped = totalWordsTyped;
+        this.totalTimeSpent = totalTimeSpent;
+        this.bestWPM = bestWPM;
+        this.averageWPM = averageWPM;
+        this.bestAccuracy = bestAccuracy;
+        this.averageAccuracy = averageAccuracy;
+        this.gameHistory = new ArrayList<>(gameHistory);
+        this.lastGame = lastGame;
+        this.summaryOnly = summaryOnly;
+        this.wpmStats = wpmStats;
+        this.accuracyStats = accuracyStats;
+        this.wpmHistogram = wpmHistogram;
+        this.modeStats = modeStats != null ? new LinkedHashMap<>(modeStats) : null;
+        if (wpmStats == null) {
+            rebuildAggregates();
+        }
+    }
+
+    /**
+     * Aggregates for one game mode.
+     */
+    public static class ModeStats implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private int wordsTyped;
+        private long timeSpent;
+        private final RunningStats wpm;
+        private final RunningStats accuracy;
+        private final WpmHistogram wpmHistogram;
+
+        public ModeStats() {
+            this(0, 0, new RunningStats(), new RunningStats(), new WpmHistogram());
+        }
+
+        ModeStats(int wordsTyped, long timeSpent, RunningStats wpm, RunningStats accuracy,
+                WpmHistogram wpmHistogram) {
+            this.wordsTyped = wordsTyped;
+            this.timeSpent = timeSpent;
+            this.wpm = wpm;
+            this.accuracy = accuracy;
+            this.wpmHistogram = wpmHistogram;
+        }
+
+        void add(GameRecord record) {
+            wordsTyped += record.getWordsTyped();
+            timeSpent += record.getDuration();
+            wpm.add(record.getWpm());
+            accuracy.add(record.getAccuracy());
+            wpmHistogram.add(record.getWpm());
+        }
+
+        public int getGamesPlayed() {
+            return (int) wpm.getCount();
+        }
+
+        public int getWordsTyped() {
+            return wordsTyped;
+        }
+
+        public long getTimeSpent() {
+            return timeSpent;
+        }
+
+        public double getAverageWPM() {
+            return wpm.getMean();
+        }
+
+        public double getBestWPM() {
+            return wpm.getMax();
+        }
+
+        public double getAverageAccuracy() {
+            return accuracy.getMean();
+        }
+
+        public double getMedianWPM() {
+            return wpmHistogram.quantile(0.5);
+        }
+
+        public double getP90WPM() {
+            return wpmHistogram.quantile(0.9);
+        }
+
+        public RunningStats getWpmStats() {
+            return wpm;
+        }
+
+        public RunningStats getAccuracyStats() {
+            return accuracy;
+        }
+
+        public WpmHistogram getWpmHistogram() {
+            return wpmHistogram;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ModeStats{games=%d, avgWPM=%.1f, p50=%.1f, p90=%.1f, avgAcc=%.1f%%}",
+                    getGamesPlayed(), getAverageWPM(), getMedianWPM(), getP90WPM(), getAverageAccuracy());
+        }
     }
 
     /**
@@ -49,11 +193,19 @@ public class UserStats implements Serializable {
 
         public GameRecord(double wpm, double accuracy, int wordsTyped,
                 long duration, String gameMode) {
+            this(wpm, accuracy, wordsTyped, duration, gameMode, System.currentTimeMillis());
+        }
+
+        /**
+         * A game played at a known time, e.g. read back from the score log.
+         */
+        public GameRecord(double wpm, double accuracy, int wordsTyped,
+                long duration, String gameMode, long timestamp) {
             this.wpm = wpm;
             this.accuracy = accuracy;
             this.wordsTyped = wordsTyped;
             this.duration = duration;
-            this.timestamp = System.currentTimeMillis();
+            this.timestamp = timestamp;
             this.gameMode = gameMode;
         }
 
@@ -94,47 +246,124 @@ public class UserStats implements Serializable {
      */
     public void addGameRecord(double wpm, double accuracy, int wordsTyped,
             long duration, String gameMode) {
-        GameRecord record = new GameRecord(wpm, accuracy, wordsTyped, duration, gameMode);
-        gameHistory.add(record);
+        addGameRecord(new GameRecord(wpm, accuracy, wordsTyped, duration, gameMode));
+    }
+
+    /**
+     * Add an existing game record and update statistics in O(1).
+     */
+    public void addGameRecord(GameRecord record) {
+        if (!summaryOnly) {
+            gameHistory.add(record);
+        }
+        lastGame = record;
 
         totalGamesPlayed++;
-        totalWordsTyped += wordsTyped;
-        totalTimeSpent += duration;
+        totalWordsTyped += record.getWordsTyped();
+        totalTimeSpent += record.getDuration();
 
         // Update best scores
-        if (wpm > bestWPM) {
-            bestWPM = wpm;
+        if (record.getWpm() > bestWPM) {
+            bestWPM = record.getWpm();
         }
-        if (accuracy > bestAccuracy) {
-            bestAccuracy = accuracy;
+        if (record.getAccuracy() > bestAccuracy) {
+            bestAccuracy = record.getAccuracy();
         }
 
-        // Recalculate averages
-        double totalWPM = 0;
-        double totalAccuracy = 0;
-        for (GameRecord gr : gameHistory) {
-            totalWPM += gr.getWpm();
-            totalAccuracy += gr.getAccuracy();
+        addToAggregates(record);
+        averageWPM = wpmStats.getMean();
+        averageAccuracy = accuracyStats.getMean();
+    }
+
+    private void addToAggregates(GameRecord record) {
+        wpmStats.add(record.getWpm());
+        accuracyStats.add(record.getAccuracy());
+        wpmHistogram.add(record.getWpm());
+        modeStats.computeIfAbsent(modeKey(record.getGameMode()), m -> new ModeStats()).add(record);
+    }
+
+    private static String modeKey(String gameMode) {
+        return gameMode != null ? gameMode : "unknown";
+    }
+
+    /**
+     * Derive the aggregates from the history, for stats stored before they existed.
+     * Totals and bests are kept as stored.
+     */
+    private void rebuildAggregates() {
+        wpmStats = new RunningStats();
+        accuracyStats = new RunningStats();
+        wpmHistogram = new WpmHistogram();
+        modeStats = new LinkedHashMap<>();
+        for (GameRecord record : gameHistory) {
+            addToAggregates(record);
+        }
+        if (lastGame == null && !gameHistory.isEmpty()) {
+            lastGame = gameHistory.get(gameHistory.size() - 1);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (wpmStats == null) {
+            rebuildAggregates();
         }
-        averageWPM = totalWPM / totalGamesPlayed;
-        averageAccuracy = totalAccuracy / totalGamesPlayed;
     }
 
     /**
      * Get the most recent game record.
      */
     public GameRecord getLastGame() {
-        if (gameHistory.isEmpty()) {
-            return null;
-        }
-        return gameHistory.get(gameHistory.size() - 1);
+        return lastGame;
     }
 
     /**
-     * Get all game records.
+     * Read-only view of all game records; empty for summaryOnly() stats.
      */
     public List<GameRecord> getGameHistory() {
-        return new ArrayList<>(gameHistory);
+        return Collections.unmodifiableList(gameHistory);
+    }
+
+    public boolean isSummaryOnly() {
+        return summaryOnly;
+    }
+
+    /**
+     * Estimated WPM at quantile q (0..1), from the WPM sketch.
+     */
+    public double getWpmQuantile(double q) {
+        return wpmHistogram.quantile(q);
+    }
+
+    public double getMedianWPM() {
+        return wpmHistogram.quantile(0.5);
+    }
+
+    public double getP90WPM() {
+        return wpmHistogram.quantile(0.9);
+    }
+
+    public RunningStats getWpmStats() {
+        return wpmStats;
+    }
+
+    public RunningStats getAccuracyStats() {
+        return accuracyStats;
+    }
+
+    public WpmHistogram getWpmHistogram() {
+        return wpmHistogram;
+    }
+
+    /**
+     * Per game mode breakdown, in the order modes were first played.
+     */
+    public Map<String, ModeStats> getModeStats() {
+        return Collections.unmodifiableMap(modeStats);
+    }
+
+    public ModeStats getModeStats(String gameMode) {
+        return modeStats.get(modeKey(gameMode));
     }
 
     // Getters
@@ -173,7 +402,7 @@ public class UserStats implements Serializable {
     @Override
     public String toString() {
         return String.format(
-                "UserStats{username='%s', games=%d, bestWPM=%.1f, avgWPM=%.1f, bestAcc=%.1f%%, avgAcc=%.1f%%}",
-                username, totalGamesPlayed, bestWPM, averageWPM, bestAccuracy, averageAccuracy);
+                "UserStats{username='%s', games=%d, bestWPM=%.1f, avgWPM=%.1f, p50WPM=%.1f, p90WPM=%.1f, bestAcc=%.1f%%, avgAcc=%.1f%%}",
+                username, totalGamesPlayed, bestWPM, averageWPM, getMedianWPM(), getP90WPM(), bestAccuracy, averageAccuracy);
     }
 }
@@ -0,0 +1,382 @@
+package com.typinggame.io;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of UserStats and its game history.
+ *
+ * Layout, big-endian:
+ *   int magic, byte version, string username,
+ *   totals (int games, int words, long time) and best/average WPM and accuracy as doubles,
+ *   varint mode count + strings (each distinct game mode is written once),
+ *   varint record count + records,
+ *   since version 2: byte flags (summary only, has last game), the last game,
+ *   WPM and accuracy RunningStats, the WPM histogram and the per-mode stats.
+ * A record is wpm and accuracy as doubles, varint words, zigzag varint
+ * duration, zigzag varint timestamp delta from the previous record and a
+ * varint mode (0 = none, else table index + 1): about 24 bytes instead of
+ * Java serialization's per-object headers and class references. Strings
+ * are a varint byte length and UTF-8. Histograms store only non-empty bins.
+ *
+ * Decoding dispatches on the version; version 1 files get their aggregates
+ * rebuilt from the history.
+ */
+public final class UserStatsCodec {
+
+    public static final int MAGIC = 0x54475553; // "TGUS"
+    public static final byte VERSION = 2;
+
+    private static final int FLAG_SUMMARY_ONLY = 1;
+    private static final int FLAG_LAST_GAME = 2;
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private UserStatsCodec() {
+    }
+
+    public static byte[] encode(UserStats stats) {
+        List<UserStats.GameRecord> history = stats.getGameHistory();
+        Writer out = new Writer(2048 + history.size() * 24);
+        out.putInt(MAGIC);
+        out.putByte(VERSION);
+        out.putString(stats.getUsername());
+        out.putInt(stats.getTotalGamesPlayed());
+        out.putInt(stats.getTotalWordsTyped());
+        out.putLong(stats.getTotalTimeSpent());
+        out.putDouble(stats.getBestWPM());
+        out.putDouble(stats.getAverageWPM());
+        out.putDouble(stats.getBestAccuracy());
+        out.putDouble(stats.getAverageAccuracy());
+
+        Map<String, Integer> modeIndex = new HashMap<>();
+        List<String> modes = new ArrayList<>();
+        for (UserStats.GameRecord record : history) {
+            addMode(record.getGameMode(), modeIndex, modes);
+        }
+        if (stats.getLastGame() != null) {
+            addMode(stats.getLastGame().getGameMode(), modeIndex, modes);
+        }
+        for (String mode : stats.getModeStats().keySet()) {
+            addMode(mode, modeIndex, modes);
+        }
+        out.putVarLong(modes.size());
+        for (String mode : modes) {
+            out.putString(mode);
+        }
+
+        out.putVarLong(history.size());
+        long previousTimestamp = 0;
+        for (UserStats.GameRecord record : history) {
+            putRecord(out, record, previousTimestamp, modeIndex);
+            previousTimestamp = record.getTimestamp();
+        }
+
+        UserStats.GameRecord lastGame = stats.getLastGame();
+        out.putByte((stats.isSummaryOnly() ? FLAG_SUMMARY_ONLY : 0) | (lastGame != null ? FLAG_LAST_GAME : 0));
+        if (lastGame != null) {
+            putRecord(out, lastGame, 0, modeIndex);
+        }
+        putRunningStats(out, stats.getWpmStats());
+        putRunningStats(out, stats.getAccuracyStats());
+        putHistogram(out, stats.getWpmHistogram());
+
+        out.putVarLong(stats.getModeStats().size());
+        for (Map.Entry<String, UserStats.ModeStats> entry : stats.getModeStats().entrySet()) {
+            UserStats.ModeStats mode = entry.getValue();
+            out.putVarLong(modeIndex.get(entry.getKey()));
+            out.putVarLong(mode.getWordsTyped() & 0xFFFFFFFFL);
+            out.putVarLong(zigzag(mode.getTimeSpent()));
+            putRunningStats(out, mode.getWpmStats());
+            putRunningStats(out, mode.getAccuracyStats());
+            putHistogram(out, mode.getWpmHistogram());
+        }
+        return out.toByteArray();
+    }
+
+    public static UserStats decode(byte[] bytes) throws IOException {
+        Reader in = new Reader(bytes);
+        try {
+            int magic = in.getInt();
+            if (magic != MAGIC) {
+                throw new IOException(String.format("Not a stats file (magic %08x)", magic));
+            }
+            byte version = in.getByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported stats format version " + version);
+            }
+            return decode(in, version);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Stats data ends early", e);
+        }
+    }
+
+    private static UserStats decode(Reader in, int version) throws IOException {
+        String username = in.getString();
+        int totalGames = in.getInt();
+        int totalWords = in.getInt();
+        long totalTime = in.getLong();
+        double bestWPM = in.getDouble();
+        double averageWPM = in.getDouble();
+        double bestAccuracy = in.getDouble();
+        double averageAccuracy = in.getDouble();
+
+        String[] modes = new String[in.getCount() + 1];
+        for (int i = 1; i < modes.length; i++) {
+            modes[i] = in.getString();
+        }
+
+        int count = in.getCount();
+        List<UserStats.GameRecord> history = new ArrayList<>(count);
+        long timestamp = 0;
+        for (int i = 0; i < count; i++) {
+            UserStats.GameRecord record = getRecord(in, timestamp, modes);
+            history.add(record);
+            timestamp = record.getTimestamp();
+        }
+
+        if (version == 1) {
+            return new UserStats(username, totalGames, totalWords, totalTime,
+                    bestWPM, averageWPM, bestAccuracy, averageAccuracy, history, null, false,
+                    null, null, null, null);
+        }
+
+        int flags = in.getByte();
+        UserStats.GameRecord lastGame = (flags & FLAG_LAST_GAME) != 0 ? getRecord(in, 0, modes) : null;
+        RunningStats wpmStats = getRunningStats(in);
+        RunningStats accuracyStats = getRunningStats(in);
+        WpmHistogram wpmHistogram = getHistogram(in);
+
+        int modeCount = in.getCount();
+        Map<String, UserStats.ModeStats> modeStats = new LinkedHashMap<>();
+        for (int i = 0; i < modeCount; i++) {
+            String mode = modeAt(modes, in.getVarLong());
+            int words = (int) in.getVarLong();
+            long time = unzigzag(in.getVarLong());
+            modeStats.put(mode, new UserStats.ModeStats(words, time,
+                    getRunningStats(in), getRunningStats(in), getHistogram(in)));
+        }
+
+        return new UserStats(username, totalGames, totalWords, totalTime,
+                bestWPM, averageWPM, bestAccuracy, averageAccuracy, history, lastGame,
+                (flags & FLAG_SUMMARY_ONLY) != 0, wpmStats, accuracyStats, wpmHistogram, modeStats);
+    }
+
+    private static void addMode(String mode, Map<String, Integer> modeIndex, List<String> modes) {
+        if (mode != null && modeIndex.putIfAbsent(mode, modes.size() + 1) == null) {
+            modes.add(mode);
+        }
+    }
+
+    private static String modeAt(String[] modes, long index) throws IOException {
+        if (index < 0 || index >= modes.length) {
+            throw new IOException("Game mode index " + index + " out of range");
+        }
+        return modes[(int) index];
+    }
+
+    private static void putRecord(Writer out, UserStats.GameRecord record, long previousTimestamp,
+            Map<String, Integer> modeIndex) {
+        out.putDouble(record.getWpm());
+        out.putDouble(record.getAccuracy());
+        out.putVarLong(record.getWordsTyped() & 0xFFFFFFFFL);
+        out.putVarLong(zigzag(record.getDuration()));
+        out.putVarLong(zigzag(record.getTimestamp() - previousTimestamp));
+        out.putVarLong(record.getGameMode() == null ? 0 : modeIndex.get(record.getGameMode()));
+    }
+
+    private static UserStats.GameRecord getRecord(Reader in, long previousTimestamp, String[] modes)
+            throws IOException {
+        double wpm = in.getDouble();
+        double accuracy = in.getDouble();
+        int words = (int) in.getVarLong();
+        long duration = unzigzag(in.getVarLong());
+        long timestamp = previousTimestamp + unzigzag(in.getVarLong());
+        return new UserStats.GameRecord(wpm, accuracy, words, duration, modeAt(modes, in.getVarLong()), timestamp);
+    }
+
+    private static void putRunningStats(Writer out, RunningStats stats) {
+        out.putVarLong(stats.getCount());
+        out.putDouble(stats.getMean());
+        out.putDouble(stats.getM2());
+        out.putDouble(stats.getMin());
+        out.putDouble(stats.getMax());
+    }
+
+    private static RunningStats getRunningStats(Reader in) throws IOException {
+        long count = in.getVarLong();
+        double mean = in.getDouble();
+        double m2 = in.getDouble();
+        double min = in.getDouble();
+        double max = in.getDouble();
+        // getMin/getMax report 0 for an empty stream; keep the identities so adds still work
+        return count == 0 ? new RunningStats() : new RunningStats(count, mean, m2, min, max);
+    }
+
+    private static void putHistogram(Writer out, WpmHistogram histogram) {
+        int[] counts = histogram.getCounts();
+        int nonEmpty = 0;
+        for (int count : counts) {
+            if (count != 0) nonEmpty++;
+        }
+        out.putDouble(histogram.getMax());
+        out.putVarLong(nonEmpty);
+        int previous = 0;
+        for (int bin = 0; bin < counts.length; bin++) {
+            if (counts[bin] == 0) continue;
+            out.putVarLong(bin - previous);
+            out.putVarLong(counts[bin] & 0xFFFFFFFFL);
+            previous = bin;
+        }
+    }
+
+    private static WpmHistogram getHistogram(Reader in) throws IOException {
+        double max = in.getDouble();
+        int nonEmpty = in.getCount();
+        int[] counts = new int[WpmHistogram.BINS];
+        int bin = 0;
+        for (int i = 0; i < nonEmpty; i++) {
+            bin += (int) in.getVarLong();
+            if (bin < 0 || bin >= counts.length) {
+                throw new IOException("Histogram bin " + bin + " out of range");
+            }
+            counts[bin] = (int) in.getVarLong();
+        }
+        return new WpmHistogram(counts, max);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        private void ensure(int bytes) {
+            if (pos + bytes > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + bytes));
+            }
+        }
+
+        void putByte(int value) {
+            ensure(1);
+            buf[pos++] = (byte) value;
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            INT.set(buf, pos, value);
+            pos += 4;
+        }
+
+        void putLong(long value) {
+            ensure(8);
+            LONG.set(buf, pos, value);
+            pos += 8;
+        }
+
+        void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        /**
+         * Unsigned LEB128: 7 bits per byte, high bit set on all but the last.
+         */
+        void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void putString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putVarLong(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, buf, pos, utf8.length);
+            pos += utf8.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        byte getByte() {
+            return buf[pos++];
+        }
+
+        int getInt() {
+            int value = (int) INT.get(buf, pos);
+            pos += 4;
+            return value;
+        }
+
+        long getLong() {
+            long value = (long) LONG.get(buf, pos);
+            pos += 8;
+            return value;
+        }
+
+        double getDouble() {
+            return Double.longBitsToDouble(getLong());
+        }
+
+        long getVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buf[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Varint longer than 10 bytes");
+        }
+
+        int getCount() throws IOException {
+            long count = getVarLong();
+            // Every entry takes at least a byte, so a larger count is corrupt
+            if (count < 0 || count > buf.length - pos) {
+                throw new IOException("Bad length " + count);
+            }
+            return (int) count;
+        }
+
+        String getString() throws IOException {
+            int length = getCount();
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
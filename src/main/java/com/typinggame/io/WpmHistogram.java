@@ -0,0 +1,101 @@
+package com.typinggame.io;
+
+import java.io.Serializable;
+
+/**
+ * Fixed-bin histogram of WPM values, used as a quantile sketch.
+ *
+ * Bins are BIN_WIDTH wide from 0 to MAX_WPM, plus one overflow bin for
+ * anything faster. Adding a game is one increment, memory is fixed however
+ * many games are added, and two histograms merge by adding their bins.
+ * Quantiles interpolate inside the bin they fall in, so they are within
+ * BIN_WIDTH of the exact value; the overflow bin reports the fastest WPM
+ * seen.
+ */
+public final class WpmHistogram implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final double BIN_WIDTH = 1.0;
+    public static final int MAX_WPM = 300;
+    static final int BINS = (int) (MAX_WPM / BIN_WIDTH) + 1;
+
+    private final int[] counts;
+    private long total;
+    private double max;
+
+    public WpmHistogram() {
+        this.counts = new int[BINS];
+    }
+
+    /**
+     * Restored as stored, used by UserStatsCodec.
+     */
+    WpmHistogram(int[] counts, double max) {
+        if (counts.length != BINS) {
+            throw new IllegalArgumentException("Expected " + BINS + " bins, got " + counts.length);
+        }
+        this.counts = counts;
+        for (int count : counts) {
+            total += count;
+        }
+        this.max = max;
+    }
+
+    static int binOf(double wpm) {
+        if (!(wpm > 0)) return 0;
+        return (int) Math.min(BINS - 1, Math.floor(wpm / BIN_WIDTH));
+    }
+
+    public void add(double wpm) {
+        counts[binOf(wpm)]++;
+        total++;
+        max = Math.max(max, wpm);
+    }
+
+    public void merge(WpmHistogram other) {
+        for (int i = 0; i < BINS; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Estimated WPM at quantile q (0..1); 0 when empty.
+     */
+    public double quantile(double q) {
+        if (total == 0) return 0.0;
+        double rank = Math.min(Math.max(q, 0.0), 1.0) * total;
+
+        long seen = 0;
+        for (int i = 0; i < BINS; i++) {
+            if (counts[i] == 0) continue;
+            if (seen + counts[i] >= rank) {
+                if (i == BINS - 1) return max;
+                double within = (rank - seen) / counts[i];
+                return Math.min(max, (i + within) * BIN_WIDTH);
+            }
+            seen += counts[i];
+        }
+        return max;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    int[] getCounts() {
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WpmHistogram{n=%d, p50=%.1f, p90=%.1f, max=%.1f}",
+                total, quantile(0.5), quantile(0.9), max);
+    }
+}
@@ -0,0 +1,99 @@
+package com.typinggame.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * One ranked board: each user's best WPM, fastest first.
+ *
+ * Users are ranked by their best game. Ties go to whoever set the score
+ * first, then to user id, so ranks are strict and stable. The ranking is an
+ * OrderStatisticTree, so a new best, a user's rank and the entries around a
+ * rank are all O(log n) per entry returned.
+ */
+public class Leaderboard {
+
+    /**
+     * A user's best game on this board.
+     */
+    public record Entry(String userId, String username, double wpm, long timestamp) {
+    }
+
+    /**
+     * An entry and its 1-based rank.
+     */
+    public record Standing(int rank, Entry entry) {
+    }
+
+    static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::wpm).reversed()
+            .thenComparingLong(Entry::timestamp)
+            .thenComparing(Entry::userId);
+
+    private final Map<String, Entry> bestByUser = new HashMap<>();
+    private final OrderStatisticTree<Entry> ranking = new OrderStatisticTree<>(ORDER);
+
+    /**
+     * Count a game; only a new best for the user changes the board.
+     * @return true if the board changed.
+     */
+    public synchronized boolean offer(Entry entry) {
+        Entry current = bestByUser.get(entry.userId());
+        if (current != null && ORDER.compare(current, entry) <= 0) {
+            return false;
+        }
+        if (current != null) {
+            ranking.remove(current);
+        }
+        ranking.add(entry);
+        bestByUser.put(entry.userId(), entry);
+        return true;
+    }
+
+    /**
+     * The first k users.
+     */
+    public synchronized List<Standing> top(int k) {
+        return standings(0, k);
+    }
+
+    /**
+     * The user's rank and best entry; empty if they have no game on this board.
+     */
+    public synchronized Optional<Standing> standing(String userId) {
+        Entry entry = bestByUser.get(userId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Standing(ranking.rank(entry) + 1, entry));
+    }
+
+    /**
+     * The user and up to neighbors users on either side of them; empty if they are not ranked.
+     */
+    public synchronized List<Standing> around(String userId, int neighbors) {
+        Entry entry = bestByUser.get(userId);
+        if (entry == null) {
+            return List.of();
+        }
+        int index = ranking.rank(entry);
+        return standings(index - neighbors, index + neighbors + 1);
+    }
+
+    public synchronized int size() {
+        return ranking.size();
+    }
+
+    private List<Standing> standings(int from, int to) {
+        int start = Math.max(0, from);
+        List<Entry> entries = ranking.range(start, to);
+        List<Standing> standings = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            standings.add(new Standing(start + i + 1, entries.get(i)));
+        }
+        return standings;
+    }
+}
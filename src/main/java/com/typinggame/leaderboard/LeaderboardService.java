@@ -0,0 +1,241 @@
+package com.typinggame.leaderboard;
+
+import com.typinggame.domain.GameRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * In-memory leaderboards per game mode and time window.
+ *
+ * Every mode has an all-time board, a board for the current week (from
+ * Monday) and one for the current day, in the configured time zone. Saved
+ * scores are offered to each board whose period contains them; a board
+ * whose period has ended is replaced by an empty one for the new period on
+ * next use. Boards rank each user by their best game (see Leaderboard).
+ *
+ * At startup the boards are rebuilt by streaming game_records once in the
+ * background. Offers only ever keep the better game, so scores saved while
+ * the rebuild runs end up the same as if they came after it.
+ */
+@Service
+public class LeaderboardService {
+
+    /**
+     * The mode used when a game has none, as in TypingController.saveScore.
+     */
+    static final String DEFAULT_MODE = "PRACTICE";
+
+    public enum Window {
+        ALL_TIME, WEEKLY, DAILY;
+
+        /**
+         * Window by name ("all-time", "weekly", "daily"), case-insensitive.
+         */
+        public static Window parse(String name) {
+            return Window.valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+
+        /**
+         * [start, end) in epoch millis of this window's period containing now.
+         */
+        long[] period(Instant now, ZoneId zone) {
+            LocalDate today = now.atZone(zone).toLocalDate();
+            return switch (this) {
+                case ALL_TIME -> new long[] {Long.MIN_VALUE, Long.MAX_VALUE};
+                case WEEKLY -> {
+                    LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                    yield new long[] {startOf(monday, zone), startOf(monday.plusWeeks(1), zone)};
+                }
+                case DAILY -> new long[] {startOf(today, zone), startOf(today.plusDays(1), zone)};
+            };
+        }
+
+        private static long startOf(LocalDate day, ZoneId zone) {
+            return day.atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+
+    /**
+     * A board and the period it covers.
+     */
+    private record Period(Leaderboard board, long start, long end) {
+        boolean contains(long timestamp) {
+            return timestamp >= start && timestamp < end;
+        }
+    }
+
+    private final Supplier<Stream<GameRecord>> history;
+    private final Clock clock;
+
+    // mode -> window -> current period; guarded by this
+    private final Map<String, EnumMap<Window, Period>> boards = new HashMap<>();
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong rebuiltRecords = new AtomicLong();
+    private volatile boolean rebuilt;
+
+    @Autowired
+    public LeaderboardService(MongoTemplate mongoTemplate,
+            @Value("${typinggame.leaderboard.zone:}") String zone) {
+        this(() -> mongoTemplate.stream(historyQuery(), GameRecord.class),
+                Clock.system(zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone)));
+    }
+
+    LeaderboardService(Supplier<Stream<GameRecord>> history, Clock clock) {
+        this.history = history;
+        this.clock = clock;
+    }
+
+    private static Query historyQuery() {
+        Query query = new Query();
+        query.fields().include("userId", "username", "wpm", "gameMode", "timestamp");
+        return query;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        Thread thread = new Thread(this::rebuild, "LeaderboardRebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Offer every stored game to the boards.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        try (Stream<GameRecord> records = history.get()) {
+            for (GameRecord record : (Iterable<GameRecord>) records::iterator) {
+                offer(record);
+                count++;
+            }
+            rebuiltRecords.set(count);
+            rebuilt = true;
+            System.out.println("[LeaderboardService] Rebuilt leaderboards from " + count + " game records in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            System.err.println("[LeaderboardService] Rebuild stopped after " + count + " game records: "
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Count a saved game on every board it belongs to.
+     */
+    public void record(GameRecord record) {
+        offer(record);
+        recorded.incrementAndGet();
+    }
+
+    private void offer(GameRecord record) {
+        if (record.getUserId() == null || record.getTimestamp() == null) return;
+        long timestamp = record.getTimestamp().getTime();
+        Leaderboard.Entry entry = new Leaderboard.Entry(record.getUserId(), record.getUsername(),
+                record.getWpm(), timestamp);
+        String mode = modeKey(record.getGameMode());
+        for (Window window : Window.values()) {
+            Period period = period(mode, window);
+            if (period.contains(timestamp)) {
+                period.board().offer(entry);
+            }
+        }
+    }
+
+    public List<Leaderboard.Standing> top(String mode, Window window, int k) {
+        Period period = existingPeriod(modeKey(mode), window);
+        return period == null ? List.of() : period.board().top(k);
+    }
+
+    public Optional<Leaderboard.Standing> standing(String mode, Window window, String userId) {
+        Period period = existingPeriod(modeKey(mode), window);
+        return period == null ? Optional.empty() : period.board().standing(userId);
+    }
+
+    public List<Leaderboard.Standing> around(String mode, Window window, String userId, int neighbors) {
+        Period period = existingPeriod(modeKey(mode), window);
+        return period == null ? List.of() : period.board().around(userId, neighbors);
+    }
+
+    /**
+     * Number of users ranked on the board.
+     */
+    public int size(String mode, Window window) {
+        Period period = existingPeriod(modeKey(mode), window);
+        return period == null ? 0 : period.board().size();
+    }
+
+    public synchronized Set<String> getModes() {
+        return new TreeSet<>(boards.keySet());
+    }
+
+    static String modeKey(String mode) {
+        return mode == null || mode.isBlank() ? DEFAULT_MODE : mode.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Like period(), but null for a mode that has never had a game, so lookups do not create boards.
+     */
+    private synchronized Period existingPeriod(String mode, Window window) {
+        return boards.containsKey(mode) ? period(mode, window) : null;
+    }
+
+    /**
+     * The board for the window's current period, starting a fresh one when the period has rolled over.
+     */
+    private synchronized Period period(String mode, Window window) {
+        EnumMap<Window, Period> windows = boards.computeIfAbsent(mode, m -> new EnumMap<>(Window.class));
+        long now = clock.millis();
+        Period current = windows.get(window);
+        if (current == null || !current.contains(now)) {
+            long[] bounds = window.period(clock.instant(), clock.getZone());
+            current = new Period(new Leaderboard(), bounds[0], bounds[1]);
+            windows.put(window, current);
+        }
+        return current;
+    }
+
+    /**
+     * Games counted through record() since startup.
+     */
+    public long getRecorded() {
+        return recorded.get();
+    }
+
+    public long getRebuiltRecords() {
+        return rebuiltRecords.get();
+    }
+
+    public boolean isRebuilt() {
+        return rebuilt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LeaderboardService{modes=%s, recorded=%d, rebuiltRecords=%d, rebuilt=%s}",
+                getModes(), getRecorded(), getRebuiltRecords(), isRebuilt());
+    }
+}
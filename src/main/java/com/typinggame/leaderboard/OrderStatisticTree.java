@@ -0,0 +1,178 @@
+package com.typinggame.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Sorted set that also answers "how many elements come before this one"
+ * and "which element is at position i".
+ *
+ * A treap: a binary search tree on the comparator, kept balanced by random
+ * heap priorities, where every node knows the size of its subtree. Adding,
+ * removing, rank() and get() are O(log n) expected. The comparator must be
+ * a total order, since elements comparing equal are treated as the same.
+ * Not thread-safe.
+ */
+public class OrderStatisticTree<T> {
+
+    private static final class Node<T> {
+        final T value;
+        final int priority;
+        int size = 1;
+        Node<T> left;
+        Node<T> right;
+
+        Node(T value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+
+    private final Comparator<? super T> comparator;
+    private final SplittableRandom random = new SplittableRandom();
+    private Node<T> root;
+
+    public OrderStatisticTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean contains(T value) {
+        Node<T> node = root;
+        while (node != null) {
+            int c = comparator.compare(value, node.value);
+            if (c == 0) return true;
+            node = c < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * @return false if an equal element is already present.
+     */
+    public boolean add(T value) {
+        if (contains(value)) return false;
+        List<Node<T>> parts = split(root, value, false);
+        root = merge(merge(parts.get(0), new Node<>(value, random.nextInt())), parts.get(1));
+        return true;
+    }
+
+    /**
+     * @return false if no equal element was present.
+     */
+    public boolean remove(T value) {
+        List<Node<T>> below = split(root, value, false);
+        List<Node<T>> rest = split(below.get(1), value, true);
+        root = merge(below.get(0), rest.get(1));
+        return rest.get(0) != null;
+    }
+
+    /**
+     * Number of elements that sort before value, whether or not value is present.
+     */
+    public int rank(T value) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            if (comparator.compare(value, node.value) <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Element at position index (0-based) in sorted order.
+     */
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size());
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Elements at positions from (inclusive) to to (exclusive), clamped to the set.
+     */
+    public List<T> range(int from, int to) {
+        int start = Math.max(0, from);
+        int end = Math.min(size(), to);
+        List<T> values = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            values.add(get(i));
+        }
+        return values;
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <T> Node<T> update(Node<T> node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+
+    /**
+     * Split into [elements before value, the rest]; with inclusive, elements
+     * equal to value go to the first part.
+     */
+    private List<Node<T>> split(Node<T> node, T value, boolean inclusive) {
+        List<Node<T>> parts = new ArrayList<>(2);
+        if (node == null) {
+            parts.add(null);
+            parts.add(null);
+            return parts;
+        }
+        int c = comparator.compare(node.value, value);
+        if (c < 0 || (inclusive && c == 0)) {
+            List<Node<T>> right = split(node.right, value, inclusive);
+            node.right = right.get(0);
+            parts.add(update(node));
+            parts.add(right.get(1));
+        } else {
+            List<Node<T>> left = split(node.left, value, inclusive);
+            node.left = left.get(1);
+            parts.add(left.get(0));
+            parts.add(update(node));
+        }
+        return parts;
+    }
+
+    /**
+     * Join two treaps where every element of left sorts before every element of right.
+     */
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+}
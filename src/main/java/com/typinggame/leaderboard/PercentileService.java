@@ -0,0 +1,333 @@
+package com.typinggame.leaderboard;
+
+import com.typinggame.multiplayer.RoomAffinity;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * "Faster than X% of results" for a game, from WPM histograms kept per game
+ * mode and word-count class.
+ *
+ * Every saved game is added to the histogram for its mode and word-count
+ * class (up to 10, 25, 50, 100 words, or more) and to its mode's overall
+ * histogram; a lookup is one prefix sum. A class with fewer than
+ * MIN_SAMPLES results answers from the mode's overall histogram instead.
+ *
+ * This node's histograms are written to a file every persist interval and
+ * at shutdown, and loaded at startup. In a cluster, each interval every
+ * other node's snapshot is fetched from /api/percentiles/snapshot and merged
+ * in with mergeRemote(); a newer snapshot from the same node replaces its
+ * previous one, so repeated merges do not double count.
+ */
+@Service
+public class PercentileService {
+
+    static final int[] WORD_CLASSES = {10, 25, 50, 100};
+    static final String ALL_WORDS = "all";
+    static final int MIN_SAMPLES = 100;
+
+    private static final int MAGIC = 0x54475048;
+    private static final int FORMAT_VERSION = 1;
+    static final String SNAPSHOT_PATH = "/api/percentiles/snapshot";
+    private static final Duration PEER_TIMEOUT = Duration.ofSeconds(2);
+
+    private final RoomAffinity affinity;
+    private final Path file;
+    private final long persistIntervalMs;
+
+    // key (mode/class) -> histogram; local is this node's games, combined adds other nodes'
+    private final Map<String, WpmPercentileHistogram> local = new ConcurrentHashMap<>();
+    private final Map<String, WpmPercentileHistogram> combined = new ConcurrentHashMap<>();
+    // node -> last snapshot merged from it; guarded by this
+    private final Map<String, Map<String, WpmPercentileHistogram>> remotes = new HashMap<>();
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong persists = new AtomicLong();
+    private final AtomicLong remoteMerges = new AtomicLong();
+    private final AtomicLong peerFailures = new AtomicLong();
+    private final AtomicLong unsaved = new AtomicLong();
+
+    private ScheduledExecutorService persister;
+    private HttpClient httpClient;
+
+    @Autowired
+    public PercentileService(RoomAffinity affinity,
+            @Value("${typinggame.percentiles.file:scores/percentiles.bin}") String file,
+            @Value("${typinggame.percentiles.persist-interval-ms:60000}") long persistIntervalMs) {
+        this.affinity = affinity;
+        this.file = Path.of(file);
+        this.persistIntervalMs = persistIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        load();
+        if (persistIntervalMs > 0) {
+            persister = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "Percentiles-Persist");
+                t.setDaemon(true);
+                return t;
+            });
+            persister.scheduleAtFixedRate(this::persistIfChanged, persistIntervalMs, persistIntervalMs,
+                    TimeUnit.MILLISECONDS);
+            if (affinity.isClustered()) {
+                httpClient = HttpClient.newBuilder().connectTimeout(PEER_TIMEOUT).build();
+                persister.scheduleAtFixedRate(this::pullPeers, persistIntervalMs, persistIntervalMs,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (persister != null) {
+            persister.shutdownNow();
+        }
+        persistIfChanged();
+    }
+
+    /**
+     * Count a finished game.
+     */
+    public void record(String mode, int wordsTyped, double wpm) {
+        String modeKey = LeaderboardService.modeKey(mode);
+        for (String key : new String[] {key(modeKey, wordClass(wordsTyped)), key(modeKey, ALL_WORDS)}) {
+            local.computeIfAbsent(key, k -> new WpmPercentileHistogram()).add(wpm);
+            combined.computeIfAbsent(key, k -> new WpmPercentileHistogram()).add(wpm);
+        }
+        recorded.incrementAndGet();
+        unsaved.incrementAndGet();
+    }
+
+    /**
+     * Percentage (0..100) of recorded results in the same mode and word-count
+     * class that are slower than wpm; empty if the mode has no results yet.
+     */
+    public OptionalDouble percentile(String mode, int wordsTyped, double wpm) {
+        String modeKey = LeaderboardService.modeKey(mode);
+        WpmPercentileHistogram histogram = combined.get(key(modeKey, wordClass(wordsTyped)));
+        if (histogram == null || histogram.getTotal() < MIN_SAMPLES) {
+            histogram = combined.get(key(modeKey, ALL_WORDS));
+        }
+        if (histogram == null || histogram.getTotal() == 0) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(histogram.percentile(wpm));
+    }
+
+    /**
+     * Number of results behind percentile() for the mode and word count, including other nodes'.
+     */
+    public long getSampleCount(String mode, int wordsTyped) {
+        WpmPercentileHistogram histogram = combined.get(key(LeaderboardService.modeKey(mode), wordClass(wordsTyped)));
+        return histogram == null ? 0 : histogram.getTotal();
+    }
+
+    /**
+     * This node's histograms, encoded for another node's mergeRemote().
+     */
+    public byte[] snapshot() throws IOException {
+        return encode(local);
+    }
+
+    /**
+     * Fold another node's snapshot into the percentiles, replacing whatever was merged from that node before.
+     */
+    public synchronized void mergeRemote(String nodeId, byte[] snapshot) throws IOException {
+        Map<String, WpmPercentileHistogram> incoming = decode(snapshot);
+        Map<String, WpmPercentileHistogram> previous = remotes.put(nodeId, incoming);
+        if (previous != null) {
+            previous.forEach((key, histogram) -> combined.get(key).subtract(histogram));
+        }
+        incoming.forEach((key, histogram) ->
+                combined.computeIfAbsent(key, k -> new WpmPercentileHistogram()).merge(histogram));
+        remoteMerges.incrementAndGet();
+    }
+
+    /**
+     * Fetch and merge every other cluster node's snapshot; a node that does not answer keeps its last one.
+     */
+    void pullPeers() {
+        for (String nodeId : affinity.getNodeIds()) {
+            String url = affinity.urlOf(nodeId);
+            if (nodeId.equals(affinity.getNodeId()) || url == null) continue;
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(url + SNAPSHOT_PATH))
+                        .timeout(PEER_TIMEOUT).GET().build();
+                HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() != 200) {
+                    throw new IOException("HTTP " + response.statusCode());
+                }
+                mergeRemote(nodeId, response.body());
+            } catch (IOException e) {
+                peerFailures.incrementAndGet();
+                System.err.println("[PercentileService] Could not fetch percentiles from " + nodeId + ": " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    static String wordClass(int wordsTyped) {
+        for (int limit : WORD_CLASSES) {
+            if (wordsTyped <= limit) return String.valueOf(limit);
+        }
+        return WORD_CLASSES[WORD_CLASSES.length - 1] + "+";
+    }
+
+    private static String key(String mode, String wordClass) {
+        return mode + "/" + wordClass;
+    }
+
+    // ---- persistence ----
+
+    private void load() {
+        if (!Files.exists(file)) return;
+        try {
+            Map<String, WpmPercentileHistogram> stored = decode(Files.readAllBytes(file));
+            stored.forEach((key, histogram) -> {
+                local.computeIfAbsent(key, k -> new WpmPercentileHistogram()).merge(histogram);
+                combined.computeIfAbsent(key, k -> new WpmPercentileHistogram()).merge(histogram);
+            });
+            System.out.println("[PercentileService] Loaded " + stored.size() + " histograms from " + file);
+        } catch (IOException e) {
+            System.err.println("[PercentileService] Could not load " + file + ", starting empty: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write this node's histograms if a game was recorded since the last write.
+     */
+    synchronized void persistIfChanged() {
+        long pending = unsaved.get();
+        if (pending == 0) return;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, encode(local));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            unsaved.addAndGet(-pending);
+            persists.incrementAndGet();
+        } catch (IOException e) {
+            System.err.println("[PercentileService] Could not write " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Magic, version, bin width and count, then per histogram its key and its non-empty bins.
+     */
+    static byte[] encode(Map<String, WpmPercentileHistogram> histograms) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Map<String, WpmPercentileHistogram> sorted = new TreeMap<>(histograms);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeDouble(WpmPercentileHistogram.BIN_WIDTH);
+        out.writeInt(WpmPercentileHistogram.BINS);
+        out.writeInt(sorted.size());
+        for (Map.Entry<String, WpmPercentileHistogram> entry : sorted.entrySet()) {
+            long[] counts = entry.getValue().getCounts();
+            int nonEmpty = 0;
+            for (long count : counts) {
+                if (count != 0) nonEmpty++;
+            }
+            out.writeUTF(entry.getKey());
+            out.writeInt(nonEmpty);
+            for (int bin = 0; bin < counts.length; bin++) {
+                if (counts[bin] != 0) {
+                    out.writeShort(bin);
+                    out.writeLong(counts[bin]);
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static Map<String, WpmPercentileHistogram> decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a percentile snapshot");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported percentile snapshot version " + version);
+        }
+        double binWidth = in.readDouble();
+        int bins = in.readInt();
+        if (binWidth != WpmPercentileHistogram.BIN_WIDTH || bins != WpmPercentileHistogram.BINS) {
+            throw new IOException("Snapshot bins (" + bins + " x " + binWidth + ") do not match this node's");
+        }
+        int histograms = in.readInt();
+        Map<String, WpmPercentileHistogram> result = new HashMap<>();
+        for (int h = 0; h < histograms; h++) {
+            String key = in.readUTF();
+            int nonEmpty = in.readInt();
+            long[] counts = new long[bins];
+            for (int i = 0; i < nonEmpty; i++) {
+                int bin = in.readUnsignedShort();
+                if (bin >= bins) {
+                    throw new IOException("Bin " + bin + " out of range");
+                }
+                counts[bin] = in.readLong();
+            }
+            result.put(key, WpmPercentileHistogram.fromCounts(counts));
+        }
+        return result;
+    }
+
+    public long getRecorded() {
+        return recorded.get();
+    }
+
+    public long getPersists() {
+        return persists.get();
+    }
+
+    public long getRemoteMerges() {
+        return remoteMerges.get();
+    }
+
+    public long getPeerFailures() {
+        return peerFailures.get();
+    }
+
+    public int getHistogramCount() {
+        return combined.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PercentileService{histograms=%d, recorded=%d, persists=%d, remoteMerges=%d, peerFailures=%d}",
+                getHistogramCount(), getRecorded(), getPersists(), getRemoteMerges(), getPeerFailures());
+    }
+}
@@ -0,0 +1,134 @@
+package com.typinggame.leaderboard;
+
+/**
+ * Counts of results per fine WPM bin, answering "what share of results is
+ * slower than this one" with a prefix sum.
+ *
+ * Bins are BIN_WIDTH wide from 0 to MAX_WPM, plus one overflow bin. Counts
+ * live in a Fenwick tree, so adding a result and summing all bins below a
+ * WPM are both O(log BINS), a dozen array reads. Histograms with the same
+ * bins merge (and unmerge) by adding counts, which is how results from
+ * other nodes are folded in. Thread-safe.
+ *
+ * Coarser per-user quantiles use io.WpmHistogram; this one is per
+ * population and sized for percentile lookups.
+ */
+public final class WpmPercentileHistogram {
+
+    public static final double BIN_WIDTH = 0.1;
+    public static final int MAX_WPM = 300;
+    static final int BINS = (int) Math.round(MAX_WPM / BIN_WIDTH) + 1;
+
+    // 1-based Fenwick tree over bin counts
+    private final long[] tree = new long[BINS + 1];
+    private long total;
+
+    static int binOf(double wpm) {
+        if (!(wpm > 0)) return 0;
+        return (int) Math.min(BINS - 1, Math.floor(wpm / BIN_WIDTH));
+    }
+
+    public synchronized void add(double wpm) {
+        addToBin(binOf(wpm), 1);
+    }
+
+    /**
+     * Add every count of other into this one.
+     */
+    public void merge(WpmPercentileHistogram other) {
+        long[] counts = other.getCounts();
+        synchronized (this) {
+            for (int bin = 0; bin < BINS; bin++) {
+                if (counts[bin] != 0) addToBin(bin, counts[bin]);
+            }
+        }
+    }
+
+    /**
+     * Take back counts previously merged in from other.
+     */
+    public void subtract(WpmPercentileHistogram other) {
+        long[] counts = other.getCounts();
+        synchronized (this) {
+            for (int bin = 0; bin < BINS; bin++) {
+                if (counts[bin] != 0) addToBin(bin, -counts[bin]);
+            }
+        }
+    }
+
+    /**
+     * Percentage (0..100) of results slower than wpm; results in the same
+     * bin count as half slower. NaN when empty.
+     */
+    public synchronized double percentile(double wpm) {
+        if (total == 0) return Double.NaN;
+        int bin = binOf(wpm);
+        long below = prefix(bin);
+        long same = prefix(bin + 1) - below;
+        return 100.0 * (below + same / 2.0) / total;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * Count per bin, a copy.
+     */
+    public synchronized long[] getCounts() {
+        long[] counts = new long[BINS];
+        for (int i = 1; i <= BINS; i++) {
+            counts[i - 1] = tree[i];
+        }
+        // Undo the Fenwick partial sums, highest index first
+        for (int i = BINS; i >= 1; i--) {
+            int parent = i + (i & -i);
+            if (parent <= BINS) {
+                counts[parent - 1] -= counts[i - 1];
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Rebuilt from per-bin counts, as returned by getCounts().
+     */
+    static WpmPercentileHistogram fromCounts(long[] counts) {
+        if (counts.length != BINS) {
+            throw new IllegalArgumentException("Expected " + BINS + " bins, got " + counts.length);
+        }
+        WpmPercentileHistogram histogram = new WpmPercentileHistogram();
+        for (int i = 1; i <= BINS; i++) {
+            histogram.tree[i] += counts[i - 1];
+            histogram.total += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= BINS) {
+                histogram.tree[parent] += histogram.tree[i];
+            }
+        }
+        return histogram;
+    }
+
+    private void addToBin(int bin, long delta) {
+        for (int i = bin + 1; i <= BINS; i += i & -i) {
+            tree[i] += delta;
+        }
+        total += delta;
+    }
+
+    /**
+     * Sum of bins [0, bin).
+     */
+    private long prefix(int bin) {
+        long sum = 0;
+        for (int i = bin; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("WpmPercentileHistogram{n=%d}", total);
+    }
+}
@@ -1,8 +1,13 @@
 package com.typinggame.mode;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 /**
- * Player score for Vs Friend mode.
- * Implements Comparable to compare scores for winner determination.
+ * Player score for multiplayer races.
+ * Implements Comparable to compare scores for winner determination and ranking.
  */
 public class PlayerScore implements Comparable<PlayerScore> {
 
@@ -12,25 +17,45 @@ public class PlayerScore implements Comparable<PlayerScore> {
     private final double wpm;
     private final double accuracy;
     private final long duration;
+    private final long eliminatedAt; // 0 while the player is still in the race
 
     public PlayerScore(String playerId, String playerName, int wordsCompleted,
             double wpm, double accuracy, long duration) {
+        this(playerId, playerName, wordsCompleted, wpm, accuracy, duration, 0L);
+    }
+
+    public PlayerScore(String playerId, String playerName, int wordsCompleted,
+            double wpm, double accuracy, long duration, long eliminatedAt) {
         this.playerId = playerId;
         this.playerName = playerName;
         this.wordsCompleted = wordsCompleted;
         this.wpm = wpm;
         this.accuracy = accuracy;
         this.duration = duration;
+        this.eliminatedAt = eliminatedAt;
     }
 
     /**
-     * Compare scores for Vs Friend mode.
+     * Compare scores.
+     * Survival: Players still in the race beat eliminated ones, and a player
+     * eliminated later beats one eliminated earlier (last one standing)
      * Primary: Words completed
      * Secondary: WPM (higher is better)
      * Tertiary: Accuracy (higher is better)
      */
     @Override
     public int compareTo(PlayerScore other) {
+        // Survival: only differs in Elimination Mode or after disconnects
+        if (this.eliminatedAt != other.eliminatedAt) {
+            if (this.eliminatedAt == 0) {
+                return 1;
+            }
+            if (other.eliminatedAt == 0) {
+                return -1;
+            }
+            return Long.compare(this.eliminatedAt, other.eliminatedAt);
+        }
+
         // Primary: Compare by words completed
         int wordsComparison = Integer.compare(this.wordsCompleted, other.wordsCompleted);
         if (wordsComparison != 0) {
@@ -79,11 +104,37 @@ public class PlayerScore implements Comparable<PlayerScore> {
         }
     }
 
+    /**
+     * Rank any number of players, best first.
+     */
+    public static List<PlayerScore> rank(Collection<PlayerScore> scores) {
+        List<PlayerScore> ranked = new ArrayList<>(scores);
+        ranked.sort(Collections.reverseOrder());
+        return ranked;
+    }
+
+    /**
+     * Get the winner of a ranked race with detailed reason.
+     * The top two players are compared; a race with one player is won outright.
+     */
+    public static WinnerResult getWinnerWithReason(List<PlayerScore> ranked) {
+        if (ranked.isEmpty()) {
+            return new WinnerResult(null, "Nobody", "No players finished");
+        }
+        if (ranked.size() == 1) {
+            PlayerScore only = ranked.get(0);
+            return new WinnerResult(only.getPlayerId(), only.getPlayerName(), "Last player in the race");
+        }
+        return getWinnerWithReason(ranked.get(0), ranked.get(1));
+    }
+
     /**
      * Determine the reason for winning.
      */
     private static String determineWinReason(PlayerScore winner, PlayerScore loser) {
-        if (winner.wordsCompleted > loser.wordsCompleted) {
+        if (!winner.isEliminated() && loser.isEliminated()) {
+            return "Last one standing";
+        } else if (winner.wordsCompleted > loser.wordsCompleted) {
             return String.format("Completed %d words vs %d", winner.wordsCompleted, loser.wordsCompleted);
         } else if (winner.wpm > loser.wpm) {
             return String.format("Higher WPM: %.1f vs %.1f", winner.wpm, loser.wpm);
@@ -118,6 +169,14 @@ public class PlayerScore implements Comparable<PlayerScore> {
         return duration;
     }
 
+    public long getEliminatedAt() {
+        return eliminatedAt;
+    }
+
+    public boolean isEliminated() {
+        return eliminatedAt != 0;
+    }
+
     @Override
     public String toString() {
         return String.format("%s: %d words, %.1f WPM, %.1f%% accuracy",
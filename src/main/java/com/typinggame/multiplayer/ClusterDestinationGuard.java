@@ -0,0 +1,64 @@
+package com.typinggame.multiplayer;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps browser clients off the cluster's own destinations.
+ *
+ * ClusterLink talks to the other nodes over /queue/cluster.{nodeId} and
+ * /topic/cluster.members on the same broker the clients use, but through its
+ * own connection, so nothing legitimate ever reaches them from the client
+ * inbound channel. A client SEND there could forge a RoomOp or a BYE, and a
+ * SUBSCRIBE could read forwarded ops, so both are refused; Spring answers
+ * the client with an ERROR frame.
+ */
+@Component
+public class ClusterDestinationGuard {
+
+    static final String CLUSTER_TOPIC_PREFIX = "/topic/cluster.";
+
+    private final AtomicLong refused = new AtomicLong();
+
+    /**
+     * Rejects client SEND and SUBSCRIBE frames aimed at a cluster destination.
+     */
+    public ChannelInterceptor inboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+                if (type != SimpMessageType.MESSAGE && type != SimpMessageType.SUBSCRIBE) {
+                    return message;
+                }
+                String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+                if (isClusterDestination(destination)) {
+                    refused.incrementAndGet();
+                    System.err.println("[ClusterDestinationGuard] Refused client " + type + " to " + destination
+                            + " from session " + SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+                    throw new MessageDeliveryException(message, "Destination not allowed: " + destination);
+                }
+                return message;
+            }
+        };
+    }
+
+    static boolean isClusterDestination(String destination) {
+        return destination != null
+                && (destination.startsWith(ClusterLink.NODE_QUEUE_PREFIX) || destination.startsWith(CLUSTER_TOPIC_PREFIX));
+    }
+
+    /**
+     * Client frames refused for targeting a cluster destination.
+     */
+    public long getRefused() {
+        return refused.get();
+    }
+}
@@ -0,0 +1,336 @@
+package com.typinggame.multiplayer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Node-to-node link over the shared STOMP broker.
+ *
+ * Each node subscribes to its own queue (/queue/cluster.{nodeId}); a node
+ * that receives a STOMP join, progress, finish or sync for a room another node owns
+ * sends it to the owner's queue and RoomCoordinator applies it there, so a
+ * room only ever has one actor. Broadcasts need no forwarding: the owner
+ * publishes to /topic/game/{roomId} through the relay and every node's
+ * subscribers get it.
+ *
+ * Membership rides on /topic/cluster.members: every node announces HELLO on
+ * a timer and BYE on shutdown, and a node not heard from for three intervals
+ * is taken off the RoomAffinity ring (and put back when it says HELLO again).
+ *
+ * Only active with typinggame.stomp.broker.mode=relay and a cluster node list.
+ */
+@Component
+public class ClusterLink {
+
+    static final String NODE_QUEUE_PREFIX = "/queue/cluster.";
+    static final String MEMBERS_TOPIC = "/topic/cluster.members";
+    private static final long RECONNECT_DELAY_MS = 2000;
+
+    /**
+     * A room operation forwarded to the room's owner.
+     */
+    public record RoomOp(String op, String roomId, String username, String sessionId,
+                         int progress, double wpm, String from, Long epoch, Long version) {
+
+        static RoomOp join(String roomId, String username, String sessionId, Long epoch, Long version,
+                String from) {
+            return new RoomOp("JOIN", roomId, username, sessionId, 0, 0.0, from, epoch, version);
+        }
+
+        static RoomOp progress(String roomId, String username, int progress, double wpm, String from) {
+            return new RoomOp("PROGRESS", roomId, username, null, progress, wpm, from, null, null);
+        }
+
+        static RoomOp finish(String roomId, String username, double wpm, String from) {
+            return new RoomOp("FINISH", roomId, username, null, 100, wpm, from, null, null);
+        }
+
+        static RoomOp leave(String roomId, String sessionId, String from) {
+            return new RoomOp("LEAVE", roomId, null, sessionId, 0, 0.0, from, null, null);
+        }
+
+        /**
+         * The owner answers a sync straight to the session's user queue through the relay.
+         */
+        static RoomOp sync(String roomId, String sessionId, Long epoch, Long version, String from) {
+            return new RoomOp("SYNC", roomId, null, sessionId, 0, 0.0, from, epoch, version);
+        }
+    }
+
+    /**
+     * Membership announcement.
+     */
+    public record Member(String op, String node, String url) { }
+
+    public interface RoomOpListener {
+        void onRoomOp(RoomOp op);
+    }
+
+    private final RoomAffinity affinity;
+    private final boolean enabled;
+    private final String host;
+    private final int port;
+    private final String login;
+    private final String passcode;
+    private final long heartbeatMs;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+    // STOMP sessionId -> (roomId -> owner) for joins sent elsewhere, to forward the disconnect
+    private final Map<String, Map<String, String>> forwardedSessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong forwardFailures = new AtomicLong();
+
+    private volatile RoomOpListener listener;
+    private volatile StompSession session;
+    private volatile boolean running;
+    private ReactorNettyTcpStompClient client;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public ClusterLink(RoomAffinity affinity,
+            @Value("${typinggame.stomp.broker.mode:simple}") String brokerMode,
+            @Value("${typinggame.stomp.relay.host:localhost}") String host,
+            @Value("${typinggame.stomp.relay.port:61613}") int port,
+            @Value("${typinggame.stomp.relay.login:guest}") String login,
+            @Value("${typinggame.stomp.relay.passcode:guest}") String passcode,
+            @Value("${typinggame.cluster.heartbeat-ms:2000}") long heartbeatMs) {
+        this.affinity = affinity;
+        this.enabled = "relay".equalsIgnoreCase(brokerMode) && affinity.isClustered();
+        this.host = host;
+        this.port = port;
+        this.login = login;
+        this.passcode = passcode;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    public void setRoomOpListener(RoomOpListener listener) {
+        this.listener = listener;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+
+        running = true;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ClusterLink");
+            t.setDaemon(true);
+            return t;
+        });
+
+        client = new ReactorNettyTcpStompClient(host, port);
+        client.setDefaultHeartbeat(new long[] {0, 0});
+        connect();
+        scheduler.scheduleAtFixedRate(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) return;
+        running = false;
+
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            announce("BYE");
+            current.disconnect();
+        }
+        session = null;
+        if (scheduler != null) scheduler.shutdownNow();
+        if (client != null) client.shutdown();
+    }
+
+    private void connect() {
+        if (!running) return;
+
+        StompHeaders headers = new StompHeaders();
+        headers.setLogin(login);
+        headers.setPasscode(passcode);
+        client.connectAsync(headers, new StompSessionHandlerAdapter() {
+            @Override
+            public void afterConnected(StompSession connected, StompHeaders connectedHeaders) {
+                connected.subscribe(NODE_QUEUE_PREFIX + affinity.getNodeId(), handler(RoomOp.class, ClusterLink.this::onRoomOp));
+                connected.subscribe(MEMBERS_TOPIC, handler(Member.class, ClusterLink.this::onMember));
+                // Peers get a full grace period from now to say HELLO before they're dropped
+                long now = System.currentTimeMillis();
+                for (String node : affinity.getNodeIds()) {
+                    lastSeen.merge(node, now, Math::max);
+                }
+                session = connected;
+                announce("HELLO");
+                System.out.println("[ClusterLink] " + affinity.getNodeId() + " connected to broker " + host + ":" + port);
+            }
+
+            @Override
+            public void handleException(StompSession s, StompCommand command, StompHeaders h, byte[] payload, Throwable e) {
+                System.err.println("[ClusterLink] Failed to handle " + command + ": " + e.getMessage());
+            }
+
+            @Override
+            public void handleTransportError(StompSession s, Throwable e) {
+                if (!s.isConnected()) {
+                    onDisconnected(e.getMessage());
+                }
+            }
+        }).whenComplete((connected, e) -> {
+            if (e != null) onDisconnected(e.getMessage());
+        });
+    }
+
+    private void onDisconnected(String reason) {
+        session = null;
+        if (!running) return;
+        System.err.println("[ClusterLink] Broker connection lost (" + reason + "); retrying");
+        scheduler.schedule(this::connect, RECONNECT_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isConnected() {
+        StompSession current = session;
+        return current != null && current.isConnected();
+    }
+
+    /**
+     * Send a room operation to its owner; false if the broker isn't reachable.
+     */
+    public boolean forward(String owner, RoomOp op) {
+        StompSession current = session;
+        if (current == null || !current.isConnected()) {
+            forwardFailures.incrementAndGet();
+            return false;
+        }
+        try {
+            send(current, NODE_QUEUE_PREFIX + owner, op);
+        } catch (Exception e) {
+            forwardFailures.incrementAndGet();
+            System.err.println("[ClusterLink] Failed to forward " + op.op() + " to " + owner + ": " + e.getMessage());
+            return false;
+        }
+        forwarded.incrementAndGet();
+
+        if ("JOIN".equals(op.op()) && op.sessionId() != null) {
+            forwardedSessions.computeIfAbsent(op.sessionId(), s -> new ConcurrentHashMap<>()).put(op.roomId(), owner);
+        }
+        return true;
+    }
+
+    /**
+     * A STOMP session on this node closed: tell the owners of rooms it joined elsewhere.
+     */
+    @EventListener
+    public void handleSessionDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> rooms = forwardedSessions.remove(event.getSessionId());
+        if (rooms == null) return;
+        rooms.forEach((roomId, owner) ->
+                forward(owner, RoomOp.leave(roomId, event.getSessionId(), affinity.getNodeId())));
+    }
+
+    private void onRoomOp(RoomOp op) {
+        received.incrementAndGet();
+        RoomOpListener current = listener;
+        if (current != null) {
+            current.onRoomOp(op);
+        }
+    }
+
+    private void onMember(Member member) {
+        if (member.node() == null || member.node().equals(affinity.getNodeId())) return;
+
+        if ("BYE".equals(member.op())) {
+            lastSeen.remove(member.node());
+            affinity.removeNode(member.node());
+        } else {
+            lastSeen.put(member.node(), System.currentTimeMillis());
+            affinity.addNode(member.node(), member.url());
+        }
+    }
+
+    void heartbeat() {
+        try {
+            // Without the broker we hear nobody; don't take that as everyone leaving
+            if (!isConnected()) return;
+            announce("HELLO");
+
+            long cutoff = System.currentTimeMillis() - 3 * heartbeatMs;
+            lastSeen.forEach((node, seen) -> {
+                if (seen < cutoff && !node.equals(affinity.getNodeId()) && lastSeen.remove(node, seen)) {
+                    affinity.removeNode(node);
+                }
+            });
+        } catch (Exception e) {
+            System.err.println("[ClusterLink] Heartbeat failed: " + e.getMessage());
+        }
+    }
+
+    private void announce(String op) {
+        StompSession current = session;
+        if (current == null) return;
+        String nodeId = affinity.getNodeId();
+        send(current, MEMBERS_TOPIC, new Member(op, nodeId, affinity.urlOf(nodeId)));
+    }
+
+    private void send(StompSession target, String destination, Object payload) {
+        try {
+            StompHeaders headers = new StompHeaders();
+            headers.setDestination(destination);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            target.send(headers, mapper.writeValueAsBytes(payload));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode " + payload, e);
+        }
+    }
+
+    private <T> StompFrameHandler handler(Class<T> type, Consumer<T> consumer) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                try {
+                    consumer.accept(mapper.readValue((byte[]) payload, type));
+                } catch (IOException e) {
+                    System.err.println("[ClusterLink] Dropped malformed " + type.getSimpleName() + ": " + e.getMessage());
+                }
+            }
+        };
+    }
+
+    public long getForwarded() {
+        return forwarded.get();
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getForwardFailures() {
+        return forwardFailures.get();
+    }
+}
@@ -0,0 +1,88 @@
+package com.typinggame.multiplayer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring of app nodes.
+ *
+ * Each node is placed at VIRTUAL_NODES points on a 64-bit ring and a key
+ * belongs to the first node point at or after the key's hash. Adding or
+ * removing a node only moves the keys between that node's points and their
+ * predecessors, about 1/N of all keys, instead of reshuffling everything the
+ * way hash-mod-N does. withNode()/withoutNode() return a new ring so readers
+ * never see a half-built one.
+ */
+public final class ConsistentHashRing {
+
+    static final int VIRTUAL_NODES = 160;
+
+    private final NavigableMap<Long, String> points;
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Set<String> nodes) {
+        this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodes));
+        TreeMap<Long, String> built = new TreeMap<>();
+        for (String node : this.nodes) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                // On a (vanishingly rare) collision the smaller node id keeps the point, on every JVM
+                built.merge(hash(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+        this.points = built;
+    }
+
+    /**
+     * Node owning a key, or null if the ring is empty.
+     */
+    public String ownerOf(String key) {
+        if (points.isEmpty()) return null;
+        Map.Entry<Long, String> entry = points.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : points.firstEntry().getValue();
+    }
+
+    public ConsistentHashRing withNode(String node) {
+        if (nodes.contains(node)) return this;
+        Set<String> next = new TreeSet<>(nodes);
+        next.add(node);
+        return new ConsistentHashRing(next);
+    }
+
+    public ConsistentHashRing withoutNode(String node) {
+        if (!nodes.contains(node)) return this;
+        Set<String> next = new TreeSet<>(nodes);
+        next.remove(node);
+        return new ConsistentHashRing(next);
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, then MurmurHash3's 64-bit finalizer to
+     * spread similar ids ("room-1", "room-2") over the whole ring.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
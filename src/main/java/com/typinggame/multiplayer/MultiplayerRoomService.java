@@ -1,22 +1,25 @@
 package com.typinggame.multiplayer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.Nullable;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
 
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Room registry for raw Java Socket players.
+ * Socket transport for multiplayer rooms: which raw Java Socket players are
+ * connected to each room, and the event bus that delivers to them.
  *
  * Requirement (2): Uses a HashMap<String, List<PlayerThread>> to manage rooms.
  *
- * This service is also used as a bridge target: when the Spring WebSocket
- * controller receives progress updates, it can broadcast those updates to
- * raw Socket clients in the same room.
+ * Room state itself (players, START, winner) is shared with STOMP players
+ * through RoomCoordinator; this class only delivers encoded events.
  */
 @Component
 public class MultiplayerRoomService {
@@ -26,7 +29,10 @@ public class MultiplayerRoomService {
     // Requirement 2: HashMap<String, List<PlayerThread>>
     private final HashMap<String, List<PlayerThread>> rooms = new HashMap<>();
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicLong eventsPublished = new AtomicLong();
+    // Events this service encoded; each goes out through publish or replayStart
+    private final AtomicLong encodeCalls = new AtomicLong();
+    private final AtomicLong slowClientDisconnects = new AtomicLong();
 
     @Nullable
     private final SimpMessagingTemplate messagingTemplate;
@@ -37,15 +43,11 @@ public class MultiplayerRoomService {
     }
 
     /**
-     * Adds a raw socket player to a room.
+     * Adds a raw socket player to a room's delivery list.
+     * Membership and START are decided by RoomCoordinator for both transports.
      */
     public synchronized void joinRoom(String roomId, PlayerThread player) {
         rooms.computeIfAbsent(roomId, k -> new ArrayList<>()).add(player);
-
-        // Broadcast start when room is full (Requirement 2)
-        if (rooms.get(roomId).size() >= DEFAULT_ROOM_SIZE) {
-            broadcastStartToSocketClients(roomId);
-        }
     }
 
     /**
@@ -70,47 +72,51 @@ public class MultiplayerRoomService {
     }
 
     /**
-     * Broadcast a START signal to raw socket clients.
+     * START for every player in the room, socket and STOMP, from one encode.
      */
-    public void broadcastStartToSocketClients(String roomId) {
-        Map<String, Object> msg = Map.of(
-                "type", "START",
-                "roomId", roomId,
-                "timestamp", System.currentTimeMillis()
-        );
-        broadcastToSocketRoom(roomId, msg, null);
+    public void publishStart(String roomId, String text) {
+        publish(encoded(RoomEvent.start(roomId, text, System.currentTimeMillis())), true);
+    }
+
+    /**
+     * START again for one raw socket player who joined after the race began,
+     * with the original start time so its clock matches everyone else's.
+     */
+    public void replayStart(String roomId, String sessionId, String text, long startTimestamp) {
+        PlayerThread target = null;
+        synchronized (this) {
+            List<PlayerThread> players = rooms.get(roomId);
+            if (players == null) return;
+            for (PlayerThread p : players) {
+                if (sessionId.equals(p.getSessionId())) {
+                    target = p;
+                }
+            }
+        }
+        if (target == null) return;
+
+        eventsPublished.incrementAndGet();
+        deliver(target, encoded(RoomEvent.start(roomId, text, startTimestamp)));
     }
 
     /**
      * Broadcast progress update to raw socket clients in room.
-     * Excludes sender username if provided.
+     * Excludes sender username if provided. Called from RoomBroadcaster's
+     * tick; STOMP clients get the same change as PLAYER_UPDATE.
      */
     public void broadcastProgressToSocketClients(String roomId,
                                                  String senderUsername,
                                                  double wpm,
                                                  int progressPercentage) {
-        Map<String, Object> msg = new LinkedHashMap<>();
-        msg.put("type", "PROGRESS");
-        msg.put("roomId", roomId);
-        msg.put("username", senderUsername);
-        msg.put("wpm", wpm);
-        msg.put("progress", progressPercentage);
-        msg.put("timestamp", System.currentTimeMillis());
-
-        broadcastToSocketRoom(roomId, msg, senderUsername);
+        publish(encoded(RoomEvent.progress(roomId, senderUsername, wpm, progressPercentage,
+                System.currentTimeMillis())), false);
     }
 
     /**
-     * Broadcast a FINISH signal to raw socket clients.
+     * FINISH for every player in the room, socket and STOMP, from one encode.
      */
-    public void broadcastFinishToSocketClients(String roomId, String winnerUsername) {
-        Map<String, Object> msg = Map.of(
-                "type", "FINISH",
-                "roomId", roomId,
-                "winner", winnerUsername,
-                "timestamp", System.currentTimeMillis()
-        );
-        broadcastToSocketRoom(roomId, msg, null);
+    public void publishFinish(String roomId, String winnerUsername) {
+        publish(encoded(RoomEvent.finish(roomId, winnerUsername, System.currentTimeMillis())), true);
     }
 
     /**
@@ -121,26 +127,80 @@ public class MultiplayerRoomService {
         messagingTemplate.convertAndSend("/topic/game/" + roomId, payload);
     }
 
-    private void broadcastToSocketRoom(String roomId, Map<String, Object> message, String excludeUsername) {
-        final String json;
-        try {
-            json = mapper.writeValueAsString(message);
-        } catch (IOException e) {
-            return;
+    /**
+     * Room event bus: hand one encoded event to every raw socket in the room
+     * (queued on each connection's writer; this never waits on a socket)
+     * and, if asked, to the STOMP broker for /topic/game/{roomId}.
+     * The broker gets the encoded bytes as-is, so no second Jackson pass.
+     */
+    public void publish(RoomEvent event, boolean includeWebSocket) {
+        eventsPublished.incrementAndGet();
+        broadcastToSocketRoom(event);
+
+        if (includeWebSocket && messagingTemplate != null) {
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            headers.setLeaveMutable(true);
+            messagingTemplate.send("/topic/game/" + event.getRoomId(),
+                    MessageBuilder.createMessage(event.bytes(), headers.getMessageHeaders()));
         }
+    }
+
+    /**
+     * Events published through the bus since startup.
+     */
+    public long getEventsPublished() {
+        return eventsPublished.get();
+    }
 
+    /**
+     * Raw socket clients dropped because their outbound queue was full.
+     */
+    public long getSlowClientDisconnects() {
+        return slowClientDisconnects.get();
+    }
+
+    /**
+     * Room events this service has encoded since startup.
+     */
+    public long getEncodeCalls() {
+        return encodeCalls.get();
+    }
+
+    /**
+     * Encodes per published event; 1.0 when every event is encoded once.
+     * Events built elsewhere and passed to publish count as published only.
+     */
+    public double getEncodeCallsPerEvent() {
+        long events = eventsPublished.get();
+        return events == 0 ? 0.0 : (double) encodeCalls.get() / events;
+    }
+
+    private RoomEvent encoded(RoomEvent event) {
+        encodeCalls.incrementAndGet();
+        return event;
+    }
+
+    private void deliver(PlayerThread player, RoomEvent event) {
+        if (!player.send(event)) {
+            slowClientDisconnects.incrementAndGet();
+        }
+    }
+
+    private void broadcastToSocketRoom(RoomEvent event) {
         List<PlayerThread> snapshot;
         synchronized (this) {
-            List<PlayerThread> players = rooms.get(roomId);
+            List<PlayerThread> players = rooms.get(event.getRoomId());
             if (players == null || players.isEmpty()) return;
             snapshot = new ArrayList<>(players);
         }
 
+        String excludeUsername = event.getExcludeUsername();
         for (PlayerThread p : snapshot) {
             if (excludeUsername != null && excludeUsername.equalsIgnoreCase(p.getUsername())) {
                 continue;
             }
-            p.send(json);
+            deliver(p, event);
         }
     }
 }
@@ -15,13 +15,13 @@ public class MultiplayerServer implements Runnable {
 
     private static final int PORT = 9090;
 
-    private final MultiplayerRoomService roomService;
+    private final RoomCoordinator roomCoordinator;
 
     private volatile boolean running = true;
     private ServerSocket serverSocket;
 
-    public MultiplayerServer(MultiplayerRoomService roomService) {
-        this.roomService = roomService;
+    public MultiplayerServer(RoomCoordinator roomCoordinator) {
+        this.roomCoordinator = roomCoordinator;
     }
 
     @Override
@@ -32,7 +32,7 @@ public class MultiplayerServer implements Runnable {
 
             while (running) {
                 Socket socket = serverSocket.accept();
-                PlayerThread playerThread = new PlayerThread(socket, roomService);
+                PlayerThread playerThread = new PlayerThread(socket, roomCoordinator);
                 playerThread.start(); // new Thread per connection
             }
         } catch (IOException e) {
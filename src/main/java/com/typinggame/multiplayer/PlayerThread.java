@@ -2,11 +2,17 @@ package com.typinggame.multiplayer;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.typinggame.websocket.WebSocketSessionManager.Transport;
 
 import java.io.*;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Handles one raw TCP socket client.
@@ -15,25 +21,54 @@ import java.util.Map;
  *  - JOIN: {"type":"JOIN","username":"...","roomId":"..."}
  *  - PROGRESS: {"type":"PROGRESS","wpm":45.0,"progress":37}
  *  - FINISH: {"type":"FINISH"}
+ *
+ * A JOIN for a room owned by another node gets
+ * {"type":"REDIRECT","roomId":"...","node":"...","url":"..."} and the socket is closed.
+ *
+ * Outgoing lines go through a bounded queue drained by this connection's
+ * own writer thread, so the room tick and room actors only ever enqueue
+ * (the shared RoomEvent bytes, no copy) and never wait on this client's
+ * TCP buffer. A client that falls OUTBOUND_QUEUE_CAPACITY lines behind is
+ * disconnected rather than fed a stream with gaps in it.
  */
 public class PlayerThread extends Thread {
 
+    private static final AtomicLong SESSION_COUNTER = new AtomicLong();
+    static final int OUTBOUND_QUEUE_CAPACITY = 256;
+    // Queued after the last line when the connection should close once it is sent
+    private static final byte[] CLOSE = new byte[0];
+
     private final Socket socket;
-    private final MultiplayerRoomService roomService;
+    private final RoomCoordinator roomCoordinator;
+    private final String sessionId;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
+    private final BlockingQueue<byte[]> outbound;
+    private final Thread writer;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
     private volatile boolean running = true;
+    private volatile boolean closingAfterSent;
     private volatile String username = "Anonymous";
     private volatile String roomId = null;
+    private double lastWpm = 0.0;
 
     private BufferedReader in;
-    private BufferedWriter out;
+    private OutputStream out;
+
+    public PlayerThread(Socket socket, RoomCoordinator roomCoordinator) {
+        this(socket, roomCoordinator, OUTBOUND_QUEUE_CAPACITY);
+    }
 
-    public PlayerThread(Socket socket, MultiplayerRoomService roomService) {
+    PlayerThread(Socket socket, RoomCoordinator roomCoordinator, int outboundCapacity) {
         this.socket = socket;
-        this.roomService = roomService;
+        this.roomCoordinator = roomCoordinator;
+        this.sessionId = "socket-" + SESSION_COUNTER.incrementAndGet();
+        this.outbound = new ArrayBlockingQueue<>(outboundCapacity);
         setName("PlayerThread-" + socket.getRemoteSocketAddress());
+        this.writer = new Thread(this::writeLoop, "PlayerThread-Writer-" + socket.getRemoteSocketAddress());
+        this.writer.setDaemon(true);
     }
 
     public String getUsername() {
@@ -44,11 +79,19 @@ public class PlayerThread extends Thread {
         return roomId;
     }
 
+    /**
+     * Room-registry session id, distinct from STOMP session ids.
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
     @Override
     public void run() {
         try {
             in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
-            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            out = new BufferedOutputStream(socket.getOutputStream());
+            writer.start();
 
             // Handshake: expect JOIN as first message
             String first = in.readLine();
@@ -60,14 +103,22 @@ public class PlayerThread extends Thread {
             Map<String, Object> joinMsg = parseJson(first);
             if (joinMsg == null || !"JOIN".equalsIgnoreCase(String.valueOf(joinMsg.get("type")))) {
                 send(error("First message must be JOIN"));
-                shutdown();
+                closeAfterSent();
                 return;
             }
 
             this.username = String.valueOf(joinMsg.getOrDefault("username", "Anonymous"));
             this.roomId = String.valueOf(joinMsg.getOrDefault("roomId", "room_1"));
 
-            roomService.joinRoom(roomId, this);
+            String owner = roomCoordinator.redirectFor(roomId, Transport.SOCKET);
+            if (owner != null) {
+                send(redirect(roomId, owner, roomCoordinator.nodeUrl(owner)));
+                this.roomId = null;
+                closeAfterSent();
+                return;
+            }
+
+            roomCoordinator.joinSocket(roomId, this);
             send(ack("JOINED", roomId, username));
 
             while (running) {
@@ -83,10 +134,11 @@ public class PlayerThread extends Thread {
                     case "PROGRESS" -> {
                         double wpm = ((Number) msg.getOrDefault("wpm", 0.0)).doubleValue();
                         int progress = ((Number) msg.getOrDefault("progress", 0)).intValue();
-                        roomService.broadcastProgressToSocketClients(roomId, username, wpm, progress);
+                        lastWpm = wpm;
+                        roomCoordinator.progress(roomId, username, progress, wpm);
                     }
                     case "FINISH" -> {
-                        roomService.broadcastFinishToSocketClients(roomId, username);
+                        roomCoordinator.finish(roomId, username, lastWpm);
                     }
                     default -> send(error("Unknown type: " + type));
                 }
@@ -95,32 +147,99 @@ public class PlayerThread extends Thread {
         } catch (IOException ignored) {
             // connection lost
         } finally {
+            if (!closingAfterSent) {
+                shutdown();
+            }
+        }
+    }
+
+    /**
+     * Queue one line for this client; never blocks.
+     * @return false if the client was too far behind and has been disconnected.
+     */
+    public boolean send(String jsonLine) {
+        return enqueue(jsonLine.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Queue a room event's shared encoding as-is; never blocks.
+     * @return false if the client was too far behind and has been disconnected.
+     */
+    public boolean send(RoomEvent event) {
+        return enqueue(event.bytes());
+    }
+
+    private boolean enqueue(byte[] line) {
+        if (!running) return false;
+        if (outbound.offer(line)) return true;
+
+        System.err.println("[PlayerThread] " + username + " (" + sessionId + ") is " + outbound.size()
+                + " lines behind; disconnecting");
+        disconnect();
+        return false;
+    }
+
+    /**
+     * Close once everything queued so far has been written.
+     */
+    private void closeAfterSent() {
+        closingAfterSent = true;
+        if (!outbound.offer(CLOSE)) {
             shutdown();
         }
     }
 
-    public void send(String jsonLine) {
+    /**
+     * Writer thread: one flush per burst of queued lines.
+     */
+    private void writeLoop() {
         try {
-            if (out == null) return;
-            out.write(jsonLine);
-            out.write("\n");
-            out.flush();
-        } catch (IOException e) {
+            while (true) {
+                byte[] line = outbound.take();
+                while (line != null && line != CLOSE) {
+                    out.write(line);
+                    out.write('\n');
+                    line = outbound.poll();
+                }
+                out.flush();
+                if (line == CLOSE) {
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // socket closed or shutting down
+        } finally {
             shutdown();
         }
     }
 
-    public void shutdown() {
+    /**
+     * Cut the connection without touching room state; safe on any thread.
+     * Closing the socket releases a writer stuck on a full TCP buffer, and
+     * the reader then sees the socket closed and leaves the room.
+     */
+    private void disconnect() {
         running = false;
+        try { if (!socket.isClosed()) socket.close(); } catch (IOException ignored) {}
+        writer.interrupt();
+    }
+
+    public void shutdown() {
+        disconnect();
+        if (!closed.compareAndSet(false, true)) return;
         try {
             if (roomId != null) {
-                roomService.leaveRoom(roomId, this);
+                roomCoordinator.leaveSocket(roomId, this);
             }
         } catch (Exception ignored) {}
+        outbound.clear();
+    }
 
-        try { if (in != null) in.close(); } catch (IOException ignored) {}
-        try { if (out != null) out.close(); } catch (IOException ignored) {}
-        try { if (socket != null && !socket.isClosed()) socket.close(); } catch (IOException ignored) {}
+    /**
+     * Lines queued and not yet written.
+     */
+    public int getOutboundBacklog() {
+        return outbound.size();
     }
 
     private Map<String, Object> parseJson(String json) {
@@ -139,6 +258,19 @@ public class PlayerThread extends Thread {
         }
     }
 
+    private String redirect(String roomId, String node, String url) {
+        try {
+            Map<String, Object> msg = new LinkedHashMap<>();
+            msg.put("type", "REDIRECT");
+            msg.put("roomId", roomId);
+            msg.put("node", node);
+            msg.put("url", url);
+            return mapper.writeValueAsString(msg);
+        } catch (Exception e) {
+            return "{\"type\":\"REDIRECT\"}";
+        }
+    }
+
     private String ack(String type, String roomId, String username) {
         try {
             return mapper.writeValueAsString(Map.of(
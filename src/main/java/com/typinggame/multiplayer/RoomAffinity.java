@@ -0,0 +1,145 @@
+package com.typinggame.multiplayer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Which app node owns which room.
+ *
+ * A room's state (its actor in WebSocketSessionManager, its START text and
+ * winner) lives on exactly one node; the STOMP broker relay carries that
+ * node's broadcasts to subscribers connected anywhere, and ClusterLink
+ * forwards joins and progress that land on other nodes. Nodes are listed in
+ * typinggame.cluster.nodes as "id=url" pairs and placed on a consistent-hash
+ * ring, so every node computes the same owner for a room id and a node
+ * joining or leaving only moves about 1/N of the rooms. With no node list
+ * this node owns every room, which is the single-JVM setup.
+ */
+@Component
+public class RoomAffinity {
+
+    private final String nodeId;
+    private final Map<String, String> nodeUrls = new ConcurrentHashMap<>();
+    private final boolean clustered;
+
+    private volatile ConsistentHashRing ring;
+
+    private final AtomicLong misroutedJoins = new AtomicLong();
+    private final AtomicLong ringChanges = new AtomicLong();
+
+    @Autowired
+    public RoomAffinity(@Value("${typinggame.cluster.node-id:local}") String nodeId,
+            @Value("${typinggame.cluster.nodes:}") String nodes) {
+        this.nodeId = nodeId;
+        Map<String, String> configured = parseNodes(nodes);
+
+        if (!configured.isEmpty() && !configured.containsKey(nodeId)) {
+            throw new IllegalArgumentException("typinggame.cluster.node-id '" + nodeId
+                    + "' is not in typinggame.cluster.nodes " + configured.keySet());
+        }
+        this.clustered = !configured.isEmpty();
+        this.nodeUrls.putAll(configured);
+        this.ring = new ConsistentHashRing(clustered ? configured.keySet() : Set.of(nodeId));
+    }
+
+    static Map<String, String> parseNodes(String nodes) {
+        Map<String, String> parsed = new TreeMap<>();
+        if (nodes == null || nodes.isBlank()) {
+            return parsed;
+        }
+        for (String entry : nodes.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length != 2 || parts[0].isBlank()) {
+                throw new IllegalArgumentException("Expected id=url in typinggame.cluster.nodes, got '" + entry + "'");
+            }
+            parsed.put(parts[0].trim(), parts[1].trim());
+        }
+        return parsed;
+    }
+
+    /**
+     * Id of the node that owns a room.
+     */
+    public String ownerOf(String roomId) {
+        String owner = ring.ownerOf(roomId);
+        return owner != null ? owner : nodeId;
+    }
+
+    public boolean isLocal(String roomId) {
+        return nodeId.equals(ownerOf(roomId));
+    }
+
+    /**
+     * True when more than one node is configured.
+     */
+    public boolean isClustered() {
+        return clustered;
+    }
+
+    /**
+     * Base URL clients should connect to for a node (null when single-node).
+     */
+    public String urlOf(String ownerId) {
+        return nodeUrls.get(ownerId);
+    }
+
+    /**
+     * A node came up (or came back); it takes over its share of new rooms.
+     */
+    public synchronized boolean addNode(String id, String url) {
+        if (url != null) {
+            nodeUrls.put(id, url);
+        }
+        ConsistentHashRing next = ring.withNode(id);
+        if (next == ring) return false;
+        ring = next;
+        ringChanges.incrementAndGet();
+        System.out.println("[RoomAffinity] Node " + id + " joined; ring is now " + next.getNodes());
+        return true;
+    }
+
+    /**
+     * A node left; its rooms move to the next node on the ring. This node never removes itself.
+     */
+    public synchronized boolean removeNode(String id) {
+        if (nodeId.equals(id)) return false;
+        ConsistentHashRing next = ring.withoutNode(id);
+        if (next == ring) return false;
+        ring = next;
+        ringChanges.incrementAndGet();
+        System.out.println("[RoomAffinity] Node " + id + " left; ring is now " + next.getNodes());
+        return true;
+    }
+
+    /**
+     * Count a join that reached a node that doesn't own the room.
+     */
+    public void recordMisroutedJoin(String roomId) {
+        misroutedJoins.incrementAndGet();
+        System.out.println("[RoomAffinity] Join for room " + roomId + " reached " + nodeId
+                + "; owner is " + ownerOf(roomId));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Set<String> getNodeIds() {
+        return ring.getNodes();
+    }
+
+    public long getMisroutedJoins() {
+        return misroutedJoins.get();
+    }
+
+    public long getRingChanges() {
+        return ringChanges.get();
+    }
+}
@@ -0,0 +1,278 @@
+package com.typinggame.multiplayer;
+
+import com.typinggame.engine.TypingEngine;
+import com.typinggame.io.ScoreWriteBehind;
+import com.typinggame.io.UserStats;
+import com.typinggame.websocket.RoomBroadcaster;
+import com.typinggame.websocket.WebSocketSessionManager;
+import com.typinggame.websocket.WebSocketSessionManager.RoomState;
+import com.typinggame.websocket.WebSocketSessionManager.Transport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * One room model for both transports.
+ *
+ * STOMP players (GameWebSocketController) and raw socket players
+ * (PlayerThread) join, report progress and finish through here. Membership,
+ * START and the winner live in the room's actor in WebSocketSessionManager,
+ * so both sides share one start decision and one winner CAS.
+ * MultiplayerRoomService only keeps the open sockets to deliver to, and
+ * RoomBroadcaster's tick sends progress to both transports on one schedule.
+ *
+ * With several app nodes, only the room's owner (RoomAffinity) hosts it.
+ * STOMP joins, progress and finishes that land on another node are
+ * forwarded to the owner through ClusterLink and applied there; raw socket
+ * players can't receive another node's broadcasts, so they are told which
+ * node to reconnect to instead.
+ */
+@Component
+public class RoomCoordinator {
+
+    private final WebSocketSessionManager sessionManager;
+    private final MultiplayerRoomService roomService;
+    private final RoomBroadcaster roomBroadcaster;
+    private final TypingEngine typingEngine;
+    private final ScoreWriteBehind scoreWriter;
+    private final RoomAffinity roomAffinity;
+    private final ClusterLink clusterLink;
+
+    @Autowired
+    public RoomCoordinator(WebSocketSessionManager sessionManager,
+            MultiplayerRoomService roomService,
+            RoomBroadcaster roomBroadcaster,
+            TypingEngine typingEngine,
+            ScoreWriteBehind scoreWriter,
+            RoomAffinity roomAffinity,
+            ClusterLink clusterLink) {
+        this.sessionManager = sessionManager;
+        this.roomService = roomService;
+        this.roomBroadcaster = roomBroadcaster;
+        this.typingEngine = typingEngine;
+        this.scoreWriter = scoreWriter;
+        this.roomAffinity = roomAffinity;
+        this.clusterLink = clusterLink;
+
+        clusterLink.setRoomOpListener(this::applyForwarded);
+    }
+
+    /**
+     * Owner a client has to reconnect to, or null if this node can serve the
+     * join (it owns the room, or it is a STOMP join it can forward).
+     */
+    public String redirectFor(String roomId, Transport transport) {
+        if (roomAffinity.isLocal(roomId)) {
+            return null;
+        }
+        if (transport == Transport.STOMP && clusterLink.isConnected()) {
+            return null;
+        }
+        roomAffinity.recordMisroutedJoin(roomId);
+        return roomAffinity.ownerOf(roomId);
+    }
+
+    /**
+     * Base URL of a node, for redirecting clients to it.
+     */
+    public String nodeUrl(String nodeId) {
+        return roomAffinity.urlOf(nodeId);
+    }
+
+    /**
+     * Add a player to a room and start it once it is full.
+     */
+    public void join(String roomId, String username, String sessionId, Transport transport) {
+        join(roomId, username, sessionId, transport, null, null);
+    }
+
+    /**
+     * Join, catching the player up from sinceEpoch/sinceVersion if the room
+     * is already running (null, or a different epoch, sends a full snapshot).
+     */
+    public void join(String roomId, String username, String sessionId, Transport transport,
+            Long sinceEpoch, Long sinceVersion) {
+        if (forwardIfRemote(roomId, ClusterLink.RoomOp.join(roomId, username, sessionId, sinceEpoch, sinceVersion,
+                roomAffinity.getNodeId()))) {
+            return;
+        }
+        joinLocal(roomId, username, sessionId, transport, sinceEpoch, sinceVersion);
+    }
+
+    private void joinLocal(String roomId, String username, String sessionId, Transport transport,
+            Long sinceEpoch, Long sinceVersion) {
+        sessionManager.addPlayerToRoom(roomId, username, sessionId, transport);
+
+        // Decided in the room's order, so a join that raced the START isn't mistaken for a late one
+        sessionManager.wasStartedBefore(roomId).thenAccept(started -> {
+            if (started) catchUpLateJoiner(roomId, sessionId, transport, sinceEpoch, sinceVersion);
+        });
+
+        // The room actor decides who starts it, whichever transport joined last
+        sessionManager.startRoomIfReady(roomId, MultiplayerRoomService.DEFAULT_ROOM_SIZE,
+                        () -> generateSharedText(50))
+                .thenAccept(text -> {
+                    if (text == null) return;
+
+                    // Make sure everyone has the full roster before START
+                    roomBroadcaster.flush(roomId);
+
+                    // One encoded START for STOMP and raw socket clients (Requirement 3 bridge)
+                    roomService.publishStart(roomId, text);
+                });
+    }
+
+    /**
+     * A player joined a room that had already started: send them the room
+     * as it is now (the START they missed), without disturbing anyone else.
+     */
+    private void catchUpLateJoiner(String roomId, String sessionId, Transport transport,
+            Long sinceEpoch, Long sinceVersion) {
+        if (sessionId == null) return;
+        RoomState state = sessionManager.getRoomState(roomId);
+
+        if (transport == Transport.SOCKET) {
+            roomService.replayStart(roomId, sessionId, state.text, state.startTimestamp);
+        } else {
+            roomBroadcaster.sendSync(roomId, sessionId, sinceEpoch, sinceVersion);
+        }
+    }
+
+    /**
+     * Send a STOMP session what changed in a room since the epoch and version
+     * it last saw, or a full snapshot if it has none, is too far behind, or
+     * saw an earlier incarnation of the room.
+     */
+    public void sync(String roomId, String sessionId, Long sinceEpoch, Long sinceVersion) {
+        if (forwardIfRemote(roomId, ClusterLink.RoomOp.sync(roomId, sessionId, sinceEpoch, sinceVersion,
+                roomAffinity.getNodeId()))) {
+            return;
+        }
+        roomBroadcaster.sendSync(roomId, sessionId, sinceEpoch, sinceVersion);
+    }
+
+    /**
+     * Raw socket JOIN: register the socket for delivery, then join the room.
+     */
+    public void joinSocket(String roomId, PlayerThread player) {
+        roomService.joinRoom(roomId, player);
+        join(roomId, player.getUsername(), player.getSessionId(), Transport.SOCKET);
+    }
+
+    /**
+     * Raw socket closed: stop delivering to it and leave the room.
+     */
+    public void leaveSocket(String roomId, PlayerThread player) {
+        roomService.leaveRoom(roomId, player);
+        sessionManager.removeSession(player.getSessionId());
+    }
+
+    /**
+     * Record progress; it goes out to both transports on the room's next tick.
+     * Reaching 100% claims the win.
+     */
+    public void progress(String roomId, String username, int progress, double wpm) {
+        if (forwardIfRemote(roomId, ClusterLink.RoomOp.progress(roomId, username, progress, wpm, roomAffinity.getNodeId()))) {
+            return;
+        }
+        progressLocal(roomId, username, progress, wpm);
+    }
+
+    private void progressLocal(String roomId, String username, int progress, double wpm) {
+        sessionManager.updatePlayerProgress(roomId, username, progress, wpm, "ACTIVE");
+
+        // Winner detection (Requirement 5)
+        if (progress >= 100) {
+            finishLocal(roomId, username, wpm);
+        }
+    }
+
+    /**
+     * Claim the win; only the first claim in a room counts.
+     */
+    public void finish(String roomId, String username, double wpm) {
+        if (username == null) return;
+        if (forwardIfRemote(roomId, ClusterLink.RoomOp.finish(roomId, username, wpm, roomAffinity.getNodeId()))) {
+            return;
+        }
+        finishLocal(roomId, username, wpm);
+    }
+
+    private void finishLocal(String roomId, String username, double wpm) {
+
+        sessionManager.claimWinner(roomId, username, wpm).thenAccept(winner -> {
+            if (!username.equals(winner)) return;
+
+            // Announce the winner now, not on the next tick
+            roomBroadcaster.flush(roomId);
+            roomService.publishFinish(roomId, winner);
+
+            // Queue the result with mode/test type 'multiplayer' (Requirement 3); written off this thread
+            recordResult(winner, wpm, 100.0, 0, 0L);
+        });
+    }
+
+    /**
+     * Send an operation for another node's room to that node.
+     */
+    private boolean forwardIfRemote(String roomId, ClusterLink.RoomOp op) {
+        if (roomAffinity.isLocal(roomId)) {
+            return false;
+        }
+        String owner = roomAffinity.ownerOf(roomId);
+        if (!clusterLink.forward(owner, op)) {
+            // No link: serve it here rather than drop it (single-node fallback)
+            System.err.println("[RoomCoordinator] Could not forward " + op.op() + " for room " + roomId
+                    + " to " + owner + "; handling locally");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Apply an operation another node forwarded to this room owner.
+     * Always applied locally, so a brief ring disagreement can't bounce it back.
+     */
+    void applyForwarded(ClusterLink.RoomOp op) {
+        switch (op.op()) {
+            case "JOIN" -> joinLocal(op.roomId(), op.username(), op.sessionId(), Transport.STOMP, op.epoch(), op.version());
+            case "PROGRESS" -> progressLocal(op.roomId(), op.username(), op.progress(), op.wpm());
+            case "FINISH" -> {
+                if (op.username() != null) finishLocal(op.roomId(), op.username(), op.wpm());
+            }
+            case "LEAVE" -> sessionManager.removeSession(op.sessionId());
+            case "SYNC" -> roomBroadcaster.sendSync(op.roomId(), op.sessionId(), op.epoch(), op.version());
+            default -> System.err.println("[RoomCoordinator] Unknown forwarded op " + op.op() + " from " + op.from());
+        }
+    }
+
+    /**
+     * Queue one multiplayer result for the score write-behind; never blocks on disk.
+     */
+    public void recordResult(String username,
+                             double wpm,
+                             double accuracy,
+                             int wordsTyped,
+                             long duration) {
+        if (username == null || username.isBlank()) return;
+        try {
+            // mode labeled as 'multiplayer'; runs on room actor and STOMP threads, so never waits for room
+            if (!scoreWriter.offer(username,
+                    new UserStats.GameRecord(wpm, accuracy, wordsTyped, duration, "multiplayer"))) {
+                System.err.println("[RoomCoordinator] Score queue full, dropped multiplayer result for " + username);
+            }
+        } catch (Exception e) {
+            System.err.println("[RoomCoordinator] Failed to save multiplayer result: " + e.getMessage());
+        }
+    }
+
+    private String generateSharedText(int wordCount) {
+        List<String> words = typingEngine.getRandomWords(wordCount)
+                .stream()
+                .map(w -> w.getText())
+                .collect(Collectors.toList());
+        return String.join(" ", words);
+    }
+}
@@ -0,0 +1,138 @@
+package com.typinggame.multiplayer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One room event (START, PROGRESS, FINISH) encoded exactly once.
+ *
+ * The JSON is written straight from the fields with a streaming generator
+ * (no Map per message) into a byte array that is never modified afterwards,
+ * so the same bytes can go to every raw socket writer and to the STOMP
+ * broker. Socket clients get it as one newline-terminated line; STOMP
+ * clients get the same object as the frame body.
+ */
+public final class RoomEvent {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final String type;
+    private final String roomId;
+    private final String excludeUsername;
+    private final byte[] json;
+
+    private RoomEvent(String type, String roomId, String excludeUsername, byte[] json) {
+        this.type = type;
+        this.roomId = roomId;
+        this.excludeUsername = excludeUsername;
+        this.json = json;
+    }
+
+    /**
+     * START with the shared race text (null for socket-only rooms).
+     */
+    public static RoomEvent start(String roomId, String text, long timestamp) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(text != null ? text.length() + 96 : 96);
+        try (JsonGenerator gen = JSON.createGenerator(buffer)) {
+            gen.writeStartObject();
+            gen.writeStringField("type", "START");
+            gen.writeStringField("roomId", roomId);
+            if (text != null) {
+                gen.writeStringField("text", text);
+            }
+            gen.writeNumberField("timestamp", timestamp);
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new RoomEvent("START", roomId, null, buffer.toByteArray());
+    }
+
+    /**
+     * PROGRESS from one player; not echoed back to the sender.
+     */
+    public static RoomEvent progress(String roomId, String username, double wpm, int progress, long timestamp) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(128);
+        try (JsonGenerator gen = JSON.createGenerator(buffer)) {
+            gen.writeStartObject();
+            gen.writeStringField("type", "PROGRESS");
+            gen.writeStringField("roomId", roomId);
+            gen.writeStringField("username", username);
+            gen.writeNumberField("wpm", wpm);
+            gen.writeNumberField("progress", progress);
+            gen.writeNumberField("timestamp", timestamp);
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new RoomEvent("PROGRESS", roomId, username, buffer.toByteArray());
+    }
+
+    public static RoomEvent finish(String roomId, String winner, long timestamp) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(96);
+        try (JsonGenerator gen = JSON.createGenerator(buffer)) {
+            gen.writeStartObject();
+            gen.writeStringField("type", "FINISH");
+            gen.writeStringField("roomId", roomId);
+            gen.writeStringField("winner", winner);
+            gen.writeNumberField("timestamp", timestamp);
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new RoomEvent("FINISH", roomId, null, buffer.toByteArray());
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * Player who caused the event and shouldn't receive it, or null.
+     */
+    public String getExcludeUsername() {
+        return excludeUsername;
+    }
+
+    /**
+     * Read-only view of the encoded JSON.
+     */
+    public ByteBuffer asReadOnlyBuffer() {
+        return ByteBuffer.wrap(json).asReadOnlyBuffer();
+    }
+
+    public int size() {
+        return json.length;
+    }
+
+    /**
+     * Write the encoded JSON (without a line terminator).
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(json);
+    }
+
+    /**
+     * The shared array itself, for handing to the broker without a copy.
+     * Callers in this package must not modify it.
+     */
+    byte[] bytes() {
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,131 @@
+package com.typinggame.network;
+
+import com.typinggame.bot.BotDifficulty;
+import com.typinggame.bot.BotPlayer;
+import com.typinggame.bot.GameStatus;
+import com.typinggame.domain.Word;
+import com.typinggame.network.GameMessage.PlayerProgress;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Server-side bot that takes a seat in a GameSession.
+ * Receives the same messages a ClientHandler would and drives a BotPlayer,
+ * reporting its progress back through the session like a remote player.
+ */
+public class BotParticipant implements SessionParticipant {
+
+    private static final double BOT_ACCURACY = 100.0;
+
+    private final String playerId;
+    private final BotDifficulty difficulty;
+
+    private volatile GameSession gameSession;
+    private volatile BotPlayer botPlayer;
+    private volatile boolean running;
+
+    public BotParticipant(String playerId, BotDifficulty difficulty) {
+        this.playerId = playerId;
+        this.difficulty = difficulty;
+        this.running = true;
+    }
+
+    @Override
+    public void sendMessage(GameMessage message) {
+        if (!running) {
+            return;
+        }
+
+        switch (message.getType()) {
+            case GAME_START:
+                startBot(message.getAttackWords());
+                break;
+
+            case GAME_END:
+            case GAME_OVER:
+                shutdown();
+                break;
+
+            default:
+                // Bots ignore opponent progress, attacks and health updates
+                break;
+        }
+    }
+
+    /**
+     * Start typing the session's word list once the match actually begins.
+     */
+    private void startBot(List<String> words) {
+        GameSession session = gameSession;
+        if (session == null || words == null || words.isEmpty()) {
+            return;
+        }
+
+        List<Word> wordList = words.stream()
+                .map(Word::new)
+                .collect(Collectors.toList());
+        GameStatus gameStatus = new GameStatus(wordList.size());
+
+        BotPlayer bot = new BotPlayer(difficulty.getDisplayName(), wordList, gameStatus,
+                difficulty.getTargetWPM());
+        bot.setProgressListener((wordsCompleted, currentWPM, lastWord, elapsed) -> session.onProgressUpdate(
+                playerId,
+                new PlayerProgress(currentWPM, BOT_ACCURACY, wordsCompleted, wordList.size(), lastWord, elapsed)));
+        this.botPlayer = bot;
+
+        Thread botThread = new Thread(() -> {
+            // Hold the bot until the human player is ready too
+            while (running && !session.isGameStarted()) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (running) {
+                gameStatus.startGame();
+                bot.run();
+            }
+        });
+        botThread.setName("BotParticipant-" + playerId + "-" + difficulty);
+        botThread.setDaemon(true);
+        botThread.start();
+
+        session.onPlayerReady(playerId);
+    }
+
+    @Override
+    public void setGameSession(GameSession session) {
+        this.gameSession = session;
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        BotPlayer bot = botPlayer;
+        if (bot != null) {
+            bot.stop();
+        }
+    }
+
+    @Override
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    @Override
+    public String getPlayerName() {
+        return difficulty.getDisplayName();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return running;
+    }
+
+    public BotDifficulty getDifficulty() {
+        return difficulty;
+    }
+}
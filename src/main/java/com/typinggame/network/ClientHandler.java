@@ -9,17 +9,20 @@ import java.net.Socket;
 /**
  * Thread to handle individual client connection.
  * Reads messages from client and forwards to GameSession.
+ * A connection that drops mid-game only suspends its seat; a new connection
+ * sending RESUME with the token from GAME_START takes it back.
  */
-public class ClientHandler extends Thread {
+public class ClientHandler extends Thread implements SessionParticipant {
 
     private final Socket socket;
-    private final String playerId;
+    private volatile String playerId;
     private final GameServer server;
     private GameSession gameSession;
 
     private BufferedReader in;
     private PrintWriter out;
     private volatile boolean running;
+    private volatile boolean leaving;
     private String playerName;
 
     public ClientHandler(Socket socket, String playerId, GameServer server) {
@@ -84,7 +87,16 @@ public class ClientHandler extends Thread {
                 }
                 break;
 
+            case RESUME:
+                if (message.getPlayerName() != null) {
+                    this.playerName = message.getPlayerName();
+                }
+                server.onPlayerResume(this, message.getResumeToken());
+                break;
+
             case DISCONNECT:
+                // Leaving on purpose: give the seat up now rather than holding it
+                leaving = true;
                 running = false;
                 break;
 
@@ -96,6 +108,7 @@ public class ClientHandler extends Thread {
     /**
      * Send message to client.
      */
+    @Override
     public void sendMessage(GameMessage message) {
         if (out != null && !socket.isClosed()) {
             try {
@@ -107,9 +120,20 @@ public class ClientHandler extends Thread {
         }
     }
 
+    /**
+     * Send a pre-serialized message to client.
+     */
+    @Override
+    public void sendSerialized(GameMessage message, String json) {
+        if (out != null && !socket.isClosed()) {
+            out.println(json);
+        }
+    }
+
     /**
      * Set the game session for this client.
      */
+    @Override
     public void setGameSession(GameSession session) {
         this.gameSession = session;
     }
@@ -131,17 +155,29 @@ public class ClientHandler extends Thread {
             System.err.println("[ClientHandler] Error during cleanup: " + e.getMessage());
         }
 
-        // Notify server of disconnection
+        // Notify server of disconnection; an unexpected drop keeps the seat for a while
         if (gameSession != null) {
-            gameSession.onPlayerDisconnected(playerId);
+            if (leaving) {
+                gameSession.onPlayerDisconnected(playerId);
+            } else {
+                server.onPlayerDropped(this, gameSession);
+            }
         }
 
         System.out.println("[ClientHandler] Player " + playerId + " disconnected");
     }
 
+    /**
+     * Take over a resumed seat's player id, so the session recognises this connection.
+     */
+    void resumeAs(String seatPlayerId) {
+        this.playerId = seatPlayerId;
+    }
+
     /**
      * Stop this client handler.
      */
+    @Override
     public void shutdown() {
         running = false;
         try {
@@ -154,14 +190,17 @@ public class ClientHandler extends Thread {
     }
 
     // Getters
+    @Override
     public String getPlayerId() {
         return playerId;
     }
 
+    @Override
     public String getPlayerName() {
         return playerName != null ? playerName : "Player " + playerId;
     }
 
+    @Override
     public boolean isConnected() {
         return running && socket != null && !socket.isClosed();
     }
@@ -14,11 +14,15 @@ import java.util.UUID;
 /**
  * Client to connect to GameServer for multiplayer mode.
  * Sends progress updates and receives opponent progress and attacks.
+ * If the connection drops mid-game it reconnects and resumes its seat with
+ * the token from GAME_START.
  */
 public class GameClient {
 
     private static final String SERVER_HOST = "localhost";
     private static final int SERVER_PORT = 9090;
+    private static final int RESUME_ATTEMPTS = 5;
+    private static final long RESUME_RETRY_MS = 2000;
 
     private Socket socket;
     private BufferedReader in;
@@ -28,6 +32,9 @@ public class GameClient {
     private String playerId;
     private String playerName;
     private GameMode gameMode;
+    private volatile String resumeToken;
+    // Id the server assigned us, from GAME_START or RESUMED; standings use it, not ours
+    private volatile String serverPlayerId;
 
     private ServerListenerThread listenerThread;
 
@@ -41,6 +48,32 @@ public class GameClient {
      * Connect to the game server.
      */
     public boolean connect() {
+        return open(GameMessage.connect(playerId, playerName, gameMode.name()));
+    }
+
+    /**
+     * Reconnect after a dropped connection and reclaim our seat.
+     */
+    private boolean resumeGame() {
+        for (int attempt = 1; attempt <= RESUME_ATTEMPTS; attempt++) {
+            System.out.println("[GameClient] Connection lost; resuming (attempt " + attempt + ")");
+            if (open(GameMessage.resume(resumeToken, playerName))) {
+                return true;
+            }
+            try {
+                Thread.sleep(RESUME_RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Open the socket, send the first message and start listening.
+     */
+    private boolean open(GameMessage firstMessage) {
         try {
             socket = new Socket(SERVER_HOST, SERVER_PORT);
             in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
@@ -49,9 +82,7 @@ public class GameClient {
 
             System.out.println("[GameClient] Connected to server at " + SERVER_HOST + ":" + SERVER_PORT);
 
-            // Send connection message
-            GameMessage connectMsg = GameMessage.connect(playerId, playerName, gameMode.name());
-            sendMessage(connectMsg);
+            sendMessage(firstMessage);
 
             // Start listener thread
             listenerThread = new ServerListenerThread();
@@ -140,6 +171,12 @@ public class GameClient {
                     System.err.println("[GameClient] Connection lost: " + e.getMessage());
                 }
             }
+
+            // Dropped mid-game rather than closed by us or the game ending
+            if (running && resumeToken != null && !resumeGame()) {
+                System.err.println("[GameClient] Could not resume the game");
+                running = false;
+            }
         }
     }
 
@@ -149,6 +186,10 @@ public class GameClient {
     private void handleServerMessage(GameMessage message) {
         switch (message.getType()) {
             case GAME_START:
+                resumeToken = message.getResumeToken();
+                if (message.getPlayerId() != null) {
+                    serverPlayerId = message.getPlayerId();
+                }
                 System.out.println("\n[GameClient] ===== GAME STARTED =====");
                 System.out.println("Words to type: " + message.getAttackWords().size());
                 System.out.println("First 5 words: " + message.getAttackWords().subList(0,
@@ -164,6 +205,19 @@ public class GameClient {
                         + oppProgress.getTotalWords());
                 break;
 
+            case RACE_PROGRESS:
+                for (GameMessage.PlayerStanding standing : message.getStandings()) {
+                    PlayerProgress progress = standing.getProgress();
+                    if (standing.getPlayerId().equals(serverPlayerId) || progress == null) {
+                        continue;
+                    }
+                    System.out.println("[#" + standing.getRank() + " " + standing.getPlayerName() + "] WPM: "
+                            + String.format("%.1f", progress.getWpm())
+                            + " | Words: " + progress.getWordsCompleted() + "/" + progress.getTotalWords()
+                            + (standing.isEliminated() ? " | OUT" : ""));
+                }
+                break;
+
             case ATTACK:
                 System.out.println("\n*** ATTACKED! ***");
                 System.out.println("Opponent sent you " + message.getAttackWords().size()
@@ -172,11 +226,22 @@ public class GameClient {
                 System.out.println("*****************\n");
                 break;
 
+            case RESUMED:
+                resumeToken = message.getResumeToken();
+                if (message.getPlayerId() != null) {
+                    serverPlayerId = message.getPlayerId();
+                }
+                System.out.println("[GameClient] Resumed; race time " + message.getElapsedTime() + "ms, "
+                        + message.getStandings().size() + " players");
+                break;
+
             case GAME_END:
+                // The seat is gone; never try to resume into a finished race
+                resumeToken = null;
                 System.out.println("\n[GameClient] ===== GAME ENDED =====");
                 System.out.println(message.getMessage());
                 if (message.getWinnerId() != null) {
-                    if (message.getWinnerId().equals(playerId)) {
+                    if (message.getWinnerId().equals(serverPlayerId)) {
                         System.out.println("🎉 YOU WON! 🎉");
                     } else {
                         System.out.println("You lost. Better luck next time!");
@@ -1,6 +1,7 @@
 package com.typinggame.network;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -27,6 +28,9 @@ public class GameMessage {
     private Integer maxHealth; // Maximum health
     private String typedWord; // Word typed by player
     private Boolean wordCorrect; // Whether word was correct
+    private List<PlayerStanding> standings; // Ranked race snapshot (RACE_PROGRESS, GAME_END)
+    private String resumeToken; // Reclaims the seat after a dropped connection (GAME_START, RESUME)
+    private Long elapsedTime; // Race time so far (RESUMED)
 
     public GameMessage() {
     }
@@ -48,8 +52,11 @@ public class GameMessage {
         HEALTH_UPDATE, // Health changed (wrong word)
         ATTACK, // Elimination mode attack
         OPPONENT_PROGRESS, // Opponent's progress
+        RACE_PROGRESS, // Ranked progress of every player in the session
         GAME_OVER, // Player eliminated (health = 0)
         GAME_END, // Game finished
+        RESUME, // Client reconnects to its seat with a resume token
+        RESUMED, // Seat restored, with the race as it is now
         DISCONNECT, // Player disconnected
         ERROR // Error message
     }
@@ -128,6 +135,80 @@ public class GameMessage {
         }
     }
 
+    /**
+     * One player's place in a race snapshot.
+     */
+    public static class PlayerStanding {
+        private String playerId;
+        private String playerName;
+        private int rank;
+        private PlayerProgress progress;
+        private Integer health;
+        private boolean eliminated;
+
+        public PlayerStanding() {
+        }
+
+        public PlayerStanding(String playerId, String playerName, int rank,
+                PlayerProgress progress, Integer health, boolean eliminated) {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.rank = rank;
+            this.progress = progress;
+            this.health = health;
+            this.eliminated = eliminated;
+        }
+
+        // Getters and Setters
+        public String getPlayerId() {
+            return playerId;
+        }
+
+        public void setPlayerId(String playerId) {
+            this.playerId = playerId;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public void setPlayerName(String playerName) {
+            this.playerName = playerName;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public void setRank(int rank) {
+            this.rank = rank;
+        }
+
+        public PlayerProgress getProgress() {
+            return progress;
+        }
+
+        public void setProgress(PlayerProgress progress) {
+            this.progress = progress;
+        }
+
+        public Integer getHealth() {
+            return health;
+        }
+
+        public void setHealth(Integer health) {
+            this.health = health;
+        }
+
+        public boolean isEliminated() {
+            return eliminated;
+        }
+
+        public void setEliminated(boolean eliminated) {
+            this.eliminated = eliminated;
+        }
+    }
+
     /**
      * Serialize message to JSON string.
      */
@@ -171,6 +252,41 @@ public class GameMessage {
         return msg;
     }
 
+    /**
+     * GAME_START for one player: the id the server knows them by (as used in
+     * standings and winnerId) and, if seats can be resumed, the token that
+     * lets them reclaim theirs if the connection drops.
+     */
+    public static GameMessage gameStart(List<String> words, String playerId, String resumeToken) {
+        GameMessage msg = gameStart(words);
+        msg.playerId = playerId;
+        msg.resumeToken = resumeToken;
+        return msg;
+    }
+
+    public static GameMessage resume(String resumeToken, String playerName) {
+        GameMessage msg = new GameMessage(MessageType.RESUME);
+        msg.resumeToken = resumeToken;
+        msg.playerName = playerName;
+        return msg;
+    }
+
+    /**
+     * Seat restored: the words, everyone's standing, how long the race has
+     * run (null if it hasn't started) and the token for the next drop.
+     */
+    public static GameMessage resumed(String playerId, List<String> words, List<PlayerStanding> standings,
+            Long elapsedTime, Integer health, String resumeToken) {
+        GameMessage msg = new GameMessage(MessageType.RESUMED);
+        msg.playerId = playerId;
+        msg.attackWords = words;
+        msg.standings = standings;
+        msg.elapsedTime = elapsedTime;
+        msg.health = health;
+        msg.resumeToken = resumeToken;
+        return msg;
+    }
+
     public static GameMessage progressUpdate(String playerId, PlayerProgress progress) {
         GameMessage msg = new GameMessage(MessageType.PROGRESS_UPDATE);
         msg.playerId = playerId;
@@ -192,6 +308,12 @@ public class GameMessage {
         return msg;
     }
 
+    public static GameMessage raceProgress(List<PlayerStanding> standings) {
+        GameMessage msg = new GameMessage(MessageType.RACE_PROGRESS);
+        msg.standings = standings;
+        return msg;
+    }
+
     public static GameMessage gameEnd(String winnerId, String message) {
         GameMessage msg = new GameMessage(MessageType.GAME_END);
         msg.winnerId = winnerId;
@@ -199,6 +321,12 @@ public class GameMessage {
         return msg;
     }
 
+    public static GameMessage gameEnd(String winnerId, String message, List<PlayerStanding> standings) {
+        GameMessage msg = gameEnd(winnerId, message);
+        msg.standings = standings;
+        return msg;
+    }
+
     public static GameMessage error(String message) {
         GameMessage msg = new GameMessage(MessageType.ERROR);
         msg.message = message;
@@ -325,6 +453,33 @@ public class GameMessage {
         this.wordCorrect = wordCorrect;
     }
 
+    public List<PlayerStanding> getStandings() {
+        return standings;
+    }
+
+    public void setStandings(List<PlayerStanding> standings) {
+        this.standings = standings;
+    }
+
+    // Only on the few messages that carry them, so progress frames stay the same size
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    public void setResumeToken(String resumeToken) {
+        this.resumeToken = resumeToken;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    public void setElapsedTime(Long elapsedTime) {
+        this.elapsedTime = elapsedTime;
+    }
+
     @Override
     public String toString() {
         return String.format("GameMessage{type=%s, playerId='%s', playerName='%s'}",
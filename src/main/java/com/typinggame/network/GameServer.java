@@ -6,14 +6,25 @@ import com.typinggame.bot.GameStatus;
 import com.typinggame.bot.BotDifficulty;
 import com.typinggame.domain.Word;
 import com.typinggame.engine.TypingEngine;
+import com.typinggame.io.ScoreLog;
+import com.typinggame.io.ScoreManager;
+import com.typinggame.io.UserStats;
 
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Main game server that listens for client connections.
@@ -22,11 +33,28 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class GameServer {
 
     private static final int PORT = 9090;
-    private static final int MAX_PLAYERS_PER_SESSION = 2;
+    // Seats per VS_FRIEND/ELIMINATION session (2 = classic 1v1, larger for races)
+    public static final String PLAYERS_PER_SESSION_PROPERTY = "typinggame.matchmaking.players-per-session";
+    private static final int DEFAULT_PLAYERS_PER_SESSION = 2;
+
+    // How long a VS_FRIEND/ELIMINATION player waits alone before a bot takes the other seat
+    public static final String BACKFILL_TIMEOUT_PROPERTY = "typinggame.matchmaking.backfill-timeout-ms";
+    private static final long DEFAULT_BACKFILL_TIMEOUT_MS = 15000;
+
+    // How long a VS_FRIEND/ELIMINATION seat is held for a player whose connection dropped (0 = forfeit at once)
+    public static final String RESUME_GRACE_PROPERTY = "typinggame.session.resume-grace-ms";
+    private static final long DEFAULT_RESUME_GRACE_MS = 20000;
+
+    // Games read back from the score log when sizing backfill bots
+    private static final int RECENT_GAMES_FOR_DIFFICULTY = 20;
 
     private ServerSocket serverSocket;
     private volatile boolean running;
     private final AtomicInteger playerIdCounter;
+    private final AtomicInteger botIdCounter;
+    private final long backfillTimeoutMs;
+    private final int playersPerSession;
+    private final long resumeGraceMs;
 
     // HashMap to track waiting players by mode
     private final HashMap<GameMode, ConcurrentHashMap<String, ClientHandler>> waitingPlayersByMode;
@@ -37,11 +65,55 @@ public class GameServer {
     // HashMap to track bot sessions
     private final HashMap<String, BotPlayer> botSessions;
 
+    // When each waiting player joined the queue (for queue time metrics)
+    private final ConcurrentHashMap<String, Long> waitingSince;
+
+    // Resume token -> session, only for seats whose connection dropped
+    private final ConcurrentHashMap<String, GameSession> suspendedSeats;
+
+    private final ScheduledExecutorService matchmakingTimer;
+    private final MatchmakingMetrics matchmakingMetrics;
+    // Backfill timers that have run to completion, whether or not they seated anyone
+    private final AtomicLong backfillChecks = new AtomicLong();
+    // Read-only: the score log is owned (recovered, compacted) by the web app
+    private final Path scoresDir;
+
     public GameServer() {
+        this(Long.getLong(BACKFILL_TIMEOUT_PROPERTY, DEFAULT_BACKFILL_TIMEOUT_MS),
+                Integer.getInteger(PLAYERS_PER_SESSION_PROPERTY, DEFAULT_PLAYERS_PER_SESSION));
+    }
+
+    public GameServer(long backfillTimeoutMs, int playersPerSession) {
+        this(backfillTimeoutMs, playersPerSession, Long.getLong(RESUME_GRACE_PROPERTY, DEFAULT_RESUME_GRACE_MS));
+    }
+
+    public GameServer(long backfillTimeoutMs, int playersPerSession, long resumeGraceMs) {
+        this(backfillTimeoutMs, playersPerSession, resumeGraceMs, Path.of(ScoreManager.DEFAULT_SCORES_DIR));
+    }
+
+    GameServer(long backfillTimeoutMs, int playersPerSession, long resumeGraceMs, Path scoresDir) {
+        if (playersPerSession < 2) {
+            throw new IllegalArgumentException("playersPerSession must be at least 2");
+        }
+
         this.playerIdCounter = new AtomicInteger(1);
+        this.botIdCounter = new AtomicInteger(1);
+        this.backfillTimeoutMs = backfillTimeoutMs;
+        this.playersPerSession = playersPerSession;
+        this.resumeGraceMs = resumeGraceMs;
         this.waitingPlayersByMode = new HashMap<>();
         this.activeSessions = new HashMap<>();
         this.botSessions = new HashMap<>();
+        this.waitingSince = new ConcurrentHashMap<>();
+        this.suspendedSeats = new ConcurrentHashMap<>();
+        this.matchmakingMetrics = new MatchmakingMetrics();
+        this.scoresDir = scoresDir;
+
+        this.matchmakingTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "GameServer-Matchmaking");
+            t.setDaemon(true);
+            return t;
+        });
 
         // Initialize waiting queues for each mode
         for (GameMode mode : GameMode.values()) {
@@ -122,6 +194,40 @@ public class GameServer {
         }
     }
 
+    /**
+     * A player's connection dropped mid-game. Their seat is held for the
+     * resume grace window and indexed by its token until then.
+     */
+    public void onPlayerDropped(ClientHandler clientHandler, GameSession session) {
+        String token = session.suspendPlayer(clientHandler.getPlayerId(), clientHandler);
+        if (token == null) {
+            return;
+        }
+        suspendedSeats.put(token, session);
+        matchmakingTimer.schedule(() -> suspendedSeats.remove(token, session),
+                resumeGraceMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A new connection sent RESUME: hand it the dropped seat, or tell it the game is gone.
+     */
+    public void onPlayerResume(ClientHandler clientHandler, String resumeToken) {
+        GameSession session = resumeToken != null ? suspendedSeats.get(resumeToken) : null;
+        String seatPlayerId = session != null ? session.playerIdForToken(resumeToken) : null;
+        if (seatPlayerId == null) {
+            clientHandler.sendMessage(GameMessage.error("Game can no longer be resumed"));
+            return;
+        }
+
+        clientHandler.resumeAs(seatPlayerId);
+        if (session.resumePlayer(resumeToken, clientHandler)) {
+            suspendedSeats.remove(resumeToken, session);
+            System.out.println("[GameServer] Player " + seatPlayerId + " resumed " + session.getSessionId());
+        } else {
+            clientHandler.sendMessage(GameMessage.error("Game can no longer be resumed"));
+        }
+    }
+
     /**
      * Handle PRACTICE mode - solo play, no opponent.
      */
@@ -129,7 +235,7 @@ public class GameServer {
         System.out.println("[GameServer] Starting PRACTICE mode for " + clientHandler.getPlayerId());
 
         // Send ready message
-        GameMessage readyMsg = GameMessage.gameStart(List.of());
+        GameMessage readyMsg = GameMessage.gameStart(List.of(), clientHandler.getPlayerId(), null);
         clientHandler.sendMessage(readyMsg);
 
         // Practice mode doesn't need a session, client handles everything
@@ -173,7 +279,7 @@ public class GameServer {
 
         // Send game start with words
         List<String> wordStrings = words.stream().map(Word::getText).toList();
-        GameMessage startMsg = GameMessage.gameStart(wordStrings);
+        GameMessage startMsg = GameMessage.gameStart(wordStrings, playerId, null);
         clientHandler.sendMessage(startMsg);
 
         System.out.println("[GameServer] Bot thread started for player " + playerId);
@@ -188,52 +294,191 @@ public class GameServer {
 
         // Add to waiting players for this mode
         waitingPlayers.put(playerId, clientHandler);
+        waitingSince.put(playerId, System.currentTimeMillis());
 
         System.out.println("[GameServer] Player " + playerId + " waiting for " + gameMode + " match. "
-                + "Waiting players: " + waitingPlayers.size());
+                + "Waiting players: " + waitingPlayers.size() + "/" + playersPerSession);
 
         // Check if we have enough players to start a session
-        if (waitingPlayers.size() >= MAX_PLAYERS_PER_SESSION) {
+        if (waitingPlayers.size() >= playersPerSession) {
             createGameSession(gameMode);
         } else {
             // Notify player they're waiting for opponent
             GameMessage waitingMsg = GameMessage.error("Waiting for opponent to connect...");
             clientHandler.sendMessage(waitingMsg);
+
+            // Fall back to bots if the room doesn't fill in time
+            matchmakingTimer.schedule(() -> backfillWithBots(playerId, gameMode),
+                    backfillTimeoutMs, TimeUnit.MILLISECONDS);
         }
     }
 
     /**
-     * Create a game session with two waiting players.
+     * Fill the empty seats with bots once a player has waited past the backfill timeout.
+     * Everyone waiting in the mode is seated together; does nothing if the player
+     * has already been matched.
+     */
+    private void backfillWithBots(String playerId, GameMode gameMode) {
+        try {
+            if (!running || !waitingPlayersByMode.get(gameMode).containsKey(playerId)) {
+                return; // Already matched with humans
+            }
+
+            // Read score history before taking the matchmaking lock, so disk I/O never holds up joins
+            Map<String, BotDifficulty> difficulties = new HashMap<>();
+            for (ClientHandler waiting : waitingPlayersByMode.get(gameMode).values()) {
+                difficulties.put(waiting.getPlayerId(), difficultyFor(waiting));
+            }
+            seatWithBots(playerId, gameMode, difficulties);
+        } finally {
+            backfillChecks.incrementAndGet();
+        }
+    }
+
+    private synchronized void seatWithBots(String playerId, GameMode gameMode,
+            Map<String, BotDifficulty> difficulties) {
+        if (!running || !waitingPlayersByMode.get(gameMode).containsKey(playerId)) {
+            return; // Matched while history was being read
+        }
+
+        List<ClientHandler> humans = takeWaitingPlayers(gameMode, playersPerSession);
+        humans.removeIf(human -> {
+            if (!human.isConnected()) {
+                System.out.println("[GameServer] Player " + human.getPlayerId() + " left the queue before backfill");
+                waitingSince.remove(human.getPlayerId());
+                return true;
+            }
+            return false;
+        });
+        if (humans.isEmpty()) {
+            return;
+        }
+
+        List<SessionParticipant> seats = new ArrayList<>(humans);
+        while (seats.size() < playersPerSession) {
+            // Each bot is matched to a different waiting player's history
+            ClientHandler matchedTo = humans.get(seats.size() % humans.size());
+            // Joined while history was being read: no average yet
+            BotDifficulty difficulty = difficulties.getOrDefault(matchedTo.getPlayerId(), BotDifficulty.MEDIUM);
+            seats.add(new BotParticipant("BOT" + botIdCounter.getAndIncrement(), difficulty));
+        }
+
+        for (ClientHandler human : humans) {
+            recordQueueTime(human.getPlayerId(), true);
+        }
+
+        System.out.println("[GameServer] Room not full after " + backfillTimeoutMs + "ms, backfilling "
+                + (seats.size() - humans.size()) + " seat(s) with bots");
+        startSession(gameMode, seats);
+    }
+
+    /**
+     * Pick a bot difficulty from the player's average WPM over their recent games.
+     */
+    private BotDifficulty difficultyFor(ClientHandler player) {
+        try {
+            List<UserStats.GameRecord> recent = ScoreLog.readLastSnapshot(scoresDir, player.getPlayerName(),
+                    RECENT_GAMES_FOR_DIFFICULTY);
+            if (!recent.isEmpty()) {
+                double totalWPM = 0;
+                for (UserStats.GameRecord game : recent) {
+                    totalWPM += game.getWpm();
+                }
+                return BotDifficulty.forAverageWPM(totalWPM / recent.size());
+            }
+        } catch (Exception e) {
+            System.err.println("[GameServer] Could not load history for " + player.getPlayerName()
+                    + ": " + e.getMessage());
+        }
+        return BotDifficulty.MEDIUM;
+    }
+
+    /**
+     * Create a game session from the longest-waiting players.
      */
     private void createGameSession(GameMode gameMode) {
         ConcurrentHashMap<String, ClientHandler> waitingPlayers = waitingPlayersByMode.get(gameMode);
 
-        if (waitingPlayers.size() < MAX_PLAYERS_PER_SESSION) {
+        if (waitingPlayers.size() < playersPerSession) {
             return;
         }
 
-        // Get first two waiting players
-        ClientHandler[] players = waitingPlayers.values().toArray(new ClientHandler[0]);
-        ClientHandler player1 = players[0];
-        ClientHandler player2 = players[1];
+        List<ClientHandler> players = takeWaitingPlayers(gameMode, playersPerSession);
+        for (ClientHandler player : players) {
+            recordQueueTime(player.getPlayerId(), false);
+        }
+
+        startSession(gameMode, new ArrayList<>(players));
+    }
 
-        // Remove from waiting list
-        waitingPlayers.remove(player1.getPlayerId());
-        waitingPlayers.remove(player2.getPlayerId());
+    /**
+     * Remove up to {@code count} players from a mode's queue, longest-waiting first.
+     */
+    private List<ClientHandler> takeWaitingPlayers(GameMode gameMode, int count) {
+        ConcurrentHashMap<String, ClientHandler> waitingPlayers = waitingPlayersByMode.get(gameMode);
+
+        List<ClientHandler> players = new ArrayList<>(waitingPlayers.values());
+        players.sort(Comparator.comparingLong(p -> waitingSince.getOrDefault(p.getPlayerId(), Long.MAX_VALUE)));
+        if (players.size() > count) {
+            players = new ArrayList<>(players.subList(0, count));
+        }
 
-        // Create and start game session
+        for (ClientHandler player : players) {
+            waitingPlayers.remove(player.getPlayerId());
+        }
+        return players;
+    }
+
+    private void recordQueueTime(String playerId, boolean backfilled) {
+        Long queuedAt = waitingSince.remove(playerId);
+        if (queuedAt != null) {
+            matchmakingMetrics.recordMatch(System.currentTimeMillis() - queuedAt, backfilled);
+        }
+    }
+
+    /**
+     * Create and start a game session for the seated participants.
+     */
+    private void startSession(GameMode gameMode, List<SessionParticipant> players) {
         String sessionId = "SESSION-" + gameMode + "-" + System.currentTimeMillis();
-        GameSession session = new GameSession(sessionId, player1, player2, gameMode);
+        GameSession session = new GameSession(sessionId, players, gameMode, resumeGraceMs);
 
-        player1.setGameSession(session);
-        player2.setGameSession(session);
+        for (SessionParticipant player : players) {
+            player.setGameSession(session);
+        }
 
         activeSessions.put(sessionId, session);
         session.start();
 
-        System.out.println("[GameServer] Created " + gameMode.getDisplayName() + " session: " + sessionId);
-        System.out.println("  Player 1: " + player1.getPlayerName() + " (" + player1.getPlayerId() + ")");
-        System.out.println("  Player 2: " + player2.getPlayerName() + " (" + player2.getPlayerId() + ")");
+        System.out.println("[GameServer] Created " + gameMode.getDisplayName() + " session: " + sessionId
+                + " with " + players.size() + " players");
+        for (int i = 0; i < players.size(); i++) {
+            SessionParticipant player = players.get(i);
+            System.out.println("  Player " + (i + 1) + ": " + player.getPlayerName() + " (" + player.getPlayerId() + ")");
+        }
+        System.out.println("[GameServer] " + matchmakingMetrics);
+    }
+
+    /**
+     * Lets tests drive matchmaking through onPlayerConnected without binding the port.
+     */
+    void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    /**
+     * Backfill timers that have finished so far, including ones that found
+     * the player already matched or gone.
+     */
+    long getBackfillChecks() {
+        return backfillChecks.get();
+    }
+
+    /**
+     * Queue time and bot backfill metrics.
+     */
+    public MatchmakingMetrics getMatchmakingMetrics() {
+        return matchmakingMetrics;
     }
 
     /**
@@ -249,6 +494,7 @@ public class GameServer {
      */
     public void shutdown() {
         running = false;
+        matchmakingTimer.shutdownNow();
 
         // Close all active sessions
         for (GameSession session : activeSessions.values()) {
@@ -4,62 +4,123 @@ import com.typinggame.domain.GameMode;
 import com.typinggame.domain.Word;
 import com.typinggame.engine.TypingEngine;
 import com.typinggame.network.GameMessage.PlayerProgress;
+import com.typinggame.network.GameMessage.PlayerStanding;
 import com.typinggame.mode.PlayerScore;
 import com.typinggame.mode.PlayerScore.WinnerResult;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
 
 /**
- * Thread managing a match between two players.
- * Broadcasts real-time progress updates and handles Elimination Mode attacks.
+ * Thread managing a match between any number of players.
+ * Broadcasts real-time ranked progress and handles Elimination Mode attacks.
+ *
+ * Per-player state lives in arrays indexed by seat, so a 100-player race
+ * costs the same per update as a 1v1.
+ *
+ * With a resume grace window, each player gets a resume token in GAME_START.
+ * A dropped connection suspends the seat rather than forfeiting it, and a new
+ * connection presenting the token takes the seat back and gets a RESUMED
+ * snapshot. Nothing is tracked for connected players: the game loop only
+ * looks for expired seats while some seat is suspended.
  */
 public class GameSession extends Thread {
 
     private static final int BROADCAST_INTERVAL_MS = 500; // 500ms updates
     private static final double ELIMINATION_ATTACK_THRESHOLD = 60.0; // 60 WPM
     private static final int ATTACK_WORD_COUNT = 3;
+    private static final long GAME_TIMEOUT_MS = 300000; // 5 minutes
+    private static final SecureRandom TOKEN_RANDOM = new SecureRandom();
 
     private final String sessionId;
-    private final ClientHandler player1;
-    private final ClientHandler player2;
+    // Replaced as a whole when a seat is resumed, so readers never see a half-swapped seat
+    private volatile SessionParticipant[] players;
+    private final Map<String, Integer> seatByPlayerId;
     private final GameMode gameMode;
     private final TypingEngine typingEngine;
 
-    private final ConcurrentHashMap<String, PlayerProgress> playerProgress;
-    private final ConcurrentHashMap<String, Boolean> playerReady;
-    private final ConcurrentHashMap<String, Boolean> hasAttacked;
-    private final ConcurrentHashMap<String, PlayerHealth> playerHealthMap; // Health tracking
+    // Per-seat state, indexed like players[]
+    private final AtomicReferenceArray<PlayerProgress> playerProgress;
+    private final AtomicIntegerArray playerReady; // 1 once READY
+    private final AtomicIntegerArray hasAttacked; // 1 once attacked
+    private final AtomicLongArray eliminatedAt; // 0 while still in the race
+    private final PlayerHealth[] playerHealth; // null unless mode has health
+
+    // Reconnect-and-resume; resumeTokens is null when resuming is off
+    private final long resumeGraceMs;
+    private final String[] resumeTokens;
+    private final AtomicLongArray suspendedAt; // 0 while connected
+    private volatile int suspendedCount;
 
     private volatile boolean running;
     private volatile boolean gameStarted;
+    private volatile boolean progressDirty;
     private List<String> gameWords;
-    private long gameStartTime;
+    private volatile long gameStartTime;
+
+    public GameSession(String sessionId, SessionParticipant player1, SessionParticipant player2, GameMode gameMode) {
+        this(sessionId, List.of(player1, player2), gameMode);
+    }
+
+    public GameSession(String sessionId, List<? extends SessionParticipant> participants, GameMode gameMode) {
+        this(sessionId, participants, gameMode, 0);
+    }
+
+    /**
+     * @param resumeGraceMs how long a dropped player's seat is held for them; 0 disables resuming.
+     */
+    public GameSession(String sessionId, List<? extends SessionParticipant> participants, GameMode gameMode,
+            long resumeGraceMs) {
+        if (participants.size() < 2) {
+            throw new IllegalArgumentException("A game session needs at least 2 players");
+        }
 
-    public GameSession(String sessionId, ClientHandler player1, ClientHandler player2, GameMode gameMode) {
         this.sessionId = sessionId;
-        this.player1 = player1;
-        this.player2 = player2;
+        this.players = participants.toArray(new SessionParticipant[0]);
         this.gameMode = gameMode;
         this.typingEngine = new TypingEngine();
 
-        this.playerProgress = new ConcurrentHashMap<>();
-        this.playerReady = new ConcurrentHashMap<>();
-        this.hasAttacked = new ConcurrentHashMap<>();
-        this.playerHealthMap = new ConcurrentHashMap<>();
+        Map<String, Integer> seats = new HashMap<>();
+        for (int i = 0; i < players.length; i++) {
+            seats.put(players[i].getPlayerId(), i);
+        }
+        this.seatByPlayerId = Collections.unmodifiableMap(seats);
+
+        this.playerProgress = new AtomicReferenceArray<>(players.length);
+        this.playerReady = new AtomicIntegerArray(players.length);
+        this.hasAttacked = new AtomicIntegerArray(players.length);
+        this.eliminatedAt = new AtomicLongArray(players.length);
+        this.playerHealth = new PlayerHealth[players.length];
+        this.suspendedAt = new AtomicLongArray(players.length);
+        this.resumeGraceMs = resumeGraceMs;
+        if (resumeGraceMs > 0) {
+            this.resumeTokens = new String[players.length];
+            for (int i = 0; i < players.length; i++) {
+                resumeTokens[i] = newResumeToken();
+            }
+        } else {
+            this.resumeTokens = null;
+        }
 
         this.running = true;
         this.gameStarted = false;
 
-        // Initialize tracking
-        hasAttacked.put(player1.getPlayerId(), false);
-        hasAttacked.put(player2.getPlayerId(), false);
-
         // Initialize health if mode has health system
         if (gameMode.hasHealthSystem()) {
-            playerHealthMap.put(player1.getPlayerId(), new PlayerHealth(player1.getPlayerId()));
-            playerHealthMap.put(player2.getPlayerId(), new PlayerHealth(player2.getPlayerId()));
+            for (int i = 0; i < players.length; i++) {
+                playerHealth[i] = new PlayerHealth(players[i].getPlayerId());
+            }
             System.out.println("[GameSession] Health system enabled for " + gameMode.getDisplayName());
         }
     }
@@ -67,19 +128,22 @@ public class GameSession extends Thread {
     @Override
     public void run() {
         try {
-            System.out.println("[GameSession] Session " + sessionId + " started");
+            System.out.println("[GameSession] Session " + sessionId + " started with "
+                    + players.length + " players");
 
             // Generate word list for the game
             generateWordList();
 
-            // Send game start message to both players
-            GameMessage startMsg = GameMessage.gameStart(gameWords);
-            player1.sendMessage(startMsg);
-            player2.sendMessage(startMsg);
+            // Each player gets their own GAME_START: their player id and resume token
+            SessionParticipant[] seats = players;
+            for (int i = 0; i < seats.length; i++) {
+                seats[i].sendMessage(GameMessage.gameStart(gameWords, seats[i].getPlayerId(),
+                        resumeTokens != null ? resumeTokens[i] : null));
+            }
 
             System.out.println("[GameSession] Waiting for players to be ready...");
 
-            // Wait for both players to be ready
+            // Wait for every connected player to be ready
             waitForPlayersReady();
 
             if (!running)
@@ -92,6 +156,9 @@ public class GameSession extends Thread {
 
             // Main game loop - broadcast progress updates
             while (running && gameStarted) {
+                if (suspendedCount > 0) {
+                    expireSuspendedSeats();
+                }
                 broadcastProgress();
 
                 // Check for game end conditions
@@ -125,26 +192,50 @@ public class GameSession extends Thread {
     }
 
     /**
-     * Wait for both players to send READY message.
+     * Wait until every player still in the session has sent READY.
+     * Players who disconnect while we wait no longer hold up the start, and
+     * a suspended seat doesn't either; it can still resume into the race.
      */
     private void waitForPlayersReady() throws InterruptedException {
-        while (running && (!isPlayerReady(player1.getPlayerId()) || !isPlayerReady(player2.getPlayerId()))) {
+        while (running && !allPlayersReady()) {
+            if (suspendedCount > 0) {
+                expireSuspendedSeats();
+            }
             Thread.sleep(100);
         }
+
+        if (running && countStanding() < 2) {
+            System.out.println("[GameSession] Not enough players left to start " + sessionId);
+            running = false;
+        }
+    }
+
+    private boolean allPlayersReady() {
+        for (int i = 0; i < players.length; i++) {
+            if (playerReady.get(i) == 0 && eliminatedAt.get(i) == 0 && suspendedAt.get(i) == 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
-     * Check if a player is ready.
+     * Look up a player's seat, or -1 if they are not in this session.
      */
-    private boolean isPlayerReady(String playerId) {
-        return playerReady.getOrDefault(playerId, false);
+    private int seatOf(String playerId) {
+        Integer seat = seatByPlayerId.get(playerId);
+        return seat != null ? seat : -1;
     }
 
     /**
      * Called when a player sends READY message.
      */
     public void onPlayerReady(String playerId) {
-        playerReady.put(playerId, true);
+        int seat = seatOf(playerId);
+        if (seat < 0)
+            return;
+
+        playerReady.set(seat, 1);
         System.out.println("[GameSession] Player " + playerId + " is ready");
     }
 
@@ -152,13 +243,17 @@ public class GameSession extends Thread {
      * Called when a player sends progress update.
      */
     public void onProgressUpdate(String playerId, PlayerProgress progress) {
-        playerProgress.put(playerId, progress);
+        int seat = seatOf(playerId);
+        if (seat < 0 || progress == null)
+            return;
 
-        // Check for Elimination Mode attacks
-        if (gameMode == GameMode.ELIMINATION && progress.getWpm() >= ELIMINATION_ATTACK_THRESHOLD) {
-            if (!hasAttacked.get(playerId)) {
-                performAttack(playerId);
-            }
+        playerProgress.set(seat, progress);
+        progressDirty = true;
+
+        // Check for Elimination Mode attacks (each player attacks once)
+        if (gameMode == GameMode.ELIMINATION && progress.getWpm() >= ELIMINATION_ATTACK_THRESHOLD
+                && hasAttacked.compareAndSet(seat, 0, 1)) {
+            performAttack(seat);
         }
     }
 
@@ -172,7 +267,12 @@ public class GameSession extends Thread {
             return;
         }
 
-        PlayerHealth health = playerHealthMap.get(playerId);
+        int seat = seatOf(playerId);
+        if (seat < 0) {
+            return;
+        }
+
+        PlayerHealth health = playerHealth[seat];
         if (health == null || health.isEliminated()) {
             return;
         }
@@ -183,85 +283,95 @@ public class GameSession extends Thread {
             // Wrong word - decrement health
             boolean eliminated = health.decrementHealth();
 
-            // Send health update to both players
-            ClientHandler player = playerId.equals(player1.getPlayerId()) ? player1 : player2;
-            ClientHandler opponent = playerId.equals(player1.getPlayerId()) ? player2 : player1;
-
-            GameMessage healthMsg = GameMessage.healthUpdate(
+            // Everyone sees health changes so the race view stays accurate
+            broadcast(GameMessage.healthUpdate(
                     playerId,
                     health.getCurrentHealth(),
                     health.getMaxHealth(),
-                    false);
-            player.sendMessage(healthMsg);
-            opponent.sendMessage(healthMsg); // Notify opponent too
+                    false));
 
             if (eliminated) {
-                // Player eliminated - trigger game over
-                handlePlayerElimination(playerId);
+                // Player eliminated - may end the game
+                handlePlayerElimination(seat);
             }
         } else {
             // Correct word - send confirmation
-            ClientHandler player = playerId.equals(player1.getPlayerId()) ? player1 : player2;
             GameMessage healthMsg = GameMessage.healthUpdate(
                     playerId,
                     health.getCurrentHealth(),
                     health.getMaxHealth(),
                     true);
-            player.sendMessage(healthMsg);
+            players[seat].sendMessage(healthMsg);
         }
     }
 
     /**
      * Handle player elimination when health reaches 0.
+     * The game ends once only one player is left standing.
      */
-    private void handlePlayerElimination(String eliminatedPlayerId) {
-        System.out.println("[GameSession] Player " + eliminatedPlayerId + " ELIMINATED (health = 0)");
+    private void handlePlayerElimination(int seat) {
+        if (!eliminatedAt.compareAndSet(seat, 0, System.currentTimeMillis())) {
+            return;
+        }
+        progressDirty = true;
 
-        // Determine winner and loser
-        ClientHandler eliminated = eliminatedPlayerId.equals(player1.getPlayerId()) ? player1 : player2;
-        ClientHandler winner = eliminatedPlayerId.equals(player1.getPlayerId()) ? player2 : player1;
+        String eliminatedPlayerId = players[seat].getPlayerId();
+        System.out.println("[GameSession] Player " + eliminatedPlayerId + " ELIMINATED (health = 0)");
 
         // Send GAME_OVER to eliminated player
         GameMessage gameOverMsg = GameMessage.gameOver(
                 eliminatedPlayerId,
                 "You have been eliminated! No health remaining.");
-        eliminated.sendMessage(gameOverMsg);
-
-        // Send GAME_END to winner
-        GameMessage winMsg = GameMessage.gameEnd(
-                winner.getPlayerId(),
-                winner.getPlayerName() + " wins! Opponent eliminated.");
-        winner.sendMessage(winMsg);
+        players[seat].sendMessage(gameOverMsg);
 
-        // End the game
-        running = false;
-        gameStarted = false;
+        if (countStanding() <= 1) {
+            // Last one standing - endGame() announces the winner
+            running = false;
+            gameStarted = false;
+        }
     }
 
     /**
-     * Broadcast current progress to both players.
+     * Broadcast current ranked progress to every player.
+     * The snapshot is serialized once and the same JSON is sent to everyone,
+     * and skipped entirely when nothing changed since the last tick.
      */
     private void broadcastProgress() {
-        PlayerProgress p1Progress = playerProgress.get(player1.getPlayerId());
-        PlayerProgress p2Progress = playerProgress.get(player2.getPlayerId());
-
-        // Send opponent progress to each player
-        if (p1Progress != null) {
-            GameMessage msg = GameMessage.opponentProgress(player1.getPlayerId(), p1Progress);
-            player2.sendMessage(msg);
+        if (!progressDirty) {
+            return;
         }
+        progressDirty = false;
+
+        broadcast(GameMessage.raceProgress(buildStandings(rankPlayers())));
+    }
 
-        if (p2Progress != null) {
-            GameMessage msg = GameMessage.opponentProgress(player2.getPlayerId(), p2Progress);
-            player1.sendMessage(msg);
+    /**
+     * Send one message to every player, serializing it only once.
+     */
+    private void broadcast(GameMessage message) {
+        String json = message.toJson();
+        for (SessionParticipant player : players) {
+            player.sendSerialized(message, json);
         }
     }
 
     /**
-     * Perform Elimination Mode attack.
+     * Perform Elimination Mode attack against the best-placed rival.
      */
-    private void performAttack(String attackerId) {
-        hasAttacked.put(attackerId, true);
+    private void performAttack(int attackerSeat) {
+        String attackerId = players[attackerSeat].getPlayerId();
+
+        // Determine target player: the highest ranked opponent still standing
+        SessionParticipant target = null;
+        for (PlayerScore score : rankPlayers()) {
+            if (!score.isEliminated() && !score.getPlayerId().equals(attackerId)) {
+                target = players[seatOf(score.getPlayerId())];
+                break;
+            }
+        }
+        if (target == null) {
+            return;
+        }
 
         // Get hard difficulty words for attack
         List<Word> hardWords = typingEngine.getWordsByDifficulty(Word.DifficultyLevel.HARD);
@@ -270,15 +380,12 @@ public class GameSession extends Thread {
                 .map(Word::getText)
                 .collect(Collectors.toList());
 
-        // Determine target player
-        ClientHandler target = attackerId.equals(player1.getPlayerId()) ? player2 : player1;
-
         // Send attack message
         GameMessage attackMsg = GameMessage.attack(attackerId, attackWords);
         target.sendMessage(attackMsg);
 
-        System.out.println("[GameSession] Player " + attackerId + " attacked with "
-                + ATTACK_WORD_COUNT + " hard words!");
+        System.out.println("[GameSession] Player " + attackerId + " attacked " + target.getPlayerId()
+                + " with " + ATTACK_WORD_COUNT + " hard words!");
         System.out.println("  Attack words: " + attackWords);
     }
 
@@ -286,23 +393,23 @@ public class GameSession extends Thread {
      * Check if game should end.
      */
     private boolean checkGameEnd() {
-        PlayerProgress p1Progress = playerProgress.get(player1.getPlayerId());
-        PlayerProgress p2Progress = playerProgress.get(player2.getPlayerId());
-
-        if (p1Progress == null || p2Progress == null) {
-            return false;
+        // Everyone else eliminated or disconnected
+        if (countStanding() <= 1) {
+            return true;
         }
 
-        // Check if either player completed all words
+        // Check if any player completed all words
         int totalWords = gameWords.size();
-        if (p1Progress.getWordsCompleted() >= totalWords ||
-                p2Progress.getWordsCompleted() >= totalWords) {
-            return true;
+        for (int i = 0; i < players.length; i++) {
+            PlayerProgress progress = playerProgress.get(i);
+            if (progress != null && progress.getWordsCompleted() >= totalWords) {
+                return true;
+            }
         }
 
         // Check for timeout (5 minutes)
         long elapsed = System.currentTimeMillis() - gameStartTime;
-        if (elapsed > 300000) { // 5 minutes
+        if (elapsed > GAME_TIMEOUT_MS) {
             System.out.println("[GameSession] Game timeout reached");
             return true;
         }
@@ -310,79 +417,88 @@ public class GameSession extends Thread {
         return false;
     }
 
+    private int countStanding() {
+        int standing = 0;
+        for (int i = 0; i < players.length; i++) {
+            if (eliminatedAt.get(i) == 0) {
+                standing++;
+            }
+        }
+        return standing;
+    }
+
+    /**
+     * Rank every player using PlayerScore ordering.
+     * Eliminated and disconnected players sort below everyone still racing.
+     */
+    private List<PlayerScore> rankPlayers() {
+        long elapsed = gameStartTime > 0 ? System.currentTimeMillis() - gameStartTime : 0;
+        List<PlayerScore> scores = new ArrayList<>(players.length);
+
+        for (int i = 0; i < players.length; i++) {
+            PlayerProgress progress = playerProgress.get(i);
+            scores.add(new PlayerScore(
+                    players[i].getPlayerId(),
+                    players[i].getPlayerName(),
+                    progress != null ? progress.getWordsCompleted() : 0,
+                    progress != null ? progress.getWpm() : 0.0,
+                    progress != null ? progress.getAccuracy() : 0.0,
+                    elapsed,
+                    eliminatedAt.get(i)));
+        }
+
+        return PlayerScore.rank(scores);
+    }
+
+    private List<PlayerStanding> buildStandings(List<PlayerScore> ranked) {
+        List<PlayerStanding> standings = new ArrayList<>(ranked.size());
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            PlayerScore score = ranked.get(rank);
+            int seat = seatOf(score.getPlayerId());
+            PlayerHealth health = playerHealth[seat];
+
+            standings.add(new PlayerStanding(
+                    score.getPlayerId(),
+                    score.getPlayerName(),
+                    rank + 1,
+                    playerProgress.get(seat),
+                    health != null ? health.getCurrentHealth() : null,
+                    score.isEliminated()));
+        }
+        return standings;
+    }
+
     /**
      * End the game and determine winner.
-     * Uses PlayerScore Comparable for Vs Friend mode.
+     * Uses PlayerScore Comparable ordering for every mode.
      */
     private void endGame() {
         gameStarted = false;
 
-        PlayerProgress p1Progress = playerProgress.get(player1.getPlayerId());
-        PlayerProgress p2Progress = playerProgress.get(player2.getPlayerId());
-
         String winnerId = null;
         String message = "Game ended";
+        List<PlayerScore> ranked = rankPlayers();
 
-        if (p1Progress != null && p2Progress != null) {
-            // For Vs Friend mode, use Comparable PlayerScore
-            if (gameMode == GameMode.VS_FRIEND) {
-                PlayerScore score1 = new PlayerScore(
-                        player1.getPlayerId(),
-                        player1.getPlayerName(),
-                        p1Progress.getWordsCompleted(),
-                        p1Progress.getWpm(),
-                        p1Progress.getAccuracy(),
-                        System.currentTimeMillis() - gameStartTime);
-
-                PlayerScore score2 = new PlayerScore(
-                        player2.getPlayerId(),
-                        player2.getPlayerName(),
-                        p2Progress.getWordsCompleted(),
-                        p2Progress.getWpm(),
-                        p2Progress.getAccuracy(),
-                        System.currentTimeMillis() - gameStartTime);
-
-                // Use Comparable to determine winner
-                WinnerResult result = PlayerScore.getWinnerWithReason(score1, score2);
+        // No winner if the race was aborted before it started
+        if (gameStartTime > 0) {
+            WinnerResult result = PlayerScore.getWinnerWithReason(ranked);
+            if (!"TIE".equals(result.getWinnerId())) {
                 winnerId = result.getWinnerId();
                 message = result.toString();
-
-                System.out.println("[GameSession] Winner determined using Comparable: " + message);
             } else {
-                // For other modes, use standard logic
-                if (p1Progress.getWordsCompleted() > p2Progress.getWordsCompleted()) {
-                    winnerId = player1.getPlayerId();
-                    message = player1.getPlayerName() + " wins!";
-                } else if (p2Progress.getWordsCompleted() > p1Progress.getWordsCompleted()) {
-                    winnerId = player2.getPlayerId();
-                    message = player2.getPlayerName() + " wins!";
-                } else {
-                    // Tie on words, check WPM
-                    if (p1Progress.getWpm() > p2Progress.getWpm()) {
-                        winnerId = player1.getPlayerId();
-                        message = player1.getPlayerName() + " wins by WPM!";
-                    } else if (p2Progress.getWpm() > p1Progress.getWpm()) {
-                        winnerId = player2.getPlayerId();
-                        message = player2.getPlayerName() + " wins by WPM!";
-                    } else {
-                        message = "It's a tie!";
-                    }
-                }
+                message = "It's a tie!";
             }
+
+            System.out.println("[GameSession] Winner determined using Comparable: " + message);
         }
 
-        // Send game end message to both players
-        GameMessage endMsg = GameMessage.gameEnd(winnerId, message);
-        player1.sendMessage(endMsg);
-        player2.sendMessage(endMsg);
+        // Send game end message with final standings to every player
+        broadcast(GameMessage.gameEnd(winnerId, message, buildStandings(ranked)));
 
         System.out.println("[GameSession] " + message);
-        System.out.println("  Player 1 (" + player1.getPlayerName() + "): "
-                + (p1Progress != null ? p1Progress.getWordsCompleted() + " words, "
-                        + String.format("%.1f", p1Progress.getWpm()) + " WPM" : "N/A"));
-        System.out.println("  Player 2 (" + player2.getPlayerName() + "): "
-                + (p2Progress != null ? p2Progress.getWordsCompleted() + " words, "
-                        + String.format("%.1f", p2Progress.getWpm()) + " WPM" : "N/A"));
+        for (int rank = 0; rank < Math.min(ranked.size(), 10); rank++) {
+            System.out.println("  #" + (rank + 1) + " " + ranked.get(rank));
+        }
 
         // Cleanup
         shutdown();
@@ -390,22 +506,129 @@ public class GameSession extends Thread {
 
     /**
      * Called when a player disconnects.
+     * The player drops out of the race; the game ends once one player is left.
      */
     public void onPlayerDisconnected(String playerId) {
-        if (!gameStarted)
+        int seat = seatOf(playerId);
+        if (seat < 0 || !eliminatedAt.compareAndSet(seat, 0, System.currentTimeMillis()))
             return;
 
+        progressDirty = true;
         System.out.println("[GameSession] Player " + playerId + " disconnected");
 
-        // Determine other player
-        ClientHandler otherPlayer = playerId.equals(player1.getPlayerId()) ? player2 : player1;
+        if (gameStarted && countStanding() <= 1) {
+            // endGame() tells the remaining player they won
+            running = false;
+        }
+    }
 
-        // Notify other player and end game
-        GameMessage msg = GameMessage.gameEnd(otherPlayer.getPlayerId(),
-                "Opponent disconnected. You win!");
-        otherPlayer.sendMessage(msg);
+    /**
+     * A player's connection dropped: hold their seat for the grace window
+     * instead of forfeiting it. Drops the player as before when resuming is
+     * off or the race is over, and ignores a connection that no longer holds
+     * the seat (it was already resumed elsewhere).
+     * @return the token that reclaims the seat, or null if it can't be resumed.
+     */
+    public synchronized String suspendPlayer(String playerId, SessionParticipant participant) {
+        int seat = seatOf(playerId);
+        if (seat < 0 || players[seat] != participant) {
+            return null;
+        }
+        if (resumeTokens == null || !running || eliminatedAt.get(seat) != 0) {
+            onPlayerDisconnected(playerId);
+            return null;
+        }
 
-        running = false;
+        if (suspendedAt.compareAndSet(seat, 0, System.currentTimeMillis())) {
+            suspendedCount++;
+            System.out.println("[GameSession] Player " + playerId + " dropped; holding seat for "
+                    + resumeGraceMs + "ms");
+        }
+        return resumeTokens[seat];
+    }
+
+    /**
+     * Seat a resume token belongs to, or null if it isn't one of this session's.
+     */
+    public synchronized String playerIdForToken(String resumeToken) {
+        int seat = seatOfToken(resumeToken);
+        return seat >= 0 ? players[seat].getPlayerId() : null;
+    }
+
+    /**
+     * Give a seat back to a player who reconnected with its token. The
+     * replacement must use the seat's player id. It is sent a RESUMED
+     * snapshot (words, standings, elapsed time, health) with a fresh token.
+     * @return false if the token is unknown or the seat is out of the race.
+     */
+    public synchronized boolean resumePlayer(String resumeToken, SessionParticipant replacement) {
+        int seat = seatOfToken(resumeToken);
+        if (seat < 0 || !running || eliminatedAt.get(seat) != 0
+                || !players[seat].getPlayerId().equals(replacement.getPlayerId())) {
+            return false;
+        }
+
+        SessionParticipant[] next = players.clone();
+        next[seat] = replacement;
+        players = next;
+
+        if (suspendedAt.getAndSet(seat, 0) != 0) {
+            suspendedCount--;
+        }
+        resumeTokens[seat] = newResumeToken();
+        replacement.setGameSession(this);
+
+        PlayerHealth health = playerHealth[seat];
+        replacement.sendMessage(GameMessage.resumed(
+                replacement.getPlayerId(),
+                gameWords,
+                buildStandings(rankPlayers()),
+                gameStartTime > 0 ? System.currentTimeMillis() - gameStartTime : null,
+                health != null ? health.getCurrentHealth() : null,
+                resumeTokens[seat]));
+        progressDirty = true;
+
+        System.out.println("[GameSession] Player " + replacement.getPlayerId() + " resumed in " + sessionId);
+        return true;
+    }
+
+    /**
+     * Forfeit seats whose grace window ran out.
+     */
+    private synchronized void expireSuspendedSeats() {
+        long cutoff = System.currentTimeMillis() - resumeGraceMs;
+        for (int i = 0; i < players.length; i++) {
+            long since = suspendedAt.get(i);
+            if (since != 0 && since <= cutoff && suspendedAt.compareAndSet(i, since, 0)) {
+                suspendedCount--;
+                System.out.println("[GameSession] Player " + players[i].getPlayerId() + " did not resume in time");
+                onPlayerDisconnected(players[i].getPlayerId());
+            }
+        }
+    }
+
+    /**
+     * Constant-time match against every seat's token, so response timing
+     * says nothing about how much of a guessed token was right.
+     */
+    private int seatOfToken(String resumeToken) {
+        if (resumeTokens == null || resumeToken == null) {
+            return -1;
+        }
+        byte[] candidate = resumeToken.getBytes(StandardCharsets.US_ASCII);
+        int seat = -1;
+        for (int i = 0; i < resumeTokens.length; i++) {
+            if (MessageDigest.isEqual(candidate, resumeTokens[i].getBytes(StandardCharsets.US_ASCII))) {
+                seat = i;
+            }
+        }
+        return seat;
+    }
+
+    private static String newResumeToken() {
+        byte[] bytes = new byte[16];
+        TOKEN_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
 
     /**
@@ -425,4 +648,26 @@ public class GameSession extends Thread {
     public GameMode getGameMode() {
         return gameMode;
     }
+
+    public boolean isGameStarted() {
+        return gameStarted;
+    }
+
+    public int getPlayerCount() {
+        return players.length;
+    }
+
+    /**
+     * Who holds each seat right now, in seat order.
+     */
+    public List<SessionParticipant> getPlayers() {
+        return List.of(players);
+    }
+
+    /**
+     * Seats currently held for a dropped player.
+     */
+    public int getSuspendedCount() {
+        return suspendedCount;
+    }
 }
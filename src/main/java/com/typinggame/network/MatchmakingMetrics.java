@@ -0,0 +1,84 @@
+package com.typinggame.network;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matchmaking metrics for the raw socket GameServer.
+ * Tracks queue time percentiles over a sliding window of recent matches
+ * and how often a waiting player had to be backfilled with a bot.
+ */
+public class MatchmakingMetrics {
+
+    private static final int WINDOW_SIZE = 1024;
+
+    private final long[] queueTimes = new long[WINDOW_SIZE];
+    private int sampleCount;
+    private int nextSlot;
+
+    private final AtomicLong humanMatches = new AtomicLong();
+    private final AtomicLong botBackfills = new AtomicLong();
+
+    /**
+     * Record a player leaving the queue.
+     *
+     * @param queueTimeMillis how long the player waited
+     * @param backfilled      true if the player was matched with a bot
+     */
+    public void recordMatch(long queueTimeMillis, boolean backfilled) {
+        synchronized (queueTimes) {
+            queueTimes[nextSlot] = queueTimeMillis;
+            nextSlot = (nextSlot + 1) % WINDOW_SIZE;
+            if (sampleCount < WINDOW_SIZE) {
+                sampleCount++;
+            }
+        }
+
+        if (backfilled) {
+            botBackfills.incrementAndGet();
+        } else {
+            humanMatches.incrementAndGet();
+        }
+    }
+
+    /**
+     * Queue time at the given percentile (0-100) over the recent window.
+     */
+    public long getQueueTimePercentile(double percentile) {
+        long[] sorted;
+        synchronized (queueTimes) {
+            if (sampleCount == 0) {
+                return 0;
+            }
+            sorted = Arrays.copyOf(queueTimes, sampleCount);
+        }
+        Arrays.sort(sorted);
+
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    public long getHumanMatches() {
+        return humanMatches.get();
+    }
+
+    public long getBotBackfills() {
+        return botBackfills.get();
+    }
+
+    /**
+     * Fraction of queued players (0.0 - 1.0) that were matched with a bot.
+     */
+    public double getBackfillRate() {
+        long bots = botBackfills.get();
+        long total = bots + humanMatches.get();
+        return total == 0 ? 0.0 : (double) bots / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MatchmakingMetrics{queue p50=%dms, p90=%dms, p99=%dms, humanMatches=%d, botBackfills=%d, backfillRate=%.1f%%}",
+                getQueueTimePercentile(50), getQueueTimePercentile(90), getQueueTimePercentile(99),
+                getHumanMatches(), getBotBackfills(), getBackfillRate() * 100);
+    }
+}
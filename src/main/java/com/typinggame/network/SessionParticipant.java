@@ -0,0 +1,39 @@
+package com.typinggame.network;
+
+/**
+ * A seat in a GameSession.
+ * Implemented by ClientHandler for socket players and by BotParticipant for
+ * server-side bots, so GameSession never needs to know which one it is talking to.
+ */
+public interface SessionParticipant {
+
+    String getPlayerId();
+
+    String getPlayerName();
+
+    /**
+     * Deliver a message from the session to this participant.
+     */
+    void sendMessage(GameMessage message);
+
+    /**
+     * Deliver a message that has already been serialized.
+     * Lets a session encode a broadcast once and hand the same JSON to every
+     * participant; participants that don't write JSON can ignore it.
+     */
+    default void sendSerialized(GameMessage message, String json) {
+        sendMessage(message);
+    }
+
+    /**
+     * Attach the session this participant is playing in.
+     */
+    void setGameSession(GameSession session);
+
+    boolean isConnected();
+
+    /**
+     * Stop this participant and release its resources.
+     */
+    void shutdown();
+}
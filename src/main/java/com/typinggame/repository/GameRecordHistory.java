@@ -0,0 +1,55 @@
+package com.typinggame.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Keyset-paginated game history, mixed into GameRecordRepository.
+ */
+public interface GameRecordHistory {
+
+    /**
+     * Position after the last game of a page: its timestamp and id. Sent to
+     * clients as an opaque URL-safe string.
+     */
+    record Cursor(long timestamp, String id) {
+
+        public String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((timestamp + ":" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @throws IllegalArgumentException if the value is not an encoded cursor.
+         */
+        public static Cursor decode(String value) {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int colon = decoded.indexOf(':');
+            if (colon <= 0 || colon == decoded.length() - 1) {
+                throw new IllegalArgumentException("Malformed history cursor");
+            }
+            return new Cursor(Long.parseLong(decoded.substring(0, colon)), decoded.substring(colon + 1));
+        }
+    }
+
+    /**
+     * The fields of a game that a history page shows.
+     */
+    record Item(String id, Date timestamp, String gameMode, double wpm, double accuracy, int wordsTyped) {
+    }
+
+    /**
+     * One page, newest first; next is null on the last page.
+     */
+    record Page(List<Item> games, Cursor next) {
+    }
+
+    /**
+     * Up to limit of the user's games, newest first, starting after the
+     * cursor (null for the first page). Served from the (userId, timestamp,
+     * _id) index, so every page costs the same however deep it is.
+     */
+    Page findHistoryPage(String userId, Cursor after, int limit);
+}
@@ -0,0 +1,66 @@
+package com.typinggame.repository;
+
+import com.typinggame.domain.GameRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * GameRecordHistory as a keyset query.
+ *
+ * A page after cursor (t, id) is the user's games with timestamp < t, or
+ * timestamp = t and _id < id, sorted by timestamp then _id, both
+ * descending. The timestamp <= t bound is stated on its own so the index
+ * scan starts at the cursor instead of skipping earlier pages, and _id
+ * breaks ties between games saved in the same millisecond. One extra game
+ * is fetched to tell whether there is a next page. Only the fields a page
+ * shows are read.
+ */
+public class GameRecordHistoryImpl implements GameRecordHistory {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public GameRecordHistoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Page findHistoryPage(String userId, Cursor after, int limit) {
+        List<GameRecord> records = mongoTemplate.find(historyQuery(userId, after, limit), GameRecord.class);
+        boolean more = records.size() > limit;
+
+        List<Item> games = new ArrayList<>(Math.min(records.size(), limit));
+        for (GameRecord record : records.subList(0, Math.min(records.size(), limit))) {
+            games.add(new Item(record.getId(), record.getTimestamp(), record.getGameMode(),
+                    record.getWpm(), record.getAccuracy(), record.getWordsTyped()));
+        }
+        Cursor next = null;
+        if (more) {
+            Item last = games.get(games.size() - 1);
+            next = new Cursor(last.timestamp().getTime(), last.id());
+        }
+        return new Page(games, next);
+    }
+
+    static Query historyQuery(String userId, Cursor after, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (after != null) {
+            Date timestamp = new Date(after.timestamp());
+            criteria = criteria.and("timestamp").lte(timestamp).orOperator(
+                    Criteria.where("timestamp").lt(timestamp),
+                    Criteria.where("_id").lt(after.id()));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("_id")))
+                .limit(limit + 1);
+        query.fields().include("timestamp", "gameMode", "wpm", "accuracy", "wordsTyped");
+        return query;
+    }
+}
@@ -8,14 +8,17 @@ import java.util.List;
 
 /**
  * MongoDB repository for GameRecord entity.
- * Provides CRUD operations and custom queries for game history.
+ * Provides CRUD operations and custom queries for game history;
+ * paginated history comes from GameRecordHistory.
  */
 @Repository
-public interface GameRecordRepository extends MongoRepository<GameRecord, String> {
+public interface GameRecordRepository extends MongoRepository<GameRecord, String>, GameRecordHistory {
 
     /**
      * Find all game records for a user, ordered by timestamp descending.
+     * @deprecated loads the whole history; use findHistoryPage.
      */
+    @Deprecated
     List<GameRecord> findByUserIdOrderByTimestampDesc(String userId);
 
     /**
@@ -8,10 +8,11 @@ import java.util.Optional;
 
 /**
  * MongoDB repository for User entity.
- * Provides CRUD operations and custom queries.
+ * Provides CRUD operations and custom queries; game stats are updated
+ * atomically through UserStatsUpdates.
  */
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserStatsUpdates {
 
     /**
      * Find user by username.
@@ -0,0 +1,20 @@
+package com.typinggame.repository;
+
+import com.typinggame.domain.User;
+
+import java.util.Optional;
+
+/**
+ * Atomic, server-side updates of a user's game statistics, mixed into UserRepository.
+ */
+public interface UserStatsUpdates {
+
+    /**
+     * Count one finished game towards the user's totals, best and average WPM
+     * in a single atomic update, without reading the user first.
+     *
+     * @return the user's stats after the update (id, username and stat fields
+     *         only), or empty if there is no such user.
+     */
+    Optional<User> recordGame(String userId, double wpm, boolean isWin);
+}
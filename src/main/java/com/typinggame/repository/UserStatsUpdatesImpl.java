@@ -0,0 +1,63 @@
+package com.typinggame.repository;
+
+import com.typinggame.domain.User;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * UserStatsUpdates as one findAndModify with an update pipeline.
+ *
+ * A single $set stage computes every field from the document as it was
+ * before the update: totalGames and totalWins are incremented, bestWPM is
+ * the max of the old best and this game, and avgWPM folds this game into
+ * the running average using the old count. Mongo applies it atomically per
+ * document, so concurrent games for one user cannot lose an update, and
+ * the password and email fields are never written.
+ */
+public class UserStatsUpdatesImpl implements UserStatsUpdates {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public UserStatsUpdatesImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<User> recordGame(String userId, double wpm, boolean isWin) {
+        Query query = new Query(Criteria.where("_id").is(userId));
+        query.fields().include("username", "totalGames", "totalWins", "bestWPM", "avgWPM");
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, statsUpdate(wpm, isWin),
+                FindAndModifyOptions.options().returnNew(true), User.class));
+    }
+
+    /**
+     * The update pipeline for one game; missing fields count as 0.
+     */
+    static AggregationUpdate statsUpdate(double wpm, boolean isWin) {
+        Document games = orZero("$totalGames");
+        Document set = new Document()
+                .append("totalGames", new Document("$add", List.of(games, 1)))
+                .append("totalWins", new Document("$add", List.of(orZero("$totalWins"), isWin ? 1 : 0)))
+                .append("bestWPM", new Document("$max", List.of(orZero("$bestWPM"), wpm)))
+                .append("avgWPM", new Document("$divide", List.of(
+                        new Document("$add", List.of(
+                                new Document("$multiply", List.of(orZero("$avgWPM"), games)), wpm)),
+                        new Document("$add", List.of(games, 1)))));
+        AggregationOperation stage = context -> new Document("$set", set);
+        return AggregationUpdate.from(List.of(stage));
+    }
+
+    private static Document orZero(String field) {
+        return new Document("$ifNull", List.of(field, 0));
+    }
+}
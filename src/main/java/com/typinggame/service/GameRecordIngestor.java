@@ -0,0 +1,350 @@
+package com.typinggame.service;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.typinggame.domain.GameRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers finished games and writes them to game_records with unordered
+ * bulk inserts, off the request thread.
+ *
+ * A batch goes out once batchSize records are queued or flushIntervalMs
+ * after the oldest one, so a request never waits on a Mongo write. The
+ * queue holds at most capacity records; when Mongo falls that far behind,
+ * submit() waits up to submitTimeoutMs for room and then refuses the record
+ * (backpressure) rather than growing without bound.
+ *
+ * Delivery is at-least-once. Each record gets its ObjectId when queued, so
+ * retrying a batch whose outcome is unknown cannot store a game twice: a
+ * duplicate key on retry means the earlier attempt landed. A failed batch
+ * (connection, timeout) is retried whole until it succeeds; records Mongo
+ * rejects individually are retried up to maxAttempts times and then dropped
+ * and counted.
+ */
+@Service
+public class GameRecordIngestor {
+
+    private static final long RETRY_DELAY_MS = 1000;
+    private static final long IDLE_POLL_MS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10000;
+
+    /**
+     * Writes one batch. Returns the indexes of records that were not stored
+     * and may be retried; throws when the batch as a whole failed.
+     */
+    @FunctionalInterface
+    interface BulkInserter {
+        List<Integer> insert(List<GameRecord> records) throws Exception;
+    }
+
+    private static final class Pending {
+        final GameRecord record;
+        final long queuedAt;
+        int attempts;
+
+        Pending(GameRecord record, long queuedAt) {
+            this.record = record;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    private final BulkInserter inserter;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long submitTimeoutMs;
+    private final int maxAttempts;
+    private final BlockingQueue<Pending> queue;
+
+    private volatile boolean flushRequested;
+    private volatile boolean stopping;
+    private Thread worker;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong blockedSubmits = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    public GameRecordIngestor(MongoTemplate mongoTemplate,
+            @Value("${typinggame.mongo.ingest.batch-size:500}") int batchSize,
+            @Value("${typinggame.mongo.ingest.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${typinggame.mongo.ingest.capacity:20000}") int capacity,
+            @Value("${typinggame.mongo.ingest.submit-timeout-ms:2000}") long submitTimeoutMs,
+            @Value("${typinggame.mongo.ingest.max-attempts:5}") int maxAttempts) {
+        this(records -> bulkInsert(mongoTemplate, records),
+                batchSize, flushIntervalMs, capacity, submitTimeoutMs, maxAttempts);
+    }
+
+    GameRecordIngestor(BulkInserter inserter, int batchSize, long flushIntervalMs, int capacity,
+            long submitTimeoutMs, int maxAttempts) {
+        if (batchSize < 1 || capacity < batchSize || maxAttempts < 1) {
+            throw new IllegalArgumentException("batchSize and maxAttempts must be >= 1 and capacity >= batchSize");
+        }
+        this.inserter = inserter;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.submitTimeoutMs = submitTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * One unordered bulk insert; a duplicate key means the record is already stored.
+     */
+    private static List<Integer> bulkInsert(MongoTemplate mongoTemplate, List<GameRecord> records) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GameRecord.class).insert(records).execute();
+            return List.of();
+        } catch (BulkOperationException e) {
+            List<Integer> failed = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                    failed.add(error.getIndex());
+                }
+            }
+            return failed;
+        }
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (worker != null) return;
+        worker = new Thread(this::run, "GameRecordIngestor");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queue a game for insertion; returns as soon as it is queued.
+     * @return false if the queue stayed full for submitTimeoutMs and the game was not taken.
+     */
+    public boolean submit(GameRecord record) throws InterruptedException {
+        if (stopping) {
+            throw new IllegalStateException("Game record ingestion is shut down");
+        }
+        if (record.getId() == null) {
+            record.setId(new ObjectId().toHexString());
+        }
+        Pending pending = new Pending(record, System.currentTimeMillis());
+        if (!queue.offer(pending)) {
+            blockedSubmits.incrementAndGet();
+            if (!queue.offer(pending, submitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        }
+        submitted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Write everything queued so far and wait until it is stored or dropped.
+     */
+    public void flush() throws InterruptedException {
+        long target = submitted.get();
+        flushRequested = true;
+        synchronized (this) {
+            while (inserted.get() + dropped.get() < target && worker != null && worker.isAlive()) {
+                wait(50);
+            }
+        }
+    }
+
+    /**
+     * Stop taking games and drain the queue.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread current;
+        synchronized (this) {
+            stopping = true;
+            current = worker;
+        }
+        if (current != null) {
+            current.join(SHUTDOWN_TIMEOUT_MS);
+        }
+        long unwritten = submitted.get() - inserted.get() - dropped.get();
+        if (unwritten > 0) {
+            System.err.println("[GameRecordIngestor] " + unwritten + " game record(s) not written at shutdown");
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        long stopDeadline = Long.MAX_VALUE;
+        while (true) {
+            try {
+                fill(batch);
+            } catch (InterruptedException e) {
+                stopping = true;
+            }
+            if (stopping && stopDeadline == Long.MAX_VALUE) {
+                stopDeadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MS;
+            }
+            if (batch.isEmpty()) {
+                if (stopping && queue.isEmpty()) return;
+                continue;
+            }
+
+            write(batch);
+            synchronized (this) {
+                notifyAll();
+            }
+            if (!batch.isEmpty()) {
+                // Whatever is left failed and is retried first
+                if (System.currentTimeMillis() >= stopDeadline) return;
+                sleepBeforeRetry();
+            }
+        }
+    }
+
+    /**
+     * Top the batch up from the queue until it is full or the oldest record is due.
+     */
+    private void fill(List<Pending> batch) throws InterruptedException {
+        if (batch.isEmpty()) {
+            Pending first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                flushRequested = false;
+                return;
+            }
+            batch.add(first);
+        }
+        long due = batch.get(0).queuedAt + flushIntervalMs;
+        while (batch.size() < batchSize && !flushRequested && !stopping) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long wait = due - System.currentTimeMillis();
+            if (batch.size() >= batchSize || wait <= 0) break;
+            Pending next = queue.poll(wait, TimeUnit.MILLISECONDS);
+            if (next == null) break;
+            batch.add(next);
+        }
+        queue.drainTo(batch, batchSize - batch.size());
+        if (queue.isEmpty()) {
+            flushRequested = false;
+        }
+    }
+
+    /**
+     * Insert the batch, leaving in it only the records to retry.
+     */
+    private void write(List<Pending> batch) {
+        List<GameRecord> records = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            records.add(pending.record);
+        }
+
+        List<Integer> failed;
+        try {
+            failed = inserter.insert(records);
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            retries.addAndGet(batch.size());
+            System.err.println("[GameRecordIngestor] Bulk insert of " + batch.size()
+                    + " record(s) failed, retrying: " + e.getMessage());
+            return;
+        }
+        batches.incrementAndGet();
+
+        List<Pending> retry = new ArrayList<>(failed.size());
+        for (int index : failed) {
+            Pending pending = batch.get(index);
+            if (++pending.attempts >= maxAttempts) {
+                dropped.incrementAndGet();
+                System.err.println("[GameRecordIngestor] Dropping " + pending.record + " after "
+                        + pending.attempts + " rejected inserts");
+            } else {
+                retry.add(pending);
+            }
+        }
+        if (!failed.isEmpty()) {
+            failures.incrementAndGet();
+        }
+        inserted.addAndGet(batch.size() - failed.size());
+        retries.addAndGet(retry.size());
+        batch.clear();
+        batch.addAll(retry);
+    }
+
+    private void sleepBeforeRetry() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MS);
+        } catch (InterruptedException e) {
+            stopping = true;
+        }
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Record inserts attempted again after a failed batch or a rejected record.
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Records given up on after maxAttempts rejected inserts.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Submits that had to wait because the queue was full.
+     */
+    public long getBlockedSubmits() {
+        return blockedSubmits.get();
+    }
+
+    /**
+     * Submits refused because the queue stayed full for submitTimeoutMs.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GameRecordIngestor{submitted=%d, inserted=%d, batches=%d, pending=%d, retries=%d, dropped=%d, rejected=%d}",
+                getSubmitted(), getInserted(), getBatches(), getPending(), getRetries(), getDropped(), getRejected());
+    }
+}
@@ -1,21 +1,22 @@
 package com.typinggame.websocket;
 
-import com.typinggame.engine.TypingEngine;
-import com.typinggame.io.ScoreManager;
-import com.typinggame.io.UserStats;
-import com.typinggame.multiplayer.MultiplayerRoomService;
+import com.typinggame.multiplayer.RoomCoordinator;
+import com.typinggame.websocket.StompPayloads.ChatPayload;
+import com.typinggame.websocket.StompPayloads.FinishPayload;
+import com.typinggame.websocket.StompPayloads.JoinPayload;
+import com.typinggame.websocket.StompPayloads.ProgressPayload;
+import com.typinggame.websocket.StompPayloads.SyncPayload;
 import com.typinggame.websocket.WebSocketSessionManager.PlayerInfo;
+import com.typinggame.websocket.WebSocketSessionManager.Transport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-
 /**
  * WebSocket controller to bridge frontend STOMP messages to backend raw Socket
  * logic.
@@ -25,25 +26,14 @@ import java.util.stream.Collectors;
 @Controller
 public class GameWebSocketController {
 
-    private static final int ROOM_SIZE = 2;
-
     private final SimpMessagingTemplate messagingTemplate;
-    private final WebSocketSessionManager sessionManager;
-    private final MultiplayerRoomService multiplayerRoomService;
-    private final TypingEngine typingEngine;
-    private final ScoreManager scoreManager;
+    private final RoomCoordinator roomCoordinator;
 
     @Autowired
     public GameWebSocketController(SimpMessagingTemplate messagingTemplate,
-            WebSocketSessionManager sessionManager,
-            MultiplayerRoomService multiplayerRoomService,
-            TypingEngine typingEngine,
-            ScoreManager scoreManager) {
+            RoomCoordinator roomCoordinator) {
         this.messagingTemplate = messagingTemplate;
-        this.sessionManager = sessionManager;
-        this.multiplayerRoomService = multiplayerRoomService;
-        this.typingEngine = typingEngine;
-        this.scoreManager = scoreManager;
+        this.roomCoordinator = roomCoordinator;
     }
 
     /**
@@ -52,31 +42,26 @@ public class GameWebSocketController {
      */
     @MessageMapping("/join/{roomId}")
     public void handlePlayerJoin(@DestinationVariable String roomId,
-            @Payload Map<String, String> payload) {
-        String username = payload.get("username");
-        String sessionId = payload.getOrDefault("sessionId", "unknown");
+            @Payload JoinPayload payload,
+            SimpMessageHeaderAccessor headerAccessor) {
+        String username = payload.username();
+        // STOMP session id is what per-player updates are addressed to
+        String sessionId = headerAccessor.getSessionId() != null
+                ? headerAccessor.getSessionId()
+                : (payload.sessionId() != null ? payload.sessionId() : "unknown");
+
+        // Another node hosts this room and it can't be forwarded; point the client there
+        String owner = roomCoordinator.redirectFor(roomId, Transport.STOMP);
+        if (owner != null) {
+            sendToSession(sessionId, "/queue/game/" + roomId,
+                    new RoomRedirectMessage(roomId, owner, roomCoordinator.nodeUrl(owner)));
+            return;
+        }
 
         System.out.println("[WebSocket] Player " + username + " joining room " + roomId);
 
-        // Add player to room
-        sessionManager.addPlayerToRoom(roomId, username, sessionId);
-        sessionManager.initializeWordQueue(roomId);
-
-        // Broadcast updated player list to all clients in room
-        broadcastPlayerList(roomId);
-
-        // If room is full, broadcast START once
-        PlayerInfo[] playersNow = sessionManager.getPlayersInRoom(roomId);
-        if (playersNow.length >= ROOM_SIZE && !sessionManager.isRoomStarted(roomId)) {
-            String text = generateSharedText(50);
-            sessionManager.markRoomStarted(roomId, text);
-
-            StartMessage startMessage = new StartMessage("START", roomId, text, System.currentTimeMillis());
-            messagingTemplate.convertAndSend("/topic/game/" + roomId, startMessage);
-
-            // Also tell raw socket clients (Requirement 3 bridge)
-            multiplayerRoomService.broadcastStartToSocketClients(roomId);
-        }
+        // Same room as raw socket players; START goes out once the room is full
+        roomCoordinator.join(roomId, username, sessionId, Transport.STOMP, payload.epoch(), payload.version());
     }
 
     /**
@@ -85,36 +70,28 @@ public class GameWebSocketController {
      */
     @MessageMapping("/progress/{roomId}")
     public void handleProgressUpdate(@DestinationVariable String roomId,
-            @Payload Map<String, Object> payload) {
-        String username = (String) payload.get("username");
-        int progress = ((Number) payload.getOrDefault("progress", 0)).intValue();
-        Double wpm = ((Number) payload.getOrDefault("wpm", 0.0)).doubleValue();
-
-        // Update player progress
-        sessionManager.updatePlayerProgress(roomId, username, progress, wpm, "ACTIVE");
-
-        // Bridge: broadcast to raw socket players in same room (Requirement 3)
-        multiplayerRoomService.broadcastProgressToSocketClients(roomId, username, wpm, progress);
-
-        // Broadcast updated player list
-        broadcastPlayerList(roomId);
-
-        // Winner detection (Requirement 5)
-        if (progress >= 100) {
-            String winner = sessionManager.setWinnerIfAbsent(roomId, username);
-            if (username != null && username.equals(winner)) {
-                // Mark status
-                sessionManager.updatePlayerProgress(roomId, username, 100, wpm, "FINISHED");
-                broadcastPlayerList(roomId);
-
-                FinishMessage finishMessage = new FinishMessage("FINISH", roomId, winner, System.currentTimeMillis());
-                messagingTemplate.convertAndSend("/topic/game/" + roomId, finishMessage);
-                multiplayerRoomService.broadcastFinishToSocketClients(roomId, winner);
-
-                // Save to scores.dat via ObjectOutputStream (Requirement 3) with mode/test type 'multiplayer'
-                saveMultiplayerResult(winner, wpm);
-            }
-        }
+            @Payload ProgressPayload payload) {
+        // Coalesced into the room's next tick for STOMP and socket players;
+        // reaching 100% claims the win (Requirement 5)
+        roomCoordinator.progress(roomId, payload.username(), payload.progress(), payload.wpm());
+    }
+
+    /**
+     * Catch a (re)connecting client up with the room: a ROOM_DELTA from the
+     * epoch and version it last saw, or a ROOM_SNAPSHOT (text, start time,
+     * everyone's progress) when it has none, is too far behind, or the room
+     * has been recreated since. Only the asking session gets it. Subscribe to
+     * /topic/game/{roomId} first, then apply PLAYER_UPDATEs newer than the
+     * version received, or from a different epoch.
+     * Endpoint: /app/sync/{roomId}
+     */
+    @MessageMapping("/sync/{roomId}")
+    public void handleSync(@DestinationVariable String roomId,
+            @Payload SyncPayload payload,
+            SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = headerAccessor.getSessionId();
+        if (sessionId == null) return;
+        roomCoordinator.sync(roomId, sessionId, payload.epoch(), payload.version());
     }
 
     /**
@@ -123,15 +100,10 @@ public class GameWebSocketController {
      */
     @MessageMapping("/finish/{roomId}")
     public void handleFinish(@DestinationVariable String roomId,
-                             @Payload Map<String, Object> payload) {
-        String username = (String) payload.get("username");
-        Double wpm = ((Number) payload.getOrDefault("wpm", 0.0)).doubleValue();
-        Double accuracy = ((Number) payload.getOrDefault("accuracy", 100.0)).doubleValue();
-        Integer wordsTyped = ((Number) payload.getOrDefault("wordsTyped", 0)).intValue();
-        Long duration = ((Number) payload.getOrDefault("duration", 0L)).longValue();
-
+                             @Payload FinishPayload payload) {
         // Winner remains first to 100%, but we can still store player record.
-        saveMultiplayerResult(username, wpm, accuracy, wordsTyped, duration);
+        roomCoordinator.recordResult(payload.username(), payload.wpm(), payload.accuracy(),
+                payload.wordsTyped(), payload.duration());
     }
 
     /**
@@ -140,66 +112,19 @@ public class GameWebSocketController {
      */
     @MessageMapping("/chat/{roomId}")
     public void handleChatMessage(@DestinationVariable String roomId,
-            @Payload Map<String, String> payload) {
-        String sender = payload.get("sender");
-        String content = payload.get("content");
-
+            @Payload ChatPayload payload) {
         // Create chat message
-        ChatMessage chatMessage = new ChatMessage(sender, content, System.currentTimeMillis());
+        ChatMessage chatMessage = new ChatMessage(payload.sender(), payload.content(), System.currentTimeMillis());
 
         // Broadcast to all clients in room
         messagingTemplate.convertAndSend("/topic/chat/" + roomId, chatMessage);
     }
 
-    /**
-     * Broadcast player list to all clients in room.
-     * Format: [{ "username": "...", "progress": 0, "wpm": 0, "status": "ACTIVE" }]
-     */
-    private void broadcastPlayerList(String roomId) {
-        PlayerInfo[] players = sessionManager.getPlayersInRoom(roomId);
-
-        // Create update message
-        PlayerUpdateMessage message = new PlayerUpdateMessage("PLAYER_UPDATE", players);
-
-        // Broadcast to topic
-        messagingTemplate.convertAndSend("/topic/game/" + roomId, message);
-    }
-
-    private String generateSharedText(int wordCount) {
-        List<String> words = typingEngine.getRandomWords(wordCount)
-                .stream()
-                .map(w -> w.getText())
-                .collect(Collectors.toList());
-        return String.join(" ", words);
-    }
-
-    private void saveMultiplayerResult(String username, double wpm) {
-        saveMultiplayerResult(username, wpm, 100.0, 0, 0L);
-    }
-
-    private void saveMultiplayerResult(String username,
-                                       double wpm,
-                                       double accuracy,
-                                       int wordsTyped,
-                                       long duration) {
-        if (username == null || username.isBlank()) return;
-        try {
-            UserStats stats;
-            try {
-                stats = scoreManager.loadStats();
-                if (stats == null || !stats.getUsername().equals(username)) {
-                    stats = new UserStats(username);
-                }
-            } catch (Exception e) {
-                stats = new UserStats(username);
-            }
-
-            // mode labeled as 'multiplayer'
-            stats.addGameRecord(wpm, accuracy, wordsTyped, duration, "multiplayer");
-            scoreManager.saveStats(stats);
-        } catch (Exception e) {
-            System.err.println("[WebSocket] Failed to save multiplayer result: " + e.getMessage());
-        }
+    private void sendToSession(String sessionId, String destination, Object payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(sessionId, destination, payload, headers.getMessageHeaders());
     }
 
     /**
@@ -208,10 +133,18 @@ public class GameWebSocketController {
     public static class PlayerUpdateMessage {
         private String type;
         private PlayerInfo[] players;
+        private long epoch;
+        private long version;
 
         public PlayerUpdateMessage(String type, PlayerInfo[] players) {
+            this(type, players, 0L, 0L);
+        }
+
+        public PlayerUpdateMessage(String type, PlayerInfo[] players, long epoch, long version) {
             this.type = type;
             this.players = players;
+            this.epoch = epoch;
+            this.version = version;
         }
 
         public String getType() {
@@ -229,18 +162,69 @@ public class GameWebSocketController {
         public void setPlayers(PlayerInfo[] players) {
             this.players = players;
         }
+
+        /**
+         * Room incarnation the version belongs to.
+         */
+        public long getEpoch() {
+            return epoch;
+        }
+
+        public void setEpoch(long epoch) {
+            this.epoch = epoch;
+        }
+
+        /**
+         * Room version this update reflects.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public void setVersion(long version) {
+            this.version = version;
+        }
     }
 
-    public static class StartMessage {
+    /**
+     * Per-player view in big rooms: leaders plus nearest rivals.
+     * Same "PLAYER_UPDATE" shape as the full list, with the player's own place.
+     */
+    public static class FocusedPlayerUpdateMessage extends PlayerUpdateMessage {
+        private int rank;
+        private int totalPlayers;
+
+        public FocusedPlayerUpdateMessage(PlayerInfo[] players, int rank, int totalPlayers, long epoch, long version) {
+            super("PLAYER_UPDATE", players, epoch, version);
+            this.rank = rank;
+            this.totalPlayers = totalPlayers;
+        }
+
+        public int getRank() { return rank; }
+        public void setRank(int rank) { this.rank = rank; }
+        public int getTotalPlayers() { return totalPlayers; }
+        public void setTotalPlayers(int totalPlayers) { this.totalPlayers = totalPlayers; }
+    }
+
+    /**
+     * Low-rate whole-room summary for big rooms and spectators.
+     * histogram[i] counts players between i*10% and (i+1)*10% progress.
+     */
+    public static class RoomSummaryMessage {
         private String type;
         private String roomId;
-        private String text;
+        private int totalPlayers;
+        private int[] histogram;
+        private PlayerInfo[] leaders;
         private long timestamp;
 
-        public StartMessage(String type, String roomId, String text, long timestamp) {
-            this.type = type;
+        public RoomSummaryMessage(String roomId, int totalPlayers, int[] histogram,
+                PlayerInfo[] leaders, long timestamp) {
+            this.type = "ROOM_SUMMARY";
             this.roomId = roomId;
-            this.text = text;
+            this.totalPlayers = totalPlayers;
+            this.histogram = histogram;
+            this.leaders = leaders;
             this.timestamp = timestamp;
         }
 
@@ -248,33 +232,131 @@ public class GameWebSocketController {
         public void setType(String type) { this.type = type; }
         public String getRoomId() { return roomId; }
         public void setRoomId(String roomId) { this.roomId = roomId; }
-        public String getText() { return text; }
-        public void setText(String text) { this.text = text; }
+        public int getTotalPlayers() { return totalPlayers; }
+        public void setTotalPlayers(int totalPlayers) { this.totalPlayers = totalPlayers; }
+        public int[] getHistogram() { return histogram; }
+        public void setHistogram(int[] histogram) { this.histogram = histogram; }
+        public PlayerInfo[] getLeaders() { return leaders; }
+        public void setLeaders(PlayerInfo[] leaders) { this.leaders = leaders; }
         public long getTimestamp() { return timestamp; }
         public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
     }
 
-    public static class FinishMessage {
+    /**
+     * Whole room at one version, for a client joining late or too far behind for a delta.
+     */
+    public static class RoomSnapshotMessage {
         private String type;
         private String roomId;
+        private long epoch;
+        private long version;
+        private boolean started;
+        private String text;
+        private long startTimestamp;
         private String winner;
-        private long timestamp;
+        private PlayerInfo[] players;
 
-        public FinishMessage(String type, String roomId, String winner, long timestamp) {
-            this.type = type;
+        public RoomSnapshotMessage(String roomId, long epoch, long version, boolean started, String text,
+                long startTimestamp, String winner, PlayerInfo[] players) {
+            this.type = "ROOM_SNAPSHOT";
             this.roomId = roomId;
+            this.epoch = epoch;
+            this.version = version;
+            this.started = started;
+            this.text = text;
+            this.startTimestamp = startTimestamp;
             this.winner = winner;
-            this.timestamp = timestamp;
+            this.players = players;
         }
 
         public String getType() { return type; }
         public void setType(String type) { this.type = type; }
         public String getRoomId() { return roomId; }
         public void setRoomId(String roomId) { this.roomId = roomId; }
+        public long getEpoch() { return epoch; }
+        public void setEpoch(long epoch) { this.epoch = epoch; }
+        public long getVersion() { return version; }
+        public void setVersion(long version) { this.version = version; }
+        public boolean isStarted() { return started; }
+        public void setStarted(boolean started) { this.started = started; }
+        public String getText() { return text; }
+        public void setText(String text) { this.text = text; }
+        public long getStartTimestamp() { return startTimestamp; }
+        public void setStartTimestamp(long startTimestamp) { this.startTimestamp = startTimestamp; }
         public String getWinner() { return winner; }
         public void setWinner(String winner) { this.winner = winner; }
-        public long getTimestamp() { return timestamp; }
-        public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+        public PlayerInfo[] getPlayers() { return players; }
+        public void setPlayers(PlayerInfo[] players) { this.players = players; }
+    }
+
+    /**
+     * What changed in a room between fromVersion and version: changed players,
+     * players who left, and the winner if there is one.
+     */
+    public static class RoomDeltaMessage {
+        private String type;
+        private String roomId;
+        private long epoch;
+        private long fromVersion;
+        private long version;
+        private String winner;
+        private PlayerInfo[] players;
+        private String[] removed;
+
+        public RoomDeltaMessage(String roomId, long epoch, long fromVersion, long version, String winner,
+                PlayerInfo[] players, String[] removed) {
+            this.type = "ROOM_DELTA";
+            this.roomId = roomId;
+            this.epoch = epoch;
+            this.fromVersion = fromVersion;
+            this.version = version;
+            this.winner = winner;
+            this.players = players;
+            this.removed = removed;
+        }
+
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getRoomId() { return roomId; }
+        public void setRoomId(String roomId) { this.roomId = roomId; }
+        public long getEpoch() { return epoch; }
+        public void setEpoch(long epoch) { this.epoch = epoch; }
+        public long getFromVersion() { return fromVersion; }
+        public void setFromVersion(long fromVersion) { this.fromVersion = fromVersion; }
+        public long getVersion() { return version; }
+        public void setVersion(long version) { this.version = version; }
+        public String getWinner() { return winner; }
+        public void setWinner(String winner) { this.winner = winner; }
+        public PlayerInfo[] getPlayers() { return players; }
+        public void setPlayers(PlayerInfo[] players) { this.players = players; }
+        public String[] getRemoved() { return removed; }
+        public void setRemoved(String[] removed) { this.removed = removed; }
+    }
+
+    /**
+     * Tells a client which node hosts the room it tried to join.
+     */
+    public static class RoomRedirectMessage {
+        private String type;
+        private String roomId;
+        private String node;
+        private String url;
+
+        public RoomRedirectMessage(String roomId, String node, String url) {
+            this.type = "ROOM_REDIRECT";
+            this.roomId = roomId;
+            this.node = node;
+            this.url = url;
+        }
+
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getRoomId() { return roomId; }
+        public void setRoomId(String roomId) { this.roomId = roomId; }
+        public String getNode() { return node; }
+        public void setNode(String node) { this.node = node; }
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
     }
 
     /**
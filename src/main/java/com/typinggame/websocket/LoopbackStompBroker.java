@@ -0,0 +1,286 @@
+package com.typinggame.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process STOMP 1.2 broker for running the broker relay without
+ * an external service.
+ *
+ * Enough of the protocol for Spring's StompBrokerRelayMessageHandler:
+ * CONNECT, SUBSCRIBE, UNSUBSCRIBE, SEND, DISCONNECT and receipts, with
+ * exact-match destinations and no heart-beats. Start it on one node with
+ * typinggame.stomp.relay.embedded=true and point every node's relay at it
+ * to run several nodes on one machine; tests start it directly.
+ * Not a production broker: no persistence, acks or flow control.
+ */
+@Component
+public class LoopbackStompBroker {
+
+    private final boolean enabled;
+    private final int configuredPort;
+
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong messageIds = new AtomicLong();
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong messagesDelivered = new AtomicLong();
+
+    private volatile ServerSocket serverSocket;
+
+    @Autowired
+    public LoopbackStompBroker(@Value("${typinggame.stomp.relay.embedded:false}") boolean enabled,
+            @Value("${typinggame.stomp.relay.port:61613}") int port) {
+        this.enabled = enabled;
+        this.configuredPort = port;
+    }
+
+    @PostConstruct
+    public void startIfEnabled() throws IOException {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * Listen on the configured port (0 picks a free one).
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) return;
+
+        serverSocket = new ServerSocket(configuredPort, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "LoopbackStompBroker-Accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("[LoopbackStompBroker] Listening on port " + getPort());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (serverSocket == null) return;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {}
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        serverSocket = null;
+    }
+
+    public int getPort() {
+        ServerSocket socket = serverSocket;
+        return socket == null ? configuredPort : socket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        ServerSocket socket = serverSocket;
+        while (socket != null && !socket.isClosed()) {
+            try {
+                Connection connection = new Connection(socket.accept());
+                connections.add(connection);
+                Thread reader = new Thread(connection::readLoop, "LoopbackStompBroker-Conn");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Connection connection, Frame frame) throws IOException {
+        framesReceived.incrementAndGet();
+        switch (frame.command) {
+            case "CONNECT", "STOMP" -> connection.write("CONNECTED",
+                    Map.of("version", "1.2", "heart-beat", "0,0", "server", "loopback"), null);
+            case "SUBSCRIBE" -> {
+                Subscription subscription = new Subscription(connection, frame.headers.get("id"));
+                connection.subscriptions.put(subscription.id, frame.headers.get("destination"));
+                subscriptions.computeIfAbsent(frame.headers.get("destination"), d -> ConcurrentHashMap.newKeySet())
+                        .add(subscription);
+            }
+            case "UNSUBSCRIBE" -> unsubscribe(connection, frame.headers.get("id"));
+            case "SEND" -> deliver(frame);
+            case "DISCONNECT" -> {
+                sendReceipt(connection, frame);
+                connection.close();
+                return;
+            }
+            default -> { }
+        }
+        sendReceipt(connection, frame);
+    }
+
+    private void sendReceipt(Connection connection, Frame frame) throws IOException {
+        String receipt = frame.headers.get("receipt");
+        if (receipt != null) {
+            connection.write("RECEIPT", Map.of("receipt-id", receipt), null);
+        }
+    }
+
+    private void deliver(Frame send) {
+        String destination = send.headers.get("destination");
+        Set<Subscription> subscribers = subscriptions.get(destination);
+        if (subscribers == null) return;
+
+        for (Subscription subscription : subscribers) {
+            Map<String, String> headers = new LinkedHashMap<>(send.headers);
+            headers.remove("receipt");
+            headers.remove("content-length");
+            headers.put("subscription", subscription.id);
+            headers.put("message-id", String.valueOf(messageIds.incrementAndGet()));
+            try {
+                subscription.connection.write("MESSAGE", headers, send.body);
+                messagesDelivered.incrementAndGet();
+            } catch (IOException e) {
+                subscription.connection.close();
+            }
+        }
+    }
+
+    private void unsubscribe(Connection connection, String id) {
+        String destination = connection.subscriptions.remove(id);
+        if (destination == null) return;
+        Set<Subscription> subscribers = subscriptions.get(destination);
+        if (subscribers != null) {
+            subscribers.removeIf(s -> s.connection == connection && s.id.equals(id));
+        }
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    public long getFramesReceived() {
+        return framesReceived.get();
+    }
+
+    public long getMessagesDelivered() {
+        return messagesDelivered.get();
+    }
+
+    private record Subscription(Connection connection, String id) { }
+
+    private record Frame(String command, Map<String, String> headers, byte[] body) { }
+
+    /**
+     * One TCP connection from a relay (the system session or one client session).
+     */
+    private class Connection {
+        private final Socket socket;
+        private final OutputStream out;
+        private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void readLoop() {
+            try (InputStream in = new BufferedInputStream(socket.getInputStream())) {
+                while (!socket.isClosed()) {
+                    Frame frame = readFrame(in);
+                    if (frame == null) break;
+                    handle(this, frame);
+                }
+            } catch (IOException ignored) {
+                // relay went away
+            } finally {
+                close();
+            }
+        }
+
+        synchronized void write(String command, Map<String, String> headers, byte[] body) throws IOException {
+            StringBuilder sb = new StringBuilder(command).append('\n');
+            headers.forEach((name, value) -> sb.append(name).append(':').append(value).append('\n'));
+            if (body != null) {
+                sb.append("content-length:").append(body.length).append('\n');
+            }
+            sb.append('\n');
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            if (body != null) {
+                out.write(body);
+            }
+            out.write(0);
+            out.flush();
+        }
+
+        void close() {
+            if (!connections.remove(this)) return;
+            for (String id : subscriptions.keySet()) {
+                unsubscribe(this, id);
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Read one frame; heart-beat EOLs between frames are skipped.
+     */
+    static Frame readFrame(InputStream in) throws IOException {
+        String command;
+        do {
+            command = readLine(in);
+            if (command == null) return null;
+        } while (command.isEmpty());
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                // First occurrence of a repeated header wins (STOMP 1.2)
+                headers.putIfAbsent(line.substring(0, colon), line.substring(colon + 1));
+            }
+        }
+        if (line == null) return null;
+
+        byte[] body;
+        String contentLength = headers.get("content-length");
+        if (contentLength != null) {
+            body = in.readNBytes(Integer.parseInt(contentLength.trim()));
+            if (in.read() != 0) throw new IOException("Frame not NUL-terminated");
+        } else {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) > 0) {
+                buffer.write(b);
+            }
+            if (b < 0) throw new EOFException();
+            body = buffer.toByteArray();
+        }
+        return new Frame(command, headers, body);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            buffer.write(b);
+        }
+        if (b == -1 && buffer.size() == 0) return null;
+        String line = buffer.toString(StandardCharsets.UTF_8);
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+}
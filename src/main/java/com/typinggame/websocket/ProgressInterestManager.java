@@ -0,0 +1,157 @@
+package com.typinggame.websocket;
+
+import com.typinggame.websocket.WebSocketSessionManager.PlayerInfo;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interest management for progress fan-out in big rooms.
+ *
+ * Small rooms keep getting the full player list on every update. Above
+ * FULL_BROADCAST_MAX_PLAYERS each player only gets full-rate updates about the
+ * race leaders and their nearest rivals, and everyone gets a low-rate
+ * position histogram of the whole room. Per progress message that is O(1)
+ * recipients for a mid-pack player and O(n) for a leader, so bandwidth per
+ * tick grows linearly with room size instead of quadratically.
+ */
+@Component
+public class ProgressInterestManager {
+
+    public static final int FULL_BROADCAST_MAX_PLAYERS = 16;
+    public static final int LEADER_COUNT = 3;
+    public static final int RIVAL_RADIUS = 2;
+    public static final int HISTOGRAM_BUCKETS = 10;
+    public static final long SUMMARY_INTERVAL_MS = 1000;
+
+    private static final Comparator<PlayerInfo> RACE_ORDER = Comparator
+            .comparingInt((PlayerInfo p) -> p.progress).reversed()
+            .thenComparing(Comparator.comparingDouble((PlayerInfo p) -> p.wpm).reversed())
+            .thenComparing(p -> p.username, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    // Last time a ROOM_SUMMARY went out per room
+    private final ConcurrentHashMap<String, Long> lastSummaryAt = new ConcurrentHashMap<>();
+
+    /**
+     * Whether a room is big enough to need interest management.
+     */
+    public boolean isLargeRoom(int playerCount) {
+        return playerCount > FULL_BROADCAST_MAX_PLAYERS;
+    }
+
+    /**
+     * Sort a room into race order (furthest along first).
+     */
+    public RankedRoom rank(PlayerInfo[] players) {
+        PlayerInfo[] ranked = Arrays.copyOf(players, players.length);
+        Arrays.sort(ranked, RACE_ORDER);
+        return new RankedRoom(ranked);
+    }
+
+    /**
+     * Players who should hear about a change to the player at {@code changedRank}.
+     * Everyone follows the leaders; otherwise only the neighbours within
+     * RIVAL_RADIUS (whose own view contains the changed player) are told.
+     */
+    public List<PlayerInfo> recipientsFor(RankedRoom room, int changedRank) {
+        PlayerInfo[] ranked = room.ranked;
+        if (changedRank < 0 || changedRank < LEADER_COUNT) {
+            return Arrays.asList(ranked);
+        }
+
+        int from = Math.max(0, changedRank - RIVAL_RADIUS);
+        int to = Math.min(ranked.length - 1, changedRank + RIVAL_RADIUS);
+        return Arrays.asList(ranked).subList(from, to + 1);
+    }
+
+    /**
+     * The players one racer sees at full rate: the leaders plus their nearest rivals.
+     */
+    public PlayerInfo[] interestSet(RankedRoom room, int rank) {
+        PlayerInfo[] ranked = room.ranked;
+        List<PlayerInfo> view = new ArrayList<>(LEADER_COUNT + 2 * RIVAL_RADIUS + 1);
+
+        int leaders = Math.min(LEADER_COUNT, ranked.length);
+        for (int i = 0; i < leaders; i++) {
+            view.add(ranked[i]);
+        }
+
+        int from = Math.max(leaders, rank - RIVAL_RADIUS);
+        int to = Math.min(ranked.length - 1, rank + RIVAL_RADIUS);
+        for (int i = from; i <= to; i++) {
+            view.add(ranked[i]);
+        }
+        return view.toArray(new PlayerInfo[0]);
+    }
+
+    /**
+     * Count players per progress bucket (0-9%, 10-19%, ... 90-100%).
+     */
+    public int[] progressHistogram(PlayerInfo[] players) {
+        int[] buckets = new int[HISTOGRAM_BUCKETS];
+        for (PlayerInfo player : players) {
+            int progress = Math.max(0, Math.min(100, player.progress));
+            buckets[Math.min(HISTOGRAM_BUCKETS - 1, progress * HISTOGRAM_BUCKETS / 100)]++;
+        }
+        return buckets;
+    }
+
+    /**
+     * Rate limit for ROOM_SUMMARY messages.
+     * @return true at most once per SUMMARY_INTERVAL_MS per room.
+     */
+    public boolean shouldSendSummary(String roomId, long now) {
+        Long last = lastSummaryAt.get(roomId);
+        if (last != null && now - last < SUMMARY_INTERVAL_MS) {
+            return false;
+        }
+        return last == null
+                ? lastSummaryAt.putIfAbsent(roomId, now) == null
+                : lastSummaryAt.replace(roomId, last, now);
+    }
+
+    /**
+     * Drop per-room bookkeeping.
+     */
+    public void forgetRoom(String roomId) {
+        lastSummaryAt.remove(roomId);
+    }
+
+    /**
+     * A room's players in race order with a username to rank index.
+     */
+    public static class RankedRoom {
+        private final PlayerInfo[] ranked;
+        private final Map<String, Integer> rankByUsername;
+
+        RankedRoom(PlayerInfo[] ranked) {
+            this.ranked = ranked;
+            this.rankByUsername = new HashMap<>(ranked.length * 2);
+            for (int i = 0; i < ranked.length; i++) {
+                rankByUsername.put(ranked[i].username, i);
+            }
+        }
+
+        /**
+         * Zero-based rank of a player, or -1 if not in the room.
+         */
+        public int rankOf(String username) {
+            Integer rank = rankByUsername.get(username);
+            return rank != null ? rank : -1;
+        }
+
+        public PlayerInfo[] getLeaders() {
+            return Arrays.copyOf(ranked, Math.min(LEADER_COUNT, ranked.length));
+        }
+
+        public int size() {
+            return ranked.length;
+        }
+    }
+}
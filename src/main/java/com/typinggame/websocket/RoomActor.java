@@ -0,0 +1,336 @@
+package com.typinggame.websocket;
+
+import com.typinggame.websocket.WebSocketSessionManager.PlayerInfo;
+import com.typinggame.websocket.WebSocketSessionManager.RoomState;
+import com.typinggame.websocket.WebSocketSessionManager.Transport;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Single-threaded owner of one multiplayer room's state.
+ *
+ * Every change is queued in the room's mailbox and applied one at a time by
+ * whichever shared-pool thread is draining it, so the state below needs no
+ * locks and rooms never contend with each other. At the end of each batch the
+ * actor publishes an immutable RoomState; readers only ever see those.
+ *
+ * Each published state carries the actor's epoch and the next version
+ * number; the epoch tells a recreated room apart from the one it replaced. Changes made in a
+ * batch are stamped with the version that batch will publish, and the last
+ * MAX_TOMBSTONES removals are remembered, which is what lets a reconnecting
+ * client catch up with a delta instead of the whole room.
+ *
+ * Operations receive the actor they run on rather than capturing it, so a
+ * room that retired while messages were in flight can hand them to its
+ * replacement.
+ */
+class RoomActor {
+
+    // Operations applied per turn before yielding the pool thread
+    private static final int MAX_BATCH = 64;
+
+    // Removals remembered for delta sync; older clients get a full snapshot
+    static final int MAX_TOMBSTONES = 64;
+
+    private final String roomId;
+    private final Executor executor;
+    private final WebSocketSessionManager registry;
+    private final long epoch;
+
+    private final ConcurrentLinkedQueue<Consumer<RoomActor>> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    // Owned state: only touched while draining the mailbox
+    private final LinkedHashMap<String, PlayerInfo> players = new LinkedHashMap<>();
+    private final Queue<String> wordQueue = new LinkedList<>();
+    private boolean started;
+    private String text;
+    private long startTimestamp;
+    private String winner;
+    private long version;
+    private long startVersion;
+    private long deltaFloor;
+    private final LinkedHashMap<String, Long> tombstones = new LinkedHashMap<>();
+    private Map<String, Long> publishedTombstones = Map.of();
+    private boolean retired;
+    private boolean changed;
+    private long lastActivityAt = System.currentTimeMillis();
+    private final Set<String> changedPlayers = new LinkedHashSet<>();
+    private final List<Runnable> pendingReplies = new ArrayList<>();
+
+    private volatile RoomState snapshot = RoomState.EMPTY;
+
+    RoomActor(String roomId, Executor executor, WebSocketSessionManager registry) {
+        this.roomId = roomId;
+        this.executor = executor;
+        this.registry = registry;
+        this.epoch = registry.nextRoomEpoch();
+    }
+
+    /**
+     * Latest published state. Never blocks.
+     */
+    RoomState snapshot() {
+        return snapshot;
+    }
+
+    // ---- messages ----
+
+    void addPlayer(String username, String sessionId, Transport transport) {
+        tell(a -> a.applyAddPlayer(username, sessionId, transport));
+    }
+
+    void removePlayer(String username) {
+        tell(a -> a.applyRemovePlayer(username, null));
+    }
+
+    /**
+     * Remove a player only if still connected through this STOMP session,
+     * so a stale disconnect can't evict someone who rejoined.
+     */
+    void removeSession(String username, String sessionId) {
+        tell(a -> a.applyRemovePlayer(username, sessionId));
+    }
+
+    /**
+     * Reclaim the room if it finished more than finishedTtlMs ago or has seen
+     * no activity for abandonedTtlMs.
+     * @return true if the room was reclaimed.
+     */
+    CompletableFuture<Boolean> expireIfIdle(long now, long finishedTtlMs, long abandonedTtlMs) {
+        return ask(a -> a.applyExpireIfIdle(now, finishedTtlMs, abandonedTtlMs));
+    }
+
+    void updateProgress(String username, int progress, double wpm, String status) {
+        tell(a -> a.applyProgress(username, progress, wpm, status));
+    }
+
+    void addWords(String... words) {
+        tell(a -> a.applyAddWords(words));
+    }
+
+    CompletableFuture<String> startIfReady(int minPlayers, Supplier<String> textSupplier) {
+        return ask(a -> a.applyStartIfReady(minPlayers, textSupplier));
+    }
+
+    CompletableFuture<String> claimWinner(String username, double wpm) {
+        return ask(a -> a.applyClaimWinner(username, wpm));
+    }
+
+    CompletableFuture<Boolean> isStarted() {
+        return ask(a -> a.started);
+    }
+
+    CompletableFuture<String> pollWord() {
+        return ask(a -> a.wordQueue.poll());
+    }
+
+    // ---- behaviour (runs on the actor) ----
+
+    private void applyAddPlayer(String username, String sessionId, Transport transport) {
+        // Rejoining on a new connection keeps the player's place in the race
+        PlayerInfo previous = players.get(username);
+        PlayerInfo player = previous == null
+                ? new PlayerInfo(username, sessionId, 0, 0.0, "ACTIVE", transport, nextVersion())
+                : new PlayerInfo(username, sessionId, previous.progress, previous.wpm, previous.status,
+                        transport, nextVersion());
+        players.put(username, player);
+        if (tombstones.remove(username) != null) {
+            publishedTombstones = null;
+        }
+        markChanged(username);
+        System.out.println("[WebSocketSessionManager] Player " + username + " joined room " + roomId);
+    }
+
+    private void applyRemovePlayer(String username, String sessionId) {
+        PlayerInfo player = players.get(username);
+        if (player == null || (sessionId != null && !sessionId.equals(player.sessionId))) {
+            return;
+        }
+        players.remove(username);
+        addTombstone(username);
+        markChanged(username);
+        if (players.isEmpty()) {
+            retire();
+        }
+    }
+
+    private boolean applyExpireIfIdle(long now, long finishedTtlMs, long abandonedTtlMs) {
+        long idle = now - lastActivityAt;
+        boolean finished = winner != null && idle >= finishedTtlMs;
+        if (!finished && idle < abandonedTtlMs) {
+            return false;
+        }
+        retire();
+        return true;
+    }
+
+    /**
+     * Drop the room's state. Later messages are forwarded to a fresh actor
+     * for this room id.
+     */
+    private void retire() {
+        int playersReclaimed = players.size();
+        int wordsReclaimed = wordQueue.size();
+        players.clear();
+        wordQueue.clear();
+        retired = true;
+        changed = true;
+        registry.retire(roomId, this, playersReclaimed, wordsReclaimed);
+    }
+
+    private void applyProgress(String username, int progress, double wpm, String status) {
+        PlayerInfo player = players.get(username);
+        if (player != null) {
+            players.put(username, new PlayerInfo(username, player.sessionId, progress, wpm, status,
+                    player.transport, nextVersion()));
+            markChanged(username);
+        }
+    }
+
+    private void applyAddWords(String[] words) {
+        for (String word : words) {
+            wordQueue.offer(word);
+        }
+    }
+
+    /**
+     * @return the race text if this call started the room, otherwise null.
+     */
+    private String applyStartIfReady(int minPlayers, Supplier<String> textSupplier) {
+        if (started || players.size() < minPlayers) {
+            return null;
+        }
+        started = true;
+        text = textSupplier.get();
+        startTimestamp = System.currentTimeMillis();
+        startVersion = nextVersion();
+        lastActivityAt = startTimestamp;
+        changed = true;
+        return text;
+    }
+
+    /**
+     * First claim wins; the winner is marked FINISHED in the same step.
+     * @return winner username after the attempt.
+     */
+    private String applyClaimWinner(String username, double wpm) {
+        if (winner == null && players.containsKey(username)) {
+            winner = username;
+            applyProgress(username, 100, wpm, "FINISHED");
+        }
+        return winner;
+    }
+
+    /**
+     * Version the current batch will publish.
+     */
+    private long nextVersion() {
+        return version + 1;
+    }
+
+    private void addTombstone(String username) {
+        tombstones.put(username, nextVersion());
+        if (tombstones.size() > MAX_TOMBSTONES) {
+            Map.Entry<String, Long> eldest = tombstones.entrySet().iterator().next();
+            tombstones.remove(eldest.getKey());
+            // Clients older than the forgotten removal can't be caught up with a delta
+            deltaFloor = Math.max(deltaFloor, eldest.getValue());
+        }
+        publishedTombstones = null;
+    }
+
+    private void markChanged(String username) {
+        changed = true;
+        lastActivityAt = System.currentTimeMillis();
+        changedPlayers.add(username);
+    }
+
+    // ---- mailbox ----
+
+    private void tell(Consumer<RoomActor> operation) {
+        mailbox.offer(operation);
+        schedule();
+    }
+
+    private <T> CompletableFuture<T> ask(Function<RoomActor, T> operation) {
+        CompletableFuture<T> reply = new CompletableFuture<>();
+        tell(a -> {
+            try {
+                T result = operation.apply(a);
+                // Replied only after the snapshot reflecting this operation is out
+                a.pendingReplies.add(() -> reply.complete(result));
+            } catch (RuntimeException e) {
+                reply.completeExceptionally(e);
+            }
+        });
+        return reply;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            Consumer<RoomActor> operation;
+            int processed = 0;
+            while (processed < MAX_BATCH && (operation = mailbox.poll()) != null) {
+                processed++;
+                if (retired) {
+                    registry.actorFor(roomId).tell(operation);
+                    continue;
+                }
+                try {
+                    operation.accept(this);
+                } catch (RuntimeException e) {
+                    System.err.println("[RoomActor] Room " + roomId + " operation failed: " + e.getMessage());
+                }
+            }
+            publish();
+        } finally {
+            scheduled.set(false);
+            if (!mailbox.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void publish() {
+        if (changed) {
+            version++;
+            if (publishedTombstones == null) {
+                publishedTombstones = Map.copyOf(tombstones);
+            }
+            snapshot = new RoomState(started, text, startTimestamp, winner,
+                    players.values().toArray(new PlayerInfo[0]), epoch, version, startVersion, deltaFloor,
+                    publishedTombstones);
+            changed = false;
+        }
+        for (String username : changedPlayers) {
+            registry.notifyPlayerChanged(roomId, username);
+        }
+        changedPlayers.clear();
+
+        for (Runnable reply : pendingReplies) {
+            reply.run();
+        }
+        pendingReplies.clear();
+    }
+}
@@ -0,0 +1,284 @@
+package com.typinggame.websocket;
+
+import com.typinggame.websocket.GameWebSocketController.FocusedPlayerUpdateMessage;
+import com.typinggame.websocket.GameWebSocketController.PlayerUpdateMessage;
+import com.typinggame.websocket.GameWebSocketController.RoomDeltaMessage;
+import com.typinggame.websocket.GameWebSocketController.RoomSnapshotMessage;
+import com.typinggame.websocket.GameWebSocketController.RoomSummaryMessage;
+import com.typinggame.multiplayer.MultiplayerRoomService;
+import com.typinggame.websocket.ProgressInterestManager.RankedRoom;
+import com.typinggame.websocket.WebSocketSessionManager.PlayerInfo;
+import com.typinggame.websocket.WebSocketSessionManager.RoomState;
+import com.typinggame.websocket.WebSocketSessionManager.Transport;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces room progress broadcasts into a fixed per-room tick.
+ *
+ * Room changes only mark their room dirty; a scheduled tick at
+ * typinggame.rooms.broadcast-hz (clamped to 5-20 Hz) publishes one
+ * PLAYER_UPDATE snapshot per dirty room per interval, however many
+ * progress messages arrived in between, and raw socket players in the room
+ * get PROGRESS lines for the same changes. Big rooms go through
+ * ProgressInterestManager as before.
+ *
+ * Broadcasts carry the room version they reflect. A client that (re)joins
+ * asks for a sync and gets, on its own queue, either a delta from the
+ * version it has or one snapshot of the room; a reconnect storm costs one
+ * unicast per client and never a room-wide rebroadcast.
+ */
+@Component
+public class RoomBroadcaster {
+
+    public static final int MIN_BROADCAST_HZ = 5;
+    public static final int MAX_BROADCAST_HZ = 20;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketSessionManager sessionManager;
+    private final ProgressInterestManager interestManager;
+    private final MultiplayerRoomService socketTransport;
+    private final long tickIntervalMs;
+
+    // Dirty flag per room: players who changed since that room's last tick
+    private final ConcurrentHashMap<String, Set<String>> dirtyRooms = new ConcurrentHashMap<>();
+
+    // Latest snapshot message per room, reused while the room is unchanged
+    private final ConcurrentHashMap<String, CachedSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong snapshotsSent = new AtomicLong();
+    private final AtomicLong snapshotsBuilt = new AtomicLong();
+    private final AtomicLong deltasSent = new AtomicLong();
+    private final AtomicLong ticks = new AtomicLong();
+
+    private ScheduledExecutorService ticker;
+
+    private record CachedSnapshot(RoomState state, RoomSnapshotMessage message) { }
+
+    @Autowired
+    public RoomBroadcaster(SimpMessagingTemplate messagingTemplate,
+            WebSocketSessionManager sessionManager,
+            ProgressInterestManager interestManager,
+            MultiplayerRoomService socketTransport,
+            @Value("${typinggame.rooms.broadcast-hz:10}") int broadcastHz) {
+        this.messagingTemplate = messagingTemplate;
+        this.sessionManager = sessionManager;
+        this.interestManager = interestManager;
+        this.socketTransport = socketTransport;
+
+        int hz = Math.max(MIN_BROADCAST_HZ, Math.min(MAX_BROADCAST_HZ, broadcastHz));
+        this.tickIntervalMs = 1000L / hz;
+
+        // Rooms report changes once they are visible in the room snapshot
+        sessionManager.addRoomChangeListener(this::markDirty);
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "RoomBroadcaster-Tick");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickIntervalMs, tickIntervalMs, TimeUnit.MILLISECONDS);
+        System.out.println("[RoomBroadcaster] Broadcasting room snapshots every " + tickIntervalMs + "ms");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Note that a player changed; the room is broadcast on the next tick.
+     */
+    public void markDirty(String roomId, String username) {
+        // Unknown players rank nowhere, so their change reaches the whole room
+        String changed = username != null ? username : "";
+
+        // compute() keeps the add atomic with tick()'s remove, so no change is lost
+        dirtyRooms.compute(roomId, (k, players) -> {
+            Set<String> set = players != null ? players : ConcurrentHashMap.newKeySet();
+            set.add(changed);
+            return set;
+        });
+    }
+
+    /**
+     * Broadcast a room right away (e.g. with a FINISH), consuming its dirty flag.
+     */
+    public void flush(String roomId) {
+        Set<String> changed = dirtyRooms.remove(roomId);
+        broadcastRoom(roomId, changed != null ? changed : Set.of());
+    }
+
+    /**
+     * One tick: publish a single coalesced snapshot for every dirty room.
+     */
+    void tick() {
+        for (String roomId : dirtyRooms.keySet()) {
+            Set<String> changed = dirtyRooms.remove(roomId);
+            if (changed == null || changed.isEmpty()) {
+                continue;
+            }
+            try {
+                broadcastRoom(roomId, changed);
+            } catch (Exception e) {
+                System.err.println("[RoomBroadcaster] Failed to broadcast room " + roomId + ": " + e.getMessage());
+            }
+        }
+        ticks.incrementAndGet();
+    }
+
+    /**
+     * Broadcast the players who changed since the last tick.
+     * Small rooms get the full list on the room topic. Big rooms send each
+     * interested player one focused view (leaders + nearest rivals) on their
+     * own queue, plus a rate-limited ROOM_SUMMARY histogram on the room topic.
+     */
+    private void broadcastRoom(String roomId, Set<String> changedUsernames) {
+        RoomState state = sessionManager.getRoomState(roomId);
+        PlayerInfo[] players = state.getPlayers();
+        sendToSockets(roomId, players, changedUsernames);
+
+        if (!interestManager.isLargeRoom(players.length)) {
+            PlayerUpdateMessage message = new PlayerUpdateMessage("PLAYER_UPDATE", players, state.epoch, state.version);
+            messagingTemplate.convertAndSend("/topic/game/" + roomId, message);
+            return;
+        }
+
+        RankedRoom room = interestManager.rank(players);
+
+        // Everyone who should hear about any of this tick's changes, once each
+        Set<PlayerInfo> recipients = new LinkedHashSet<>();
+        for (String username : changedUsernames) {
+            recipients.addAll(interestManager.recipientsFor(room, room.rankOf(username)));
+        }
+
+        for (PlayerInfo recipient : recipients) {
+            if (recipient.transport != Transport.STOMP) continue;
+            int rank = room.rankOf(recipient.username);
+            FocusedPlayerUpdateMessage message = new FocusedPlayerUpdateMessage(
+                    interestManager.interestSet(room, rank), rank + 1, room.size(), state.epoch, state.version);
+            sendToSession(recipient.sessionId, "/queue/game/" + roomId, message);
+        }
+
+        long now = System.currentTimeMillis();
+        if (interestManager.shouldSendSummary(roomId, now)) {
+            RoomSummaryMessage summary = new RoomSummaryMessage(roomId, room.size(),
+                    interestManager.progressHistogram(players), room.getLeaders(), now);
+            messagingTemplate.convertAndSend("/topic/game/" + roomId, summary);
+        }
+    }
+
+    /**
+     * Catch one STOMP session up with a room: a ROOM_DELTA if it has a
+     * version of this room incarnation the room can still diff against,
+     * otherwise a ROOM_SNAPSHOT.
+     * @param sinceEpoch room epoch the client's version came from, or null.
+     * @param sinceVersion last version the client applied, or null for a snapshot.
+     */
+    public void sendSync(String roomId, String sessionId, Long sinceEpoch, Long sinceVersion) {
+        RoomState state = sessionManager.getRoomState(roomId);
+        if (sinceEpoch != null && sinceVersion != null && state.canDeltaFrom(sinceEpoch, sinceVersion)) {
+            deltasSent.incrementAndGet();
+            sendToSession(sessionId, "/queue/game/" + roomId, new RoomDeltaMessage(roomId, state.epoch, sinceVersion,
+                    state.version, state.winner, state.playersChangedSince(sinceVersion),
+                    state.removedSince(sinceVersion)));
+            return;
+        }
+        snapshotsSent.incrementAndGet();
+        sendToSession(sessionId, "/queue/game/" + roomId, snapshotOf(roomId, state));
+    }
+
+    /**
+     * One snapshot message per room version, however many clients ask for it.
+     */
+    private RoomSnapshotMessage snapshotOf(String roomId, RoomState state) {
+        CachedSnapshot cached = snapshots.get(roomId);
+        if (cached != null && cached.state() == state) {
+            return cached.message();
+        }
+        snapshotsBuilt.incrementAndGet();
+        RoomSnapshotMessage message = new RoomSnapshotMessage(roomId, state.epoch, state.version, state.started,
+                state.text, state.startTimestamp, state.winner, state.getPlayers());
+        snapshots.put(roomId, new CachedSnapshot(state, message));
+        return message;
+    }
+
+    /**
+     * Raw socket players get one PROGRESS line per changed player, on the same tick.
+     * This only enqueues on each connection's writer, so a stalled client
+     * can't hold up the tick for other rooms.
+     */
+    private void sendToSockets(String roomId, PlayerInfo[] players, Set<String> changedUsernames) {
+        if (changedUsernames.isEmpty() || socketTransport.socketRoomSize(roomId) == 0) return;
+
+        for (PlayerInfo player : players) {
+            if (changedUsernames.contains(player.username)) {
+                socketTransport.broadcastProgressToSocketClients(roomId, player.username, player.wpm, player.progress);
+            }
+        }
+    }
+
+    /**
+     * Send to one STOMP session's user queue (no authenticated Principal needed).
+     */
+    private void sendToSession(String sessionId, String destination, Object payload) {
+        if (sessionId == null) return;
+
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(sessionId, destination, payload, headers.getMessageHeaders());
+    }
+
+    /**
+     * Drop a room's pending broadcast.
+     */
+    public void forgetRoom(String roomId) {
+        dirtyRooms.remove(roomId);
+        snapshots.remove(roomId);
+    }
+
+    public long getTickIntervalMs() {
+        return tickIntervalMs;
+    }
+
+    /**
+     * Ticks completed so far; a tick that starts after a change has sent it.
+     */
+    public long getTicks() {
+        return ticks.get();
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent.get();
+    }
+
+    /**
+     * Snapshot messages actually built; the rest of getSnapshotsSent() reused one.
+     */
+    public long getSnapshotsBuilt() {
+        return snapshotsBuilt.get();
+    }
+
+    public long getDeltasSent() {
+        return deltasSent.get();
+    }
+}
@@ -0,0 +1,164 @@
+package com.typinggame.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reclaims STOMP rooms so the room registry doesn't grow for the life of
+ * the process.
+ *
+ * A STOMP disconnect removes the session from every room it joined (looked
+ * up through the session-to-rooms index), and a room is dropped once its
+ * last player leaves. A sweep on a timer drops rooms that finished more than
+ * typinggame.rooms.finished-ttl-ms ago or have been idle for
+ * typinggame.rooms.abandoned-ttl-ms. Live/reclaimed counts are exposed as
+ * gauges through the getters below.
+ */
+@Component
+public class RoomLifecycleManager {
+
+    private final WebSocketSessionManager sessionManager;
+    private final RoomBroadcaster roomBroadcaster;
+    private final ProgressInterestManager interestManager;
+    private final long sweepIntervalMs;
+    private final long finishedTtlMs;
+    private final long abandonedTtlMs;
+
+    private final AtomicLong disconnects = new AtomicLong();
+    private final AtomicLong releasedMemberships = new AtomicLong();
+    private final AtomicLong reclaimedRooms = new AtomicLong();
+    private final AtomicLong reclaimedPlayers = new AtomicLong();
+    private final AtomicLong reclaimedWords = new AtomicLong();
+
+    private ScheduledExecutorService sweeper;
+
+    @Autowired
+    public RoomLifecycleManager(WebSocketSessionManager sessionManager,
+            RoomBroadcaster roomBroadcaster,
+            ProgressInterestManager interestManager,
+            @Value("${typinggame.rooms.sweep-interval-ms:30000}") long sweepIntervalMs,
+            @Value("${typinggame.rooms.finished-ttl-ms:60000}") long finishedTtlMs,
+            @Value("${typinggame.rooms.abandoned-ttl-ms:600000}") long abandonedTtlMs) {
+        this.sessionManager = sessionManager;
+        this.roomBroadcaster = roomBroadcaster;
+        this.interestManager = interestManager;
+        this.sweepIntervalMs = sweepIntervalMs;
+        this.finishedTtlMs = finishedTtlMs;
+        this.abandonedTtlMs = abandonedTtlMs;
+
+        sessionManager.addRoomRetiredListener(this::onRoomRetired);
+    }
+
+    @PostConstruct
+    public void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "RoomLifecycle-Sweep");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleAtFixedRate(this::sweep, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * Remove a closed STOMP session from its rooms.
+     */
+    @EventListener
+    public void handleSessionDisconnect(SessionDisconnectEvent event) {
+        int memberships = sessionManager.removeSession(event.getSessionId());
+        if (memberships > 0) {
+            disconnects.incrementAndGet();
+            releasedMemberships.addAndGet(memberships);
+            System.out.println("[RoomLifecycle] Session " + event.getSessionId()
+                    + " disconnected from " + memberships + " room(s)");
+        }
+    }
+
+    /**
+     * Reclaim finished and abandoned rooms.
+     */
+    void sweep() {
+        try {
+            long before = reclaimedRooms.get();
+            List<CompletableFuture<Boolean>> results =
+                    sessionManager.expireIdleRooms(System.currentTimeMillis(), finishedTtlMs, abandonedTtlMs);
+            CompletableFuture.allOf(results.toArray(CompletableFuture<?>[]::new)).get(sweepIntervalMs, TimeUnit.MILLISECONDS);
+
+            long expired = reclaimedRooms.get() - before;
+            if (expired > 0) {
+                System.out.println("[RoomLifecycle] Reclaimed " + expired + " idle room(s); " + this);
+            }
+        } catch (Exception e) {
+            System.err.println("[RoomLifecycle] Sweep failed: " + e.getMessage());
+        }
+    }
+
+    private void onRoomRetired(String roomId, int playersReclaimed, int wordsReclaimed) {
+        reclaimedRooms.incrementAndGet();
+        reclaimedPlayers.addAndGet(playersReclaimed);
+        reclaimedWords.addAndGet(wordsReclaimed);
+        roomBroadcaster.forgetRoom(roomId);
+        interestManager.forgetRoom(roomId);
+    }
+
+    // ---- gauges ----
+
+    public int getLiveRooms() {
+        return sessionManager.getRoomCount();
+    }
+
+    public int getLivePlayers() {
+        return sessionManager.getPlayerCount();
+    }
+
+    public int getTrackedSessions() {
+        return sessionManager.getIndexedSessionCount();
+    }
+
+    public long getDisconnects() {
+        return disconnects.get();
+    }
+
+    public long getReleasedMemberships() {
+        return releasedMemberships.get();
+    }
+
+    public long getReclaimedRooms() {
+        return reclaimedRooms.get();
+    }
+
+    public long getReclaimedPlayers() {
+        return reclaimedPlayers.get();
+    }
+
+    public long getReclaimedWords() {
+        return reclaimedWords.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("live rooms=%d, players=%d, sessions=%d; disconnects=%d (%d memberships); "
+                        + "reclaimed rooms=%d, players=%d, words=%d",
+                getLiveRooms(), getLivePlayers(), getTrackedSessions(),
+                getDisconnects(), getReleasedMemberships(),
+                getReclaimedRooms(), getReclaimedPlayers(), getReclaimedWords());
+    }
+}
@@ -0,0 +1,243 @@
+package com.typinggame.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread pools and gauges for the STOMP message channels.
+ *
+ * WebSocketConfig builds the inbound, outbound and broker channel executors
+ * through newExecutor(), which times every task from submit to start (queue
+ * wait) and from start to end (run time) and counts rejections. The
+ * dropCounter() decorator counts sessions Spring closes because a client
+ * couldn't keep up (send time / buffer limit, counted on outbound) or sent an
+ * oversized frame (counted on inbound).
+ *
+ * A reporter logs a warning when a channel's queue depth or worst queue wait
+ * since the last report passes its threshold, which shows up well before
+ * players see PLAYER_UPDATE lag. Totals are exposed through the getters.
+ */
+@Component
+public class StompChannelMetrics {
+
+    public enum Channel { INBOUND, OUTBOUND, BROKER }
+
+    private final Map<Channel, ChannelStats> stats = new EnumMap<>(Channel.class);
+    private final Map<Channel, ThreadPoolTaskExecutor> executors = new EnumMap<>(Channel.class);
+    private final long reportIntervalMs;
+    private final int warnQueueDepth;
+    private final long warnWaitMs;
+
+    private ScheduledExecutorService reporter;
+
+    @Autowired
+    public StompChannelMetrics(@Value("${typinggame.stomp.report-interval-ms:10000}") long reportIntervalMs,
+            @Value("${typinggame.stomp.warn-queue-depth:500}") int warnQueueDepth,
+            @Value("${typinggame.stomp.warn-wait-ms:100}") long warnWaitMs) {
+        this.reportIntervalMs = reportIntervalMs;
+        this.warnQueueDepth = warnQueueDepth;
+        this.warnWaitMs = warnWaitMs;
+        for (Channel channel : Channel.values()) {
+            stats.put(channel, new ChannelStats());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "StompChannels-Report");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(this::report, reportIntervalMs, reportIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+    }
+
+    /**
+     * Instrumented pool for one channel. Spring initializes and shuts it down
+     * as the channel's executor bean.
+     */
+    public ThreadPoolTaskExecutor newExecutor(Channel channel, int corePoolSize, int maxPoolSize, int queueCapacity) {
+        ChannelStats channelStats = stats.get(channel);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("stomp-" + channel.name().toLowerCase() + "-");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(Math.max(corePoolSize, maxPoolSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setTaskDecorator(task -> {
+            long submittedAt = System.nanoTime();
+            return () -> {
+                long startedAt = System.nanoTime();
+                try {
+                    task.run();
+                } finally {
+                    channelStats.recordTask(startedAt - submittedAt, System.nanoTime() - startedAt);
+                }
+            };
+        });
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            channelStats.rejected.incrementAndGet();
+            throw new RejectedExecutionException("STOMP " + channel + " channel queue full ("
+                    + pool.getQueue().size() + " waiting)");
+        });
+
+        executors.put(channel, executor);
+        return executor;
+    }
+
+    /**
+     * Counts sessions closed for being too slow or sending oversized frames.
+     */
+    public WebSocketHandlerDecoratorFactory dropCounter() {
+        return handler -> new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                recordClose(closeStatus);
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    void recordClose(CloseStatus closeStatus) {
+        if (closeStatus.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)) {
+            stats.get(Channel.OUTBOUND).droppedSessions.incrementAndGet();
+        } else if (closeStatus.equalsCode(CloseStatus.TOO_BIG_TO_PROCESS)) {
+            stats.get(Channel.INBOUND).droppedSessions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Warn about channels that are backing up.
+     */
+    void report() {
+        for (Channel channel : Channel.values()) {
+            ChannelStats channelStats = stats.get(channel);
+            int depth = getQueueDepth(channel);
+            long maxWaitMs = TimeUnit.NANOSECONDS.toMillis(channelStats.windowMaxWaitNanos.getAndSet(0));
+            if (depth >= warnQueueDepth || maxWaitMs >= warnWaitMs) {
+                System.err.println("[StompChannels] " + channel + " backing up: queue=" + depth
+                        + ", max wait=" + maxWaitMs + "ms; " + describe(channel));
+            }
+        }
+    }
+
+    // ---- gauges ----
+
+    public int getQueueDepth(Channel channel) {
+        ThreadPoolExecutor pool = poolOf(channel);
+        return pool == null ? 0 : pool.getQueue().size();
+    }
+
+    public int getActiveThreads(Channel channel) {
+        ThreadPoolExecutor pool = poolOf(channel);
+        return pool == null ? 0 : pool.getActiveCount();
+    }
+
+    public long getTasks(Channel channel) {
+        return stats.get(channel).tasks.get();
+    }
+
+    /**
+     * Mean time a task waited in the queue, in microseconds.
+     */
+    public long getAverageWaitMicros(Channel channel) {
+        ChannelStats channelStats = stats.get(channel);
+        long tasks = channelStats.tasks.get();
+        return tasks == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(channelStats.totalWaitNanos.get() / tasks);
+    }
+
+    /**
+     * Mean time a task took to run, in microseconds.
+     */
+    public long getAverageRunMicros(Channel channel) {
+        ChannelStats channelStats = stats.get(channel);
+        long tasks = channelStats.tasks.get();
+        return tasks == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(channelStats.totalRunNanos.get() / tasks);
+    }
+
+    public long getMaxWaitMicros(Channel channel) {
+        return TimeUnit.NANOSECONDS.toMicros(stats.get(channel).maxWaitNanos.get());
+    }
+
+    public long getRejected(Channel channel) {
+        return stats.get(channel).rejected.get();
+    }
+
+    public long getDroppedSessions(Channel channel) {
+        return stats.get(channel).droppedSessions.get();
+    }
+
+    private ThreadPoolExecutor poolOf(Channel channel) {
+        ThreadPoolTaskExecutor executor = executors.get(channel);
+        if (executor == null) return null;
+        try {
+            return executor.getThreadPoolExecutor();
+        } catch (IllegalStateException e) {
+            // Not initialized yet (or the broker channel is running synchronously)
+            return null;
+        }
+    }
+
+    private String describe(Channel channel) {
+        return String.format("%s{queue=%d, active=%d, tasks=%d, wait avg=%dus max=%dus, run avg=%dus, rejected=%d, dropped sessions=%d}",
+                channel.name().toLowerCase(), getQueueDepth(channel), getActiveThreads(channel), getTasks(channel),
+                getAverageWaitMicros(channel), getMaxWaitMicros(channel), getAverageRunMicros(channel),
+                getRejected(channel), getDroppedSessions(channel));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("StompChannelMetrics[");
+        for (Channel channel : Channel.values()) {
+            if (channel != Channel.INBOUND) sb.append(", ");
+            sb.append(describe(channel));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Counters for one channel.
+     */
+    private static class ChannelStats {
+        final AtomicLong tasks = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong totalRunNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+        final AtomicLong windowMaxWaitNanos = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong droppedSessions = new AtomicLong();
+
+        void recordTask(long waitNanos, long runNanos) {
+            tasks.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            totalRunNanos.addAndGet(runNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+            windowMaxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.typinggame.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in CBOR frames for STOMP clients.
+ *
+ * A client that sends "content-type: application/cbor" on CONNECT gets every
+ * JSON MESSAGE body (PLAYER_UPDATE, START, FINISH, ...) re-encoded as CBOR
+ * on the way out; everyone else keeps getting JSON. The broker fans the same
+ * payload array out to every subscriber, so each payload is transcoded once
+ * and the result shared by all CBOR sessions.
+ *
+ * Spring only sends a binary WebSocket frame for application/octet-stream
+ * bodies, so CBOR frames go out as "application/octet-stream;format=cbor".
+ * SockJS can't carry binary frames, so SockJS sessions always stay on JSON.
+ */
+@Component
+public class StompEncodingNegotiator {
+
+    public static final MimeType CBOR = new MimeType("application", "cbor");
+    public static final MimeType CBOR_FRAME = new MimeType("application", "octet-stream", Map.of("format", "cbor"));
+
+    // Session attribute set by the SockJS endpoint's handshake interceptor
+    public static final String SOCKJS_ATTRIBUTE = "typinggame.sockjs";
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+
+    // Keyed by payload identity (arrays don't override equals) and dropped once the broker lets go
+    private final Map<byte[], byte[]> transcoded = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final AtomicLong transcodes = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    /**
+     * Reads the encoding choice on CONNECT and forgets it on DISCONNECT.
+     */
+    public ChannelInterceptor inboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+                if (type == SimpMessageType.CONNECT) {
+                    onConnect(message);
+                } else if (type == SimpMessageType.DISCONNECT) {
+                    String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                    if (sessionId != null) {
+                        cborSessions.remove(sessionId);
+                    }
+                }
+                return message;
+            }
+        };
+    }
+
+    /**
+     * Re-encodes JSON MESSAGE bodies for CBOR sessions.
+     */
+    public ChannelInterceptor outboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                return toClientEncoding(message);
+            }
+        };
+    }
+
+    /**
+     * Marks sessions opened through the SockJS endpoint.
+     */
+    public HandshakeInterceptor sockJsMarker() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                    WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(SOCKJS_ATTRIBUTE, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                    WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
+    void onConnect(Message<?> message) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        String requested = accessor.getFirstNativeHeader("content-type");
+        if (requested == null || accessor.getSessionId() == null) {
+            return;
+        }
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        boolean sockJs = attributes != null && Boolean.TRUE.equals(attributes.get(SOCKJS_ATTRIBUTE));
+        if (!sockJs && CBOR.isCompatibleWith(MimeTypeUtils.parseMimeType(requested))) {
+            cborSessions.add(accessor.getSessionId());
+        }
+    }
+
+    Message<?> toClientEncoding(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        if (cborSessions.isEmpty()
+                || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] json)
+                || !cborSessions.contains(SimpMessageHeaderAccessor.getSessionId(headers))) {
+            return message;
+        }
+
+        MimeType contentType = contentTypeOf(headers);
+        if (contentType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+
+        byte[] cbor = transcoded.get(json);
+        if (cbor == null) {
+            cbor = jsonToCbor(json);
+            transcoded.put(json, cbor);
+            transcodes.incrementAndGet();
+        } else {
+            cacheHits.incrementAndGet();
+        }
+
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        accessor.setContentType(CBOR_FRAME);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    private static MimeType contentTypeOf(MessageHeaders headers) {
+        Object value = headers.get(MessageHeaders.CONTENT_TYPE);
+        if (value instanceof MimeType mimeType) return mimeType;
+        if (value instanceof String text) return MimeTypeUtils.parseMimeType(text);
+        return null;
+    }
+
+    /**
+     * Streaming JSON to CBOR copy; no object tree in between.
+     */
+    static byte[] jsonToCbor(byte[] json) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(json.length);
+        try (JsonParser parser = JSON.createParser(json);
+             JsonGenerator generator = CBOR_FACTORY.createGenerator(buffer)) {
+            while (parser.nextToken() != null) {
+                generator.copyCurrentEvent(parser);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public boolean isCborSession(String sessionId) {
+        return cborSessions.contains(sessionId);
+    }
+
+    public int getCborSessionCount() {
+        return cborSessions.size();
+    }
+
+    public long getTranscodes() {
+        return transcodes.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+}
@@ -0,0 +1,125 @@
+package com.typinggame.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.typinggame.websocket.GameWebSocketController.ChatMessage;
+import com.typinggame.websocket.GameWebSocketController.FocusedPlayerUpdateMessage;
+import com.typinggame.websocket.GameWebSocketController.PlayerUpdateMessage;
+import com.typinggame.websocket.GameWebSocketController.RoomDeltaMessage;
+import com.typinggame.websocket.GameWebSocketController.RoomRedirectMessage;
+import com.typinggame.websocket.GameWebSocketController.RoomSnapshotMessage;
+import com.typinggame.websocket.GameWebSocketController.RoomSummaryMessage;
+import com.typinggame.websocket.StompPayloads.ChatPayload;
+import com.typinggame.websocket.StompPayloads.FinishPayload;
+import com.typinggame.websocket.StompPayloads.JoinPayload;
+import com.typinggame.websocket.StompPayloads.ProgressPayload;
+import com.typinggame.websocket.StompPayloads.SyncPayload;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * STOMP converter for the game's own payload types (JSON, or CBOR via cbor()).
+ *
+ * Readers and writers are built once per type up front, so a frame goes
+ * straight to or from its class without a per-message lookup or an
+ * intermediate Map. Validation failures in the StompPayloads records are
+ * reported as MessageConversionException, and the frame is dropped before
+ * any handler runs. Everything else falls through to Spring's defaults.
+ */
+public class StompPayloadConverter extends AbstractMessageConverter {
+
+    private final Map<Class<?>, ObjectReader> readers;
+    private final Map<Class<?>, ObjectWriter> writers;
+
+    /**
+     * JSON frames (the default for every client).
+     */
+    public StompPayloadConverter() {
+        this(new ObjectMapper(), MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    /**
+     * Same payload types in CBOR, for clients that send application/cbor bodies.
+     */
+    public static StompPayloadConverter cbor() {
+        return new StompPayloadConverter(new CBORMapper(), StompEncodingNegotiator.CBOR);
+    }
+
+    private StompPayloadConverter(ObjectMapper mapper, MimeType mimeType) {
+        super(mimeType);
+
+        // Clients may send extra fields (e.g. timestamps); they are ignored
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        this.readers = Map.of(
+                JoinPayload.class, mapper.readerFor(JoinPayload.class),
+                ProgressPayload.class, mapper.readerFor(ProgressPayload.class),
+                FinishPayload.class, mapper.readerFor(FinishPayload.class),
+                ChatPayload.class, mapper.readerFor(ChatPayload.class),
+                SyncPayload.class, mapper.readerFor(SyncPayload.class));
+
+        this.writers = Map.of(
+                PlayerUpdateMessage.class, mapper.writerFor(PlayerUpdateMessage.class),
+                FocusedPlayerUpdateMessage.class, mapper.writerFor(FocusedPlayerUpdateMessage.class),
+                RoomSummaryMessage.class, mapper.writerFor(RoomSummaryMessage.class),
+                RoomRedirectMessage.class, mapper.writerFor(RoomRedirectMessage.class),
+                RoomSnapshotMessage.class, mapper.writerFor(RoomSnapshotMessage.class),
+                RoomDeltaMessage.class, mapper.writerFor(RoomDeltaMessage.class),
+                ChatMessage.class, mapper.writerFor(ChatMessage.class));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return readers.containsKey(clazz) || writers.containsKey(clazz);
+    }
+
+    @Override
+    protected boolean canConvertFrom(Message<?> message, Class<?> targetClass) {
+        return readers.containsKey(targetClass) && super.canConvertFrom(message, targetClass);
+    }
+
+    @Override
+    protected boolean canConvertTo(Object payload, MessageHeaders headers) {
+        return writers.containsKey(payload.getClass()) && super.canConvertTo(payload, headers);
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        ObjectReader reader = readers.get(targetClass);
+        Object payload = message.getPayload();
+        try {
+            return payload instanceof byte[] bytes
+                    ? reader.readValue(bytes)
+                    : reader.readValue(payload.toString());
+        } catch (ValueInstantiationException e) {
+            // Thrown by a record's validation
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new MessageConversionException(message,
+                    "Invalid " + targetClass.getSimpleName() + ": " + cause.getMessage(), e);
+        } catch (IOException e) {
+            throw new MessageConversionException(message,
+                    "Malformed " + targetClass.getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        try {
+            return writers.get(payload.getClass()).writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Could not write " + payload.getClass().getSimpleName(), e);
+        }
+    }
+}
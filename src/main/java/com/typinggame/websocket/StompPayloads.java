@@ -0,0 +1,105 @@
+package com.typinggame.websocket;
+
+/**
+ * Typed inbound STOMP payloads, one per /app destination.
+ *
+ * Decoded by StompPayloadConverter with a pre-built reader per type, so an
+ * inbound frame becomes one small immutable record instead of a
+ * LinkedHashMap of boxed values. The compact constructors validate, so a
+ * bad frame is rejected at decode and never reaches a handler.
+ */
+public final class StompPayloads {
+
+    public static final int MAX_USERNAME_LENGTH = 64;
+    public static final double MAX_WPM = 400.0;
+
+    private StompPayloads() {
+    }
+
+    /**
+     * /app/join/{roomId}. sessionId is only a fallback when the STOMP session has none.
+     * A reconnecting client sends the room epoch and version it last applied,
+     * so a late join is answered with a delta rather than a full snapshot.
+     */
+    public record JoinPayload(String username, String sessionId, Long epoch, Long version) {
+        public JoinPayload {
+            requireUsername(username);
+            requireVersion(version);
+        }
+    }
+
+    /**
+     * /app/progress/{roomId}
+     */
+    public record ProgressPayload(String username, int progress, double wpm) {
+        public ProgressPayload {
+            requireUsername(username);
+            if (progress < 0 || progress > 100) {
+                throw new IllegalArgumentException("progress must be 0-100: " + progress);
+            }
+            requireWpm(wpm);
+        }
+    }
+
+    /**
+     * /app/finish/{roomId}. Accuracy defaults to 100 when the client leaves it out.
+     */
+    public record FinishPayload(String username, double wpm, Double accuracy, int wordsTyped, long duration) {
+        public FinishPayload {
+            requireUsername(username);
+            requireWpm(wpm);
+            if (accuracy == null) {
+                accuracy = 100.0;
+            } else if (!(accuracy >= 0 && accuracy <= 100)) {
+                throw new IllegalArgumentException("accuracy must be 0-100: " + accuracy);
+            }
+            if (wordsTyped < 0 || duration < 0) {
+                throw new IllegalArgumentException("wordsTyped and duration must not be negative");
+            }
+        }
+    }
+
+    /**
+     * /app/sync/{roomId}. epoch and version are the last room state the client
+     * applied; leave them out to get a full snapshot.
+     */
+    public record SyncPayload(Long epoch, Long version) {
+        public SyncPayload {
+            requireVersion(version);
+        }
+    }
+
+    /**
+     * /app/chat/{roomId}
+     */
+    public record ChatPayload(String sender, String content) {
+        public ChatPayload {
+            requireUsername(sender);
+            if (content == null) {
+                throw new IllegalArgumentException("content is required");
+            }
+        }
+    }
+
+    private static void requireUsername(String username) {
+        if (username == null || username.isBlank()) {
+            throw new IllegalArgumentException("username is required");
+        }
+        if (username.length() > MAX_USERNAME_LENGTH) {
+            throw new IllegalArgumentException("username longer than " + MAX_USERNAME_LENGTH);
+        }
+    }
+
+    private static void requireVersion(Long version) {
+        if (version != null && version < 0) {
+            throw new IllegalArgumentException("version must not be negative: " + version);
+        }
+    }
+
+    private static void requireWpm(double wpm) {
+        // NaN fails both comparisons
+        if (!(wpm >= 0 && wpm <= MAX_WPM)) {
+            throw new IllegalArgumentException("wpm must be 0-" + MAX_WPM + ": " + wpm);
+        }
+    }
+}
@@ -1,83 +1,181 @@
 package com.typinggame.websocket;
 
-import com.typinggame.network.GameSession;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Component;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
- * Manages WebSocket sessions and bridges them to raw Socket GameSession
- * instances.
+ * Registry of multiplayer rooms, shared by STOMP and raw socket players.
+ * Each room is a RoomActor: changes are queued to the room and applied on a
+ * shared pool by one thread at a time, so there is no global lock and a busy
+ * room never stalls the others. Reads return the room's latest immutable
+ * snapshot without waiting.
  * Uses Queue to buffer words being sent to frontend (Req 2).
- * Thread-safe implementation using ConcurrentHashMap.
  */
 @Component
 public class WebSocketSessionManager {
 
-    // Map WebSocket session IDs to GameSession instances
-    private final ConcurrentHashMap<String, GameSession> sessionMap;
+    /**
+     * Told after a room publishes a snapshot containing a player's change.
+     */
+    @FunctionalInterface
+    public interface RoomChangeListener {
+        void onPlayerChanged(String roomId, String username);
+    }
 
-    // Map room IDs to player lists for broadcasting
-    private final ConcurrentHashMap<String, ConcurrentHashMap<String, PlayerInfo>> roomPlayers;
+    /**
+     * Told when a room is dropped, with how many players and buffered words went with it.
+     */
+    @FunctionalInterface
+    public interface RoomRetiredListener {
+        void onRoomRetired(String roomId, int playersReclaimed, int wordsReclaimed);
+    }
 
-    // Queue for buffering words to prevent lag (Req 2)
-    private final ConcurrentHashMap<String, Queue<String>> wordQueues;
+    private final ConcurrentHashMap<String, RoomActor> rooms = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<RoomChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<RoomRetiredListener> retiredListeners = new CopyOnWriteArrayList<>();
 
-    // Per-room state (started/text/winner)
-    private final ConcurrentHashMap<String, RoomState> roomStates;
+    // Reverse index: STOMP session id -> (room id -> username) for O(1) disconnect cleanup
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, String>> sessionRooms = new ConcurrentHashMap<>();
+    private final ExecutorService roomExecutor;
+    // Incarnation ids for room actors; increasing, and seeded from the clock so a restart doesn't reuse them
+    private final AtomicLong roomEpochs = new AtomicLong(System.currentTimeMillis());
 
     public WebSocketSessionManager() {
-        this.sessionMap = new ConcurrentHashMap<>();
-        this.roomPlayers = new ConcurrentHashMap<>();
-        this.wordQueues = new ConcurrentHashMap<>();
-        this.roomStates = new ConcurrentHashMap<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.roomExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "RoomActor-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        roomExecutor.shutdownNow();
+    }
+
+    public void addRoomChangeListener(RoomChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void addRoomRetiredListener(RoomRetiredListener listener) {
+        retiredListeners.add(listener);
     }
 
     /**
-     * Add player to a room.
+     * Add a STOMP player to a room.
      */
-    public synchronized void addPlayerToRoom(String roomId, String username, String sessionId) {
-        roomPlayers.putIfAbsent(roomId, new ConcurrentHashMap<>());
-        ConcurrentHashMap<String, PlayerInfo> players = roomPlayers.get(roomId);
-
-        PlayerInfo playerInfo = new PlayerInfo(username, sessionId);
-        players.put(username, playerInfo);
+    public void addPlayerToRoom(String roomId, String username, String sessionId) {
+        addPlayerToRoom(roomId, username, sessionId, Transport.STOMP);
+    }
 
-        System.out.println("[WebSocketSessionManager] Player " + username + " joined room " + roomId);
+    /**
+     * Add a player on either transport to a room.
+     */
+    public void addPlayerToRoom(String roomId, String username, String sessionId, Transport transport) {
+        if (sessionId != null) {
+            sessionRooms.computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>()).put(roomId, username);
+        }
+        actorFor(roomId).addPlayer(username, sessionId, transport);
+    }
 
-        // Ensure room state exists
-        roomStates.putIfAbsent(roomId, new RoomState());
+    /**
+     * Remove player from a room. The room is dropped once it is empty.
+     */
+    public void removePlayerFromRoom(String roomId, String username) {
+        RoomActor actor = rooms.get(roomId);
+        if (actor != null) {
+            actor.removePlayer(username);
+        }
     }
 
     /**
-     * Remove player from a room.
+     * Remove a disconnected session (STOMP or raw socket) from every room it joined.
+     * @return number of room memberships released.
      */
-    public synchronized void removePlayerFromRoom(String roomId, String username) {
-        ConcurrentHashMap<String, PlayerInfo> players = roomPlayers.get(roomId);
-        if (players != null) {
-            players.remove(username);
-            if (players.isEmpty()) {
-                roomPlayers.remove(roomId);
-                wordQueues.remove(roomId);
-                roomStates.remove(roomId);
+    public int removeSession(String sessionId) {
+        if (sessionId == null) return 0;
+
+        Map<String, String> memberships = sessionRooms.remove(sessionId);
+        if (memberships == null) return 0;
+
+        for (Map.Entry<String, String> membership : memberships.entrySet()) {
+            RoomActor actor = rooms.get(membership.getKey());
+            if (actor != null) {
+                actor.removeSession(membership.getValue(), sessionId);
             }
         }
+        return memberships.size();
     }
 
-    public RoomState getRoomState(String roomId) {
-        roomStates.putIfAbsent(roomId, new RoomState());
-        return roomStates.get(roomId);
+    /**
+     * Reclaim rooms that finished more than finishedTtlMs ago or have been idle
+     * for abandonedTtlMs. Each room decides on its own actor, so a room that
+     * just got a new player is left alone.
+     * @return futures completing with whether each room was reclaimed.
+     */
+    public List<CompletableFuture<Boolean>> expireIdleRooms(long now, long finishedTtlMs, long abandonedTtlMs) {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (RoomActor actor : rooms.values()) {
+            results.add(actor.expireIfIdle(now, finishedTtlMs, abandonedTtlMs));
+        }
+        return results;
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
     }
 
-    public synchronized void markRoomStarted(String roomId, String text) {
-        RoomState state = getRoomState(roomId);
-        if (!state.started) {
-            state.started = true;
-            state.text = text;
-            state.startTimestamp = System.currentTimeMillis();
+    public int getPlayerCount() {
+        int players = 0;
+        for (RoomActor actor : rooms.values()) {
+            players += actor.snapshot().players.length;
         }
+        return players;
+    }
+
+    public int getIndexedSessionCount() {
+        return sessionRooms.size();
+    }
+
+    /**
+     * Latest immutable snapshot of a room (an empty one if the room doesn't exist).
+     */
+    public RoomState getRoomState(String roomId) {
+        RoomActor actor = rooms.get(roomId);
+        return actor != null ? actor.snapshot() : RoomState.EMPTY;
+    }
+
+    /**
+     * Start the room if it has at least minPlayers and hasn't started yet.
+     * The text supplier only runs for the call that actually starts it.
+     * @return the race text if this call started the room, otherwise null.
+     */
+    public CompletableFuture<String> startRoomIfReady(String roomId, int minPlayers,
+            Supplier<String> textSupplier) {
+        return actorFor(roomId).startIfReady(minPlayers, textSupplier);
+    }
+
+    /**
+     * Whether the room had started once everything already sent to it was
+     * applied; asked right after a join, it tells a late joiner from one who
+     * will get the START with everyone else.
+     */
+    public CompletableFuture<Boolean> wasStartedBefore(String roomId) {
+        return actorFor(roomId).isStarted();
     }
 
     public boolean isRoomStarted(String roomId) {
@@ -89,15 +187,12 @@ public class WebSocketSessionManager {
     }
 
     /**
-     * Set winner only if none exists.
-     * @return winner username after attempt.
+     * Claim the win for a player who reached 100%; only the first claim counts.
+     * The winner is marked FINISHED in the same step.
+     * @return winner username after the attempt.
      */
-    public synchronized String setWinnerIfAbsent(String roomId, String winnerUsername) {
-        RoomState state = getRoomState(roomId);
-        if (state.winner == null) {
-            state.winner = winnerUsername;
-        }
-        return state.winner;
+    public CompletableFuture<String> claimWinner(String roomId, String username, double wpm) {
+        return actorFor(roomId).claimWinner(username, wpm);
     }
 
     public String getWinner(String roomId) {
@@ -107,14 +202,11 @@ public class WebSocketSessionManager {
     /**
      * Update player progress.
      */
-    public synchronized void updatePlayerProgress(String roomId, String username,
+    public void updatePlayerProgress(String roomId, String username,
             int progress, double wpm, String status) {
-        ConcurrentHashMap<String, PlayerInfo> players = roomPlayers.get(roomId);
-        if (players != null && players.containsKey(username)) {
-            PlayerInfo player = players.get(username);
-            player.progress = progress;
-            player.wpm = wpm;
-            player.status = status;
+        RoomActor actor = rooms.get(roomId);
+        if (actor != null) {
+            actor.updateProgress(username, progress, wpm, status);
         }
     }
 
@@ -124,107 +216,214 @@ public class WebSocketSessionManager {
      * 0, "wpm": 0, "status": "ACTIVE" }]
      */
     public PlayerInfo[] getPlayersInRoom(String roomId) {
-        ConcurrentHashMap<String, PlayerInfo> players = roomPlayers.get(roomId);
-        if (players == null || players.isEmpty()) {
-            return new PlayerInfo[0];
-        }
-        return players.values().toArray(new PlayerInfo[0]);
+        return getRoomState(roomId).getPlayers();
     }
 
     /**
-     * Initialize word queue for a room.
+     * Add words to queue for buffering (Req 2).
      */
-    public void initializeWordQueue(String roomId) {
-        wordQueues.putIfAbsent(roomId, new LinkedList<>());
+    public void addWordsToQueue(String roomId, String... words) {
+        actorFor(roomId).addWords(words);
     }
 
     /**
-     * Add words to queue for buffering (Req 2).
+     * Get next word from queue (null when empty).
      */
-    public synchronized void addWordsToQueue(String roomId, String... words) {
-        Queue<String> queue = wordQueues.get(roomId);
-        if (queue != null) {
-            for (String word : words) {
-                queue.offer(word);
-            }
-        }
+    public CompletableFuture<String> getNextWord(String roomId) {
+        RoomActor actor = rooms.get(roomId);
+        return actor != null ? actor.pollWord() : CompletableFuture.completedFuture(null);
     }
 
     /**
-     * Get next word from queue.
+     * Check if room has players.
      */
-    public synchronized String getNextWord(String roomId) {
-        Queue<String> queue = wordQueues.get(roomId);
-        return (queue != null) ? queue.poll() : null;
+    public boolean hasPlayers(String roomId) {
+        return getRoomState(roomId).players.length > 0;
+    }
+
+    RoomActor actorFor(String roomId) {
+        return rooms.computeIfAbsent(roomId, id -> new RoomActor(id, roomExecutor, this));
+    }
+
+    long nextRoomEpoch() {
+        return roomEpochs.incrementAndGet();
+    }
+
+    void retire(String roomId, RoomActor actor, int playersReclaimed, int wordsReclaimed) {
+        rooms.remove(roomId, actor);
+        for (RoomRetiredListener listener : retiredListeners) {
+            try {
+                listener.onRoomRetired(roomId, playersReclaimed, wordsReclaimed);
+            } catch (RuntimeException e) {
+                System.err.println("[WebSocketSessionManager] Room listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    void notifyPlayerChanged(String roomId, String username) {
+        for (RoomChangeListener listener : listeners) {
+            try {
+                listener.onPlayerChanged(roomId, username);
+            } catch (RuntimeException e) {
+                System.err.println("[WebSocketSessionManager] Room listener failed: " + e.getMessage());
+            }
+        }
     }
 
     /**
-     * Check if room has players.
+     * How a player is connected. Rooms mix both.
      */
-    public boolean hasPlayers(String roomId) {
-        ConcurrentHashMap<String, PlayerInfo> players = roomPlayers.get(roomId);
-        return players != null && !players.isEmpty();
+    public enum Transport {
+        STOMP,
+        SOCKET
     }
 
     /**
-     * Internal per-room state.
+     * Immutable per-room snapshot (started/text/winner/players).
+     *
+     * Every published snapshot gets the next version, and each player and
+     * removal is stamped with the version it first appeared in, so a client
+     * that has seen version v can be sent only what changed after v.
+     *
+     * Versions restart at 0 when a retired room id is used again, so each
+     * room actor also has its own epoch; a version only means something
+     * together with the epoch it came from.
      */
     public static class RoomState {
-        public boolean started = false;
-        public String text = null;
-        public long startTimestamp = 0L;
-        public String winner = null;
+        static final RoomState EMPTY = new RoomState(false, null, 0L, null, new PlayerInfo[0],
+                0L, 0L, 0L, 0L, Map.of());
+
+        public final boolean started;
+        public final String text;
+        public final long startTimestamp;
+        public final String winner;
+        public final long epoch;
+        public final long version;
+        private final PlayerInfo[] players;
+        // Version the room started in; earlier clients lack the text
+        private final long startVersion;
+        // Oldest version whose removals are all still in removed
+        private final long deltaFloor;
+        private final Map<String, Long> removed;
+
+        RoomState(boolean started, String text, long startTimestamp, String winner, PlayerInfo[] players,
+                long epoch, long version, long startVersion, long deltaFloor, Map<String, Long> removed) {
+            this.started = started;
+            this.text = text;
+            this.startTimestamp = startTimestamp;
+            this.winner = winner;
+            this.players = players;
+            this.epoch = epoch;
+            this.version = version;
+            this.startVersion = startVersion;
+            this.deltaFloor = deltaFloor;
+            this.removed = removed;
+        }
+
+        /**
+         * Players in join order. A copy, so callers may sort it.
+         */
+        public PlayerInfo[] getPlayers() {
+            return players.clone();
+        }
+
+        /**
+         * True if a client at sinceVersion of sinceEpoch can catch up from
+         * changes alone (same room incarnation, it has the race text, and no
+         * removal it hasn't seen was forgotten).
+         */
+        public boolean canDeltaFrom(long sinceEpoch, long sinceVersion) {
+            return sinceEpoch == epoch
+                    && sinceVersion <= version && sinceVersion >= deltaFloor && sinceVersion >= startVersion;
+        }
+
+        /**
+         * Players whose entry changed after sinceVersion.
+         */
+        public PlayerInfo[] playersChangedSince(long sinceVersion) {
+            List<PlayerInfo> changed = new ArrayList<>();
+            for (PlayerInfo player : players) {
+                if (player.version > sinceVersion) {
+                    changed.add(player);
+                }
+            }
+            return changed.toArray(new PlayerInfo[0]);
+        }
+
+        /**
+         * Players who left after sinceVersion.
+         */
+        public String[] removedSince(long sinceVersion) {
+            List<String> left = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : removed.entrySet()) {
+                if (entry.getValue() > sinceVersion) {
+                    left.add(entry.getKey());
+                }
+            }
+            return left.toArray(new String[0]);
+        }
     }
 
     /**
-     * Player information class for JSON serialization.
+     * Immutable player information for JSON serialization.
+     * Progress changes replace the whole object, so a snapshot never changes
+     * under a reader.
      */
     public static class PlayerInfo {
-        public String username;
-        public String sessionId;
-        public int progress;
-        public double wpm;
-        public String status;
+        public final String username;
+        @JsonIgnore // STOMP session ids are never sent to other clients
+        public final String sessionId;
+        public final int progress;
+        public final double wpm;
+        public final String status;
+        @JsonIgnore
+        public final Transport transport;
+        @JsonIgnore // Room version this entry last changed in
+        public final long version;
 
         public PlayerInfo(String username, String sessionId) {
+            this(username, sessionId, 0, 0.0, "ACTIVE");
+        }
+
+        public PlayerInfo(String username, String sessionId, int progress, double wpm, String status) {
+            this(username, sessionId, progress, wpm, status, Transport.STOMP);
+        }
+
+        public PlayerInfo(String username, String sessionId, int progress, double wpm, String status,
+                Transport transport) {
+            this(username, sessionId, progress, wpm, status, transport, 0L);
+        }
+
+        PlayerInfo(String username, String sessionId, int progress, double wpm, String status,
+                Transport transport, long version) {
             this.username = username;
             this.sessionId = sessionId;
-            this.progress = 0;
-            this.wpm = 0.0;
-            this.status = "ACTIVE";
+            this.progress = progress;
+            this.wpm = wpm;
+            this.status = status;
+            this.transport = transport;
+            this.version = version;
         }
 
-        // Getters and setters for JSON serialization
-        public String getUsername() {
-            return username;
+        public PlayerInfo withProgress(int progress, double wpm, String status) {
+            return new PlayerInfo(username, sessionId, progress, wpm, status, transport, version);
         }
 
-        public void setUsername(String username) {
-            this.username = username;
+        // Getters for JSON serialization
+        public String getUsername() {
+            return username;
         }
 
         public int getProgress() {
             return progress;
         }
 
-        public void setProgress(int progress) {
-            this.progress = progress;
-        }
-
         public double getWpm() {
             return wpm;
         }
 
-        public void setWpm(double wpm) {
-            this.wpm = wpm;
-        }
-
         public String getStatus() {
             return status;
         }
-
-        public void setStatus(String status) {
-            this.status = status;
-        }
     }
 }
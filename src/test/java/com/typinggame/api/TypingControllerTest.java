@@ -0,0 +1,64 @@
+package com.typinggame.api;
+
+import com.typinggame.leaderboard.PercentileService;
+import com.typinggame.multiplayer.RoomAffinity;
+import com.typinggame.repository.UserRepository;
+import com.typinggame.service.GameRecordIngestor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for saving scores through the REST API.
+ */
+class TypingControllerTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * A user repository with no users that logs which methods were called.
+     */
+    private static UserRepository emptyUsers(List<String> calls) {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    calls.add(method.getName());
+                    return switch (method.getName()) {
+                        case "existsById" -> false;
+                        case "recordGame", "findById" -> Optional.empty();
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+
+    @Test
+    void testUnknownUserGets404AndNothingIsSubmitted() throws Exception {
+        List<String> calls = new ArrayList<>();
+        // Never started, so nothing is written; only the submit count matters
+        GameRecordIngestor ingestor = new GameRecordIngestor(null, 10, 200, 100, 0, 1);
+        PercentileService percentiles = new PercentileService(new RoomAffinity("local", ""),
+                dir.resolve("percentiles.bin").toString(), 0);
+        TypingController controller = new TypingController(null, null, null, null,
+                emptyUsers(calls), ingestor, null, percentiles);
+
+        ResponseEntity<Map<String, Object>> response = controller.saveScore(Map.of(
+                "username", "ghost", "userId", "no-such-user", "mode", "PRACTICE",
+                "wpm", 72.5, "accuracy", 96.0, "wordsTyped", 40, "duration", 30000L, "isWin", false));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(false, response.getBody().get("success"));
+        assertEquals(0, ingestor.getSubmitted(), "no orphan record for an unknown user");
+        assertEquals(0, ingestor.getPending());
+        assertFalse(calls.contains("recordGame"), "stats must not be touched");
+    }
+}
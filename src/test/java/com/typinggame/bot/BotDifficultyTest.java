@@ -0,0 +1,43 @@
+package com.typinggame.bot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for picking a bot difficulty from a player's average WPM.
+ */
+class BotDifficultyTest {
+
+    @Test
+    void testNoHistoryGetsMedium() {
+        assertEquals(BotDifficulty.MEDIUM, BotDifficulty.forAverageWPM(0));
+        assertEquals(BotDifficulty.MEDIUM, BotDifficulty.forAverageWPM(-12.5));
+        assertEquals(BotDifficulty.MEDIUM, BotDifficulty.forAverageWPM(Double.NaN));
+    }
+
+    @Test
+    void testClosestTargetWins() {
+        assertEquals(BotDifficulty.EASY, BotDifficulty.forAverageWPM(0.1));
+        assertEquals(BotDifficulty.EASY, BotDifficulty.forAverageWPM(30));
+        assertEquals(BotDifficulty.MEDIUM, BotDifficulty.forAverageWPM(50));
+        assertEquals(BotDifficulty.HARD, BotDifficulty.forAverageWPM(70));
+        assertEquals(BotDifficulty.EXPERT, BotDifficulty.forAverageWPM(90));
+        assertEquals(BotDifficulty.EXPERT, BotDifficulty.forAverageWPM(250));
+    }
+
+    @Test
+    void testBoundariesBetweenLevels() {
+        assertEquals(BotDifficulty.EASY, BotDifficulty.forAverageWPM(39.9));
+        assertEquals(BotDifficulty.MEDIUM, BotDifficulty.forAverageWPM(40.1));
+        assertEquals(BotDifficulty.MEDIUM, BotDifficulty.forAverageWPM(59.9));
+        assertEquals(BotDifficulty.HARD, BotDifficulty.forAverageWPM(60.1));
+        assertEquals(BotDifficulty.HARD, BotDifficulty.forAverageWPM(79.9));
+        assertEquals(BotDifficulty.EXPERT, BotDifficulty.forAverageWPM(80.1));
+
+        // Exactly halfway: the easier of the two
+        assertEquals(BotDifficulty.EASY, BotDifficulty.forAverageWPM(40));
+        assertEquals(BotDifficulty.MEDIUM, BotDifficulty.forAverageWPM(60));
+        assertEquals(BotDifficulty.HARD, BotDifficulty.forAverageWPM(80));
+    }
+}
@@ -0,0 +1,165 @@
+package com.typinggame.io;
+
+import com.typinggame.io.UserStats.GameRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for streaming history exports out of the score log.
+ */
+class HistoryExporterTest {
+
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @TempDir
+    Path dir;
+
+    private static GameRecord game(int i) {
+        return new GameRecord(40 + i * 1.125, 90.0 + (i % 10) * 0.995, 25 + i, 30_000 + i * 7,
+                i % 2 == 0 ? "classic" : "multiplayer", 1_700_000_000_000L + i * DAY / 2);
+    }
+
+    private static List<GameRecord> appendGames(ScoreLog log, String username, int count) throws IOException {
+        List<GameRecord> games = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            games.add(game(i));
+        }
+        log.appendAll(username, games);
+        return games;
+    }
+
+    private static String export(HistoryExporter exporter, HistoryExporter.Format format,
+            HistoryExporter.Filter filter, long limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export("alice", format, filter, limit, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testCsvAndJsonLinesWithFilters() throws IOException {
+        try (ScoreLog log = new ScoreLog(dir, 0, 16, 100)) {
+            List<GameRecord> games = appendGames(log, "alice", 40);
+            HistoryExporter exporter = new HistoryExporter(log, UTC);
+
+            String[] csv = export(exporter, HistoryExporter.Format.CSV, HistoryExporter.Filter.ALL, 40).split("\n");
+            assertEquals(41, csv.length);
+            assertEquals(HistoryExporter.CSV_HEADER, csv[0]);
+            GameRecord third = games.get(2);
+            assertEquals(third.getTimestamp() + ",2023-11-15T22:13:20Z,classic," + third.getWpm() + ","
+                    + third.getAccuracy() + ",27,30014", csv[3]);
+
+            // Mode filter is case-insensitive; the date window is [from, to)
+            long from = games.get(10).getTimestamp();
+            long to = games.get(20).getTimestamp();
+            String[] jsonl = export(exporter, HistoryExporter.Format.JSONL,
+                    new HistoryExporter.Filter("MULTIPLAYER", from, to), 40).split("\n");
+            assertEquals(5, jsonl.length);
+            GameRecord eleventh = games.get(11);
+            assertEquals("{\"timestamp\":" + eleventh.getTimestamp() + ",\"date\":\"2023-11-20T10:13:20Z\""
+                    + ",\"mode\":\"multiplayer\",\"wpm\":" + eleventh.getWpm() + ",\"accuracy\":"
+                    + eleventh.getAccuracy() + ",\"words\":36,\"durationMs\":30077}", jsonl[0]);
+            assertTrue(Arrays.stream(jsonl).allMatch(line -> line.contains("\"multiplayer\"")));
+        }
+    }
+
+    @Test
+    void testTextMatchesMatchHistoryLayout() throws IOException {
+        try (ScoreLog log = new ScoreLog(dir, 0, 16, 100)) {
+            List<GameRecord> games = appendGames(log, "alice", 25);
+            HistoryExporter exporter = new HistoryExporter(log, UTC);
+            String text = export(exporter, HistoryExporter.Format.TEXT, HistoryExporter.Filter.ALL, 25);
+
+            // The layout exportFullHistory wrote with String.format
+            UserStats stats = new UserStats("alice");
+            games.forEach(stats::addGameRecord);
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            dateFormat.setTimeZone(TimeZone.getTimeZone(UTC));
+            StringBuilder expected = new StringBuilder();
+            expected.append("╔").append("═".repeat(58)).append("╗\n")
+                    .append("║").append(" ".repeat(16)).append("TYPING GAME MATCH HISTORY")
+                    .append(" ".repeat(17)).append("║\n")
+                    .append("╠").append("═".repeat(58)).append("╣\n")
+                    .append("║ Player: ").append(String.format("%-47s", "alice")).append("║\n")
+                    .append("║ Total Games: ").append(String.format("%-43d", 25)).append("║\n")
+                    .append("║ Best WPM: ").append(String.format("%-46.2f", stats.getBestWPM())).append("║\n")
+                    .append("║ Average WPM: ").append(String.format("%-43.2f", stats.getAverageWPM())).append("║\n")
+                    .append("║ Best Accuracy: ").append(String.format("%-40.2f%%", stats.getBestAccuracy())).append("║\n")
+                    .append("║ Average Accuracy: ").append(String.format("%-37.2f%%", stats.getAverageAccuracy()))
+                    .append("║\n")
+                    .append("╚").append("═".repeat(58)).append("╝\n\n");
+            for (int i = 0; i < games.size(); i++) {
+                GameRecord game = games.get(i);
+                expected.append(String.format("Game #%d - %s\n", i + 1, dateFormat.format(new Date(game.getTimestamp()))))
+                        .append("-".repeat(60)).append("\n")
+                        .append(String.format("  Mode: %s\n", game.getGameMode()))
+                        .append(String.format("  WPM: %.2f | Accuracy: %.2f%% | Words: %d | Time: %.2fs\n",
+                                game.getWpm(), game.getAccuracy(), game.getWordsTyped(), game.getDuration() / 1000.0))
+                        .append("\n");
+            }
+            assertEquals(expected.toString(), text);
+        }
+    }
+
+    @Test
+    void testRangesReassembleThePinnedExport() throws IOException {
+        try (ScoreLog log = new ScoreLog(dir, 0, 16, 100)) {
+            appendGames(log, "alice", 60);
+            HistoryExporter exporter = new HistoryExporter(log, UTC);
+            byte[] full = export(exporter, HistoryExporter.Format.TEXT, HistoryExporter.Filter.ALL, 60)
+                    .getBytes(StandardCharsets.UTF_8);
+            assertEquals(full.length,
+                    exporter.contentLength("alice", HistoryExporter.Format.TEXT, HistoryExporter.Filter.ALL, 60));
+
+            // Games logged after the download started do not change the pinned export
+            log.append("alice", game(60));
+            ByteArrayOutputStream resumed = new ByteArrayOutputStream();
+            for (long first = 0; first < full.length; first += 1_000) {
+                long last = Math.min(full.length, first + 1_000) - 1;
+                exporter.exportRange("alice", HistoryExporter.Format.TEXT, HistoryExporter.Filter.ALL, 60,
+                        first, last, resumed);
+            }
+            assertArrayEquals(full, resumed.toByteArray());
+
+            ByteArrayOutputStream tail = new ByteArrayOutputStream();
+            exporter.exportRange("alice", HistoryExporter.Format.TEXT, HistoryExporter.Filter.ALL, 60,
+                    full.length - 10, full.length - 1, tail);
+            assertArrayEquals(Arrays.copyOfRange(full, full.length - 10, full.length), tail.toByteArray());
+        }
+    }
+
+    @Test
+    void testLargeExportStreams() throws IOException {
+        int count = 200_000;
+        try (ScoreLog log = new ScoreLog(dir, 0, 4096, 100)) {
+            List<GameRecord> batch = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                batch.add(game(i));
+                if (batch.size() == 10_000) {
+                    log.appendAll("alice", batch);
+                    batch.clear();
+                }
+            }
+            HistoryExporter exporter = new HistoryExporter(log, UTC);
+
+            long written = exporter.export("alice", HistoryExporter.Format.CSV, HistoryExporter.Filter.ALL, count,
+                    OutputStream.nullOutputStream());
+            assertEquals(count, written);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.typinggame.io;
+
+import com.typinggame.io.UserStats.GameRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the per-user append-only score log.
+ */
+class ScoreLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static GameRecord game(int i) {
+        return new GameRecord(40 + i, 90.0, 25, 30_000 + i, i % 2 == 0 ? "classic" : "multiplayer", 1_000_000L + i);
+    }
+
+    private static long segmentFiles(Path userDir) throws IOException {
+        try (Stream<Path> files = Files.list(userDir)) {
+            return files.filter(f -> f.toString().endsWith(".seg")).count();
+        }
+    }
+
+    @Test
+    void testAppendAndReadLastAcrossSegments() throws IOException {
+        try (ScoreLog log = new ScoreLog(dir, 0, 8, 100)) {
+            for (int i = 0; i < 20; i++) {
+                log.append("alice", game(i));
+            }
+
+            assertEquals(20, log.count("alice"));
+            List<GameRecord> last = log.readLast("alice", 10);
+            assertEquals(10, last.size());
+            for (int i = 0; i < 10; i++) {
+                GameRecord record = last.get(i);
+                assertEquals(50 + i, record.getWpm());
+                assertEquals(1_000_010L + i, record.getTimestamp());
+                assertEquals(30_010L + i, record.getDuration());
+                assertEquals(i % 2 == 0 ? "classic" : "multiplayer", record.getGameMode());
+            }
+            assertEquals(20, log.readLast("alice", 500).size());
+            assertEquals(3, segmentFiles(dir.resolve(ScoreLog.userKey("alice"))));
+
+            // A batch that spills over two segment boundaries
+            List<GameRecord> batch = new ArrayList<>();
+            for (int i = 20; i < 37; i++) {
+                batch.add(game(i));
+            }
+            log.appendAll("alice", batch);
+            List<GameRecord> all = new ArrayList<>();
+            log.forEach("alice", all::add);
+            assertEquals(37, all.size());
+            for (int i = 0; i < all.size(); i++) {
+                assertEquals(1_000_000L + i, all.get(i).getTimestamp());
+            }
+            assertEquals(5, segmentFiles(dir.resolve(ScoreLog.userKey("alice"))));
+        }
+    }
+
+    @Test
+    void testUsersAreIsolatedAndSurviveReopen() throws IOException {
+        try (ScoreLog log = new ScoreLog(dir, 0, 8, 100)) {
+            log.append("alice", game(1));
+            log.append("bob", game(2));
+            log.append("alice", game(3));
+        }
+
+        try (ScoreLog log = new ScoreLog(dir, 0, 8, 100)) {
+            assertEquals(2, log.count("alice"));
+            assertEquals(1, log.count("bob"));
+            assertEquals(0, log.count("carol"));
+            assertEquals(43, log.readLast("alice", 1).get(0).getWpm());
+            assertTrue(log.readLast("carol", 5).isEmpty());
+        }
+    }
+
+    @Test
+    void testTornTailIsTruncatedOnReopen() throws IOException {
+        try (ScoreLog log = new ScoreLog(dir, 0, 100, 100)) {
+            for (int i = 0; i < 5; i++) {
+                log.append("alice", game(i));
+            }
+        }
+
+        // Simulate a crash: half a record, and a full-length record whose bytes never all landed
+        Path segment = dir.resolve(ScoreLog.userKey("alice")).resolve("0.seg");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            ByteBuffer unsynced = ScoreLog.encode(game(5));
+            unsynced.put(40, new byte[ScoreLog.RECORD_SIZE - 40]);
+            channel.write(unsynced.rewind(), end);
+            channel.write(ScoreLog.encode(game(6)).limit(ScoreLog.RECORD_SIZE / 2), end + ScoreLog.RECORD_SIZE);
+        }
+
+        try (ScoreLog log = new ScoreLog(dir, 0, 100, 100)) {
+            assertEquals(5, log.count("alice"));
+            assertEquals(2, log.getTruncatedRecords());
+            log.append("alice", game(9));
+            List<GameRecord> all = log.readLast("alice", 10);
+            assertEquals(6, all.size());
+            assertEquals(49, all.get(5).getWpm());
+        }
+        assertEquals(ScoreLog.HEADER_SIZE + 6L * ScoreLog.RECORD_SIZE, Files.size(segment));
+    }
+
+    @Test
+    void testCompactionMergesSealedSegmentsInOrder() throws IOException {
+        Path userDir = dir.resolve(ScoreLog.userKey("alice"));
+        try (ScoreLog log = new ScoreLog(dir, 0, 4, 3)) {
+            for (int i = 0; i < 18; i++) {
+                log.append("alice", game(i));
+            }
+            assertEquals(5, segmentFiles(userDir));
+
+            assertTrue(log.compact("alice"));
+            assertEquals(2, segmentFiles(userDir));
+            assertFalse(log.compact("alice"), "one sealed segment left, nothing to merge");
+
+            // Appends continue in the active segment after the merge
+            log.append("alice", game(18));
+            List<GameRecord> all = new ArrayList<>();
+            log.forEach("alice", all::add);
+            assertEquals(19, all.size());
+            for (int i = 0; i < all.size(); i++) {
+                assertEquals(1_000_000L + i, all.get(i).getTimestamp());
+            }
+            assertEquals(1, log.getCompactions());
+        }
+
+        try (ScoreLog log = new ScoreLog(dir, 0, 4, 3)) {
+            assertEquals(19, log.count("alice"));
+            assertEquals(46, log.readLast("alice", 13).get(0).getWpm());
+        }
+    }
+
+    @Test
+    void testCompactionIsTieredAndLeavesOldMergesAlone() throws IOException {
+        Path userDir = dir.resolve(ScoreLog.userKey("alice"));
+        int games = 256;
+        try (ScoreLog log = new ScoreLog(dir, 0, 2, 2)) {
+            for (int i = 0; i < games; i++) {
+                log.append("alice", game(i));
+                log.compact("alice");
+            }
+
+            // Merging everything into the first segment each pass would copy about games^2 / 4 records
+            assertTrue(log.getCompactedRecords() <= (long) games * 8,
+                    "each game rewritten about log2(segments) times: " + log.getCompactedRecords());
+            assertTrue(segmentFiles(userDir) <= 9, "one sealed segment per tier plus the active one");
+
+            List<GameRecord> all = new ArrayList<>();
+            log.forEach("alice", all::add);
+            assertEquals(games, all.size());
+            for (int i = 0; i < games; i++) {
+                assertEquals(1_000_000L + i, all.get(i).getTimestamp());
+            }
+        }
+
+        try (ScoreLog log = new ScoreLog(dir, 0, 2, 2)) {
+            assertEquals(games, log.count("alice"));
+            assertEquals(1_000_000L + games - 3, log.readLast("alice", 3).get(0).getTimestamp());
+        }
+    }
+
+    @Test
+    void testLongUsernamesGetBoundedDirectoryNames() throws IOException {
+        assertEquals("616c696365", ScoreLog.userKey("alice"));
+        String plain = "p".repeat(120);
+        assertEquals(240, ScoreLog.userKey(plain).length());
+
+        String longName = "\u00e9".repeat(150) + "-one";
+        String otherLong = "\u00e9".repeat(150) + "-two";
+        String key = ScoreLog.userKey(longName);
+        assertTrue(key.length() <= 255, "fits a file name: " + key.length());
+        assertTrue(key.contains("-"));
+        assertNotEquals(key, ScoreLog.userKey(otherLong), "shared prefix, different users");
+
+        try (ScoreLog log = new ScoreLog(dir, 0, 8, 100)) {
+            log.append(longName, game(1));
+            log.append(otherLong, game(2));
+            assertEquals(41, log.readLast(longName, 5).get(0).getWpm());
+            assertEquals(42, log.readLast(otherLong, 5).get(0).getWpm());
+        }
+        assertTrue(Files.isDirectory(dir.resolve(key)));
+    }
+
+    @Test
+    void testRecoveryDropsSegmentsLeftByInterruptedCompaction() throws IOException {
+        Path userDir = dir.resolve(ScoreLog.userKey("alice"));
+        Path leftover = dir.resolve("leftover.seg");
+        try (ScoreLog log = new ScoreLog(dir, 0, 4, 2)) {
+            for (int i = 0; i < 10; i++) {
+                log.append("alice", game(i));
+            }
+            log.flush();
+            // Crash after the merged file replaced 0.seg but before 1.seg was deleted
+            Files.copy(userDir.resolve("1.seg"), leftover);
+            assertTrue(log.compact("alice"));
+        }
+        Files.copy(leftover, userDir.resolve("1.seg"));
+
+        try (ScoreLog log = new ScoreLog(dir, 0, 4, 2)) {
+            List<GameRecord> all = new ArrayList<>();
+            log.forEach("alice", all::add);
+            assertEquals(10, all.size());
+            assertEquals(1_000_009L, all.get(9).getTimestamp());
+        }
+        assertFalse(Files.exists(userDir.resolve("1.seg")));
+    }
+
+    @Test
+    void testRecoverySkipsStraySegmentNames() throws IOException {
+        Path userDir = dir.resolve(ScoreLog.userKey("alice"));
+        try (ScoreLog log = new ScoreLog(dir, 0, 4, 2)) {
+            for (int i = 0; i < 6; i++) {
+                log.append("alice", game(i));
+            }
+        }
+        Path stray = Files.writeString(userDir.resolve("backup.seg"), "not a segment");
+
+        try (ScoreLog log = new ScoreLog(dir, 0, 4, 2)) {
+            assertEquals(6, log.readLast("alice", 10).size());
+            log.append("alice", game(6));
+            assertEquals(1_000_006L, log.readLast("alice", 1).get(0).getTimestamp());
+        }
+        assertTrue(Files.exists(stray), "files that aren't ours are left alone");
+    }
+
+    @Test
+    void testSnapshotReadLeavesAnotherOwnersFilesAlone() throws IOException {
+        Path userDir = dir.resolve(ScoreLog.userKey("alice"));
+        Path leftover = dir.resolve("leftover.seg");
+        try (ScoreLog log = new ScoreLog(dir, 0, 4, 2)) {
+            for (int i = 0; i < 10; i++) {
+                log.append("alice", game(i));
+            }
+            log.flush();
+            Files.copy(userDir.resolve("1.seg"), leftover);
+            assertTrue(log.compact("alice"));
+        }
+        // Mid-compaction state of a log another process owns, plus a record still being written
+        Files.copy(leftover, userDir.resolve("1.seg"));
+        Path temp = Files.createFile(userDir.resolve("0.seg.tmp"));
+        Path active = userDir.resolve("2.seg");
+        try (FileChannel channel = FileChannel.open(active, StandardOpenOption.WRITE)) {
+            channel.write(ScoreLog.encode(game(10)).limit(ScoreLog.RECORD_SIZE / 2), channel.size());
+        }
+        long activeSize = Files.size(active);
+
+        List<GameRecord> last = ScoreLog.readLastSnapshot(dir, "alice", 7);
+        assertEquals(7, last.size());
+        for (int i = 0; i < 7; i++) {
+            assertEquals(1_000_003L + i, last.get(i).getTimestamp());
+        }
+        assertEquals(10, ScoreLog.readLastSnapshot(dir, "alice", 100).size());
+        assertTrue(ScoreLog.readLastSnapshot(dir, "bob", 5).isEmpty());
+
+        assertTrue(Files.exists(temp));
+        assertTrue(Files.exists(userDir.resolve("1.seg")));
+        assertEquals(activeSize, Files.size(active));
+    }
+
+    @Test
+    void testScoreManagerReplaysLogIntoStats() throws IOException {
+        ScoreManager scores = new ScoreManager(dir.toString(), 0);
+        try {
+            scores.recordGame("alice", new GameRecord(60, 95, 30, 30_000, "classic"));
+            scores.recordGame("alice", new GameRecord(80, 85, 40, 30_000, "multiplayer"));
+            scores.recordGame("bob", new GameRecord(30, 70, 10, 30_000, "classic"));
+
+            UserStats alice = scores.loadStats("alice");
+            assertEquals(2, alice.getTotalGamesPlayed());
+            assertEquals(70.0, alice.getAverageWPM(), 1e-9);
+            assertEquals(90.0, alice.getAverageAccuracy(), 1e-9);
+            assertEquals(80.0, alice.getBestWPM());
+            assertEquals(70, alice.getTotalWordsTyped());
+            assertNull(scores.loadStats("carol"));
+            assertEquals(1, scores.recentGames("bob", 20).size());
+        } finally {
+            scores.close();
+        }
+    }
+
+    @Test
+    void testScoreManagerSummaryIsReadFromSideFile() throws IOException {
+        Path summaryFile = dir.resolve(ScoreLog.userKey("alice")).resolve("summary.uss");
+        ScoreManager scores = new ScoreManager(dir.toString(), 0);
+        try {
+            scores.recordGame("alice", new GameRecord(60, 95, 30, 30_000, "classic"));
+            scores.recordGames("alice", List.of(new GameRecord(80, 85, 40, 30_000, "multiplayer"),
+                    new GameRecord(70, 90, 35, 30_000, "classic")));
+
+            UserStats summary = scores.loadSummary("alice");
+            assertTrue(summary.isSummaryOnly());
+            assertEquals(3, summary.getTotalGamesPlayed());
+            assertEquals(70.0, summary.getAverageWPM(), 1e-9);
+            assertEquals(80.0, summary.getBestWPM());
+            assertNull(scores.loadSummary("carol"));
+        } finally {
+            scores.close();
+        }
+
+        // Reads come from the side file, not the log: a planted summary for the same count is returned as-is
+        UserStats planted = UserStats.summaryOnly("alice");
+        planted.addGameRecord(new GameRecord(150, 100, 99, 30_000, "classic"));
+        byte[] encoded = UserStatsCodec.encode(planted);
+        Files.write(summaryFile, ByteBuffer.allocate(Long.BYTES + encoded.length).putLong(3).put(encoded).array());
+        scores = new ScoreManager(dir.toString(), 0);
+        try {
+            assertEquals(150.0, scores.loadSummary("alice").getBestWPM());
+
+            // One that covers a different number of games is rebuilt from the log
+            Files.write(summaryFile, ByteBuffer.allocate(Long.BYTES + encoded.length).putLong(2).put(encoded).array());
+            assertEquals(80.0, scores.loadSummary("alice").getBestWPM());
+            Files.write(summaryFile, new byte[] {1, 2, 3});
+            scores.recordGame("alice", new GameRecord(90, 99, 45, 30_000, "classic"));
+            UserStats summary = scores.loadSummary("alice");
+            assertEquals(4, summary.getTotalGamesPlayed());
+            assertEquals(90.0, summary.getBestWPM());
+        } finally {
+            scores.close();
+        }
+    }
+}
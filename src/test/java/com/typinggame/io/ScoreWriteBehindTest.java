@@ -0,0 +1,177 @@
+package com.typinggame.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for batching, per-user coalescing, flush thresholds and draining of the score write-behind.
+ */
+class ScoreWriteBehindTest {
+
+    /**
+     * Records each ScoreLog write instead of touching disk; can be told to fail.
+     */
+    private static class RecordingScores extends ScoreManager {
+        final List<String> writes = new CopyOnWriteArrayList<>();
+        final Map<String, List<Double>> games = new ConcurrentHashMap<>();
+        final AtomicInteger failuresLeft = new AtomicInteger();
+        final AtomicInteger fsyncs = new AtomicInteger();
+
+        @Override
+        public void recordGames(String username, List<UserStats.GameRecord> records) throws IOException {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IOException("disk full");
+            }
+            writes.add(username);
+            List<Double> wpms = games.computeIfAbsent(username, u -> new CopyOnWriteArrayList<>());
+            records.forEach(r -> wpms.add(r.getWpm()));
+        }
+
+        @Override
+        public void flush() {
+            fsyncs.incrementAndGet();
+        }
+    }
+
+    private final RecordingScores scores = new RecordingScores();
+    private ScoreWriteBehind writer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.stop();
+    }
+
+    private static UserStats.GameRecord game(double wpm) {
+        return new UserStats.GameRecord(wpm, 95, 30, 30_000, "multiplayer");
+    }
+
+    private static void await(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testFullBatchIsWrittenAtOnceAndCoalescedPerUser() throws Exception {
+        writer = new ScoreWriteBehind(scores, 10, 60_000, 100);
+        writer.start();
+
+        for (int i = 0; i < 9; i++) {
+            writer.submit(i % 3 == 0 ? "alice" : "bob", game(i));
+        }
+        Thread.sleep(100);
+        assertTrue(scores.writes.isEmpty(), "below the batch size and the interval nothing is written");
+
+        writer.submit("carol", game(9));
+        await(() -> writer.getWritten() == 10);
+
+        // Ten results, one write per user, one fsync for the batch
+        assertEquals(3, scores.writes.size());
+        assertEquals(3, writer.getUserWrites());
+        assertEquals(1, writer.getBatches());
+        assertEquals(1, scores.fsyncs.get());
+        assertEquals(List.of(0.0, 3.0, 6.0), scores.games.get("alice"));
+        assertEquals(List.of(1.0, 2.0, 4.0, 5.0, 7.0, 8.0), scores.games.get("bob"));
+    }
+
+    @Test
+    void testPartialBatchIsWrittenAfterInterval() throws Exception {
+        writer = new ScoreWriteBehind(scores, 100, 50, 1000);
+        writer.start();
+
+        long start = System.currentTimeMillis();
+        writer.submit("alice", game(70));
+        await(() -> writer.getWritten() == 1);
+        assertTrue(System.currentTimeMillis() - start >= 40, "waited for the flush interval");
+        assertEquals(0, writer.getPending());
+    }
+
+    @Test
+    void testStopDrainsQueuedResults() throws Exception {
+        writer = new ScoreWriteBehind(scores, 1000, 60_000, 5000);
+        writer.start();
+        for (int i = 0; i < 500; i++) {
+            writer.submit("user-" + (i % 50), game(i));
+        }
+
+        writer.stop();
+        assertEquals(500, writer.getWritten());
+        assertEquals(50, scores.games.size());
+        assertThrows(IllegalStateException.class, () -> writer.submit("late", game(1)));
+    }
+
+    @Test
+    void testFailedWriteIsRetriedInOrder() throws Exception {
+        writer = new ScoreWriteBehind(scores, 1, 10, 100);
+        scores.failuresLeft.set(1);
+        writer.start();
+
+        writer.submit("alice", game(1));
+        await(() -> writer.getFailures() == 1);
+        writer.submit("alice", game(2));
+        writer.flush();
+
+        assertEquals(2, writer.getWritten());
+        assertEquals(List.of(1.0, 2.0), scores.games.get("alice"));
+    }
+
+    @Test
+    void testFullQueueMakesSubmittersWait() throws Exception {
+        writer = new ScoreWriteBehind(scores, 2, 60_000, 4);
+        // No worker yet: the queue fills and the fifth submit has to wait
+        List<Thread> submitters = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            double wpm = i;
+            Thread t = new Thread(() -> {
+                try {
+                    writer.submit("alice", game(wpm));
+                } catch (InterruptedException ignored) {
+                }
+            });
+            submitters.add(t);
+            t.start();
+        }
+        await(() -> writer.getBlockedSubmits() == 1);
+        assertEquals(4, writer.getPending());
+
+        writer.start();
+        for (Thread t : submitters) {
+            t.join(5000);
+        }
+        writer.flush();
+        assertEquals(5, writer.getWritten());
+    }
+
+    @Test
+    void testOfferDropsInsteadOfWaitingWhenFull() throws Exception {
+        writer = new ScoreWriteBehind(scores, 2, 60_000, 4);
+        // No worker yet: the queue fills and the fifth offer is dropped on the spot
+        for (int i = 0; i < 4; i++) {
+            assertTrue(writer.offer("alice", game(i)));
+        }
+        long start = System.currentTimeMillis();
+        assertFalse(writer.offer("alice", game(4)));
+        assertTrue(System.currentTimeMillis() - start < 1000, "offer must not wait for room");
+        assertEquals(1, writer.getDroppedOffers());
+        assertEquals(0, writer.getBlockedSubmits());
+        assertEquals(4, writer.getPending());
+
+        writer.start();
+        writer.flush();
+        assertEquals(4, writer.getWritten());
+        assertEquals(List.of(0.0, 1.0, 2.0, 3.0), scores.games.get("alice"));
+        assertTrue(writer.offer("alice", game(5)), "room again once the batch is written");
+    }
+}
@@ -0,0 +1,150 @@
+package com.typinggame.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the binary UserStats codec, scores.dat migration, and a size
+ * and speed comparison against Java serialization.
+ */
+class UserStatsCodecTest {
+
+    private static final String[] MODES = {"PRACTICE", "VS_FRIEND", "ELIMINATION", "multiplayer"};
+
+    @TempDir
+    Path dir;
+
+    private static UserStats statsWithGames(int games) {
+        UserStats stats = new UserStats("alice");
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < games; i++) {
+            timestamp += 45_000 + (i % 7) * 1_000;
+            stats.addGameRecord(new UserStats.GameRecord(40 + (i % 50) * 0.73, 88 + (i % 12) * 0.9,
+                    20 + i % 30, 30_000 + i % 5_000, MODES[i % MODES.length], timestamp));
+        }
+        return stats;
+    }
+
+    private static byte[] encode(UserStats stats) {
+        return UserStatsCodec.encode(stats);
+    }
+
+    private static UserStats decode(byte[] bytes) throws IOException {
+        return UserStatsCodec.decode(bytes);
+    }
+
+    private static byte[] serialize(UserStats stats) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(stats);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static UserStats deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (UserStats) in.readObject();
+        }
+    }
+
+    private static void assertSameStats(UserStats expected, UserStats actual) {
+        assertEquals(expected.getUsername(), actual.getUsername());
+        assertEquals(expected.getTotalGamesPlayed(), actual.getTotalGamesPlayed());
+        assertEquals(expected.getTotalWordsTyped(), actual.getTotalWordsTyped());
+        assertEquals(expected.getTotalTimeSpent(), actual.getTotalTimeSpent());
+        assertEquals(expected.getBestWPM(), actual.getBestWPM());
+        assertEquals(expected.getAverageWPM(), actual.getAverageWPM());
+        assertEquals(expected.getBestAccuracy(), actual.getBestAccuracy());
+        assertEquals(expected.getAverageAccuracy(), actual.getAverageAccuracy());
+        assertEquals(expected.getWpmStats().getVariance(), actual.getWpmStats().getVariance());
+        assertEquals(expected.getP90WPM(), actual.getP90WPM());
+        assertEquals(expected.getModeStats().keySet(), actual.getModeStats().keySet());
+        expected.getModeStats().forEach((mode, stats) -> {
+            assertEquals(stats.getGamesPlayed(), actual.getModeStats(mode).getGamesPlayed());
+            assertEquals(stats.getMedianWPM(), actual.getModeStats(mode).getMedianWPM());
+        });
+        assertEquals(expected.isSummaryOnly(), actual.isSummaryOnly());
+
+        List<UserStats.GameRecord> want = expected.getGameHistory();
+        List<UserStats.GameRecord> got = actual.getGameHistory();
+        assertEquals(want.size(), got.size());
+        for (int i = 0; i < want.size(); i++) {
+            assertEquals(want.get(i).getWpm(), got.get(i).getWpm());
+            assertEquals(want.get(i).getAccuracy(), got.get(i).getAccuracy());
+            assertEquals(want.get(i).getWordsTyped(), got.get(i).getWordsTyped());
+            assertEquals(want.get(i).getDuration(), got.get(i).getDuration());
+            assertEquals(want.get(i).getTimestamp(), got.get(i).getTimestamp());
+            assertEquals(want.get(i).getGameMode(), got.get(i).getGameMode());
+        }
+    }
+
+    @Test
+    void testRoundTripKeepsEveryField() throws IOException {
+        UserStats stats = statsWithGames(500);
+        // Out-of-order timestamps and a missing mode still round-trip
+        stats.addGameRecord(new UserStats.GameRecord(120.5, 100, 80, 1, null, 5L));
+        UserStats decoded = decode(encode(stats));
+
+        assertSameStats(stats, decoded);
+        assertNull(decoded.getLastGame().getGameMode());
+        assertSameStats(new UserStats("empty"), decode(encode(new UserStats("empty"))));
+
+        // Aggregates survive without a history to rebuild them from
+        UserStats summary = UserStats.summaryOnly("bob");
+        statsWithGames(300).getGameHistory().forEach(summary::addGameRecord);
+        UserStats decodedSummary = decode(encode(summary));
+        assertSameStats(summary, decodedSummary);
+        assertEquals(summary.getLastGame().getTimestamp(), decodedSummary.getLastGame().getTimestamp());
+    }
+
+    @Test
+    void testRejectsUnknownFormat() throws IOException {
+        byte[] bytes = encode(statsWithGames(3));
+        bytes[4] = 99;
+        IOException e = assertThrows(IOException.class, () -> decode(bytes));
+        assertTrue(e.getMessage().contains("version 99"), e.getMessage());
+        assertThrows(IOException.class, () -> decode(new byte[] {1, 2, 3, 4, 5}));
+        assertThrows(IOException.class, () -> decode(Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+
+    @Test
+    void testOldSerializedFileIsMigratedOnRead() throws Exception {
+        UserStats legacy = statsWithGames(20);
+        Path file = dir.resolve("scores.dat");
+        Files.write(file, serialize(legacy));
+
+        ScoreManager scores = new ScoreManager(dir.resolve("logs").toString(), 0);
+        assertSameStats(legacy, scores.loadStats(file));
+
+        // Rewritten in the new format, which reads back the same
+        byte[] migrated = Files.readAllBytes(file);
+        assertEquals(UserStatsCodec.MAGIC, new DataInputStream(new ByteArrayInputStream(migrated)).readInt());
+        assertSameStats(legacy, scores.loadStats(file));
+        scores.close();
+    }
+
+    @Test
+    void testMuchSmallerThanJavaSerialization() throws Exception {
+        UserStats stats = statsWithGames(10_000);
+        byte[] codecBytes = encode(stats);
+        byte[] javaBytes = serialize(stats);
+
+        assertTrue(codecBytes.length * 3 < javaBytes.length * 2,
+                "codec " + codecBytes.length + " bytes vs serialization " + javaBytes.length);
+        assertSameStats(stats, decode(codecBytes));
+        assertSameStats(stats, deserialize(javaBytes));
+    }
+}
@@ -0,0 +1,119 @@
+package com.typinggame.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for UserStats' incremental aggregates, WPM quantiles and per-mode breakdown.
+ */
+class UserStatsTest {
+
+    private static List<UserStats.GameRecord> randomGames(int count, long seed) {
+        Random random = new Random(seed);
+        List<UserStats.GameRecord> games = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double wpm = Math.max(5, 60 + random.nextGaussian() * 18);
+            double accuracy = Math.min(100, 85 + random.nextDouble() * 15);
+            games.add(new UserStats.GameRecord(wpm, accuracy, 25, 30_000, i % 3 == 0 ? "PRACTICE" : "VS_FRIEND", i));
+        }
+        return games;
+    }
+
+    private static double exactQuantile(double[] sorted, double q) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(q * sorted.length) - 1)];
+    }
+
+    @Test
+    void testAggregatesMatchExactValues() {
+        List<UserStats.GameRecord> games = randomGames(20_000, 7);
+        UserStats stats = new UserStats("alice");
+        games.forEach(stats::addGameRecord);
+
+        double[] wpms = games.stream().mapToDouble(UserStats.GameRecord::getWpm).toArray();
+        double mean = Arrays.stream(wpms).average().orElseThrow();
+        double variance = Arrays.stream(wpms).map(w -> (w - mean) * (w - mean)).sum() / (wpms.length - 1);
+        double accuracy = games.stream().mapToDouble(UserStats.GameRecord::getAccuracy).average().orElseThrow();
+
+        assertEquals(mean, stats.getAverageWPM(), 1e-9);
+        assertEquals(variance, stats.getWpmStats().getVariance(), 1e-6);
+        assertEquals(accuracy, stats.getAverageAccuracy(), 1e-9);
+        assertEquals(Arrays.stream(wpms).max().orElseThrow(), stats.getBestWPM());
+
+        // The sketch is within one bin of the exact quantiles
+        Arrays.sort(wpms);
+        assertEquals(exactQuantile(wpms, 0.5), stats.getMedianWPM(), WpmHistogram.BIN_WIDTH);
+        assertEquals(exactQuantile(wpms, 0.9), stats.getP90WPM(), WpmHistogram.BIN_WIDTH);
+    }
+
+    @Test
+    void testPerModeBreakdown() {
+        UserStats stats = new UserStats("alice");
+        stats.addGameRecord(40, 90, 20, 10_000, "PRACTICE");
+        stats.addGameRecord(60, 80, 30, 20_000, "PRACTICE");
+        stats.addGameRecord(90, 99, 50, 30_000, "multiplayer");
+        stats.addGameRecord(new UserStats.GameRecord(30, 70, 10, 5_000, null, 1L));
+
+        assertEquals(List.of("PRACTICE", "multiplayer", "unknown"), new ArrayList<>(stats.getModeStats().keySet()));
+        UserStats.ModeStats practice = stats.getModeStats("PRACTICE");
+        assertEquals(2, practice.getGamesPlayed());
+        assertEquals(50.0, practice.getAverageWPM(), 1e-9);
+        assertEquals(60.0, practice.getBestWPM());
+        assertEquals(85.0, practice.getAverageAccuracy(), 1e-9);
+        assertEquals(50, practice.getWordsTyped());
+        assertEquals(30_000, practice.getTimeSpent());
+        assertEquals(1, stats.getModeStats(null).getGamesPlayed());
+        assertEquals(4, stats.getTotalGamesPlayed());
+    }
+
+    @Test
+    void testSummaryOnlyKeepsAggregatesWithoutHistory() {
+        List<UserStats.GameRecord> games = randomGames(5_000, 11);
+        UserStats full = new UserStats("alice");
+        UserStats summary = UserStats.summaryOnly("alice");
+        games.forEach(full::addGameRecord);
+        games.forEach(summary::addGameRecord);
+
+        assertTrue(summary.getGameHistory().isEmpty());
+        assertEquals(5_000, full.getGameHistory().size());
+        assertEquals(full.getAverageWPM(), summary.getAverageWPM());
+        assertEquals(full.getP90WPM(), summary.getP90WPM());
+        assertEquals(full.getModeStats("PRACTICE").getMedianWPM(), summary.getModeStats("PRACTICE").getMedianWPM());
+        assertSame(games.get(games.size() - 1), summary.getLastGame());
+
+        // History is a read-only view, not a copy
+        assertThrows(UnsupportedOperationException.class, () -> full.getGameHistory().add(games.get(0)));
+    }
+
+    @Test
+    void testMergedStatsEqualCombinedStream() {
+        List<UserStats.GameRecord> games = randomGames(3_000, 3);
+        RunningStats all = new RunningStats();
+        RunningStats first = new RunningStats();
+        RunningStats second = new RunningStats();
+        WpmHistogram histogram = new WpmHistogram();
+        WpmHistogram firstHistogram = new WpmHistogram();
+        WpmHistogram secondHistogram = new WpmHistogram();
+        for (int i = 0; i < games.size(); i++) {
+            double wpm = games.get(i).getWpm();
+            all.add(wpm);
+            histogram.add(wpm);
+            (i < 1_000 ? first : second).add(wpm);
+            (i < 1_000 ? firstHistogram : secondHistogram).add(wpm);
+        }
+
+        first.merge(second);
+        firstHistogram.merge(secondHistogram);
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getMean(), first.getMean(), 1e-9);
+        assertEquals(all.getVariance(), first.getVariance(), 1e-6);
+        assertEquals(all.getMin(), first.getMin());
+        assertEquals(histogram.quantile(0.5), firstHistogram.quantile(0.5), 1e-9);
+        assertEquals(histogram.quantile(0.9), firstHistogram.quantile(0.9), 1e-9);
+    }
+}
@@ -0,0 +1,138 @@
+package com.typinggame.leaderboard;
+
+import com.typinggame.domain.GameRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ranking, time windows and rebuilding of the leaderboards.
+ */
+class LeaderboardServiceTest {
+
+    // Wednesday 2026-10-14 12:00 UTC
+    private static final long NOW = Instant.parse("2026-10-14T12:00:00Z").toEpochMilli();
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private static class MutableClock extends Clock {
+        long millis = NOW;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    private static GameRecord game(String userId, String mode, double wpm, long timestamp) {
+        GameRecord record = new GameRecord(userId, "name-" + userId, wpm, 95, 30, mode, 30_000);
+        record.setTimestamp(new Date(timestamp));
+        return record;
+    }
+
+    @Test
+    void testRanksBestGamePerUser() {
+        Random random = new Random(3);
+        List<GameRecord> history = new ArrayList<>();
+        Map<String, Double> best = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            String userId = "u" + random.nextInt(800);
+            double wpm = 20 + random.nextInt(10_000) / 100.0;
+            history.add(game(userId, "practice", wpm, NOW - random.nextInt(1_000) * DAY));
+            best.merge(userId, wpm, Math::max);
+        }
+        LeaderboardService service = new LeaderboardService(history::stream, new MutableClock());
+        service.rebuild();
+        assertTrue(service.isRebuilt());
+        assertEquals(5_000, service.getRebuiltRecords());
+
+        // Expected all-time order: best WPM desc, earliest time it was set, user id
+        Map<String, Long> firstSet = new HashMap<>();
+        for (GameRecord record : history) {
+            if (record.getWpm() == best.get(record.getUserId())) {
+                firstSet.merge(record.getUserId(), record.getTimestamp().getTime(), Math::min);
+            }
+        }
+        List<String> expected = new ArrayList<>(best.keySet());
+        expected.sort(Comparator.comparing((String u) -> -best.get(u))
+                .thenComparing(firstSet::get).thenComparing(u -> u));
+
+        LeaderboardService.Window allTime = LeaderboardService.Window.ALL_TIME;
+        assertEquals(best.size(), service.size("PRACTICE", allTime));
+        List<Leaderboard.Standing> top = service.top("Practice", allTime, 10);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 1, top.get(i).rank());
+            assertEquals(expected.get(i), top.get(i).entry().userId());
+        }
+
+        String someone = expected.get(400);
+        assertEquals(401, service.standing("PRACTICE", allTime, someone).orElseThrow().rank());
+        List<Leaderboard.Standing> around = service.around("PRACTICE", allTime, someone, 2);
+        assertEquals(expected.subList(398, 403), around.stream().map(s -> s.entry().userId()).toList());
+        assertEquals(List.of(1, 2, 3), service.around("PRACTICE", allTime, expected.get(0), 2)
+                .stream().map(Leaderboard.Standing::rank).toList());
+
+        // A slower game does not move anyone; a new best does
+        service.record(game(someone, "PRACTICE", 1, NOW));
+        assertEquals(401, service.standing("PRACTICE", allTime, someone).orElseThrow().rank());
+        service.record(game(someone, "PRACTICE", 500, NOW));
+        assertEquals(1, service.standing("PRACTICE", allTime, someone).orElseThrow().rank());
+        assertEquals(best.size(), service.size("PRACTICE", allTime));
+    }
+
+    @Test
+    void testWindowsAndModesAreSeparate() {
+        MutableClock clock = new MutableClock();
+        LeaderboardService service = new LeaderboardService(List.<GameRecord>of()::stream, clock);
+        LeaderboardService.Window daily = LeaderboardService.Window.DAILY;
+        LeaderboardService.Window weekly = LeaderboardService.Window.WEEKLY;
+        LeaderboardService.Window allTime = LeaderboardService.Window.ALL_TIME;
+
+        service.record(game("today", "PRACTICE", 80, NOW - 60_000));
+        service.record(game("monday", "PRACTICE", 90, NOW - 2 * DAY));
+        service.record(game("last-week", "PRACTICE", 100, NOW - 7 * DAY));
+        service.record(game("coder", "CODE", 40, NOW));
+        service.record(game("default", null, 70, NOW));
+
+        assertEquals(List.of("today", "default"), userIds(service.top("PRACTICE", daily, 10)));
+        assertEquals(List.of("monday", "today", "default"), userIds(service.top("PRACTICE", weekly, 10)));
+        assertEquals(List.of("last-week", "monday", "today", "default"), userIds(service.top("PRACTICE", allTime, 10)));
+        assertEquals(List.of("coder"), userIds(service.top("code", allTime, 10)));
+        assertTrue(service.top("ELIMINATION", allTime, 10).isEmpty());
+        assertEquals(List.of("CODE", "PRACTICE"), List.copyOf(service.getModes()));
+
+        // Next Monday: the daily and weekly boards start over
+        clock.millis = NOW + 5 * DAY;
+        assertTrue(service.top("PRACTICE", daily, 10).isEmpty());
+        assertTrue(service.top("PRACTICE", weekly, 10).isEmpty());
+        assertEquals(4, service.size("PRACTICE", allTime));
+        service.record(game("today", "PRACTICE", 60, clock.millis));
+        assertEquals(1, service.standing("PRACTICE", weekly, "today").orElseThrow().rank());
+        assertEquals(LeaderboardService.Window.ALL_TIME, LeaderboardService.Window.parse("all-time"));
+    }
+
+    private static List<String> userIds(List<Leaderboard.Standing> standings) {
+        return standings.stream().map(s -> s.entry().userId()).toList();
+    }
+}
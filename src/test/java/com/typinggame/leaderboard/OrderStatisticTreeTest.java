@@ -0,0 +1,66 @@
+package com.typinggame.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the treap-backed order-statistic set against a TreeSet.
+ */
+class OrderStatisticTreeTest {
+
+    @Test
+    void testMatchesTreeSetUnderRandomOperations() {
+        Random random = new Random(17);
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), tree.remove(value));
+            } else {
+                assertEquals(expected.add(value), tree.add(value));
+            }
+            assertEquals(expected.size(), tree.size());
+            if (i % 500 == 0) {
+                List<Integer> sorted = new ArrayList<>(expected);
+                for (int index = 0; index < sorted.size(); index += 37) {
+                    assertEquals(sorted.get(index), tree.get(index));
+                    assertEquals(index, tree.rank(sorted.get(index)));
+                }
+                int probe = random.nextInt(5_000);
+                assertEquals(expected.headSet(probe).size(), tree.rank(probe));
+                assertEquals(expected.contains(probe), tree.contains(probe));
+            }
+        }
+
+        List<Integer> sorted = new ArrayList<>(expected);
+        assertEquals(sorted.subList(10, 20), tree.range(10, 20));
+        assertEquals(sorted.subList(sorted.size() - 3, sorted.size()), tree.range(sorted.size() - 3, sorted.size() + 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.get(tree.size()));
+    }
+
+    @Test
+    void testStaysShallowForSortedInserts() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        // Sorted input would degenerate a plain BST; the recursive split/merge would overflow the stack
+        for (int i = 0; i < 200_000; i++) {
+            tree.add(i);
+        }
+        assertEquals(200_000, tree.size());
+        assertEquals(123_456, tree.rank(123_456));
+        assertEquals(199_999, tree.get(199_999));
+        for (int i = 0; i < 200_000; i += 2) {
+            assertTrue(tree.remove(i));
+        }
+        assertEquals(100_000, tree.size());
+        assertEquals(1, tree.get(0));
+    }
+}
@@ -0,0 +1,110 @@
+package com.typinggame.leaderboard;
+
+import com.typinggame.multiplayer.RoomAffinity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the percentile histograms: accuracy, merging, word-count classes and persistence.
+ */
+class PercentileServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private PercentileService service(String file) {
+        return new PercentileService(new RoomAffinity("local", ""), dir.resolve(file).toString(), 0);
+    }
+
+    @Test
+    void testPercentileMatchesExactShareWithinABin() {
+        Random random = new Random(9);
+        WpmPercentileHistogram histogram = new WpmPercentileHistogram();
+        double[] wpms = new double[100_000];
+        for (int i = 0; i < wpms.length; i++) {
+            wpms[i] = Math.max(1, 65 + random.nextGaussian() * 20);
+            histogram.add(wpms[i]);
+        }
+        Arrays.sort(wpms);
+
+        for (double probe : new double[] {20, 45.25, 65, 80.5, 120, 400}) {
+            int below = 0;
+            while (below < wpms.length && wpms[below] < probe) below++;
+            double exact = 100.0 * below / wpms.length;
+            // Off by at most the results sharing the probe's bin
+            assertEquals(exact, histogram.percentile(probe), 0.3, "probe " + probe);
+        }
+        assertEquals(100_000, histogram.getTotal());
+
+        // Counts survive the Fenwick round trip; merge and subtract are inverses
+        WpmPercentileHistogram copy = WpmPercentileHistogram.fromCounts(histogram.getCounts());
+        assertArrayEquals(histogram.getCounts(), copy.getCounts());
+        copy.merge(histogram);
+        assertEquals(200_000, copy.getTotal());
+        assertEquals(histogram.percentile(70), copy.percentile(70), 1e-9);
+        copy.subtract(histogram);
+        assertArrayEquals(histogram.getCounts(), copy.getCounts());
+    }
+
+    @Test
+    void testWordClassesFallBackToModeUntilPopulated() {
+        PercentileService service = service("p.bin");
+        assertTrue(service.percentile("PRACTICE", 25, 60).isEmpty());
+
+        // Short tests are fast, long ones slow
+        for (int i = 0; i < 200; i++) {
+            service.record("practice", 10, 100 + i % 10);
+            service.record("PRACTICE", 50, 40 + i % 10);
+        }
+        assertEquals("10", PercentileService.wordClass(7));
+        assertEquals("25", PercentileService.wordClass(25));
+        assertEquals("100+", PercentileService.wordClass(250));
+
+        assertTrue(service.percentile("PRACTICE", 10, 104.5).getAsDouble() < 60);
+        assertEquals(100.0, service.percentile("PRACTICE", 50, 104.5).getAsDouble(), 1e-9);
+        // No 25-word results yet: answered from all PRACTICE results
+        assertEquals(50.0, service.percentile("PRACTICE", 25, 75).getAsDouble(), 1e-9);
+        assertTrue(service.percentile("CODE", 25, 75).isEmpty());
+    }
+
+    @Test
+    void testPersistsAndMergesNodesWithoutDoubleCounting() throws Exception {
+        PercentileService first = service("first.bin");
+        first.start();
+        for (int i = 0; i < 300; i++) {
+            first.record("PRACTICE", 25, 30 + i % 60);
+        }
+        first.stop();
+        assertEquals(1, first.getPersists());
+
+        PercentileService restarted = service("first.bin");
+        restarted.start();
+        assertEquals(first.percentile("PRACTICE", 25, 55).getAsDouble(),
+                restarted.percentile("PRACTICE", 25, 55).getAsDouble(), 1e-9);
+        assertEquals(300, restarted.getSampleCount("PRACTICE", 25));
+
+        // Another node with faster players; its snapshot is merged twice but counted once
+        PercentileService other = service("other.bin");
+        for (int i = 0; i < 300; i++) {
+            other.record("PRACTICE", 25, 100 + i % 60);
+        }
+        restarted.mergeRemote("node-b", other.snapshot());
+        restarted.mergeRemote("node-b", other.snapshot());
+        assertEquals(600, restarted.getSampleCount("PRACTICE", 25));
+        assertEquals(50.0, restarted.percentile("PRACTICE", 25, 95).getAsDouble(), 1e-9);
+
+        // Only local games are persisted
+        restarted.record("PRACTICE", 25, 60);
+        restarted.stop();
+        PercentileService again = service("first.bin");
+        again.start();
+        assertEquals(301, again.getSampleCount("PRACTICE", 25));
+        again.stop();
+    }
+}
@@ -0,0 +1,79 @@
+package com.typinggame.multiplayer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that client frames can't reach the node-to-node destinations.
+ */
+class ClusterDestinationGuardTest {
+
+    private ClusterDestinationGuard guard;
+    private ExecutorSubscribableChannel clientInbound;
+    private final List<Message<?>> delivered = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        guard = new ClusterDestinationGuard();
+        // No executor: frames are handled on the sending thread, like a test broker
+        clientInbound = new ExecutorSubscribableChannel();
+        clientInbound.addInterceptor(guard.inboundInterceptor());
+        clientInbound.subscribe(delivered::add);
+    }
+
+    private static Message<byte[]> clientFrame(StompCommand command, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("browser-1");
+        accessor.setDestination(destination);
+        if (command == StompCommand.SUBSCRIBE) {
+            accessor.setSubscriptionId("sub-1");
+        }
+        String body = "{\"op\":\"LEAVE\",\"roomId\":\"room-1\",\"from\":\"node-a\"}";
+        return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    @Test
+    void testClientSendToClusterDestinationIsRefused() {
+        String nodeQueue = ClusterLink.NODE_QUEUE_PREFIX + "node-b";
+        assertThrows(MessageDeliveryException.class,
+                () -> clientInbound.send(clientFrame(StompCommand.SEND, nodeQueue)));
+        assertThrows(MessageDeliveryException.class,
+                () -> clientInbound.send(clientFrame(StompCommand.SEND, ClusterLink.MEMBERS_TOPIC)));
+
+        assertTrue(delivered.isEmpty(), "forged cluster ops must not reach the broker");
+        assertEquals(2, guard.getRefused());
+    }
+
+    @Test
+    void testClientSubscribeToClusterDestinationIsRefused() {
+        assertThrows(MessageDeliveryException.class,
+                () -> clientInbound.send(clientFrame(StompCommand.SUBSCRIBE, ClusterLink.NODE_QUEUE_PREFIX + "node-a")));
+        assertThrows(MessageDeliveryException.class,
+                () -> clientInbound.send(clientFrame(StompCommand.SUBSCRIBE, ClusterLink.MEMBERS_TOPIC)));
+
+        assertTrue(delivered.isEmpty());
+        assertEquals(2, guard.getRefused());
+    }
+
+    @Test
+    void testGameDestinationsPassThrough() {
+        clientInbound.send(clientFrame(StompCommand.SEND, "/app/game/progress"));
+        clientInbound.send(clientFrame(StompCommand.SUBSCRIBE, "/topic/game/room-1"));
+        clientInbound.send(clientFrame(StompCommand.SUBSCRIBE, "/user/queue/game"));
+
+        assertEquals(3, delivered.size());
+        assertEquals(0, guard.getRefused());
+    }
+}
@@ -0,0 +1,105 @@
+package com.typinggame.multiplayer;
+
+import com.typinggame.engine.TypingEngine;
+import com.typinggame.io.ScoreManager;
+import com.typinggame.io.ScoreWriteBehind;
+import com.typinggame.io.UserStats;
+import com.typinggame.websocket.ProgressInterestManager;
+import com.typinggame.websocket.RoomBroadcaster;
+import com.typinggame.websocket.StompPayloadConverter;
+import com.typinggame.websocket.WebSocketSessionManager;
+import com.typinggame.websocket.WebSocketSessionManager.RoomState;
+import com.typinggame.websocket.WebSocketSessionManager.Transport;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * One app node in its own JVM for ClusterRoutingTest: the real room stack
+ * (coordinator, room actors, broadcaster, cluster link) with the broker relay
+ * pointed at the test's loopback broker. Driven by commands on stdin, one
+ * per line, as the STOMP controller would call the coordinator:
+ *
+ *   JOIN room user session | PROGRESS room user progress wpm | STATE room | RING | EXIT
+ *
+ * Args: brokerPort nodeId nodes heartbeatMs
+ */
+public class ClusterNodeMain {
+
+    public static void main(String[] args) throws Exception {
+        int brokerPort = Integer.parseInt(args[0]);
+        String nodeId = args[1];
+        String nodes = args[2];
+        long heartbeatMs = Long.parseLong(args[3]);
+
+        StompBrokerRelayMessageHandler relay = new StompBrokerRelayMessageHandler(
+                new ExecutorSubscribableChannel(), new ExecutorSubscribableChannel(), new ExecutorSubscribableChannel(),
+                List.of("/topic", "/queue"));
+        relay.setRelayHost("127.0.0.1");
+        relay.setRelayPort(brokerPort);
+        relay.setSystemHeartbeatSendInterval(0);
+        relay.setSystemHeartbeatReceiveInterval(0);
+        relay.start();
+
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> {
+            relay.handleMessage(message);
+            return true;
+        });
+        template.setMessageConverter(new StompPayloadConverter());
+
+        WebSocketSessionManager sessionManager = new WebSocketSessionManager();
+        MultiplayerRoomService roomService = new MultiplayerRoomService(template);
+        RoomBroadcaster broadcaster = new RoomBroadcaster(template, sessionManager, new ProgressInterestManager(),
+                roomService, 20);
+        broadcaster.start();
+
+        ScoreManager scores = new ScoreManager() {
+            @Override
+            public void recordGames(String username, List<UserStats.GameRecord> records) {
+                System.out.println("SAVED " + username);
+            }
+        };
+
+        ScoreWriteBehind scoreWriter = new ScoreWriteBehind(scores, 16, 50, 1000);
+        scoreWriter.start();
+
+        RoomAffinity affinity = new RoomAffinity(nodeId, nodes);
+        ClusterLink link = new ClusterLink(affinity, "relay", "127.0.0.1", brokerPort, "guest", "guest", heartbeatMs);
+        RoomCoordinator coordinator = new RoomCoordinator(sessionManager, roomService, broadcaster,
+                new TypingEngine(), scoreWriter, affinity, link);
+        link.start();
+
+        long deadline = System.currentTimeMillis() + 15_000;
+        while ((!relay.isBrokerAvailable() || !link.isConnected()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        System.out.println(relay.isBrokerAvailable() && link.isConnected() ? "READY " + nodeId : "FAILED " + nodeId);
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] cmd = line.trim().split(" ");
+            switch (cmd[0]) {
+                case "JOIN" -> coordinator.join(cmd[1], cmd[2], cmd[3], Transport.STOMP);
+                case "PROGRESS" -> coordinator.progress(cmd[1], cmd[2], Integer.parseInt(cmd[3]), Double.parseDouble(cmd[4]));
+                case "STATE" -> {
+                    RoomState state = sessionManager.getRoomState(cmd[1]);
+                    System.out.println("STATE " + cmd[1] + " players=" + state.getPlayers().length
+                            + " started=" + state.started + " winner=" + state.winner);
+                }
+                case "RING" -> System.out.println("RING " + String.join(",", affinity.getNodeIds()));
+                case "EXIT" -> {
+                    link.stop();
+                    relay.stop();
+                    System.exit(0);
+                }
+                default -> System.out.println("UNKNOWN " + line);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.typinggame.multiplayer;
+
+import com.typinggame.websocket.LoopbackStompBroker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two app nodes in separate JVMs sharing a loopback STOMP broker: players
+ * joining the same room through different nodes end up in one room on its
+ * owner, and the ring drops a node that goes away.
+ */
+class ClusterRoutingTest {
+
+    private static final String NODES = "node-a=http://127.0.0.1:18080,node-b=http://127.0.0.1:18081";
+    private static final long HEARTBEAT_MS = 300;
+
+    private LoopbackStompBroker broker;
+    private ReactorNettyTcpStompClient observerClient;
+    private StompSession observer;
+    private final List<NodeProcess> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = new LoopbackStompBroker(true, 0);
+        broker.start();
+
+        observerClient = new ReactorNettyTcpStompClient("127.0.0.1", broker.getPort());
+        observerClient.setDefaultHeartbeat(new long[] {0, 0});
+        observer = observerClient.connectAsync(new StompSessionHandlerAdapter() { }).get(10, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (NodeProcess node : nodes) {
+            node.process.destroyForcibly();
+        }
+        observer.disconnect();
+        observerClient.shutdown();
+        broker.stop();
+    }
+
+    /**
+     * A node JVM and the lines it prints.
+     */
+    private static class NodeProcess {
+        final Process process;
+        final PrintWriter commands;
+        final BlockingQueue<String> output = new LinkedBlockingQueue<>();
+
+        NodeProcess(String nodeId, int brokerPort) throws IOException {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    ClusterNodeMain.class.getName(), String.valueOf(brokerPort), nodeId, NODES,
+                    String.valueOf(HEARTBEAT_MS))
+                    .redirectErrorStream(true)
+                    .start();
+            commands = new PrintWriter(process.getOutputStream(), true, StandardCharsets.UTF_8);
+
+            Thread reader = new Thread(() -> {
+                try (BufferedReader in = new BufferedReader(
+                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        output.add(line);
+                    }
+                } catch (IOException ignored) {}
+            });
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        void send(String command) {
+            commands.println(command);
+        }
+
+        String await(String prefix) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 20_000;
+            while (System.currentTimeMillis() < deadline) {
+                String line = output.poll(100, TimeUnit.MILLISECONDS);
+                if (line != null && line.startsWith(prefix)) return line;
+                if (line != null && line.startsWith("FAILED")) fail(line);
+            }
+            return fail("Node never printed " + prefix);
+        }
+    }
+
+    private NodeProcess startNode(String nodeId) throws Exception {
+        NodeProcess node = new NodeProcess(nodeId, broker.getPort());
+        nodes.add(node);
+        node.await("READY");
+        return node;
+    }
+
+    /**
+     * Ask a node for its ring until it matches (membership is eventually consistent).
+     */
+    private static void awaitRing(NodeProcess node, String expected) throws InterruptedException {
+        String ring = null;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            node.send("RING");
+            ring = node.await("RING");
+            if (ring.equals("RING " + expected)) return;
+            Thread.sleep(HEARTBEAT_MS);
+        }
+        fail("Ring never became " + expected + ", last " + ring);
+    }
+
+    /**
+     * Room actors apply joins asynchronously, so poll the snapshot.
+     */
+    private static void awaitState(NodeProcess node, String roomId, String expected) throws InterruptedException {
+        String state = null;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            node.send("STATE " + roomId);
+            state = node.await("STATE");
+            if (state.equals("STATE " + roomId + " " + expected)) return;
+            Thread.sleep(50);
+        }
+        fail("Room " + roomId + " never reached " + expected + ", last " + state);
+    }
+
+    private BlockingQueue<String> watch(String destination) throws Exception {
+        BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+        observer.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders h) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders h, Object payload) {
+                frames.add(new String((byte[]) payload, StandardCharsets.UTF_8));
+            }
+        });
+        // Let the broker register the subscription before anything is published
+        Thread.sleep(300);
+        return frames;
+    }
+
+    private static String awaitType(BlockingQueue<String> frames, String type) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            String frame = frames.poll(100, TimeUnit.MILLISECONDS);
+            if (frame != null && frame.contains("\"type\":\"" + type + "\"")) return frame;
+        }
+        return fail("No " + type + " broadcast");
+    }
+
+    private static String roomOwnedBy(String owner) {
+        ConsistentHashRing ring = new ConsistentHashRing(Set.of("node-a", "node-b"));
+        for (int i = 0; ; i++) {
+            if (owner.equals(ring.ownerOf("room-" + i))) return "room-" + i;
+        }
+    }
+
+    @Test
+    void testPlayersOnDifferentNodesShareOneRoomOnTheOwner() throws Exception {
+        NodeProcess nodeA = startNode("node-a");
+        NodeProcess nodeB = startNode("node-b");
+        awaitRing(nodeA, "node-a,node-b");
+        awaitRing(nodeB, "node-a,node-b");
+        String roomId = roomOwnedBy("node-a");
+        BlockingQueue<String> broadcasts = watch("/topic/game/" + roomId);
+
+        // alice's join lands on the non-owner and is forwarded; bob joins on the owner
+        nodeB.send("JOIN " + roomId + " alice stomp-b-1");
+        nodeA.send("JOIN " + roomId + " bob stomp-a-1");
+
+        String start = awaitType(broadcasts, "START");
+        assertTrue(start.contains("\"roomId\":\"" + roomId + "\""));
+
+        // Progress reported through node B claims the win on node A
+        nodeB.send("PROGRESS " + roomId + " alice 100 88.0");
+        String finish = awaitType(broadcasts, "FINISH");
+        assertTrue(finish.contains("\"winner\":\"alice\""), finish);
+        nodeA.await("SAVED alice");
+
+        awaitState(nodeA, roomId, "players=2 started=true winner=alice");
+        // Nothing diverged onto the non-owner
+        awaitState(nodeB, roomId, "players=0 started=false winner=null");
+
+        Thread.sleep(300);
+        for (String frame : broadcasts) {
+            assertFalse(frame.contains("\"type\":\"START\""), "room started twice: " + frame);
+        }
+    }
+
+    @Test
+    void testRingDropsNodeThatStopsHeartbeating() throws Exception {
+        NodeProcess nodeA = startNode("node-a");
+        NodeProcess nodeB = startNode("node-b");
+        awaitRing(nodeA, "node-a,node-b");
+
+        // Killed without a BYE: node A notices the missed heartbeats
+        nodeB.process.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+        awaitRing(nodeA, "node-a");
+
+        // Rooms that were node B's are now served by node A
+        String roomId = roomOwnedBy("node-b");
+        nodeA.send("JOIN " + roomId + " carol stomp-a-2");
+        awaitState(nodeA, roomId, "players=1 started=false winner=null");
+    }
+}
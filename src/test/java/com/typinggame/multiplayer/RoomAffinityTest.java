@@ -0,0 +1,92 @@
+package com.typinggame.multiplayer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for room-to-node ownership.
+ */
+class RoomAffinityTest {
+
+    private static final String NODES = "node-b=http://b:8080, node-a=http://a:8080,node-c=http://c:8080";
+
+    @Test
+    void testSingleNodeOwnsEveryRoom() {
+        RoomAffinity affinity = new RoomAffinity("local", "");
+        assertTrue(affinity.isLocal("room-1"));
+        assertEquals("local", affinity.ownerOf("anything"));
+        assertNull(affinity.urlOf("local"));
+    }
+
+    @Test
+    void testAllNodesAgreeAndRoomsSpread() {
+        RoomAffinity a = new RoomAffinity("node-a", NODES);
+        RoomAffinity b = new RoomAffinity("node-b", NODES);
+        RoomAffinity c = new RoomAffinity("node-c", NODES);
+
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            String roomId = "room-" + i;
+            String owner = a.ownerOf(roomId);
+            assertEquals(owner, b.ownerOf(roomId));
+            assertEquals(owner, c.ownerOf(roomId));
+
+            // Exactly one node treats the room as local
+            int locals = (a.isLocal(roomId) ? 1 : 0) + (b.isLocal(roomId) ? 1 : 0) + (c.isLocal(roomId) ? 1 : 0);
+            assertEquals(1, locals);
+            owned.merge(owner, 1, Integer::sum);
+        }
+
+        assertEquals(3, owned.size());
+        owned.values().forEach(count -> assertTrue(count > 700, "rooms should spread over nodes: " + owned));
+        assertEquals("http://a:8080", b.urlOf("node-a"));
+    }
+
+    @Test
+    void testNodeJoinAndLeaveOnlyMoveTheirShare() {
+        RoomAffinity affinity = new RoomAffinity("node-a", NODES);
+        int rooms = 10_000;
+        String[] before = new String[rooms];
+        for (int i = 0; i < rooms; i++) {
+            before[i] = affinity.ownerOf("room-" + i);
+        }
+
+        // A fourth node takes about a quarter of the rooms, all from the others
+        assertTrue(affinity.addNode("node-d", "http://d:8080"));
+        int moved = 0;
+        for (int i = 0; i < rooms; i++) {
+            String after = affinity.ownerOf("room-" + i);
+            if (!after.equals(before[i])) {
+                assertEquals("node-d", after, "rooms only move to the new node");
+                moved++;
+            }
+        }
+        assertTrue(moved > rooms * 0.15 && moved < rooms * 0.35, "moved " + moved);
+
+        // Removing it puts every room back where it was
+        assertTrue(affinity.removeNode("node-d"));
+        for (int i = 0; i < rooms; i++) {
+            assertEquals(before[i], affinity.ownerOf("room-" + i));
+        }
+
+        // Removing node-b only moves node-b's rooms
+        affinity.removeNode("node-b");
+        for (int i = 0; i < rooms; i++) {
+            if (!before[i].equals("node-b")) {
+                assertEquals(before[i], affinity.ownerOf("room-" + i));
+            }
+        }
+        assertFalse(affinity.removeNode("node-a"), "a node never drops itself");
+        assertEquals(3, affinity.getRingChanges());
+    }
+
+    @Test
+    void testRejectsUnknownNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new RoomAffinity("node-x", NODES));
+        assertThrows(IllegalArgumentException.class, () -> new RoomAffinity("node-a", "node-a"));
+    }
+}
@@ -0,0 +1,347 @@
+package com.typinggame.multiplayer;
+
+import com.typinggame.engine.TypingEngine;
+import com.typinggame.io.ScoreManager;
+import com.typinggame.io.ScoreWriteBehind;
+import com.typinggame.io.UserStats;
+import com.typinggame.websocket.GameWebSocketController.PlayerUpdateMessage;
+import com.typinggame.websocket.GameWebSocketController.RoomDeltaMessage;
+import com.typinggame.websocket.GameWebSocketController.RoomSnapshotMessage;
+import com.typinggame.websocket.ProgressInterestManager;
+import com.typinggame.websocket.RoomBroadcaster;
+import com.typinggame.websocket.WebSocketSessionManager;
+import com.typinggame.websocket.WebSocketSessionManager.PlayerInfo;
+import com.typinggame.websocket.WebSocketSessionManager.Transport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for mixed STOMP / raw socket rooms and the encode-once event bus.
+ * Socket players connect over loopback; the STOMP broker is a capturing channel.
+ */
+class RoomCoordinatorTest {
+
+    private final List<Message<?>> brokerMessages = new CopyOnWriteArrayList<>();
+    private final List<Socket> clients = new ArrayList<>();
+    private final List<UserStats> savedResults = new CopyOnWriteArrayList<>();
+
+    private ServerSocket server;
+    private WebSocketSessionManager sessionManager;
+    private MultiplayerRoomService roomService;
+    private RoomBroadcaster broadcaster;
+    private RoomCoordinator coordinator;
+    private ScoreWriteBehind scoreWriter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> brokerMessages.add(message));
+        sessionManager = new WebSocketSessionManager();
+        roomService = new MultiplayerRoomService(template);
+        broadcaster = new RoomBroadcaster(template, sessionManager, new ProgressInterestManager(), roomService, 20);
+        broadcaster.start();
+
+        // Keep results in memory instead of writing scores.dat
+        ScoreManager scores = new ScoreManager() {
+            @Override
+            public void recordGames(String username, List<UserStats.GameRecord> records) {
+                UserStats stats = new UserStats(username);
+                records.forEach(stats::addGameRecord);
+                savedResults.add(stats);
+            }
+        };
+        RoomAffinity affinity = new RoomAffinity("local", "");
+        scoreWriter = new ScoreWriteBehind(scores, 16, 50, 1000);
+        scoreWriter.start();
+        coordinator = new RoomCoordinator(sessionManager, roomService, broadcaster, new TypingEngine(), scoreWriter,
+                affinity, new ClusterLink(affinity, "simple", "localhost", 0, "guest", "guest", 1000));
+        server = new ServerSocket(0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        scoreWriter.stop();
+        for (Socket client : clients) {
+            client.close();
+        }
+        server.close();
+        broadcaster.stop();
+        sessionManager.shutdown();
+    }
+
+    /**
+     * Connect a raw socket player and wait for its JOINED ack.
+     */
+    private SocketClient join(String username, String roomId) throws IOException {
+        Socket client = new Socket("localhost", server.getLocalPort());
+        client.setSoTimeout(5000);
+        clients.add(client);
+        new PlayerThread(server.accept(), coordinator).start();
+
+        SocketClient socketClient = new SocketClient(client);
+        socketClient.send("{\"type\":\"JOIN\",\"username\":\"" + username + "\",\"roomId\":\"" + roomId + "\"}");
+        socketClient.readUntil("JOINED");
+        return socketClient;
+    }
+
+    private static class SocketClient {
+        private final PrintWriter out;
+        private final BufferedReader in;
+        // Lines read while looking for another type, in arrival order
+        private final List<String> skipped = new ArrayList<>();
+
+        SocketClient(Socket socket) throws IOException {
+            this.out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        void send(String json) {
+            out.println(json);
+        }
+
+        /**
+         * Next line of the given type. START and the JOINED ack can arrive in
+         * either order, so other lines are kept for later calls.
+         */
+        String readUntil(String type) throws IOException {
+            String marker = "\"type\":\"" + type + "\"";
+            for (int i = 0; i < skipped.size(); i++) {
+                if (skipped.get(i).contains(marker)) {
+                    return skipped.remove(i);
+                }
+            }
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.contains(marker)) {
+                    return line;
+                }
+                skipped.add(line);
+            }
+            fail("Connection closed before " + type);
+            return null;
+        }
+    }
+
+    private List<String> brokerJson(String type) {
+        List<String> frames = new ArrayList<>();
+        for (Message<?> message : brokerMessages) {
+            if (message.getPayload() instanceof byte[] bytes) {
+                String json = new String(bytes, StandardCharsets.UTF_8);
+                if (json.contains("\"type\":\"" + type + "\"")) {
+                    frames.add(json);
+                }
+            }
+        }
+        return frames;
+    }
+
+    private <T> List<T> brokerPayloads(Class<T> type) {
+        List<T> payloads = new ArrayList<>();
+        for (Message<?> message : brokerMessages) {
+            if (type.isInstance(message.getPayload())) {
+                payloads.add(type.cast(message.getPayload()));
+            }
+        }
+        return payloads;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Wait for whole broadcaster ticks that started after this call.
+     */
+    private void awaitTicks(int count) throws InterruptedException {
+        // The tick in progress may have missed the latest change, so it doesn't count
+        long target = broadcaster.getTicks() + count + 1;
+        await(() -> broadcaster.getTicks() >= target);
+    }
+
+    @Test
+    void testPublishFinish_EncodedOnceForSocketsAndBroker() throws Exception {
+        SocketClient alice = join("alice", "room-a");
+        SocketClient bob = join("bob", "room-a");
+        alice.readUntil("START");
+
+        long encodesBefore = roomService.getEncodeCalls();
+        roomService.publishFinish("room-a", "alice");
+        assertEquals(1, roomService.getEncodeCalls() - encodesBefore);
+
+        String aliceLine = alice.readUntil("FINISH");
+        assertEquals(aliceLine, bob.readUntil("FINISH"));
+
+        // The broker got the very same bytes, not a second Jackson pass
+        assertEquals(aliceLine, brokerJson("FINISH").get(0));
+    }
+
+    @Test
+    void testStalledSocketClient_IsDroppedWithoutBlockingPublish() throws Exception {
+        join("stalled", "stall");
+        SocketClient bob = join("bob", "other");
+        // Never read again, so its TCP buffers and then its queue fill up
+        RoomEvent big = RoomEvent.start("stall", "x".repeat(64 * 1024), System.currentTimeMillis());
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 1000 && roomService.getSlowClientDisconnects() == 0; i++) {
+            roomService.publish(big, false);
+        }
+        assertTrue(System.currentTimeMillis() - start < 3000, "publish only enqueues");
+        assertEquals(1, roomService.getSlowClientDisconnects());
+        await(() -> roomService.socketRoomSize("stall") == 0);
+
+        // Other rooms are unaffected
+        roomService.publishFinish("other", "bob");
+        assertTrue(bob.readUntil("FINISH").contains("\"winner\":\"bob\""));
+    }
+
+    @Test
+    void testMixedRoom_OneStartAndSocketPlayersInPlayerUpdate() throws Exception {
+        coordinator.join("mixed", "stompy", "stomp-1", Transport.STOMP);
+        SocketClient sock = join("sock", "mixed");
+
+        // One START, same text on both transports
+        String socketStart = sock.readUntil("START");
+        await(() -> brokerJson("START").size() == 1);
+        assertEquals(socketStart, brokerJson("START").get(0));
+        assertTrue(socketStart.contains("\"text\""));
+
+        // Socket progress shows up in the STOMP player list on the next tick
+        sock.send("{\"type\":\"PROGRESS\",\"wpm\":55.0,\"progress\":40}");
+        await(() -> brokerMessages.stream()
+                .filter(m -> m.getPayload() instanceof PlayerUpdateMessage)
+                .map(m -> ((PlayerUpdateMessage) m.getPayload()).getPlayers())
+                .anyMatch(players -> {
+                    for (PlayerInfo p : players) {
+                        if (p.username.equals("sock") && p.progress == 40) return true;
+                    }
+                    return false;
+                }));
+
+        // STOMP progress reaches the socket player as PROGRESS on the same schedule
+        coordinator.progress("mixed", "stompy", 25, 48.0);
+        assertTrue(sock.readUntil("PROGRESS").contains("\"username\":\"stompy\""));
+    }
+
+    @Test
+    void testMixedRoom_SingleWinnerAcrossTransports() throws Exception {
+        coordinator.join("race", "stompy", "stomp-1", Transport.STOMP);
+        SocketClient sock = join("sock", "race");
+        sock.readUntil("START");
+
+        // Both finish at once, one per transport
+        sock.send("{\"type\":\"PROGRESS\",\"wpm\":60.0,\"progress\":100}");
+        coordinator.progress("race", "stompy", 100, 61.0);
+
+        String finish = sock.readUntil("FINISH");
+        await(() -> !brokerJson("FINISH").isEmpty());
+        // Both claims are queued behind their 100% updates; a later ask on the
+        // room replies only after both claims have been answered
+        await(() -> Arrays.stream(sessionManager.getPlayersInRoom("race")).allMatch(p -> p.progress == 100));
+        sessionManager.getNextWord("race").get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, brokerJson("FINISH").size());
+        assertEquals(finish, brokerJson("FINISH").get(0));
+        scoreWriter.flush();
+        assertEquals(1, savedResults.size());
+        String winner = sessionManager.getWinner("race");
+        assertTrue(finish.contains("\"winner\":\"" + winner + "\""));
+    }
+
+    @Test
+    void testSocketDisconnect_LeavesSharedRoom() throws Exception {
+        coordinator.join("leave", "stompy", "stomp-1", Transport.STOMP);
+        join("sock", "leave");
+        await(() -> sessionManager.getPlayersInRoom("leave").length == 2);
+
+        clients.get(0).close();
+        await(() -> sessionManager.getPlayersInRoom("leave").length == 1);
+        assertEquals(0, roomService.socketRoomSize("leave"));
+    }
+
+    @Test
+    void testLateJoiners_GetTheStartTheyMissedOnlyForThemselves() throws Exception {
+        coordinator.join("late", "alice", "stomp-1", Transport.STOMP);
+        coordinator.join("late", "bob", "stomp-2", Transport.STOMP);
+        await(() -> brokerJson("START").size() == 1);
+        String text = sessionManager.getRoomText("late");
+        coordinator.progress("late", "alice", 40, 50.0);
+
+        // STOMP late joiner: one snapshot with the text and everyone's progress
+        coordinator.join("late", "carol", "stomp-3", Transport.STOMP);
+        await(() -> brokerPayloads(RoomSnapshotMessage.class).size() == 1);
+        RoomSnapshotMessage snapshot = brokerPayloads(RoomSnapshotMessage.class).get(0);
+        assertTrue(snapshot.isStarted());
+        assertEquals(text, snapshot.getText());
+        assertEquals(3, snapshot.getPlayers().length);
+
+        // Socket late joiner: the original START replayed on its socket
+        SocketClient sock = join("sock", "late");
+        String start = sock.readUntil("START");
+        assertTrue(start.contains(text));
+        assertEquals(1, brokerJson("START").size(), "room-wide START is not repeated");
+        // The replay is encoded once and counted like any other event
+        assertEquals(1.0, roomService.getEncodeCallsPerEvent());
+    }
+
+    @Test
+    void testReconnectStorm_UnicastSyncWithoutRoomRebroadcast() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            coordinator.join("storm", "racer" + i, "s" + i, Transport.STOMP);
+        }
+        await(() -> brokerJson("START").size() == 1);
+        coordinator.progress("storm", "racer0", 10, 30.0);
+        await(() -> sessionManager.getPlayersInRoom("storm")[0].progress == 10);
+        long epoch = sessionManager.getRoomState("storm").epoch;
+        long seen = sessionManager.getRoomState("storm").version;
+        coordinator.progress("storm", "racer1", 20, 35.0);
+        long latest = sessionManager.getRoomState("storm").version;
+        // Racers who joined after the START already got one snapshot each
+        await(() -> broadcaster.getSnapshotsSent() == 18);
+        await(() -> brokerPayloads(PlayerUpdateMessage.class).stream().anyMatch(m -> m.getVersion() >= latest));
+        awaitTicks(2);
+        long snapshotsBefore = broadcaster.getSnapshotsSent();
+        brokerMessages.clear();
+
+        // Everyone's network blips: half come back knowing their version, half don't
+        for (int i = 0; i < 20; i++) {
+            coordinator.sync("storm", "s" + i, epoch, i % 2 == 0 ? seen : null);
+        }
+
+        assertEquals(10, broadcaster.getDeltasSent());
+        assertEquals(10, broadcaster.getSnapshotsSent() - snapshotsBefore);
+        assertEquals(1, brokerPayloads(RoomSnapshotMessage.class).stream().distinct().count(),
+                "one snapshot message serves the whole storm");
+        RoomDeltaMessage delta = brokerPayloads(RoomDeltaMessage.class).get(0);
+        assertEquals(1, delta.getPlayers().length);
+        assertEquals("racer1", delta.getPlayers()[0].username);
+
+        awaitTicks(2);
+        assertEquals(0, brokerPayloads(PlayerUpdateMessage.class).size(),
+                "syncing doesn't rebroadcast the room");
+    }
+}
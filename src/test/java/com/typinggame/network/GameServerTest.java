@@ -0,0 +1,160 @@
+package com.typinggame.network;
+
+import com.typinggame.bot.BotDifficulty;
+import com.typinggame.io.ScoreLog;
+import com.typinggame.io.UserStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for matchmaking and bot backfill in the raw socket server.
+ * Players are in-memory handlers; nothing binds the port.
+ */
+class GameServerTest {
+
+    @TempDir
+    Path scoresDir;
+
+    private GameServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    /**
+     * Handler on an unconnected socket that remembers the session it was seated in.
+     */
+    private static class QueuedPlayer extends ClientHandler {
+        private final String name;
+        private volatile GameSession session;
+
+        QueuedPlayer(String playerId, String name, GameServer server) {
+            super(new Socket(), playerId, server);
+            this.name = name;
+        }
+
+        @Override
+        public String getPlayerName() {
+            return name;
+        }
+
+        @Override
+        public void setGameSession(GameSession session) {
+            this.session = session;
+        }
+    }
+
+    private GameServer newServer(long backfillTimeoutMs, int playersPerSession) {
+        server = new GameServer(backfillTimeoutMs, playersPerSession, 0, scoresDir);
+        server.setRunning(true);
+        return server;
+    }
+
+    private QueuedPlayer join(String playerId, String name, String mode) {
+        QueuedPlayer player = new QueuedPlayer(playerId, name, server);
+        server.onPlayerConnected(player, mode);
+        return player;
+    }
+
+    private void history(String username, double wpm, int games) throws IOException {
+        try (ScoreLog log = new ScoreLog(scoresDir, 0, 64, 4)) {
+            for (int i = 0; i < games; i++) {
+                log.append(username, new UserStats.GameRecord(wpm, 97, 40, 30_000, "multiplayer", 1_000L + i));
+            }
+        }
+    }
+
+    private static List<BotDifficulty> botDifficulties(GameSession session) {
+        List<BotDifficulty> difficulties = new ArrayList<>();
+        for (SessionParticipant seat : session.getPlayers()) {
+            if (seat instanceof BotParticipant bot) {
+                difficulties.add(bot.getDifficulty());
+            }
+        }
+        return difficulties;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testWaitingPlayerIsBackfilledWithBotsAfterTimeout() throws Exception {
+        newServer(150, 3);
+        long start = System.currentTimeMillis();
+        QueuedPlayer alice = join("P1", "alice", "VS_FRIEND");
+
+        Thread.sleep(50);
+        assertNull(alice.session, "not backfilled before the timeout");
+
+        await(() -> alice.session != null);
+        assertTrue(System.currentTimeMillis() - start >= 140);
+        assertEquals(3, alice.session.getPlayerCount());
+        assertEquals(2, botDifficulties(alice.session).size());
+
+        MatchmakingMetrics metrics = server.getMatchmakingMetrics();
+        assertEquals(1, metrics.getBotBackfills());
+        assertEquals(0, metrics.getHumanMatches());
+        assertTrue(metrics.getQueueTimePercentile(50) >= 140);
+    }
+
+    @Test
+    void testBotDifficultyFollowsEachPlayersRecentAverage() throws Exception {
+        history("alice", 88, 25);
+        newServer(150, 4);
+        QueuedPlayer alice = join("P1", "alice", "ELIMINATION");
+        Thread.sleep(20);
+        QueuedPlayer bob = join("P2", "bob", "ELIMINATION"); // no history
+
+        await(() -> alice.session != null);
+        assertSame(alice.session, bob.session, "everyone waiting is seated together");
+        // One bot sized to each waiting player, longest-waiting first
+        assertEquals(List.of(BotDifficulty.EXPERT, BotDifficulty.MEDIUM), botDifficulties(alice.session));
+        assertEquals(2, server.getMatchmakingMetrics().getBotBackfills());
+    }
+
+    @Test
+    void testFullRoomStartsWithoutBots() throws Exception {
+        newServer(150, 2);
+        QueuedPlayer alice = join("P1", "alice", "VS_FRIEND");
+        QueuedPlayer bob = join("P2", "bob", "VS_FRIEND");
+
+        assertNotNull(alice.session);
+        assertSame(alice.session, bob.session);
+        assertTrue(botDifficulties(alice.session).isEmpty());
+
+        // The pending backfill finds nobody waiting and does nothing
+        await(() -> server.getBackfillChecks() == 1);
+        MatchmakingMetrics metrics = server.getMatchmakingMetrics();
+        assertEquals(2, metrics.getHumanMatches());
+        assertEquals(0, metrics.getBotBackfills());
+    }
+
+    @Test
+    void testPlayerWhoLeftIsNotBackfilled() throws Exception {
+        newServer(100, 2);
+        QueuedPlayer alice = join("P1", "alice", "VS_FRIEND");
+        alice.shutdown();
+
+        await(() -> server.getBackfillChecks() == 1);
+        assertNull(alice.session);
+        assertEquals(0, server.getMatchmakingMetrics().getBotBackfills());
+    }
+}
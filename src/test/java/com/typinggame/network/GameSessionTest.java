@@ -0,0 +1,306 @@
+package com.typinggame.network;
+
+import com.typinggame.domain.GameMode;
+import com.typinggame.network.GameMessage.MessageType;
+import com.typinggame.network.GameMessage.PlayerProgress;
+import com.typinggame.network.GameMessage.PlayerStanding;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for N-player GameSession races.
+ * Uses in-memory participants instead of sockets.
+ */
+class GameSessionTest {
+
+    private static final int LARGE_RACE = 120;
+
+    /**
+     * Participant that records everything the session sends it.
+     */
+    private static class RecordingParticipant implements SessionParticipant {
+        private final String playerId;
+        private final List<GameMessage> messages = new CopyOnWriteArrayList<>();
+        private final List<String> serialized = new CopyOnWriteArrayList<>();
+
+        RecordingParticipant(String playerId) {
+            this.playerId = playerId;
+        }
+
+        @Override
+        public String getPlayerId() {
+            return playerId;
+        }
+
+        @Override
+        public String getPlayerName() {
+            return "Racer " + playerId;
+        }
+
+        @Override
+        public void sendMessage(GameMessage message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void sendSerialized(GameMessage message, String json) {
+            messages.add(message);
+            serialized.add(json);
+        }
+
+        @Override
+        public void setGameSession(GameSession session) {
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        GameMessage last(MessageType type) {
+            for (int i = messages.size() - 1; i >= 0; i--) {
+                if (messages.get(i).getType() == type) {
+                    return messages.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
+    private static List<RecordingParticipant> createPlayers(int count) {
+        List<RecordingParticipant> players = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            players.add(new RecordingParticipant("P" + i));
+        }
+        return players;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for session");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static GameSession startRace(List<RecordingParticipant> players, GameMode mode)
+            throws InterruptedException {
+        return startRace(players, mode, 0);
+    }
+
+    private static GameSession startRace(List<RecordingParticipant> players, GameMode mode, long resumeGraceMs)
+            throws InterruptedException {
+        GameSession session = new GameSession("TEST-" + mode, players, mode, resumeGraceMs);
+        session.start();
+
+        await(() -> players.stream().allMatch(p -> p.last(MessageType.GAME_START) != null));
+        for (RecordingParticipant player : players) {
+            session.onPlayerReady(player.getPlayerId());
+        }
+        await(session::isGameStarted);
+        return session;
+    }
+
+    @Test
+    void testLargeRace_RanksEveryPlayerAndSerializesOncePerTick() throws InterruptedException {
+        List<RecordingParticipant> players = createPlayers(LARGE_RACE);
+        GameSession session = startRace(players, GameMode.VS_FRIEND);
+
+        // Player i has typed i % 40 words, so P119, P79 and P39 lead in that order of WPM
+        for (int i = 0; i < LARGE_RACE; i++) {
+            session.onProgressUpdate("P" + i, new PlayerProgress(i, 95.0, i % 40, 50, "word", 1000));
+        }
+
+        // A tick may land mid-way through the updates; wait for one that saw them all
+        await(() -> players.stream().allMatch(p -> {
+            GameMessage race = p.last(MessageType.RACE_PROGRESS);
+            return race != null && race.getStandings().get(LARGE_RACE - 1).getProgress() != null;
+        }));
+
+        GameMessage snapshot = players.get(0).last(MessageType.RACE_PROGRESS);
+        List<PlayerStanding> standings = snapshot.getStandings();
+        assertEquals(LARGE_RACE, standings.size());
+        assertEquals("P119", standings.get(0).getPlayerId());
+        assertEquals(1, standings.get(0).getRank());
+        assertEquals("P79", standings.get(1).getPlayerId());
+        assertEquals("P39", standings.get(2).getPlayerId());
+        assertEquals(LARGE_RACE, standings.get(LARGE_RACE - 1).getRank());
+
+        // Every recipient got the very same encoded frame (GAME_START is per player)
+        String firstFrame = players.get(0).serialized.get(0);
+        for (RecordingParticipant player : players) {
+            assertSame(firstFrame, player.serialized.get(0));
+        }
+
+        // First to finish ends the race for everyone
+        session.onProgressUpdate("P7", new PlayerProgress(80.0, 99.0, 50, 50, "done", 30000));
+        await(() -> players.stream().allMatch(p -> p.last(MessageType.GAME_END) != null));
+
+        GameMessage end = players.get(LARGE_RACE - 1).last(MessageType.GAME_END);
+        assertEquals("P7", end.getWinnerId());
+        assertEquals(LARGE_RACE, end.getStandings().size());
+        session.join(5000);
+    }
+
+    @Test
+    void testElimination_LastOneStandingWins() throws InterruptedException {
+        List<RecordingParticipant> players = createPlayers(100);
+        GameSession session = startRace(players, GameMode.ELIMINATION);
+
+        // The fastest typist drops out first; survival outranks speed
+        session.onProgressUpdate("P0", new PlayerProgress(55.0, 99.0, 30, 50, "word", 1000));
+        session.onPlayerDisconnected("P0");
+        Thread.sleep(5);
+
+        // Knock out everyone except P42 through wrong words (3 lives each)
+        for (int i = 1; i < 100; i++) {
+            if (i == 42) {
+                continue;
+            }
+            for (int life = 0; life < 3; life++) {
+                session.onWordValidation("P" + i, "wrong", "right");
+            }
+        }
+
+        await(() -> players.stream().allMatch(p -> p.last(MessageType.GAME_END) != null));
+
+        GameMessage end = players.get(0).last(MessageType.GAME_END);
+        assertEquals("P42", end.getWinnerId());
+        assertFalse(end.getStandings().get(0).isEliminated());
+        assertTrue(end.getStandings().get(1).isEliminated());
+        // P0 was out first, so P0 is last despite typing the most words
+        assertEquals("P0", end.getStandings().get(99).getPlayerId());
+
+        assertNotNull(players.get(5).last(MessageType.GAME_OVER));
+        assertNull(players.get(42).last(MessageType.GAME_OVER));
+        session.join(5000);
+    }
+
+    @Test
+    void testTwoPlayerDisconnect_OpponentWins() throws InterruptedException {
+        List<RecordingParticipant> players = createPlayers(2);
+        GameSession session = startRace(players, GameMode.VS_FRIEND);
+
+        session.onPlayerDisconnected("P0");
+
+        await(() -> players.get(1).last(MessageType.GAME_END) != null);
+        assertEquals("P1", players.get(1).last(MessageType.GAME_END).getWinnerId());
+        session.join(5000);
+    }
+
+    @Test
+    void testDroppedPlayerResumesWithinGrace() throws InterruptedException {
+        List<RecordingParticipant> players = createPlayers(2);
+        GameSession session = startRace(players, GameMode.VS_FRIEND, 5000);
+        String token = players.get(0).last(MessageType.GAME_START).getResumeToken();
+        assertNotNull(token);
+        assertNotEquals(token, players.get(1).last(MessageType.GAME_START).getResumeToken());
+
+        session.onProgressUpdate("P0", new PlayerProgress(70.0, 98.0, 12, 50, "word", 9000));
+        assertEquals(token, session.suspendPlayer("P0", players.get(0)));
+        long suspendedAt = System.currentTimeMillis();
+        assertEquals(1, session.getSuspendedCount());
+
+        // The race goes on; nobody wins by the drop
+        session.onProgressUpdate("P1", new PlayerProgress(50.0, 97.0, 5, 50, "word", 6000));
+        await(() -> {
+            GameMessage race = players.get(1).last(MessageType.RACE_PROGRESS);
+            return race != null && race.getStandings().stream().anyMatch(standing -> "P1".equals(standing.getPlayerId())
+                    && standing.getProgress() != null && standing.getProgress().getWordsCompleted() == 5);
+        });
+        assertNull(players.get(1).last(MessageType.GAME_END));
+        long heldFor = System.currentTimeMillis() - suspendedAt;
+
+        RecordingParticipant reconnected = new RecordingParticipant("P0");
+        char last = token.charAt(token.length() - 1);
+        assertNull(session.playerIdForToken(token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A')));
+        assertNull(session.playerIdForToken(token + "A"));
+        assertEquals("P0", session.playerIdForToken(token));
+        assertTrue(session.resumePlayer(token, reconnected));
+        assertEquals(0, session.getSuspendedCount());
+
+        GameMessage resumed = reconnected.last(MessageType.RESUMED);
+        assertEquals(50, resumed.getAttackWords().size());
+        assertEquals(2, resumed.getStandings().size());
+        assertEquals("P0", resumed.getStandings().get(0).getPlayerId());
+        assertEquals(12, resumed.getStandings().get(0).getProgress().getWordsCompleted());
+        assertTrue(resumed.getElapsedTime() >= heldFor);
+        assertNotEquals(token, resumed.getResumeToken());
+
+        // Old token and old connection are both spent
+        assertFalse(session.resumePlayer(token, new RecordingParticipant("P0")));
+        assertNull(session.suspendPlayer("P0", players.get(0)));
+
+        // The new connection plays the seat to the finish
+        session.onProgressUpdate("P0", new PlayerProgress(72.0, 98.0, 50, 50, "done", 30000));
+        await(() -> reconnected.last(MessageType.GAME_END) != null);
+        assertEquals("P0", reconnected.last(MessageType.GAME_END).getWinnerId());
+        session.join(5000);
+    }
+
+    @Test
+    void testSeatSuspendedBeforeReadyDoesNotHoldUpTheStart() throws InterruptedException {
+        List<RecordingParticipant> players = createPlayers(3);
+        GameSession session = new GameSession("TEST-PRESTART", players, GameMode.VS_FRIEND, 20000);
+        session.start();
+        await(() -> players.stream().allMatch(p -> p.last(MessageType.GAME_START) != null));
+
+        // P0 drops before sending READY; the others start without waiting out its grace
+        String token = session.suspendPlayer("P0", players.get(0));
+        assertNotNull(token);
+        session.onPlayerReady("P1");
+        session.onPlayerReady("P2");
+        long readyAt = System.currentTimeMillis();
+        await(session::isGameStarted);
+        assertTrue(System.currentTimeMillis() - readyAt < 5000);
+
+        // The seat is still held and can rejoin the running race
+        RecordingParticipant reconnected = new RecordingParticipant("P0");
+        assertTrue(session.resumePlayer(token, reconnected));
+        assertNotNull(reconnected.last(MessageType.RESUMED).getElapsedTime());
+        session.shutdown();
+        session.join(5000);
+    }
+
+    @Test
+    void testSeatForfeitedWhenGraceRunsOut() throws InterruptedException {
+        List<RecordingParticipant> players = createPlayers(2);
+        GameSession session = startRace(players, GameMode.VS_FRIEND, 300);
+        String token = session.suspendPlayer("P0", players.get(0));
+        assertNotNull(token);
+
+        await(() -> players.get(1).last(MessageType.GAME_END) != null);
+        assertEquals("P1", players.get(1).last(MessageType.GAME_END).getWinnerId());
+        assertFalse(session.resumePlayer(token, new RecordingParticipant("P0")));
+        session.join(5000);
+    }
+
+    @Test
+    void testWithoutGraceDropForfeitsAndNoTokenIsSent() throws InterruptedException {
+        List<RecordingParticipant> players = createPlayers(2);
+        GameSession session = startRace(players, GameMode.VS_FRIEND);
+        GameMessage start = players.get(0).last(MessageType.GAME_START);
+        assertNull(start.getResumeToken());
+        assertFalse(start.toJson().contains("resumeToken"));
+        // Each player learns the id standings and winnerId refer to them by
+        assertEquals("P0", start.getPlayerId());
+        assertEquals("P1", players.get(1).last(MessageType.GAME_START).getPlayerId());
+
+        assertNull(session.suspendPlayer("P0", players.get(0)));
+        await(() -> players.get(1).last(MessageType.GAME_END) != null);
+        assertEquals("P1", players.get(1).last(MessageType.GAME_END).getWinnerId());
+        session.join(5000);
+    }
+}
@@ -0,0 +1,51 @@
+package com.typinggame.network;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for queue time percentiles and backfill counts.
+ */
+class MatchmakingMetricsTest {
+
+    @Test
+    void testEmptyMetrics() {
+        MatchmakingMetrics metrics = new MatchmakingMetrics();
+        assertEquals(0, metrics.getQueueTimePercentile(50));
+        assertEquals(0.0, metrics.getBackfillRate());
+    }
+
+    @Test
+    void testCountsMatchesAndBackfills() {
+        MatchmakingMetrics metrics = new MatchmakingMetrics();
+        metrics.recordMatch(1000, false);
+        metrics.recordMatch(1200, false);
+        metrics.recordMatch(15000, true);
+        metrics.recordMatch(15100, true);
+
+        assertEquals(2, metrics.getHumanMatches());
+        assertEquals(2, metrics.getBotBackfills());
+        assertEquals(0.5, metrics.getBackfillRate(), 1e-9);
+    }
+
+    @Test
+    void testPercentilesOverSlidingWindow() {
+        MatchmakingMetrics metrics = new MatchmakingMetrics();
+        for (int i = 1; i <= 100; i++) {
+            metrics.recordMatch(i * 10, false);
+        }
+        assertEquals(500, metrics.getQueueTimePercentile(50));
+        assertEquals(900, metrics.getQueueTimePercentile(90));
+        assertEquals(990, metrics.getQueueTimePercentile(99));
+        assertEquals(1000, metrics.getQueueTimePercentile(100));
+        assertEquals(10, metrics.getQueueTimePercentile(0));
+
+        // A full window of slow matches pushes the old samples out
+        for (int i = 0; i < 1024; i++) {
+            metrics.recordMatch(20000, true);
+        }
+        assertEquals(20000, metrics.getQueueTimePercentile(1));
+        assertEquals(1124, metrics.getHumanMatches() + metrics.getBotBackfills());
+    }
+}
@@ -0,0 +1,96 @@
+package com.typinggame.repository;
+
+import com.mongodb.client.MongoClient;
+import com.typinggame.domain.GameRecord;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for keyset-paginated game history: cursors, the query shape, and
+ * paging through a real MongoDB when one is reachable.
+ */
+class GameRecordHistoryTest {
+
+    @Test
+    void testCursorRoundTripsAndRejectsGarbage() {
+        GameRecordHistory.Cursor cursor = new GameRecordHistory.Cursor(1_760_000_000_123L, "65f1c0ffee00000000000001");
+        String encoded = cursor.encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+        assertEquals(cursor, GameRecordHistory.Cursor.decode(encoded));
+
+        assertThrows(IllegalArgumentException.class, () -> GameRecordHistory.Cursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> GameRecordHistory.Cursor.decode("bm9jb2xvbg"));
+        assertThrows(IllegalArgumentException.class, () -> GameRecordHistory.Cursor.decode(
+                new GameRecordHistory.Cursor(1, "x").encode().substring(0, 2)));
+    }
+
+    @Test
+    void testQueryStartsAtCursorAndProjectsPageFields() {
+        Query first = GameRecordHistoryImpl.historyQuery("u1", null, 20);
+        assertEquals(new Document("userId", "u1"), first.getQueryObject());
+        assertEquals(new Document("timestamp", -1).append("_id", -1), first.getSortObject());
+        assertEquals(21, first.getLimit());
+        assertEquals(new Document("timestamp", 1).append("gameMode", 1).append("wpm", 1)
+                .append("accuracy", 1).append("wordsTyped", 1), first.getFieldsObject());
+
+        Date at = new Date(1_760_000_000_000L);
+        Document next = GameRecordHistoryImpl.historyQuery("u1",
+                new GameRecordHistory.Cursor(at.getTime(), "abc"), 20).getQueryObject();
+        assertEquals("u1", next.get("userId"));
+        assertEquals(new Document("$lte", at), next.get("timestamp"));
+        assertEquals(List.of(new Document("timestamp", new Document("$lt", at)),
+                new Document("_id", new Document("$lt", "abc"))), next.get("$or"));
+    }
+
+    @Test
+    void testPagesCoverHistoryOnceNewestFirst() {
+        try (MongoClient client = MongoTestSupport.connectOrSkip()) {
+            MongoTemplate template = new MongoTemplate(client, "typinggame_history_test");
+            template.dropCollection(GameRecord.class);
+            try {
+                // Bursts of games in the same millisecond, plus another user's games
+                List<GameRecord> games = new ArrayList<>();
+                for (int i = 0; i < 250; i++) {
+                    GameRecord game = new GameRecord(i % 5 == 0 ? "other" : "u1", "alice", 40 + i, 95, 25, "PRACTICE", 30_000);
+                    game.setId(new ObjectId().toHexString());
+                    game.setTimestamp(new Date(1_760_000_000_000L + (i / 4) * 1000L));
+                    games.add(game);
+                }
+                template.insertAll(games);
+
+                List<String> expected = games.stream()
+                        .filter(g -> g.getUserId().equals("u1"))
+                        .sorted(Comparator.comparing(GameRecord::getTimestamp).thenComparing(GameRecord::getId).reversed())
+                        .map(GameRecord::getId)
+                        .toList();
+
+                GameRecordHistoryImpl history = new GameRecordHistoryImpl(template);
+                List<String> seen = new ArrayList<>();
+                GameRecordHistory.Cursor cursor = null;
+                int pages = 0;
+                do {
+                    GameRecordHistory.Page page = history.findHistoryPage("u1", cursor, 30);
+                    page.games().forEach(item -> seen.add(item.id()));
+                    assertTrue(page.games().stream().allMatch(item -> item.wpm() > 0 && item.gameMode() != null));
+                    cursor = page.next() == null ? null : GameRecordHistory.Cursor.decode(page.next().encode());
+                    pages++;
+                } while (cursor != null);
+
+                assertEquals(expected, seen);
+                assertEquals(7, pages);
+            } finally {
+                template.getDb().drop();
+            }
+        }
+    }
+}
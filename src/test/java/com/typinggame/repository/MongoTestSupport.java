@@ -0,0 +1,42 @@
+package com.typinggame.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Connects tests to a real MongoDB (typinggame.test.mongo-uri, default
+ * localhost) and skips them when none is reachable.
+ */
+final class MongoTestSupport {
+
+    private MongoTestSupport() {
+    }
+
+    static MongoClient connectOrSkip() {
+        String uri = System.getProperty("typinggame.test.mongo-uri", "mongodb://localhost:27017");
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(1, TimeUnit.SECONDS))
+                .build();
+        MongoClient client = MongoClients.create(settings);
+        boolean reachable;
+        try {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+            reachable = true;
+        } catch (Exception e) {
+            reachable = false;
+        }
+        if (!reachable) {
+            client.close();
+        }
+        assumeTrue(reachable, "MongoDB not reachable at " + uri);
+        return client;
+    }
+}
@@ -0,0 +1,147 @@
+package com.typinggame.repository;
+
+import com.mongodb.client.MongoClient;
+import com.typinggame.domain.User;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the atomic user stats update: the pipeline's arithmetic, and
+ * exact totals under concurrent updates against a real MongoDB when one is
+ * reachable (typinggame.test.mongo-uri, default localhost).
+ */
+class UserStatsUpdatesTest {
+
+    private static Document pipelineStage(double wpm, boolean isWin) {
+        List<Document> pipeline = UserStatsUpdatesImpl.statsUpdate(wpm, isWin).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(1, pipeline.size());
+        return pipeline.get(0).get("$set", Document.class);
+    }
+
+    /**
+     * Evaluates the expression operators the stats pipeline uses against a document.
+     */
+    private static Object eval(Object expression, Document doc) {
+        if (expression instanceof String field && field.startsWith("$")) {
+            return doc.get(field.substring(1));
+        }
+        if (!(expression instanceof Document operator)) {
+            return expression;
+        }
+        Map.Entry<String, Object> entry = operator.entrySet().iterator().next();
+        List<Object> args = new ArrayList<>();
+        for (Object arg : (List<?>) entry.getValue()) {
+            args.add(eval(arg, doc));
+        }
+        if (entry.getKey().equals("$ifNull")) {
+            return args.get(0) != null ? args.get(0) : args.get(1);
+        }
+        if (args.get(0) instanceof Integer x && args.get(1) instanceof Integer y && entry.getKey().equals("$add")) {
+            return x + y;
+        }
+        double a = ((Number) args.get(0)).doubleValue();
+        double b = ((Number) args.get(1)).doubleValue();
+        return switch (entry.getKey()) {
+            case "$add" -> a + b;
+            case "$multiply" -> a * b;
+            case "$divide" -> a / b;
+            case "$max" -> Math.max(a, b);
+            default -> throw new IllegalArgumentException(entry.getKey());
+        };
+    }
+
+    @Test
+    void testPipelineMatchesInMemoryStats() {
+        Random random = new Random(5);
+        User expected = new User("alice", "alice@example.com", "secret");
+        Document stored = new Document("username", "alice").append("password", "secret");
+
+        for (int i = 0; i < 1_000; i++) {
+            double wpm = 20 + random.nextDouble() * 100;
+            boolean isWin = random.nextBoolean();
+            expected.updateStats(wpm, isWin);
+
+            // Every field is computed from the document as it was before the stage
+            Document set = pipelineStage(wpm, isWin);
+            Document before = new Document(stored);
+            set.forEach((field, expression) -> stored.put(field, eval(expression, before)));
+        }
+
+        assertEquals(expected.getTotalGames(), stored.get("totalGames"));
+        assertEquals(expected.getTotalWins(), stored.get("totalWins"));
+        assertEquals(expected.getBestWPM(), stored.getDouble("bestWPM"));
+        assertEquals(expected.getAvgWPM(), stored.getDouble("avgWPM"), 1e-9);
+        assertEquals("secret", stored.get("password"));
+        assertFalse(pipelineStage(50, false).containsKey("password"));
+        assertFalse(pipelineStage(50, false).containsKey("email"));
+    }
+
+    @Test
+    void testConcurrentGamesKeepExactTotals() throws Exception {
+        try (MongoClient client = MongoTestSupport.connectOrSkip()) {
+            MongoTemplate template = new MongoTemplate(client, "typinggame_stats_test");
+            template.dropCollection(User.class);
+            try {
+                User user = template.insert(new User("alice", "alice@example.com", "secret"));
+                UserStatsUpdatesImpl updates = new UserStatsUpdatesImpl(template);
+
+                int threads = 16;
+                int gamesPerThread = 250;
+                ExecutorService pool = Executors.newFixedThreadPool(threads);
+                List<Future<double[]>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int seed = t;
+                    results.add(pool.submit(() -> {
+                        Random random = new Random(seed);
+                        double sum = 0;
+                        double best = 0;
+                        int wins = 0;
+                        for (int i = 0; i < gamesPerThread; i++) {
+                            double wpm = 20 + random.nextInt(100);
+                            boolean isWin = random.nextInt(3) == 0;
+                            assertTrue(updates.recordGame(user.getId(), wpm, isWin).isPresent());
+                            sum += wpm;
+                            best = Math.max(best, wpm);
+                            wins += isWin ? 1 : 0;
+                        }
+                        return new double[] {sum, best, wins};
+                    }));
+                }
+                double sum = 0;
+                double best = 0;
+                int wins = 0;
+                for (Future<double[]> result : results) {
+                    double[] totals = result.get(60, TimeUnit.SECONDS);
+                    sum += totals[0];
+                    best = Math.max(best, totals[1]);
+                    wins += (int) totals[2];
+                }
+                pool.shutdown();
+
+                User after = template.findById(user.getId(), User.class);
+                int games = threads * gamesPerThread;
+                assertEquals(games, after.getTotalGames());
+                assertEquals(wins, after.getTotalWins());
+                assertEquals(best, after.getBestWPM());
+                assertEquals(sum / games, after.getAvgWPM(), 1e-6);
+                assertEquals("secret", after.getPassword());
+                assertTrue(updates.recordGame("no-such-user", 50, false).isEmpty());
+            } finally {
+                template.getDb().drop();
+            }
+        }
+    }
+}
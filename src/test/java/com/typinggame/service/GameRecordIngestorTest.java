@@ -0,0 +1,170 @@
+package com.typinggame.service;
+
+import com.typinggame.domain.GameRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for batching, retries and backpressure of the game record ingestion pipeline.
+ */
+class GameRecordIngestorTest {
+
+    /**
+     * Stands in for game_records: stores by id, like a collection with a unique _id.
+     */
+    private static class RecordingInserter implements GameRecordIngestor.BulkInserter {
+        final Map<String, GameRecord> stored = new ConcurrentHashMap<>();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final AtomicInteger attempts = new AtomicInteger();
+        final AtomicInteger batchFailuresLeft = new AtomicInteger();
+        volatile String rejectUsername;
+        volatile CountDownLatch gate;
+
+        @Override
+        public List<Integer> insert(List<GameRecord> records) throws Exception {
+            if (gate != null) {
+                gate.await();
+            }
+            attempts.addAndGet(records.size());
+            if (batchFailuresLeft.getAndDecrement() > 0) {
+                // The writes landed but the acknowledgement was lost
+                records.forEach(r -> stored.put(r.getId(), r));
+                throw new IllegalStateException("socket timeout");
+            }
+            batchSizes.add(records.size());
+            List<Integer> failed = new ArrayList<>();
+            for (int i = 0; i < records.size(); i++) {
+                GameRecord record = records.get(i);
+                if (record.getUsername().equals(rejectUsername)) {
+                    failed.add(i);
+                } else {
+                    stored.putIfAbsent(record.getId(), record);
+                }
+            }
+            return failed;
+        }
+    }
+
+    private final RecordingInserter inserter = new RecordingInserter();
+    private GameRecordIngestor ingestor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        inserter.gate = null;
+        ingestor.stop();
+    }
+
+    private static GameRecord game(String username, double wpm) {
+        return new GameRecord("id-" + username, username, wpm, 95, 30, "PRACTICE", 30_000);
+    }
+
+    private static void await(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testRecordsAreInsertedInBoundedBatches() throws Exception {
+        ingestor = new GameRecordIngestor(inserter, 100, 60_000, 1_000, 1_000, 3);
+        ingestor.start();
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(ingestor.submit(game("user" + (i % 7), i)));
+        }
+        await(() -> ingestor.getInserted() == 1_000);
+
+        assertEquals(1_000, inserter.stored.size());
+        assertEquals(10, inserter.batchSizes.size());
+        assertTrue(inserter.batchSizes.stream().allMatch(size -> size == 100));
+        assertEquals(0, ingestor.getPending());
+    }
+
+    @Test
+    void testPartialBatchGoesOutAfterInterval() throws Exception {
+        ingestor = new GameRecordIngestor(inserter, 100, 100, 1_000, 1_000, 3);
+        ingestor.start();
+
+        ingestor.submit(game("alice", 50));
+        ingestor.submit(game("bob", 60));
+        assertTrue(inserter.stored.isEmpty());
+        await(() -> ingestor.getInserted() == 2);
+        assertEquals(List.of(2), inserter.batchSizes);
+    }
+
+    @Test
+    void testFailedBatchIsRetriedWithoutDuplicates() throws Exception {
+        ingestor = new GameRecordIngestor(inserter, 50, 10, 1_000, 1_000, 3);
+        ingestor.start();
+        inserter.batchFailuresLeft.set(1);
+
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            GameRecord record = game("alice", i);
+            ingestor.submit(record);
+            ids.add(record.getId());
+        }
+        ingestor.flush();
+
+        // Delivered at least once, stored once: ids are assigned before the first attempt
+        assertEquals(20, ids.size());
+        assertEquals(ids, inserter.stored.keySet());
+        assertTrue(inserter.attempts.get() >= 40);
+        assertEquals(20, ingestor.getInserted());
+        assertEquals(1, ingestor.getFailures());
+    }
+
+    @Test
+    void testRejectedRecordIsDroppedAfterMaxAttempts() throws Exception {
+        ingestor = new GameRecordIngestor(inserter, 50, 10, 1_000, 1_000, 2);
+        ingestor.start();
+        inserter.rejectUsername = "mallory";
+
+        ingestor.submit(game("alice", 50));
+        ingestor.submit(game("mallory", 999));
+        ingestor.submit(game("bob", 70));
+        ingestor.flush();
+
+        assertEquals(2, inserter.stored.size());
+        assertEquals(2, ingestor.getInserted());
+        assertEquals(1, ingestor.getDropped());
+        assertEquals(1, ingestor.getRetries());
+    }
+
+    @Test
+    void testFullQueueRefusesAfterTimeout() throws Exception {
+        ingestor = new GameRecordIngestor(inserter, 5, 10, 10, 50, 3);
+        inserter.gate = new CountDownLatch(1);
+        ingestor.start();
+
+        // One batch held by the stalled insert, then the queue fills up
+        int accepted = 0;
+        for (int i = 0; i < 30; i++) {
+            if (ingestor.submit(game("alice", i))) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted >= 10 && accepted <= 15, "accepted " + accepted);
+        assertEquals(30 - accepted, ingestor.getRejected());
+        assertTrue(ingestor.getBlockedSubmits() >= ingestor.getRejected());
+        assertTrue(ingestor.getPending() <= 10);
+
+        inserter.gate.countDown();
+        ingestor.flush();
+        assertEquals(accepted, inserter.stored.size());
+    }
+}
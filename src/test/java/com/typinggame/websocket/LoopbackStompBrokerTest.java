@@ -0,0 +1,159 @@
+package com.typinggame.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two app "nodes", each with Spring's STOMP broker relay, sharing the
+ * loopback broker: a broadcast published on one node reaches a client
+ * connected to the other.
+ */
+class LoopbackStompBrokerTest {
+
+    private LoopbackStompBroker broker;
+    private final List<Node> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = new LoopbackStompBroker(true, 0);
+        broker.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Node node : nodes) {
+            node.relay.stop();
+        }
+        broker.stop();
+    }
+
+    /**
+     * One node's relay plus the frames it would write to its WebSocket clients.
+     */
+    private static class Node {
+        final StompBrokerRelayMessageHandler relay;
+        final BlockingQueue<Message<?>> toClients = new LinkedBlockingQueue<>();
+
+        Node(int brokerPort) {
+            ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+            ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+            ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+            clientOutbound.subscribe(toClients::add);
+
+            relay = new StompBrokerRelayMessageHandler(clientInbound, clientOutbound, brokerChannel,
+                    List.of("/topic", "/queue"));
+            relay.setRelayHost("127.0.0.1");
+            relay.setRelayPort(brokerPort);
+            relay.setSystemHeartbeatSendInterval(0);
+            relay.setSystemHeartbeatReceiveInterval(0);
+            relay.start();
+        }
+
+        void clientFrame(StompCommand command, String sessionId, String destination, String receipt) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+            accessor.setSessionId(sessionId);
+            if (destination != null) {
+                accessor.setDestination(destination);
+                accessor.setSubscriptionId("sub-" + sessionId);
+            }
+            if (receipt != null) {
+                accessor.setReceipt(receipt);
+            }
+            accessor.setLeaveMutable(true);
+            relay.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        }
+
+        /**
+         * What SimpMessagingTemplate hands the broker channel.
+         */
+        void broadcast(String destination, String json) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(destination);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            relay.handleMessage(MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8),
+                    accessor.getMessageHeaders()));
+        }
+
+        Message<?> awaitCommand(StompCommand command) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (System.currentTimeMillis() < deadline) {
+                Message<?> message = toClients.poll(100, TimeUnit.MILLISECONDS);
+                if (message != null && StompHeaderAccessor.wrap(message).getCommand() == command) {
+                    return message;
+                }
+            }
+            return fail("No " + command + " frame reached the client");
+        }
+    }
+
+    private Node startNode() throws InterruptedException {
+        Node node = new Node(broker.getPort());
+        nodes.add(node);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!node.relay.isBrokerAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(node.relay.isBrokerAvailable(), "relay system session should connect");
+        return node;
+    }
+
+    @Test
+    void testBroadcastFromOneNodeReachesClientOnAnother() throws Exception {
+        Node nodeA = startNode();
+        Node nodeB = startNode();
+
+        // Client on node A subscribes to the room topic
+        nodeA.clientFrame(StompCommand.CONNECT, "a-1", null, null);
+        nodeA.awaitCommand(StompCommand.CONNECTED);
+        nodeA.clientFrame(StompCommand.SUBSCRIBE, "a-1", "/topic/game/room-1", "subscribed");
+        nodeA.awaitCommand(StompCommand.RECEIPT);
+
+        // Room owner is node B
+        nodeB.broadcast("/topic/game/room-1", "{\"type\":\"START\",\"roomId\":\"room-1\"}");
+
+        Message<?> delivered = nodeA.awaitCommand(StompCommand.MESSAGE);
+        assertEquals("a-1", SimpMessageHeaderAccessor.getSessionId(delivered.getHeaders()));
+        assertEquals("{\"type\":\"START\",\"roomId\":\"room-1\"}",
+                new String((byte[]) delivered.getPayload(), StandardCharsets.UTF_8));
+        assertEquals(1, broker.getMessagesDelivered());
+
+        // 2 system sessions + 1 client session
+        assertEquals(3, broker.getConnectionCount());
+    }
+
+    @Test
+    void testUnsubscribedClientStopsReceiving() throws Exception {
+        Node node = startNode();
+        node.clientFrame(StompCommand.CONNECT, "a-1", null, null);
+        node.awaitCommand(StompCommand.CONNECTED);
+        node.clientFrame(StompCommand.SUBSCRIBE, "a-1", "/topic/game/room-2", "subscribed");
+        node.awaitCommand(StompCommand.RECEIPT);
+        node.clientFrame(StompCommand.UNSUBSCRIBE, "a-1", "/topic/game/room-2", "unsubscribed");
+        node.awaitCommand(StompCommand.RECEIPT);
+
+        node.broadcast("/topic/game/room-2", "{\"type\":\"FINISH\"}");
+        node.broadcast("/topic/game/other", "{\"type\":\"FINISH\"}");
+
+        assertNull(node.toClients.poll(300, TimeUnit.MILLISECONDS));
+        assertEquals(0, broker.getMessagesDelivered());
+    }
+}
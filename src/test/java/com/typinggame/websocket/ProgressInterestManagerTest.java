@@ -0,0 +1,100 @@
+package com.typinggame.websocket;
+
+import com.typinggame.websocket.ProgressInterestManager.RankedRoom;
+import com.typinggame.websocket.WebSocketSessionManager.PlayerInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for interest-managed progress fan-out.
+ */
+class ProgressInterestManagerTest {
+
+    private ProgressInterestManager interestManager;
+
+    @BeforeEach
+    void setUp() {
+        interestManager = new ProgressInterestManager();
+    }
+
+    private static PlayerInfo[] createRoom(int size) {
+        PlayerInfo[] players = new PlayerInfo[size];
+        for (int i = 0; i < size; i++) {
+            players[i] = new PlayerInfo("racer" + i, "session" + i, i * 100 / size, 40 + i % 30, "ACTIVE");
+        }
+        return players;
+    }
+
+    @Test
+    void testSmallRoomsKeepFullBroadcast() {
+        assertFalse(interestManager.isLargeRoom(2));
+        assertFalse(interestManager.isLargeRoom(ProgressInterestManager.FULL_BROADCAST_MAX_PLAYERS));
+        assertTrue(interestManager.isLargeRoom(ProgressInterestManager.FULL_BROADCAST_MAX_PLAYERS + 1));
+    }
+
+    @Test
+    void testInterestSet_LeadersAndNearestRivals() {
+        RankedRoom room = interestManager.rank(createRoom(100));
+
+        // racer99 leads, racer50 sits at rank 49
+        assertEquals(0, room.rankOf("racer99"));
+        int rank = room.rankOf("racer50");
+        PlayerInfo[] view = interestManager.interestSet(room, rank);
+
+        assertEquals(ProgressInterestManager.LEADER_COUNT + 2 * ProgressInterestManager.RIVAL_RADIUS + 1,
+                view.length);
+        assertEquals("racer99", view[0].username);
+        assertTrue(Arrays.stream(view).anyMatch(p -> p.username.equals("racer50")));
+        assertTrue(Arrays.stream(view).anyMatch(p -> p.username.equals("racer52")));
+        assertTrue(Arrays.stream(view).anyMatch(p -> p.username.equals("racer48")));
+    }
+
+    @Test
+    void testInterestSet_LeaderHasNoDuplicates() {
+        RankedRoom room = interestManager.rank(createRoom(50));
+        PlayerInfo[] view = interestManager.interestSet(room, 0);
+
+        assertEquals(view.length, Arrays.stream(view).map(p -> p.username).distinct().count());
+    }
+
+    @Test
+    void testFanOut_LinearInRoomSize() {
+        // Every player updates once: count player entries sent in total
+        for (int size : new int[] { 100, 500 }) {
+            RankedRoom room = interestManager.rank(createRoom(size));
+            long entriesSent = 0;
+            for (int changed = 0; changed < size; changed++) {
+                for (PlayerInfo recipient : interestManager.recipientsFor(room, changed)) {
+                    entriesSent += interestManager.interestSet(room, room.rankOf(recipient.username)).length;
+                }
+            }
+
+            // Full broadcast would be size * size * size entries; leaders reach
+            // everyone, anyone else reaches 2 * RIVAL_RADIUS + 1 players
+            int perView = ProgressInterestManager.LEADER_COUNT + 2 * ProgressInterestManager.RIVAL_RADIUS + 1;
+            assertTrue(entriesSent <= (long) size * perView * perView,
+                    "fan-out for " + size + " players was " + entriesSent);
+        }
+    }
+
+    @Test
+    void testProgressHistogram() {
+        int[] histogram = interestManager.progressHistogram(createRoom(500));
+
+        assertEquals(ProgressInterestManager.HISTOGRAM_BUCKETS, histogram.length);
+        assertEquals(500, Arrays.stream(histogram).sum());
+        assertEquals(50, histogram[0]);
+    }
+
+    @Test
+    void testSummaryRateLimit() {
+        assertTrue(interestManager.shouldSendSummary("room", 1000));
+        assertFalse(interestManager.shouldSendSummary("room", 1500));
+        assertTrue(interestManager.shouldSendSummary("room", 2000));
+        assertTrue(interestManager.shouldSendSummary("other", 1500));
+    }
+}
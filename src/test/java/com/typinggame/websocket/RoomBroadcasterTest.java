@@ -0,0 +1,124 @@
+package com.typinggame.websocket;
+
+import com.typinggame.multiplayer.MultiplayerRoomService;
+import com.typinggame.websocket.GameWebSocketController.PlayerUpdateMessage;
+import com.typinggame.websocket.WebSocketSessionManager.PlayerInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for coalescing progress broadcasts into one snapshot per room per tick.
+ * Ticks are driven by hand; the STOMP broker is a capturing channel.
+ */
+class RoomBroadcasterTest {
+
+    private static final String ROOM = "room-1";
+
+    private final List<Message<?>> brokerMessages = new CopyOnWriteArrayList<>();
+    // Alice's progress as of each change notification, in order
+    private final List<Integer> notifiedProgress = new CopyOnWriteArrayList<>();
+    private final List<String> notifiedPlayers = new CopyOnWriteArrayList<>();
+    private WebSocketSessionManager sessionManager;
+    private RoomBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> brokerMessages.add(message));
+        sessionManager = new WebSocketSessionManager();
+        broadcaster = new RoomBroadcaster(template, sessionManager, new ProgressInterestManager(),
+                new MultiplayerRoomService(template), 10);
+        // Not started: this test calls tick() itself
+
+        // Runs after the broadcaster's listener, so once a change shows up here it is marked dirty
+        sessionManager.addRoomChangeListener((roomId, username) -> {
+            notifiedPlayers.add(username);
+            if ("alice".equals(username)) {
+                notifiedProgress.add(player(sessionManager.getRoomState(roomId).getPlayers(), "alice").getProgress());
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionManager.shutdown();
+    }
+
+    private List<PlayerUpdateMessage> roomUpdates() {
+        List<PlayerUpdateMessage> updates = new ArrayList<>();
+        for (Message<?> message : brokerMessages) {
+            if (message.getPayload() instanceof PlayerUpdateMessage update
+                    && ("/topic/game/" + ROOM).equals(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+                updates.add(update);
+            }
+        }
+        return updates;
+    }
+
+    private static PlayerInfo player(PlayerInfo[] players, String username) {
+        for (PlayerInfo player : players) {
+            if (player.getUsername().equals(username)) {
+                return player;
+            }
+        }
+        fail("No player " + username);
+        return null;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testOnlyLatestProgressIsSentOncePerTick() throws Exception {
+        sessionManager.addPlayerToRoom(ROOM, "alice", "s1");
+        sessionManager.addPlayerToRoom(ROOM, "bob", "s2");
+        await(() -> notifiedPlayers.contains("alice") && notifiedPlayers.contains("bob"));
+        broadcaster.tick();
+        assertEquals(1, roomUpdates().size(), "both joins go out in one snapshot");
+        assertEquals(2, roomUpdates().get(0).getPlayers().length);
+        brokerMessages.clear();
+
+        // Several updates for one player within a single tick
+        for (int progress = 10; progress <= 50; progress += 10) {
+            sessionManager.updatePlayerProgress(ROOM, "alice", progress, 40 + progress, "ACTIVE");
+        }
+        await(() -> notifiedProgress.contains(50));
+        assertTrue(roomUpdates().isEmpty(), "nothing goes out between ticks");
+
+        broadcaster.tick();
+        List<PlayerUpdateMessage> updates = roomUpdates();
+        assertEquals(1, updates.size(), "one snapshot for the whole tick");
+        PlayerInfo alice = player(updates.get(0).getPlayers(), "alice");
+        assertEquals(50, alice.getProgress());
+        assertEquals(90.0, alice.getWpm());
+        assertEquals(0, player(updates.get(0).getPlayers(), "bob").getProgress());
+
+        // Nothing changed since: the next tick sends nothing
+        broadcaster.tick();
+        assertEquals(1, roomUpdates().size());
+
+        // A later change goes out on the following tick, again once
+        sessionManager.updatePlayerProgress(ROOM, "alice", 60, 101, "ACTIVE");
+        await(() -> notifiedProgress.contains(60));
+        broadcaster.tick();
+        broadcaster.tick();
+        updates = roomUpdates();
+        assertEquals(2, updates.size());
+        assertEquals(60, player(updates.get(1).getPlayers(), "alice").getProgress());
+    }
+}
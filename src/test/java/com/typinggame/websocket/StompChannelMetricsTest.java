@@ -0,0 +1,82 @@
+package com.typinggame.websocket;
+
+import com.typinggame.websocket.StompChannelMetrics.Channel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the STOMP channel pool gauges.
+ */
+class StompChannelMetricsTest {
+
+    private StompChannelMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new StompChannelMetrics(10_000, 2, 20);
+    }
+
+    @Test
+    void testQueueDepthLatencyAndRejections() throws Exception {
+        ThreadPoolTaskExecutor executor = metrics.newExecutor(Channel.OUTBOUND, 1, 1, 2);
+        executor.initialize();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(3);
+            executor.execute(() -> {
+                awaitQuietly(release);
+                done.countDown();
+            });
+            executor.execute(done::countDown);
+            executor.execute(done::countDown);
+
+            // One running, two waiting, the next one doesn't fit
+            assertEquals(2, metrics.getQueueDepth(Channel.OUTBOUND));
+            assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+            assertEquals(1, metrics.getRejected(Channel.OUTBOUND));
+
+            Thread.sleep(30);
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            executor.shutdown();
+            executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS);
+
+            assertEquals(3, metrics.getTasks(Channel.OUTBOUND));
+            assertEquals(0, metrics.getQueueDepth(Channel.OUTBOUND));
+            assertTrue(metrics.getMaxWaitMicros(Channel.OUTBOUND) >= 25_000,
+                    "queued tasks should have waited behind the blocked one");
+            assertEquals(0, metrics.getTasks(Channel.INBOUND));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testDroppedSessionsCountedPerChannel() {
+        metrics.recordClose(CloseStatus.SESSION_NOT_RELIABLE);
+        metrics.recordClose(CloseStatus.SESSION_NOT_RELIABLE);
+        metrics.recordClose(CloseStatus.TOO_BIG_TO_PROCESS);
+        metrics.recordClose(CloseStatus.NORMAL);
+
+        assertEquals(2, metrics.getDroppedSessions(Channel.OUTBOUND));
+        assertEquals(1, metrics.getDroppedSessions(Channel.INBOUND));
+        assertEquals(0, metrics.getDroppedSessions(Channel.BROKER));
+        assertTrue(metrics.toString().contains("dropped sessions=2"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
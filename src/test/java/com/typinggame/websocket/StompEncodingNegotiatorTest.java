@@ -0,0 +1,138 @@
+package com.typinggame.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.typinggame.multiplayer.RoomEvent;
+import com.typinggame.websocket.GameWebSocketController.PlayerUpdateMessage;
+import com.typinggame.websocket.WebSocketSessionManager.PlayerInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for per-client CBOR frames, plus a bandwidth comparison for a
+ * 10-player room at 20 Hz.
+ */
+class StompEncodingNegotiatorTest {
+
+    private static final int ROOM_PLAYERS = 10;
+
+    private StompEncodingNegotiator negotiator;
+
+    @BeforeEach
+    void setUp() {
+        negotiator = new StompEncodingNegotiator();
+    }
+
+    private void connect(String sessionId, String contentType, boolean sockJs) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (contentType != null) {
+            accessor.setNativeHeader("content-type", contentType);
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        if (sockJs) {
+            attributes.put(StompEncodingNegotiator.SOCKJS_ATTRIBUTE, Boolean.TRUE);
+        }
+        accessor.setSessionAttributes(attributes);
+        negotiator.inboundInterceptor().preSend(
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    /**
+     * What the broker hands the outbound channel for one subscriber.
+     */
+    private static Message<byte[]> brokerMessage(String sessionId, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/game/room-1");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+    }
+
+    private static byte[] playerUpdateJson() {
+        PlayerInfo[] players = new PlayerInfo[ROOM_PLAYERS];
+        for (int i = 0; i < ROOM_PLAYERS; i++) {
+            players[i] = new PlayerInfo("racer" + i, "s" + i, i * 9, 40.0 + i * 3.7, "ACTIVE");
+        }
+        Message<?> message = new StompPayloadConverter().toMessage(new PlayerUpdateMessage("PLAYER_UPDATE", players), null);
+        return (byte[]) message.getPayload();
+    }
+
+    @Test
+    void testCborClientGetsCborAndJsonClientIsUntouched() throws Exception {
+        connect("cbor-1", "application/cbor", false);
+        connect("json-1", null, false);
+
+        byte[] json = playerUpdateJson();
+        Message<?> toCbor = negotiator.outboundInterceptor().preSend(brokerMessage("cbor-1", json), null);
+        Message<?> toJson = negotiator.outboundInterceptor().preSend(brokerMessage("json-1", json), null);
+
+        assertSame(json, toJson.getPayload());
+        assertEquals(StompEncodingNegotiator.CBOR_FRAME, toCbor.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertTrue(MimeTypeUtils.APPLICATION_OCTET_STREAM.isCompatibleWith(StompEncodingNegotiator.CBOR_FRAME));
+
+        // Same document, different encoding
+        JsonNode decoded = new CBORMapper().readTree((byte[]) toCbor.getPayload());
+        assertEquals(new ObjectMapper().readTree(json), decoded);
+        assertEquals("/topic/game/room-1", SimpMessageHeaderAccessor.getDestination(toCbor.getHeaders()));
+    }
+
+    @Test
+    void testSharedPayloadTranscodedOncePerBroadcast() {
+        for (int i = 0; i < ROOM_PLAYERS; i++) {
+            connect("cbor-" + i, "application/cbor", false);
+        }
+
+        // One START for the whole room, as the broker fans it out
+        ByteBuffer encoded = RoomEvent.start("room-1", "the quick brown fox", 1L).asReadOnlyBuffer();
+        byte[] start = new byte[encoded.remaining()];
+        encoded.get(start);
+        for (int i = 0; i < ROOM_PLAYERS; i++) {
+            negotiator.outboundInterceptor().preSend(brokerMessage("cbor-" + i, start), null);
+        }
+
+        assertEquals(1, negotiator.getTranscodes());
+        assertEquals(ROOM_PLAYERS - 1, negotiator.getCacheHits());
+    }
+
+    @Test
+    void testSockJsAndDisconnectFallBackToJson() {
+        connect("sockjs-1", "application/cbor", true);
+        connect("cbor-1", "application/cbor", false);
+        assertFalse(negotiator.isCborSession("sockjs-1"));
+        assertTrue(negotiator.isCborSession("cbor-1"));
+
+        StompHeaderAccessor disconnect = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        disconnect.setSessionId("cbor-1");
+        negotiator.inboundInterceptor().preSend(
+                MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()), null);
+
+        assertEquals(0, negotiator.getCborSessionCount());
+    }
+
+    @Test
+    void testCborBodyIsSmallerThanJson() throws Exception {
+        byte[] compactJson = playerUpdateJson();
+        byte[] cbor = StompEncodingNegotiator.jsonToCbor(compactJson);
+        byte[] prettyJson = new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValueAsBytes(new ObjectMapper().readTree(compactJson));
+
+        assertTrue(cbor.length < compactJson.length);
+        assertTrue(compactJson.length < prettyJson.length);
+    }
+}
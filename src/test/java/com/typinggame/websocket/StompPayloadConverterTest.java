@@ -0,0 +1,134 @@
+package com.typinggame.websocket;
+
+import com.typinggame.websocket.GameWebSocketController.PlayerUpdateMessage;
+import com.typinggame.websocket.StompPayloads.FinishPayload;
+import com.typinggame.websocket.StompPayloads.JoinPayload;
+import com.typinggame.websocket.StompPayloads.ProgressPayload;
+import com.typinggame.websocket.WebSocketSessionManager.PlayerInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for typed STOMP payload decoding, plus an allocation comparison
+ * against the old Map-based decoding.
+ */
+class StompPayloadConverterTest {
+
+    // One second of progress traffic at 10k messages/s
+    private static final int MESSAGES = 10_000;
+
+    private StompPayloadConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new StompPayloadConverter();
+    }
+
+    private static Message<byte[]> frame(String json) {
+        return MessageBuilder.withPayload(json.getBytes(StandardCharsets.UTF_8)).build();
+    }
+
+    @Test
+    void testDecode_TypedPayloads() {
+        ProgressPayload progress = (ProgressPayload) converter.fromMessage(
+                frame("{\"username\":\"alice\",\"wpm\":72.5,\"progress\":40,\"extra\":true}"), ProgressPayload.class);
+        assertEquals(new ProgressPayload("alice", 40, 72.5), progress);
+
+        JoinPayload join = (JoinPayload) converter.fromMessage(frame("{\"username\":\"bob\"}"), JoinPayload.class);
+        assertEquals("bob", join.username());
+        assertNull(join.sessionId());
+
+        // Accuracy defaults to 100 as before
+        FinishPayload finish = (FinishPayload) converter.fromMessage(
+                frame("{\"username\":\"carol\",\"wpm\":60,\"wordsTyped\":25,\"duration\":30000}"), FinishPayload.class);
+        assertEquals(100.0, finish.accuracy());
+        assertEquals(30000L, finish.duration());
+    }
+
+    @Test
+    void testDecode_RejectsInvalidFrames() {
+        assertThrows(MessageConversionException.class, () -> converter.fromMessage(
+                frame("{\"username\":\"alice\",\"wpm\":50,\"progress\":140}"), ProgressPayload.class));
+        assertThrows(MessageConversionException.class, () -> converter.fromMessage(
+                frame("{\"wpm\":50,\"progress\":10}"), ProgressPayload.class));
+        assertThrows(MessageConversionException.class, () -> converter.fromMessage(
+                frame("{\"username\":\"alice\",\"wpm\":-3,\"progress\":10}"), ProgressPayload.class));
+        assertThrows(MessageConversionException.class, () -> converter.fromMessage(
+                frame("{\"username\":\"alice\",\"wpm\":50,\"accuracy\":101}"), FinishPayload.class));
+        assertThrows(MessageConversionException.class, () -> converter.fromMessage(
+                frame("{not json"), JoinPayload.class));
+    }
+
+    @Test
+    void testEncode_PlayerUpdateKeepsSessionIdPrivate() {
+        PlayerInfo[] players = { new PlayerInfo("alice", "secret-session", 40, 72.5, "ACTIVE") };
+        Message<?> message = converter.toMessage(new PlayerUpdateMessage("PLAYER_UPDATE", players), null);
+
+        String json = new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"username\":\"alice\""));
+        assertFalse(json.contains("secret-session"));
+        assertFalse(converter.canConvertTo("plain string", null));
+    }
+
+    @Test
+    void testAllocationsPerProgressMessage_TypedVsMap() {
+        MappingJackson2MessageConverter mapConverter = new MappingJackson2MessageConverter();
+        Message<?>[] frames = new Message<?>[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            frames[i] = frame("{\"username\":\"racer" + (i % 100) + "\",\"wpm\":" + (40 + i % 60)
+                    + ".5,\"progress\":" + (i % 101) + "}");
+        }
+
+        // Warm both paths up before measuring
+        decodeAsMap(mapConverter, frames);
+        decodeTyped(frames);
+
+        long mapBytes = measureAllocatedBytes(() -> decodeAsMap(mapConverter, frames));
+        long typedBytes = measureAllocatedBytes(() -> decodeTyped(frames));
+
+        assertTrue(typedBytes < mapBytes, "typed decode should allocate less than Map decode");
+    }
+
+    /**
+     * The old handler path: Jackson builds a LinkedHashMap, then numbers are unboxed by hand.
+     */
+    @SuppressWarnings("unchecked")
+    private static long decodeAsMap(MappingJackson2MessageConverter mapConverter, Message<?>[] frames) {
+        long checksum = 0;
+        for (Message<?> frame : frames) {
+            Map<String, Object> payload = (Map<String, Object>) mapConverter.fromMessage(frame, Map.class);
+            String username = (String) payload.get("username");
+            int progress = ((Number) payload.getOrDefault("progress", 0)).intValue();
+            double wpm = ((Number) payload.getOrDefault("wpm", 0.0)).doubleValue();
+            checksum += progress + (long) wpm + username.length();
+        }
+        return checksum;
+    }
+
+    private long decodeTyped(Message<?>[] frames) {
+        long checksum = 0;
+        for (Message<?> frame : frames) {
+            ProgressPayload payload = (ProgressPayload) converter.fromMessage(frame, ProgressPayload.class);
+            checksum += payload.progress() + (long) payload.wpm() + payload.username().length();
+        }
+        return checksum;
+    }
+
+    private static long measureAllocatedBytes(Runnable work) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        work.run();
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
+}
@@ -0,0 +1,277 @@
+package com.typinggame.websocket;
+
+import com.typinggame.websocket.WebSocketSessionManager.PlayerInfo;
+import com.typinggame.websocket.WebSocketSessionManager.RoomState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the actor-backed STOMP room registry.
+ */
+class WebSocketSessionManagerTest {
+
+    private WebSocketSessionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new WebSocketSessionManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    /**
+     * Messages to a room are applied in order, so waiting on an ask also
+     * waits for everything sent before it.
+     */
+    private void awaitRoom(String roomId) throws Exception {
+        manager.getNextWord(roomId).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testStartRoomIfReady_StartsOnceWithFullRoom() throws Exception {
+        manager.addPlayerToRoom("R1", "alice", "s1");
+        assertNull(manager.startRoomIfReady("R1", 2, () -> "one").get(5, TimeUnit.SECONDS));
+
+        manager.addPlayerToRoom("R1", "bob", "s2");
+        assertEquals("two", manager.startRoomIfReady("R1", 2, () -> "two").get(5, TimeUnit.SECONDS));
+        assertNull(manager.startRoomIfReady("R1", 2, () -> "three").get(5, TimeUnit.SECONDS));
+
+        assertTrue(manager.isRoomStarted("R1"));
+        assertEquals("two", manager.getRoomText("R1"));
+    }
+
+    @Test
+    void testConcurrentFinishers_ExactlyOneWinner() throws Exception {
+        int racers = 50;
+        for (int i = 0; i < racers; i++) {
+            manager.addPlayerToRoom("R2", "racer" + i, "s" + i);
+        }
+
+        CountDownLatch go = new CountDownLatch(1);
+        List<CompletableFuture<String>> claims = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < racers; i++) {
+            String username = "racer" + i;
+            CompletableFuture<String> claim = new CompletableFuture<>();
+            claims.add(claim);
+            Thread t = new Thread(() -> {
+                try {
+                    go.await();
+                    manager.updatePlayerProgress("R2", username, 100, 80.0, "ACTIVE");
+                    manager.claimWinner("R2", username, 80.0).thenAccept(claim::complete);
+                } catch (InterruptedException e) {
+                    claim.completeExceptionally(e);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        go.countDown();
+
+        String winner = null;
+        for (CompletableFuture<String> claim : claims) {
+            String result = claim.get(5, TimeUnit.SECONDS);
+            assertNotNull(result);
+            if (winner == null) winner = result;
+            assertEquals(winner, result);
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        awaitRoom("R2");
+        int finished = 0;
+        for (PlayerInfo player : manager.getPlayersInRoom("R2")) {
+            if ("FINISHED".equals(player.status)) {
+                finished++;
+                assertEquals(winner, player.username);
+            }
+        }
+        assertEquals(1, finished);
+    }
+
+    @Test
+    void testSnapshotsAreImmutableAndListenersSeeChanges() throws Exception {
+        AtomicInteger changes = new AtomicInteger();
+        manager.addRoomChangeListener((roomId, username) -> changes.incrementAndGet());
+
+        manager.addPlayerToRoom("R3", "alice", "s1");
+        awaitRoom("R3");
+        PlayerInfo[] before = manager.getPlayersInRoom("R3");
+
+        manager.updatePlayerProgress("R3", "alice", 40, 60.0, "ACTIVE");
+        awaitRoom("R3");
+
+        assertEquals(0, before[0].progress);
+        assertEquals(40, manager.getPlayersInRoom("R3")[0].progress);
+        assertEquals(2, changes.get());
+    }
+
+    @Test
+    void testEmptyRoomIsDroppedAndCanBeReused() throws Exception {
+        manager.addPlayerToRoom("R4", "alice", "s1");
+        manager.startRoomIfReady("R4", 1, () -> "text").get(5, TimeUnit.SECONDS);
+
+        manager.removePlayerFromRoom("R4", "alice");
+        manager.addPlayerToRoom("R4", "bob", "s2");
+        awaitRoom("R4");
+
+        PlayerInfo[] players = manager.getPlayersInRoom("R4");
+        assertEquals(1, players.length);
+        assertEquals("bob", players[0].username);
+        assertFalse(manager.isRoomStarted("R4"));
+    }
+
+    @Test
+    void testRemoveSession_LeavesEveryRoomAndReclaimsEmptyOnes() throws Exception {
+        AtomicInteger retired = new AtomicInteger();
+        manager.addRoomRetiredListener((roomId, players, words) -> retired.incrementAndGet());
+
+        manager.addPlayerToRoom("R5", "alice", "s1");
+        manager.addPlayerToRoom("R6", "alice", "s1");
+        manager.addPlayerToRoom("R6", "bob", "s2");
+        awaitRoom("R5");
+        awaitRoom("R6");
+        assertEquals(2, manager.getRoomCount());
+
+        assertEquals(2, manager.removeSession("s1"));
+        assertEquals(0, manager.removeSession("s1"));
+        awaitRoom("R6");
+
+        assertEquals(1, manager.getRoomCount());
+        assertEquals(1, retired.get());
+        assertEquals("bob", manager.getPlayersInRoom("R6")[0].username);
+        assertEquals(1, manager.getIndexedSessionCount());
+    }
+
+    @Test
+    void testRemoveSession_IgnoresPlayerWhoRejoinedOnNewSession() throws Exception {
+        manager.addPlayerToRoom("R7", "alice", "old");
+        manager.addPlayerToRoom("R7", "alice", "new");
+        manager.removeSession("old");
+        awaitRoom("R7");
+
+        assertEquals(1, manager.getPlayersInRoom("R7").length);
+    }
+
+    @Test
+    void testExpireIdleRooms_DropsFinishedAndAbandonedRooms() throws Exception {
+        manager.addPlayerToRoom("finished", "alice", "s1");
+        manager.claimWinner("finished", "alice", 70.0).get(5, TimeUnit.SECONDS);
+        manager.addPlayerToRoom("active", "bob", "s2");
+        awaitRoom("active");
+
+        long now = System.currentTimeMillis() + 1000;
+        List<CompletableFuture<Boolean>> results = manager.expireIdleRooms(now, 500, 60000);
+        int reclaimed = 0;
+        for (CompletableFuture<Boolean> result : results) {
+            if (result.get(5, TimeUnit.SECONDS)) reclaimed++;
+        }
+
+        assertEquals(1, reclaimed);
+        assertEquals(1, manager.getRoomCount());
+        assertTrue(manager.hasPlayers("active"));
+        assertFalse(manager.hasPlayers("finished"));
+
+        // Past the abandoned TTL everything goes
+        for (CompletableFuture<Boolean> result : manager.expireIdleRooms(now + 60000, 500, 60000)) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(0, manager.getRoomCount());
+    }
+
+    @Test
+    void testVersionedState_DeltaHasOnlyWhatChanged() throws Exception {
+        manager.addPlayerToRoom("R8", "alice", "s1");
+        manager.addPlayerToRoom("R8", "bob", "s2");
+        manager.addPlayerToRoom("R8", "carol", "s3");
+        manager.startRoomIfReady("R8", 3, () -> "race text").get(5, TimeUnit.SECONDS);
+        RoomState seen = manager.getRoomState("R8");
+
+        manager.updatePlayerProgress("R8", "bob", 30, 50.0, "ACTIVE");
+        manager.removePlayerFromRoom("R8", "carol");
+        awaitRoom("R8");
+        RoomState now = manager.getRoomState("R8");
+
+        assertTrue(now.version > seen.version);
+        assertEquals(seen.epoch, now.epoch);
+        assertTrue(now.canDeltaFrom(seen.epoch, seen.version));
+        PlayerInfo[] changed = now.playersChangedSince(seen.version);
+        assertEquals(1, changed.length);
+        assertEquals("bob", changed[0].username);
+        assertArrayEquals(new String[] {"carol"}, now.removedSince(seen.version));
+        assertEquals(0, now.playersChangedSince(now.version).length);
+
+        // Before the start the client lacks the text, so only a snapshot will do
+        assertFalse(now.canDeltaFrom(now.epoch, 0));
+        // A version this room hasn't reached yet
+        assertFalse(now.canDeltaFrom(now.epoch, now.version + 1));
+    }
+
+    @Test
+    void testRecreatedRoom_OldEpochForcesSnapshot() throws Exception {
+        manager.addPlayerToRoom("R10", "alice", "s1");
+        manager.addPlayerToRoom("R10", "bob", "s2");
+        manager.startRoomIfReady("R10", 2, () -> "old text").get(5, TimeUnit.SECONDS);
+        RoomState seen = manager.getRoomState("R10");
+
+        // Everyone leaves, the room retires, and the same id is used again
+        manager.removePlayerFromRoom("R10", "alice");
+        manager.removePlayerFromRoom("R10", "bob");
+        awaitRoom("R10");
+        manager.addPlayerToRoom("R10", "carol", "s3");
+        manager.addPlayerToRoom("R10", "dave", "s4");
+        manager.startRoomIfReady("R10", 2, () -> "new text").get(5, TimeUnit.SECONDS);
+        for (int progress = 10; progress <= 50; progress += 10) {
+            manager.updatePlayerProgress("R10", "carol", progress, 60.0, "ACTIVE");
+            awaitRoom("R10");
+        }
+        RoomState now = manager.getRoomState("R10");
+
+        assertEquals("new text", now.text);
+        assertNotEquals(seen.epoch, now.epoch);
+        assertTrue(now.version > seen.version, "versions alone can't tell the rooms apart");
+        assertFalse(now.canDeltaFrom(seen.epoch, seen.version));
+        assertTrue(now.canDeltaFrom(now.epoch, now.version));
+    }
+
+    @Test
+    void testRejoinKeepsProgressAndForgottenRemovalsForceSnapshot() throws Exception {
+        manager.addPlayerToRoom("R9", "host", "s0");
+        manager.addPlayerToRoom("R9", "alice", "s1");
+        manager.startRoomIfReady("R9", 2, () -> "text").get(5, TimeUnit.SECONDS);
+        manager.updatePlayerProgress("R9", "alice", 60, 70.0, "ACTIVE");
+        awaitRoom("R9");
+        long seen = manager.getRoomState("R9").version;
+
+        // Reconnect on a new session: same place in the race
+        manager.addPlayerToRoom("R9", "alice", "s1-again");
+        awaitRoom("R9");
+        assertEquals(60, manager.getPlayersInRoom("R9")[1].progress);
+
+        // More departures than the room remembers: old clients need a snapshot
+        for (int i = 0; i <= RoomActor.MAX_TOMBSTONES; i++) {
+            manager.addPlayerToRoom("R9", "guest" + i, "g" + i);
+            awaitRoom("R9");
+            manager.removePlayerFromRoom("R9", "guest" + i);
+            awaitRoom("R9");
+        }
+        RoomState now = manager.getRoomState("R9");
+        assertFalse(now.canDeltaFrom(now.epoch, seen));
+        assertTrue(now.canDeltaFrom(now.epoch, now.version - 1));
+        assertEquals(RoomActor.MAX_TOMBSTONES, now.removedSince(0).length);
+    }
+}